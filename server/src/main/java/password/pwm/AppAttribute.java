@@ -38,6 +38,7 @@ public enum AppAttribute
     CONFIG_LOGIN_HISTORY( "config.loginHistory" ),
     LOCALDB_LOGGER_STORAGE_FORMAT( "localdb.logger.storage.format" ),
     VERSION_CHECK_CACHE( "versionCheckInfoCache" ),
+    CACHE_LOCALDB_CONFIG_HASH( "cache.localdb.configHash" ),
 
     TELEMETRY_LAST_PUBLISH_TIMESTAMP( "telemetry.lastPublish.timestamp" );
 
@@ -51,7 +51,12 @@ public enum AppProperty
     BACKUP_CONFIG_COUNT                             ( "backup.config.count" ),
     BACKUP_LOCALDB_COUNT                            ( "backup.localdb.count" ),
     CACHE_ENABLE                                    ( "cache.enable" ),
-    CACHE_MEMORY_MAX_ITEMS                          ( "cache.memory.maxItems" ),
+    CACHE_MEMORY_MAX_BYTES                          ( "cache.memory.maxBytes" ),
+    CACHE_LOCALDB_MAX_BYTES                         ( "cache.localdb.maxBytes" ),
+    CACHE_LOCALDB_ALLOWED_CLASSES                   ( "cache.localdb.allowedClasses" ),
+    CACHE_REFRESH_AHEAD_RATIO                       ( "cache.refreshAhead.ratio" ),
+    CACHE_LOAD_WAIT_TIMEOUT_MS                      ( "cache.loadWaitTimeoutMS" ),
+    CACHE_MEMORY_CODEC                              ( "cache.memory.codec" ),
     CACHE_PWRULECHECK_LIFETIME_MS                   ( "cache.pwRuleCheckLifetimeMS" ),
     CACHE_FORM_UNIQUE_VALUE_LIFETIME_MS             ( "cache.uniqueFormValueLifetimeMS" ),
     CLIENT_ACTIVITY_MAX_EPS_RATE                    ( "client.ajax.activityMaxEpsRate" ),
@@ -90,6 +95,8 @@ public enum AppProperty
     DB_CONNECTIONS_MAX                              ( "db.connections.max" ),
     DB_CONNECTIONS_TIMEOUT_MS                       ( "db.connections.timeoutMs" ),
     DB_CONNECTIONS_WATCHDOG_FREQUENCY_SECONDS       ( "db.connections.watchdogFrequencySeconds" ),
+    DB_CONNECTIONS_WAIT_TIMEOUT_MS                  ( "db.connections.waitTimeoutMs" ),
+    DB_BATCH_SIZE                                   ( "db.batch.size" ),
     DB_INIT_HALT_ON_INDEX_CREATE_ERROR              ( "db.init.haltOnIndexCreateError" ),
     DB_SCHEMA_KEY_LENGTH                            ( "db.schema.keyLength" ),
     DOWNLOAD_FILENAME_STATISTICS_CSV                ( "download.filename.statistics.csv" ),
@@ -105,6 +112,7 @@ public enum AppProperty
     HTTP_RESOURCES_MAX_CACHE_BYTES                  ( "http.resources.maxCacheBytes" ),
     HTTP_RESOURCES_EXPIRATION_SECONDS               ( "http.resources.expirationSeconds" ),
     HTTP_RESOURCES_ENABLE_GZIP                      ( "http.resources.gzip.enable" ),
+    HTTP_RESOURCES_ENABLE_PRECOMPRESS               ( "http.resources.precompress.enable" ),
     HTTP_RESOURCES_PATH_NONCE_LENGTH                ( "http.resources.pathNonce.length" ),
     HTTP_RESOURCES_ENABLE_PATH_NONCE                ( "http.resources.pathNonceEnable" ),
     HTTP_RESOURCES_NONCE_PATH_PREFIX                ( "http.resources.pathNoncePrefix" ),
@@ -146,6 +154,9 @@ public enum AppProperty
     HTTP_HEADER_SEND_XCONTENTTYPEOPTIONS            ( "http.header.sendXContentTypeOptions" ),
     HTTP_HEADER_SEND_XXSSPROTECTION                 ( "http.header.sendXXSSProtection" ),
     HTTP_HEADER_NOISE_LENGTH                        ( "http.header.noise.length" ),
+
+    /** Comma separated address ranges of proxies permitted to supply the X-Forwarded-For header; empty trusts all addresses. */
+    HTTP_HEADER_X_FORWARDED_FOR_TRUSTED_PROXIES     ( "http.header.xForwardedFor.trustedProxies" ),
     HTTP_HEADER_CSP_NONCE_BYTES                     ( "http.header.csp.nonce.bytes" ),
     HTTP_PARAM_NAME_FORWARD_URL                     ( "http.parameter.forward" ),
     HTTP_PARAM_NAME_LOGOUT_URL                      ( "http.parameter.logout" ),
@@ -172,6 +183,9 @@ public enum AppProperty
     HTTP_SERVLET_ENABLE_POST_REDIRECT_GET           ( "http.servlet.enablePostRedirectGet" ),
     L10N_RTL_REGEX                                  ( "l10n.rtl.regex" ),
     LOCALDB_AGGRESSIVE_COMPACT_ENABLED              ( "localdb.aggressiveCompact.enabled" ),
+    LOCALDB_DURABILITY                              ( "localdb.durability" ),
+    LOCALDB_GROUP_COMMIT_INTERVAL_MS                ( "localdb.groupCommit.intervalMs" ),
+    LOCALDB_GROUP_COMMIT_MAX_PENDING_WRITES         ( "localdb.groupCommit.maxPendingWrites" ),
     LOCALDB_IMPLEMENTATION                          ( "localdb.implementation" ),
     LOCALDB_INIT_STRING                             ( "localdb.initParameters" ),
     LOCALDB_LOCATION                                ( "localdb.location" ),
@@ -192,6 +206,11 @@ public enum AppProperty
     INTRUDER_MAX_DELAY_PENALTY_MS                   ( "intruder.maximumDelayPenaltyMS" ),
     INTRUDER_DELAY_PER_COUNT_MS                     ( "intruder.delayPerCountMS" ),
     INTRUDER_DELAY_MAX_JITTER_MS                    ( "intruder.delayMaxJitterMS" ),
+    INTRUDER_WRITE_BEHIND_INTERVAL_MS               ( "intruder.writeBehindIntervalMS" ),
+    INTRUDER_COUNTER_IDLE_TIMEOUT_MS                ( "intruder.counterIdleTimeoutMS" ),
+
+    /** Comma separated address ranges that are never recorded as intruder addresses. */
+    INTRUDER_ADDRESS_EXEMPT_RANGES                  ( "intruder.address.exemptRanges" ),
     HEALTHCHECK_ENABLED                             ( "healthCheck.enabled" ),
     HEALTHCHECK_NOMINAL_CHECK_INTERVAL              ( "healthCheck.nominalCheckIntervalSeconds" ),
     HEALTHCHECK_MIN_CHECK_INTERVAL                  ( "healthCheck.minimumCheckIntervalSeconds" ),
@@ -217,6 +236,7 @@ public enum AppProperty
     LDAP_CACHE_CANONICAL_SECONDS                    ( "ldap.cache.canonical.seconds" ),
     LDAP_CACHE_USER_GUID_ENABLE                     ( "ldap.cache.userGuid.enable" ),
     LDAP_CACHE_USER_GUID_SECONDS                    ( "ldap.cache.userGuid.seconds" ),
+    LDAP_USERINFO_PREFETCH_ENABLE                   ( "ldap.userInfo.prefetch.enable" ),
     LDAP_CHAI_SETTINGS                              ( "ldap.chaiSettings" ),
     LDAP_PROXY_CONNECTION_PER_PROFILE               ( "ldap.proxy.connectionsPerProfile" ),
     LDAP_PROXY_MAX_CONNECTIONS                      ( "ldap.proxy.maxConnections" ),
@@ -280,6 +300,7 @@ public enum AppProperty
     PASSWORD_RANDOMGEN_MAX_LENGTH                   ( "password.randomGenerator.maxLength" ),
     PASSWORD_RANDOMGEN_JITTER_COUNT                 ( "password.randomGenerator.jitter.count" ),
     PASSWORD_RANDOMGEN_MIN_LENGTH                   ( "password.randomGenerator.minLength" ),
+    PASSWORD_RANDOMGEN_MODE                         ( "password.randomGenerator.mode" ),
     PASSWORD_RANDOMGEN_DEFAULT_STRENGTH             ( "password.randomGenerator.defaultStrength" ),
 
     /* Strength thresholds, introduced by the addition of the zxcvbn strength meter library (since it has 5 levels) */
@@ -308,10 +329,12 @@ public enum AppProperty
     QUEUE_EMAIL_RETRY_TIMEOUT_MS                    ( "queue.email.retryTimeoutMs" ),
     QUEUE_EMAIL_MAX_COUNT                           ( "queue.email.maxCount" ),
     QUEUE_EMAIL_MAX_THREADS                         ( "queue.email.maxThreads" ),
+    QUEUE_EMAIL_WORKER_THREADS                      ( "queue.email.workerThreads" ),
     QUEUE_EMAIL_MAX_ITEMS_PER_CONNECTION            ( "queue.email.maxItemsPerConnection" ),
     QUEUE_EMAIL_MAX_SECONDS_PER_CONNECTION          ( "queue.email.maxSecondsPerConnection" ),
     QUEUE_SMS_RETRY_TIMEOUT_MS                      ( "queue.sms.retryTimeoutMs" ),
     QUEUE_SMS_MAX_COUNT                             ( "queue.sms.maxCount" ),
+    QUEUE_SMS_WORKER_THREADS                        ( "queue.sms.workerThreads" ),
     QUEUE_SYSLOG_RETRY_TIMEOUT_MS                   ( "queue.syslog.retryTimeoutMs" ),
     QUEUE_SYSLOG_MAX_AGE_MS                         ( "queue.syslog.maxAgeMs" ),
     QUEUE_SYSLOG_MAX_COUNT                          ( "queue.syslog.maxCount" ),
@@ -387,10 +410,19 @@ public enum AppProperty
     WORDLIST_IMPORT_MAX_TRANSACTIONS                ( "wordlist.import.maxTransactions" ),
     WORDLIST_IMPORT_MAX_CHARS_TRANSACTIONS          ( "wordlist.import.maxCharsTransactions" ),
     WORDLIST_IMPORT_LINE_COMMENTS                   ( "wordlist.import.lineComments" ),
+    WORDLIST_IMPORT_PARSER_THREADS                  ( "wordlist.import.parserThreads" ),
+    WORDLIST_IMPORT_PIPELINE_BATCHES                ( "wordlist.import.pipelineBatches" ),
+    WORDLIST_IMPORT_LINES_PER_BATCH                 ( "wordlist.import.linesPerBatch" ),
     WORDLIST_INSPECTOR_FREQUENCY_SECONDS            ( "wordlist.inspector.frequencySeconds" ),
     WORDLIST_TEST_MODE                              ( "wordlist.testMode" ),
     WORDLIST_BUCKET_CHECK_TIME_WARNING_MS           ( "wordlist.bucket.checkTimeWarningMs" ),
+    WORDLIST_BUCKET_TYPE                            ( "wordlist.bucket.type" ),
+    WORDLIST_FILTER_ENABLE                          ( "wordlist.filter.enable" ),
+    WORDLIST_FILTER_BITS_PER_ENTRY                  ( "wordlist.filter.bitsPerEntry" ),
+    WORDLIST_FILTER_MAX_BYTES                       ( "wordlist.filter.maxBytes" ),
+    WORDLIST_HASH_STORAGE                           ( "wordlist.hashStorage" ),
     WS_REST_CLIENT_PWRULE_HALTONERROR               ( "ws.restClient.pwRule.haltOnError" ),
+    WS_REST_SERVER_METRICS_CACHE_SECONDS            ( "ws.restServer.metrics.cacheSeconds" ),
     WS_REST_SERVER_SIGNING_FORM_TIMEOUT_SECONDS     ( "ws.restServer.signing.form.timeoutSeconds" ),
     WS_REST_SERVER_STATISTICS_DEFAULT_HISTORY       ( "ws.restServer.statistics.defaultHistoryDays" ),
     WS_REST_SERVER_STATISTICS_DEFAULT_VERSION       ( "ws.restServer.statistics.defaultVersion" ),
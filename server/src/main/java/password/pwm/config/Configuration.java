@@ -61,6 +61,7 @@ import password.pwm.error.ErrorInformation;
 import password.pwm.error.PwmError;
 import password.pwm.error.PwmUnrecoverableException;
 import password.pwm.i18n.PwmLocaleBundle;
+import password.pwm.util.IPPrefixMatcher;
 import password.pwm.util.PasswordData;
 import password.pwm.util.i18n.LocaleHelper;
 import password.pwm.util.java.LazySupplier;
@@ -74,6 +75,7 @@ import password.pwm.util.secure.SecureService;
 import java.lang.reflect.InvocationTargetException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.LinkedHashMap;
@@ -85,6 +87,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -128,6 +131,32 @@ public class Configuration
         return settingReader.readSettingAsUserPermission( setting );
     }
 
+    /**
+     * Read a string array setting of address ranges as a compiled matcher.  The matcher is built once per
+     * configuration instance.
+     *
+     * @param setting a string array setting containing {@link password.pwm.util.IPMatcher} range specifications
+     * @return compiled matcher, empty if no ranges are configured
+     */
+    public IPPrefixMatcher readSettingAsIPMatcher( final PwmSetting setting )
+    {
+        return dataCache.ipMatchers.computeIfAbsent( "setting:" + setting.getKey(),
+                k -> IPPrefixMatcher.compile( readSettingAsStringArray( setting ) ) );
+    }
+
+    /**
+     * Read a comma separated app property of address ranges as a compiled matcher.  The matcher is built once per
+     * configuration instance.
+     *
+     * @param property an app property containing {@link password.pwm.util.IPMatcher} range specifications
+     * @return compiled matcher, empty if no ranges are configured
+     */
+    public IPPrefixMatcher readAppPropertyAsIPMatcher( final AppProperty property )
+    {
+        return dataCache.ipMatchers.computeIfAbsent( "appProperty:" + property.getKey(),
+                k -> IPPrefixMatcher.compile( Arrays.asList( readAppProperty( property ).split( "," ) ) ) );
+    }
+
     public Map<String, LdapProfile> getLdapProfiles( )
     {
         return configurationSuppliers.ldapProfilesSupplier.get();
@@ -576,6 +605,7 @@ public class Configuration
         private final Map<String, Map<Locale, PwmPasswordPolicy>> cachedPasswordPolicy = new LinkedHashMap<>();
         private final Map<String, Map<Locale, String>> customText = new LinkedHashMap<>();
         private final Map<ProfileDefinition, Map> profileCache = new LinkedHashMap<>();
+        private final Map<String, IPPrefixMatcher> ipMatchers = new ConcurrentHashMap<>();
     }
 
     public Map<AppProperty, String> readAllNonDefaultAppProperties( )
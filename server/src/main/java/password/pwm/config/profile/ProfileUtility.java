@@ -33,6 +33,11 @@ import password.pwm.http.PwmRequestContext;
 import password.pwm.ldap.permission.UserPermissionUtility;
 import password.pwm.util.logging.PwmLogger;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -77,17 +82,45 @@ public class ProfileUtility
     )
             throws PwmUnrecoverableException
     {
-        final Map<String, Profile> profileMap = pwmApplication.getConfig().profileMap( profileDefinition );
-        for ( final Profile profile : profileMap.values() )
+        return Optional.ofNullable( discoverProfileIDsForUser( pwmApplication, sessionLabel, userIdentity, Collections.singletonList( profileDefinition ) )
+                .get( profileDefinition ) );
+    }
+
+    /**
+     * Discover the assigned profile for each of the given profile definitions.  The permissions of every profile are
+     * evaluated together as a single batch, so the number of LDAP operations does not grow with the number of profiles.
+     */
+    public static Map<ProfileDefinition, String> discoverProfileIDsForUser(
+            final PwmApplication pwmApplication,
+            final SessionLabel sessionLabel,
+            final UserIdentity userIdentity,
+            final Collection<ProfileDefinition> profileDefinitions
+    )
+            throws PwmUnrecoverableException
+    {
+        final List<ProfileDefinition> definitionForIndex = new ArrayList<>();
+        final List<String> profileIdForIndex = new ArrayList<>();
+        final List<List<UserPermission>> permissionLists = new ArrayList<>();
+
+        for ( final ProfileDefinition profileDefinition : profileDefinitions )
         {
-            final List<UserPermission> queryMatches = profile.profilePermissions();
-            final boolean match = UserPermissionUtility.testUserPermission( pwmApplication, sessionLabel, userIdentity, queryMatches );
-            if ( match )
+            final Map<String, Profile> profileMap = pwmApplication.getConfig().profileMap( profileDefinition );
+            for ( final Profile profile : profileMap.values() )
             {
-                return Optional.of( profile.getIdentifier() );
+                definitionForIndex.add( profileDefinition );
+                profileIdForIndex.add( profile.getIdentifier() );
+                permissionLists.add( profile.profilePermissions() );
             }
         }
-        return Optional.empty();
+
+        final BitSet matches = UserPermissionUtility.testUserPermissions( pwmApplication, sessionLabel, userIdentity, permissionLists );
+
+        final Map<ProfileDefinition, String> returnMap = new EnumMap<>( ProfileDefinition.class );
+        for ( int i = matches.nextSetBit( 0 ); i >= 0; i = matches.nextSetBit( i + 1 ) )
+        {
+            returnMap.putIfAbsent( definitionForIndex.get( i ), profileIdForIndex.get( i ) );
+        }
+        return Collections.unmodifiableMap( returnMap );
     }
 
     public static List<String> profileIDsForCategory( final Configuration configuration, final PwmSettingCategory pwmSettingCategory )
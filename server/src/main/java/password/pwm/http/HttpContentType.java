@@ -36,6 +36,7 @@ public enum HttpContentType
     csv( HttpEntityDataType.String, PwmConstants.DEFAULT_CHARSET, "text/csv" ),
     javascript( HttpEntityDataType.String, PwmConstants.DEFAULT_CHARSET, "text/javascript" ),
     plain( HttpEntityDataType.String, PwmConstants.DEFAULT_CHARSET, "text/plain" ),
+    openmetrics( HttpEntityDataType.String, PwmConstants.DEFAULT_CHARSET, "application/openmetrics-text" ),
     html( HttpEntityDataType.String, PwmConstants.DEFAULT_CHARSET, "text/html" ),
     form( HttpEntityDataType.String, PwmConstants.DEFAULT_CHARSET, "application/x-www-form-urlencoded" ),
     png( HttpEntityDataType.ByteArray, null, "image/png" ),
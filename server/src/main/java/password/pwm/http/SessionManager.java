@@ -26,7 +26,6 @@ import com.novell.ldapchai.provider.ChaiProvider;
 import password.pwm.Permission;
 import password.pwm.PwmApplication;
 import password.pwm.bean.UserIdentity;
-import password.pwm.config.PwmSetting;
 import password.pwm.config.profile.AccountInformationProfile;
 import password.pwm.config.profile.ChangePasswordProfile;
 import password.pwm.config.profile.DeleteAccountProfile;
@@ -40,6 +39,7 @@ import password.pwm.config.value.data.UserPermission;
 import password.pwm.error.ErrorInformation;
 import password.pwm.error.PwmError;
 import password.pwm.error.PwmUnrecoverableException;
+import password.pwm.http.bean.UserSessionDataCacheBean;
 import password.pwm.ldap.LdapOperationsHelper;
 import password.pwm.ldap.permission.UserPermissionUtility;
 import password.pwm.ldap.UserInfo;
@@ -48,6 +48,8 @@ import password.pwm.util.PasswordData;
 import password.pwm.util.logging.PwmLogger;
 import password.pwm.util.macro.MacroRequest;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -224,11 +226,8 @@ public class SessionManager
                         () -> String.format( "checking permission %s for user %s", permission.toString(), pwmSession.getUserInfo().getUserIdentity().toDelimitedKey() ) );
             }
 
-            final PwmSetting setting = permission.getPwmSetting();
-            final List<UserPermission> userPermission = pwmApplication.getConfig().readSettingAsUserPermission( setting );
-            final boolean result = UserPermissionUtility.testUserPermission( pwmApplication, pwmSession.getLabel(), pwmSession.getUserInfo().getUserIdentity(), userPermission );
-            status = result ? Permission.PermissionStatus.GRANTED : Permission.PermissionStatus.DENIED;
-            pwmSession.getUserSessionDataCacheBean().setPermission( permission, status );
+            checkUncheckedPermissions( pwmApplication );
+            status = pwmSession.getUserSessionDataCacheBean().getPermission( permission );
 
             {
                 final Permission.PermissionStatus finalStatus = status;
@@ -244,6 +243,39 @@ public class SessionManager
         return status == Permission.PermissionStatus.GRANTED;
     }
 
+    /**
+     * Evaluate every permission not yet cached for the session as a single batch, so that the first
+     * permission check of a session costs the same LDAP operations as checking them all.
+     */
+    private void checkUncheckedPermissions( final PwmApplication pwmApplication )
+            throws PwmUnrecoverableException
+    {
+        final UserSessionDataCacheBean cacheBean = pwmSession.getUserSessionDataCacheBean();
+        final List<Permission> uncheckedPermissions = new ArrayList<>();
+        final List<List<UserPermission>> permissionLists = new ArrayList<>();
+        for ( final Permission permission : Permission.values() )
+        {
+            if ( cacheBean.getPermission( permission ) == Permission.PermissionStatus.UNCHECKED )
+            {
+                uncheckedPermissions.add( permission );
+                permissionLists.add( pwmApplication.getConfig().readSettingAsUserPermission( permission.getPwmSetting() ) );
+            }
+        }
+
+        final BitSet matches = UserPermissionUtility.testUserPermissions(
+                pwmApplication,
+                pwmSession.getLabel(),
+                pwmSession.getUserInfo().getUserIdentity(),
+                permissionLists );
+
+        for ( int i = 0; i < uncheckedPermissions.size(); i++ )
+        {
+            cacheBean.setPermission( uncheckedPermissions.get( i ), matches.get( i )
+                    ? Permission.PermissionStatus.GRANTED
+                    : Permission.PermissionStatus.DENIED );
+        }
+    }
+
     public MacroRequest getMacroMachine( )
             throws PwmUnrecoverableException
     {
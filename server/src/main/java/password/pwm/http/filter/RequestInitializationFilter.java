@@ -46,6 +46,7 @@ import password.pwm.svc.stats.EpsStatistic;
 import password.pwm.svc.stats.Statistic;
 import password.pwm.svc.stats.StatisticsManager;
 import password.pwm.util.IPMatcher;
+import password.pwm.util.IPPrefixMatcher;
 import password.pwm.util.i18n.LocaleHelper;
 import password.pwm.util.java.StringUtil;
 import password.pwm.util.java.TimeDuration;
@@ -473,7 +474,9 @@ public class RequestInitializationFilter implements Filter
     {
         final List<String> candidateAddresses = new ArrayList<>();
 
-        final boolean useXForwardedFor = config != null && config.readSettingAsBoolean( PwmSetting.USE_X_FORWARDED_FOR_HEADER );
+        final boolean useXForwardedFor = config != null
+                && config.readSettingAsBoolean( PwmSetting.USE_X_FORWARDED_FOR_HEADER )
+                && isTrustedProxy( request.getRemoteAddr(), config );
         if ( useXForwardedFor )
         {
             final String xForwardedForValue = request.getHeader( HttpHeader.XForwardedFor.getHttpName() );
@@ -505,6 +508,34 @@ public class RequestInitializationFilter implements Filter
         return "";
     }
 
+    /**
+     * Checks if forwarding headers should be accepted from the connecting address.  If no trusted proxy ranges are
+     * configured, all addresses are trusted.
+     */
+    private static boolean isTrustedProxy( final String remoteAddress, final Configuration config )
+    {
+        final IPPrefixMatcher trustedProxies = config.readAppPropertyAsIPMatcher( AppProperty.HTTP_HEADER_X_FORWARDED_FOR_TRUSTED_PROXIES );
+        if ( trustedProxies.isEmpty() )
+        {
+            return true;
+        }
+
+        try
+        {
+            if ( !StringUtil.isEmpty( remoteAddress ) && trustedProxies.match( remoteAddress ) )
+            {
+                return true;
+            }
+        }
+        catch ( final IPMatcher.IPMatcherException e )
+        {
+            LOGGER.trace( () -> "unable to parse request remote address '" + remoteAddress + "': " + e.getMessage() );
+        }
+
+        LOGGER.trace( () -> "ignoring " + HttpHeader.XForwardedFor.getHttpName() + " header from untrusted address '" + remoteAddress + "'" );
+        return false;
+    }
+
     private static void handleRequestInitialization(
             final PwmRequest pwmRequest
     )
@@ -685,33 +716,18 @@ public class RequestInitializationFilter implements Filter
     private static void checkSourceNetworkAddress( final PwmRequest pwmRequest )
             throws PwmUnrecoverableException
     {
-        final List<String> requiredHeaders = pwmRequest.getConfig().readSettingAsStringArray( PwmSetting.IP_PERMITTED_RANGE );
-        if ( requiredHeaders != null && !requiredHeaders.isEmpty() )
+        final IPPrefixMatcher permittedRanges = pwmRequest.getConfig().readSettingAsIPMatcher( PwmSetting.IP_PERMITTED_RANGE );
+        if ( !permittedRanges.isEmpty() )
         {
             boolean match = false;
             final String requestAddress = pwmRequest.getHttpServletRequest().getRemoteAddr();
-            for ( int i = 0; i < requiredHeaders.size() && !match; i++ )
+            try
             {
-                final String ipMatchString = requiredHeaders.get( i );
-                try
-                {
-                    final IPMatcher ipMatcher = new IPMatcher( ipMatchString );
-                    try
-                    {
-                        if ( ipMatcher.match( requestAddress ) )
-                        {
-                            match = true;
-                        }
-                    }
-                    catch ( final IPMatcher.IPMatcherException e )
-                    {
-                        LOGGER.error( () -> "error while attempting to match permitted address range '" + ipMatchString + "', error: " + e );
-                    }
-                }
-                catch ( final IPMatcher.IPMatcherException e )
-                {
-                    LOGGER.error( () -> "error parsing permitted address range '" + ipMatchString + "', error: " + e );
-                }
+                match = permittedRanges.match( requestAddress );
+            }
+            catch ( final IPMatcher.IPMatcherException e )
+            {
+                LOGGER.error( () -> "error while attempting to match permitted address ranges for '" + requestAddress + "', error: " + e );
             }
             if ( !match )
             {
@@ -84,6 +84,7 @@ import java.io.Writer;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadInfo;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -784,6 +785,8 @@ public class AdminServlet extends ControlledPwmServlet
             final PwmLogLevel logLevel = JavaHelper.readEnumFromString( PwmLogLevel.class, PwmLogLevel.TRACE, inputMap.get( "level" ) );
             final LocalDBLogger.EventType logType = JavaHelper.readEnumFromString( LocalDBLogger.EventType.class, LocalDBLogger.EventType.Both, inputMap.get( "type" ) );
             logDisplayType = JavaHelper.readEnumFromString( LogDisplayType.class, LogDisplayType.grid, inputMap.get( "displayType" ) );
+            final Instant startTime = readLogTimeBound( inputMap.get( "startTime" ), localDBLogger.retentionWindowStart() );
+            final Instant endTime = readLogTimeBound( inputMap.get( "endTime" ), null );
 
             searchParameters = LocalDBSearchQuery.builder()
                     .minimumLevel( logLevel )
@@ -792,6 +795,8 @@ public class AdminServlet extends ControlledPwmServlet
                     .text( text )
                     .maxQueryTime( maxTimeSeconds )
                     .eventType( logType )
+                    .startTime( startTime )
+                    .endTime( endTime )
                     .build();
         }
 
@@ -824,6 +829,24 @@ public class AdminServlet extends ControlledPwmServlet
         return ProcessStatus.Halt;
     }
 
+    private static Instant readLogTimeBound( final String value, final Instant defaultValue )
+    {
+        if ( StringUtil.isEmpty( value ) )
+        {
+            return defaultValue;
+        }
+
+        try
+        {
+            return JavaHelper.parseIsoToInstant( value );
+        }
+        catch ( final DateTimeParseException e )
+        {
+            LOGGER.trace( () -> "ignoring unparseable log search time bound '" + value + "': " + e.getMessage() );
+            return defaultValue;
+        }
+    }
+
     public enum LogDownloadType
     {
         plain,
@@ -847,6 +870,7 @@ public class AdminServlet extends ControlledPwmServlet
         final LocalDBSearchQuery searchParameters = LocalDBSearchQuery.builder()
                 .minimumLevel( PwmLogLevel.TRACE )
                 .eventType( LocalDBLogger.EventType.Both )
+                .startTime( localDBLogger.retentionWindowStart() )
                 .build();
 
         final LocalDBSearchResults searchResults = localDBLogger.readStoredEvents( searchParameters );
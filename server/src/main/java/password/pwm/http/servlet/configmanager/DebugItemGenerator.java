@@ -610,6 +610,7 @@ public class DebugItemGenerator
                 .minimumLevel( PwmLogLevel.TRACE )
                 .maxEvents( Integer.MAX_VALUE )
                 .maxQueryTime( TimeDuration.of( maxSeconds, TimeDuration.Unit.SECONDS ) )
+                .startTime( pwmApplication.getLocalDBLogger().retentionWindowStart() )
                 .build();
 
         final LocalDBSearchResults searchResults = pwmApplication.getLocalDBLogger().readStoredEvents( searchParameters );
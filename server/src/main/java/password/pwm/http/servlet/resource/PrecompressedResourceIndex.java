@@ -0,0 +1,277 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.http.servlet.resource;
+
+import lombok.Value;
+import password.pwm.error.PwmUnrecoverableException;
+import password.pwm.util.java.FileSystemUtility;
+import password.pwm.util.java.JavaHelper;
+import password.pwm.util.java.StringUtil;
+import password.pwm.util.logging.PwmLogger;
+import password.pwm.util.secure.PwmHashAlgorithm;
+import password.pwm.util.secure.SecureEngine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Index of the static files in the web application's resource directory, built once at startup.  Every file is
+ * hashed for a strong ETag so that conditional requests can be answered without touching the file, and compressible
+ * files are gzipped ahead of time into a work directory so that requests are served straight from disk.
+ *
+ * <p>Brotli output is not generated since no encoder is available at runtime, but a {@code .br} (or {@code .gz})
+ * file placed next to a resource by the build is picked up and used in preference to a generated variant.</p>
+ */
+class PrecompressedResourceIndex
+{
+    private static final PwmLogger LOGGER = PwmLogger.forClass( PrecompressedResourceIndex.class );
+
+    private static final Set<String> COMPRESSIBLE_EXTENSIONS = Set.of( "css", "js", "mjs", "html", "htm", "txt", "csv", "svg", "json", "xml", "map" );
+
+    private static final PrecompressedResourceIndex EMPTY = new PrecompressedResourceIndex( Collections.emptyMap() );
+
+    enum Encoding
+    {
+        BROTLI( "br", ".br" ),
+        GZIP( "gzip", ".gz" ),
+        IDENTITY( null, "" ),;
+
+        private final String httpName;
+        private final String fileSuffix;
+
+        Encoding( final String httpName, final String fileSuffix )
+        {
+            this.httpName = httpName;
+            this.fileSuffix = fileSuffix;
+        }
+
+        String getHttpName()
+        {
+            return httpName;
+        }
+    }
+
+    @Value
+    static class Entry
+    {
+        private final String name;
+        private final String contentHash;
+        private final Map<Encoding, File> files;
+
+        String etag( final Encoding encoding )
+        {
+            return encoding == Encoding.IDENTITY
+                    ? '"' + contentHash + '"'
+                    : '"' + contentHash + "-" + encoding.getHttpName() + '"';
+        }
+
+        /**
+         * Find the representation tag listed in an {@code If-None-Match} header value, if any.
+         */
+        Optional<String> matchingEtag( final String ifNoneMatchValue )
+        {
+            if ( StringUtil.isEmpty( ifNoneMatchValue ) )
+            {
+                return Optional.empty();
+            }
+
+            for ( final String rawTag : ifNoneMatchValue.split( "," ) )
+            {
+                final String tag = rawTag.trim().startsWith( "W/" ) ? rawTag.trim().substring( 2 ) : rawTag.trim();
+                for ( final Encoding encoding : files.keySet() )
+                {
+                    if ( "*".equals( tag ) || etag( encoding ).equals( tag ) )
+                    {
+                        return Optional.of( etag( encoding ) );
+                    }
+                }
+            }
+
+            return Optional.empty();
+        }
+    }
+
+    private final Map<String, Entry> entries;
+
+    private PrecompressedResourceIndex( final Map<String, Entry> entries )
+    {
+        this.entries = entries;
+    }
+
+    static PrecompressedResourceIndex empty()
+    {
+        return EMPTY;
+    }
+
+    /**
+     * Index and precompress a resource directory.
+     *
+     * @param resourceDirectory directory mapped to {@link ResourceFileServlet#RESOURCE_PATH}
+     * @param outputDirectory work directory for generated compressed files, existing contents are removed
+     * @param excludedPaths request path prefixes that are served by other means and must not be indexed
+     * @return a new index
+     * @throws IOException if the directories can not be read or written
+     * @throws PwmUnrecoverableException if a file can not be hashed
+     */
+    static PrecompressedResourceIndex build(
+            final File resourceDirectory,
+            final File outputDirectory,
+            final Collection<String> excludedPaths
+    )
+            throws IOException, PwmUnrecoverableException
+    {
+        Files.createDirectories( outputDirectory.toPath() );
+        FileSystemUtility.deleteDirectoryContents( outputDirectory );
+
+        final Map<String, Entry> entries = new HashMap<>();
+        final Path basePath = resourceDirectory.toPath();
+        final Collection<Path> paths;
+        try ( Stream<Path> pathStream = Files.walk( basePath ) )
+        {
+            paths = pathStream.filter( Files::isRegularFile ).collect( Collectors.toList() );
+        }
+
+        for ( final Path path : paths )
+        {
+            final String relativePath = basePath.relativize( path ).toString().replace( File.separatorChar, '/' );
+            final String name = ResourceFileServlet.RESOURCE_PATH + "/" + relativePath;
+            if ( isPrecompressedSibling( path ) || excludedPaths.stream().anyMatch( name::startsWith ) )
+            {
+                continue;
+            }
+
+            final File file = path.toFile();
+            final String contentHash = SecureEngine.hash( file, PwmHashAlgorithm.SHA256 );
+            final Map<Encoding, File> files = new EnumMap<>( Encoding.class );
+            files.put( Encoding.IDENTITY, file );
+
+            if ( COMPRESSIBLE_EXTENSIONS.contains( extension( relativePath ) ) )
+            {
+                for ( final Encoding encoding : List.of( Encoding.BROTLI, Encoding.GZIP ) )
+                {
+                    final File sibling = new File( file.getPath() + encoding.fileSuffix );
+                    if ( sibling.isFile() && sibling.lastModified() >= file.lastModified() )
+                    {
+                        files.put( encoding, sibling );
+                    }
+                }
+
+                if ( !files.containsKey( Encoding.GZIP ) )
+                {
+                    gzipFile( file, new File( outputDirectory, contentHash + Encoding.GZIP.fileSuffix ) )
+                            .ifPresent( gzipFile -> files.put( Encoding.GZIP, gzipFile ) );
+                }
+            }
+
+            entries.put( name, new Entry( name, contentHash, Collections.unmodifiableMap( files ) ) );
+        }
+
+        return new PrecompressedResourceIndex( Collections.unmodifiableMap( entries ) );
+    }
+
+    Optional<Entry> lookup( final String requestPath )
+    {
+        if ( entries.isEmpty() || requestPath == null )
+        {
+            return Optional.empty();
+        }
+
+        String name = StringUtil.urlDecode( requestPath );
+        if ( name.contains( ";" ) )
+        {
+            name = name.substring( 0, name.indexOf( ";" ) );
+        }
+        return Optional.ofNullable( entries.get( name ) );
+    }
+
+    int size()
+    {
+        return entries.size();
+    }
+
+    long compressedFileCount()
+    {
+        return entries.values().stream().filter( entry -> entry.getFiles().size() > 1 ).count();
+    }
+
+    private static Optional<File> gzipFile( final File source, final File target )
+            throws IOException
+    {
+        final File tempFile = new File( target.getPath() + ".tmp" );
+        try (
+                InputStream input = Files.newInputStream( source.toPath() );
+                OutputStream output = new GZIPOutputStream( Files.newOutputStream( tempFile.toPath() ) )
+        )
+        {
+            JavaHelper.copy( input, output );
+        }
+
+        // no point serving a compressed variant that saves nothing
+        if ( tempFile.length() >= source.length() )
+        {
+            Files.delete( tempFile.toPath() );
+            return Optional.empty();
+        }
+
+        Files.move( tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING );
+        return Optional.of( target );
+    }
+
+    private static boolean isPrecompressedSibling( final Path path )
+    {
+        final String fileName = path.getFileName().toString();
+        for ( final Encoding encoding : Encoding.values() )
+        {
+            if ( encoding != Encoding.IDENTITY && fileName.endsWith( encoding.fileSuffix ) )
+            {
+                final String baseName = fileName.substring( 0, fileName.length() - encoding.fileSuffix.length() );
+                if ( Files.isRegularFile( path.resolveSibling( baseName ) ) )
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String extension( final String name )
+    {
+        final int dotIndex = name.lastIndexOf( '.' );
+        return dotIndex < 0 ? "" : name.substring( dotIndex + 1 ).toLowerCase();
+    }
+}
@@ -110,8 +110,12 @@ class ResourceFileRequest
     private String getRawMimeType()
             throws PwmUnrecoverableException
     {
-        final String filename = getRequestedFileResource().getName();
-        final String contentType = this.httpServletRequest.getServletContext().getMimeType( filename );
+        return mimeTypeForName( this.httpServletRequest.getServletContext(), getRequestedFileResource().getName() );
+    }
+
+    static String mimeTypeForName( final ServletContext servletContext, final String filename )
+    {
+        final String contentType = servletContext.getMimeType( filename );
         if ( contentType == null )
         {
             if ( filename.endsWith( ".woff2" ) )
@@ -133,17 +137,26 @@ class ResourceFileRequest
         // the browser and expand content type with the one and right character encoding.
         if ( resourceServletConfiguration.isEnableGzip() )
         {
-            final String contentType = getRawMimeType();
-            if ( contentType.startsWith( "text" ) || contentType.contains( "javascript" ) )
+            if ( isCompressibleContentType( getRawMimeType() ) )
             {
-                final PwmHttpRequestWrapper pwmHttpRequestWrapper = new PwmHttpRequestWrapper( httpServletRequest, configuration );
-                final String acceptEncoding = pwmHttpRequestWrapper.readHeaderValueAsString( HttpHeader.AcceptEncoding );
-                return acceptEncoding != null && accepts( acceptEncoding, "gzip" );
+                return acceptsEncoding( "gzip" );
             }
         }
         return false;
     }
 
+    static boolean isCompressibleContentType( final String contentType )
+    {
+        return contentType.startsWith( "text" ) || contentType.contains( "javascript" );
+    }
+
+    boolean acceptsEncoding( final String encoding )
+    {
+        final PwmHttpRequestWrapper pwmHttpRequestWrapper = new PwmHttpRequestWrapper( httpServletRequest, configuration );
+        final String acceptEncoding = pwmHttpRequestWrapper.readHeaderValueAsString( HttpHeader.AcceptEncoding );
+        return acceptEncoding != null && accepts( acceptEncoding, encoding );
+    }
+
     private String stripNonceFromURI(
             final String uriString
     )
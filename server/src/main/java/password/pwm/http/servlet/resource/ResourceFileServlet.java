@@ -46,11 +46,17 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Supplier;
 import java.util.zip.GZIPOutputStream;
 
@@ -147,6 +153,22 @@ public class ResourceFileServlet extends HttpServlet implements PwmServlet
         final ResourceFileRequest resourceFileRequest = new ResourceFileRequest( pwmApplication.getConfig(), resourceConfiguration, pwmRequest.getHttpServletRequest() );
         final String requestURI = resourceFileRequest.getRequestURI();
 
+        final Optional<PrecompressedResourceIndex.Entry> indexEntry = resourceService.getPrecompressedResourceIndex().lookup( requestURI );
+        if ( indexEntry.isPresent() )
+        {
+            try
+            {
+                handleIndexedResponse( pwmRequest, resourceFileRequest, resourceConfiguration, indexEntry.get() );
+                StatisticsManager.incrementStat( pwmApplication, Statistic.HTTP_RESOURCE_REQUESTS );
+                resourceService.getCacheHitRatio().update( 1 );
+            }
+            catch ( final IOException e )
+            {
+                LOGGER.trace( pwmRequest, () -> "error fulfilling response for url '" + requestURI + "', error: " + e.getMessage() );
+            }
+            return;
+        }
+
         final FileResource file;
         try
         {
@@ -332,6 +354,83 @@ public class ResourceFileServlet extends HttpServlet implements PwmServlet
         return fromCache;
     }
 
+    /**
+     * Serve a resource from the startup index.  Conditional requests are answered from the indexed content hash
+     * without touching the file, and the body is transferred directly from the (possibly precompressed) file.
+     */
+    private void handleIndexedResponse(
+            final PwmRequest pwmRequest,
+            final ResourceFileRequest resourceFileRequest,
+            final ResourceServletConfiguration resourceConfiguration,
+            final PrecompressedResourceIndex.Entry indexEntry
+    )
+            throws IOException, PwmUnrecoverableException
+    {
+        final HttpServletResponse response = pwmRequest.getPwmResponse().getHttpServletResponse();
+
+        final Optional<String> matchingEtag = indexEntry.matchingEtag( pwmRequest.readHeaderValueAsString( HttpHeader.If_None_Match ) );
+        if ( matchingEtag.isPresent() )
+        {
+            response.reset();
+            response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+            response.setHeader( HttpHeader.ETag.getHttpName(), matchingEtag.get() );
+            pwmRequest.debugHttpRequestToLog( "returning HTTP 304 status (indexed)", null );
+            return;
+        }
+
+        final String rawContentType = ResourceFileRequest.mimeTypeForName( pwmRequest.getHttpServletRequest().getServletContext(), indexEntry.getName() );
+        final PrecompressedResourceIndex.Encoding encoding = selectEncoding( resourceFileRequest, resourceConfiguration, indexEntry, rawContentType );
+        final File file = indexEntry.getFiles().get( encoding );
+
+        try ( FileChannel fileChannel = FileChannel.open( file.toPath(), StandardOpenOption.READ ) )
+        {
+            final long size = fileChannel.size();
+
+            addExpirationHeaders( resourceConfiguration, response );
+            response.setHeader( HttpHeader.ETag.getHttpName(), indexEntry.etag( encoding ) );
+            response.setContentType( encoding == PrecompressedResourceIndex.Encoding.IDENTITY ? rawContentType + ";charset=UTF-8" : rawContentType );
+            response.setHeader( HttpHeader.ContentLength.getHttpName(), String.valueOf( size ) );
+            if ( encoding != PrecompressedResourceIndex.Encoding.IDENTITY )
+            {
+                response.setHeader( HttpHeader.ContentEncoding.getHttpName(), encoding.getHttpName() );
+            }
+
+            try ( WritableByteChannel outputChannel = Channels.newChannel( response.getOutputStream() ) )
+            {
+                long position = 0;
+                while ( position < size )
+                {
+                    position += fileChannel.transferTo( position, size - position, outputChannel );
+                }
+            }
+        }
+
+        final String debugText = encoding == PrecompressedResourceIndex.Encoding.IDENTITY
+                ? "(indexed)"
+                : "(indexed, " + encoding.getHttpName() + ")";
+        pwmRequest.debugHttpRequestToLog( debugText, () -> TimeDuration.fromCurrent( pwmRequest.getRequestStartTime() ) );
+    }
+
+    private static PrecompressedResourceIndex.Encoding selectEncoding(
+            final ResourceFileRequest resourceFileRequest,
+            final ResourceServletConfiguration resourceConfiguration,
+            final PrecompressedResourceIndex.Entry indexEntry,
+            final String rawContentType
+    )
+    {
+        if ( resourceConfiguration.isEnableGzip() && ResourceFileRequest.isCompressibleContentType( rawContentType ) )
+        {
+            for ( final PrecompressedResourceIndex.Encoding encoding : indexEntry.getFiles().keySet() )
+            {
+                if ( encoding != PrecompressedResourceIndex.Encoding.IDENTITY && resourceFileRequest.acceptsEncoding( encoding.getHttpName() ) )
+                {
+                    return encoding;
+                }
+            }
+        }
+        return PrecompressedResourceIndex.Encoding.IDENTITY;
+    }
+
     private static void handleUncachedResponse(
             final HttpServletResponse response,
             final FileResource file,
@@ -45,11 +45,13 @@ import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -62,6 +64,7 @@ public class ResourceServletService implements PwmService
     private Cache<CacheKey, CacheEntry> cache;
     private final MovingAverage cacheHitRatio = new MovingAverage( 60 * 60 * 1000 );
     private String resourceNonce;
+    private PrecompressedResourceIndex precompressedResourceIndex = PrecompressedResourceIndex.empty();
     private STATUS status = STATUS.CLOSED;
 
     private PwmApplication pwmApplication;
@@ -76,6 +79,11 @@ public class ResourceServletService implements PwmService
         return cache;
     }
 
+    PrecompressedResourceIndex getPrecompressedResourceIndex( )
+    {
+        return precompressedResourceIndex;
+    }
+
     public MovingAverage getCacheHitRatio( )
     {
         return cacheHitRatio;
@@ -144,6 +152,8 @@ public class ResourceServletService implements PwmService
             LOGGER.error( () -> "error during nonce generation, will remain closed; error: " + e.getMessage() );
             status = STATUS.CLOSED;
         }
+
+        precompressedResourceIndex = makePrecompressedResourceIndex();
     }
 
     @Override
@@ -186,6 +196,36 @@ public class ResourceServletService implements PwmService
         return "/" + noncePrefix + nonce;
     }
 
+    private PrecompressedResourceIndex makePrecompressedResourceIndex( )
+    {
+        final boolean enablePrecompress = Boolean.parseBoolean( pwmApplication.getConfig().readAppProperty( AppProperty.HTTP_RESOURCES_ENABLE_PRECOMPRESS ) );
+        final Optional<File> resourcePath = locateResourcePath( pwmApplication );
+        if ( !enablePrecompress || status != STATUS.OPEN || resourcePath.isEmpty() )
+        {
+            return PrecompressedResourceIndex.empty();
+        }
+
+        try
+        {
+            final Instant startTime = Instant.now();
+            final File outputDirectory = new File( pwmApplication.getTempDirectory(), "resources" );
+
+            // paths resolved ahead of the file system by ResourceFileRequest must not be shadowed by the index
+            final List<String> excludedPaths = new ArrayList<>( resourceServletConfiguration.getZipResources().keySet() );
+            excludedPaths.add( ResourceFileServlet.RESOURCE_PATH + "/themes/" + ResourceFileServlet.EMBED_THEME + "/" );
+
+            final PrecompressedResourceIndex index = PrecompressedResourceIndex.build( resourcePath.get(), outputDirectory, excludedPaths );
+            LOGGER.debug( () -> "indexed " + index.size() + " static resources, " + index.compressedFileCount() + " with compressed variants",
+                    () -> TimeDuration.fromCurrent( startTime ) );
+            return index;
+        }
+        catch ( final Exception e )
+        {
+            LOGGER.error( () -> "error building precompressed resource index, resources will be served dynamically; error: " + e.getMessage() );
+            return PrecompressedResourceIndex.empty();
+        }
+    }
+
     public boolean checkIfThemeExists( final PwmRequest pwmRequest, final String themeName )
             throws PwmUnrecoverableException
     {
@@ -263,31 +303,16 @@ public class ResourceServletService implements PwmService
 
     private static void checksumResourceFilePath( final PwmApplication pwmApplication, final ChecksumOutputStream checksumStream )
     {
-        if ( pwmApplication.getPwmEnvironment().getContextManager() != null )
+        final Optional<File> resourcePath = locateResourcePath( pwmApplication );
+        if ( resourcePath.isPresent() )
         {
-            try
+            try ( ClosableIterator<FileSystemUtility.FileSummaryInformation> iter =
+                          FileSystemUtility.readFileInformation( Collections.singletonList( resourcePath.get() ) ) )
             {
-                final File webInfPath = pwmApplication.getPwmEnvironment().getContextManager().locateWebInfFilePath();
-                if ( webInfPath != null && webInfPath.exists() )
+                while ( iter.hasNext()  )
                 {
-                    final File basePath = webInfPath.getParentFile();
-                    if ( basePath != null && basePath.exists() )
-                    {
-                        final File resourcePath = new File( basePath.getAbsolutePath() + File.separator + "public" + File.separator + "resources" );
-                        if ( resourcePath.exists() )
-                        {
-                            try ( ClosableIterator<FileSystemUtility.FileSummaryInformation> iter =
-                                          FileSystemUtility.readFileInformation( Collections.singletonList( resourcePath ) ) )
-                            {
-                                while ( iter.hasNext()  )
-                                {
-                                    final FileSystemUtility.FileSummaryInformation fileSummaryInformation = iter.next();
-                                    checksumStream.write( JavaHelper.longToBytes( fileSummaryInformation.getChecksum() ) );
-                                }
-
-                            }
-                        }
-                    }
+                    final FileSystemUtility.FileSummaryInformation fileSummaryInformation = iter.next();
+                    checksumStream.write( JavaHelper.longToBytes( fileSummaryInformation.getChecksum() ) );
                 }
             }
             catch ( final Exception e )
@@ -296,4 +321,25 @@ public class ResourceServletService implements PwmService
             }
         }
     }
+
+    private static Optional<File> locateResourcePath( final PwmApplication pwmApplication )
+    {
+        if ( pwmApplication.getPwmEnvironment().getContextManager() != null )
+        {
+            final File webInfPath = pwmApplication.getPwmEnvironment().getContextManager().locateWebInfFilePath();
+            if ( webInfPath != null && webInfPath.exists() )
+            {
+                final File basePath = webInfPath.getParentFile();
+                if ( basePath != null && basePath.exists() )
+                {
+                    final File resourcePath = new File( basePath.getAbsolutePath() + File.separator + "public" + File.separator + "resources" );
+                    if ( resourcePath.exists() )
+                    {
+                        return Optional.of( resourcePath );
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
 }
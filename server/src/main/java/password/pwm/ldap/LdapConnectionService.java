@@ -67,6 +67,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 public class LdapConnectionService implements PwmService
@@ -95,6 +96,9 @@ public class LdapConnectionService implements PwmService
     {
         createdProxies,
         clearedThreadLocals,
+        userInfoPrefetchReads,
+        userInfoPrefetchHits,
+        userInfoPrefetchMisses,
     }
 
     private enum DebugKey
@@ -113,6 +117,15 @@ public class LdapConnectionService implements PwmService
 
         /** Providers discarded since application start. */
         DiscardedThreadLocals,
+
+        /** User info attribute prefetch reads since application start. */
+        UserInfoPrefetchReads,
+
+        /** User info attribute reads answered by a prefetch. */
+        UserInfoPrefetchHits,
+
+        /** User info attribute reads that needed another ldap read after a prefetch. */
+        UserInfoPrefetchMisses,
     }
 
     @Override
@@ -194,6 +207,17 @@ public class LdapConnectionService implements PwmService
                 .build();
     }
 
+    @Override
+    public void collectStatisticCounters( final BiConsumer<String, StatisticCounterBundle<?>> collector )
+    {
+        collector.accept( "connections", stats );
+    }
+
+
+    void markStat( final StatKey statKey, final long amount )
+    {
+        stats.increment( statKey, amount );
+    }
 
     public ChaiProvider getProxyChaiProvider( final String identifier )
             throws PwmUnrecoverableException
@@ -455,6 +479,9 @@ public class LdapConnectionService implements PwmService
         debugInfo.put( DebugKey.ThreadLocals, String.valueOf( threadLocalConnections.get( ) ) );
         debugInfo.put( DebugKey.CreatedProviders, String.valueOf( stats.get( StatKey.createdProxies ) ) );
         debugInfo.put( DebugKey.DiscardedThreadLocals, String.valueOf( stats.get( StatKey.clearedThreadLocals ) ) );
+        debugInfo.put( DebugKey.UserInfoPrefetchReads, String.valueOf( stats.get( StatKey.userInfoPrefetchReads ) ) );
+        debugInfo.put( DebugKey.UserInfoPrefetchHits, String.valueOf( stats.get( StatKey.userInfoPrefetchHits ) ) );
+        debugInfo.put( DebugKey.UserInfoPrefetchMisses, String.valueOf( stats.get( StatKey.userInfoPrefetchMisses ) ) );
         return Collections.unmodifiableMap( JavaHelper.enumMapToStringMap( debugInfo ) );
     }
 
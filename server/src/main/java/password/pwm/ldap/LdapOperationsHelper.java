@@ -210,6 +210,22 @@ public class LdapOperationsHelper
             final boolean throwExceptionOnError
     )
             throws PwmUnrecoverableException
+    {
+        return readLdapGuidValue( pwmApplication, sessionLabel, userIdentity, null, throwExceptionOnError );
+    }
+
+    /**
+     * Same as {@link #readLdapGuidValue(PwmApplication, SessionLabel, UserIdentity, boolean)}, but uses
+     * {@code prefetchedValue}, when present, in place of reading the guid attribute from the directory.
+     */
+    static String readLdapGuidValue(
+            final PwmApplication pwmApplication,
+            final SessionLabel sessionLabel,
+            final UserIdentity userIdentity,
+            final String prefetchedValue,
+            final boolean throwExceptionOnError
+    )
+            throws PwmUnrecoverableException
     {
         final boolean enableCache = Boolean.parseBoolean( pwmApplication.getConfig().readAppProperty( AppProperty.LDAP_CACHE_USER_GUID_ENABLE ) );
         final CacheKey cacheKey = CacheKey.newKey( LdapOperationsHelper.class, userIdentity, "guidValue" );
@@ -225,12 +241,9 @@ public class LdapOperationsHelper
             }
         }
 
-        final String existingValue = GUIDHelper.readExistingGuidValue(
-                pwmApplication,
-                sessionLabel,
-                userIdentity,
-                throwExceptionOnError
-        );
+        final String existingValue = StringUtil.isEmpty( prefetchedValue )
+                ? GUIDHelper.readExistingGuidValue( pwmApplication, sessionLabel, userIdentity, throwExceptionOnError )
+                : prefetchedValue;
 
         final LdapProfile ldapProfile = pwmApplication.getConfig().getLdapProfiles().get( userIdentity.getLdapProfileID() );
         final String guidAttributeName = ldapProfile.readSettingAsString( PwmSetting.LDAP_GUID_ATTRIBUTE );
@@ -22,20 +22,37 @@ package password.pwm.ldap;
 
 import com.novell.ldapchai.exception.ChaiUnavailableException;
 import com.novell.ldapchai.provider.ChaiProvider;
+import password.pwm.AppProperty;
 import password.pwm.PwmApplication;
 import password.pwm.bean.SessionLabel;
 import password.pwm.bean.UserIdentity;
+import password.pwm.config.PwmSetting;
+import password.pwm.config.profile.LdapProfile;
 import password.pwm.error.ErrorInformation;
 import password.pwm.error.PwmError;
 import password.pwm.error.PwmUnrecoverableException;
 import password.pwm.http.PwmRequestContext;
 import password.pwm.util.PasswordData;
+import password.pwm.util.java.StringUtil;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 public class UserInfoFactory
 {
 
+    private static final List<PwmSetting> PREFETCH_ATTRIBUTE_SETTINGS = List.of(
+            PwmSetting.EMAIL_USER_MAIL_ATTRIBUTE,
+            PwmSetting.EMAIL_USER_MAIL_ATTRIBUTE_2,
+            PwmSetting.EMAIL_USER_MAIL_ATTRIBUTE_3,
+            PwmSetting.SMS_USER_PHONE_ATTRIBUTE,
+            PwmSetting.SMS_USER_PHONE_ATTRIBUTE_2,
+            PwmSetting.SMS_USER_PHONE_ATTRIBUTE_3
+    );
+
     private UserInfoFactory( )
     {
     }
@@ -144,7 +161,51 @@ public class UserInfoFactory
     )
             throws PwmUnrecoverableException, ChaiUnavailableException
     {
-        return UserInfoReader.create( userIdentity, currentPassword, sessionLabel, userLocale, pwmApplication, provider );
+        final Set<String> prefetchAttributes = figurePrefetchAttributes( pwmApplication, userIdentity );
+        return UserInfoReader.create( userIdentity, currentPassword, sessionLabel, userLocale, pwmApplication, provider, prefetchAttributes );
+    }
+
+    /**
+     * Attributes configured for the user's ldap profile that a typical flow reads from {@link UserInfo}.  These
+     * are read together with the first attribute read; anything not in this set is still read on demand.
+     */
+    static Set<String> figurePrefetchAttributes(
+            final PwmApplication pwmApplication,
+            final UserIdentity userIdentity
+    )
+    {
+        if ( !Boolean.parseBoolean( pwmApplication.getConfig().readAppProperty( AppProperty.LDAP_USERINFO_PREFETCH_ENABLE ) ) )
+        {
+            return Collections.emptySet();
+        }
+
+        final LdapProfile ldapProfile = userIdentity.getLdapProfile( pwmApplication.getConfig() );
+        if ( ldapProfile == null )
+        {
+            return Collections.emptySet();
+        }
+
+        final Set<String> attributes = new HashSet<>();
+        attributes.add( ldapProfile.getUsernameAttribute() );
+        for ( final PwmSetting setting : PREFETCH_ATTRIBUTE_SETTINGS )
+        {
+            attributes.add( ldapProfile.readSettingAsString( setting ) );
+        }
+
+        final List<String> cachedAttributes = ldapProfile.readSettingAsStringArray( PwmSetting.CACHED_USER_ATTRIBUTES );
+        if ( cachedAttributes != null )
+        {
+            attributes.addAll( cachedAttributes );
+        }
+
+        final String guidAttribute = ldapProfile.readSettingAsString( PwmSetting.LDAP_GUID_ATTRIBUTE );
+        if ( !"DN".equalsIgnoreCase( guidAttribute ) && !"VENDORGUID".equalsIgnoreCase( guidAttribute ) )
+        {
+            attributes.add( guidAttribute );
+        }
+
+        attributes.removeIf( StringUtil::isEmpty );
+        return Collections.unmodifiableSet( attributes );
     }
 
 
@@ -65,6 +65,7 @@ import password.pwm.util.password.PasswordUtility;
 import password.pwm.util.password.PwmPasswordRuleValidator;
 
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -75,6 +76,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 public class UserInfoReader implements UserInfo
 {
@@ -88,6 +90,12 @@ public class UserInfoReader implements UserInfo
     private final SessionLabel sessionLabel;
     private final PwmApplication pwmApplication;
 
+    /**
+     * Attributes read along with the first attribute read, so that later getters are answered from {@link #cacheMap}.
+     */
+    private final Set<String> prefetchAttributes;
+    private boolean prefetchComplete;
+
     /**
      * A reference to this object, but with memorized (cached) method implementations.  In most cases references to 'this'
      * inside this class should use this {@code selfCachedReference} instead.
@@ -100,7 +108,8 @@ public class UserInfoReader implements UserInfo
             final SessionLabel sessionLabel,
             final Locale locale,
             final PwmApplication pwmApplication,
-            final ChaiProvider chaiProvider
+            final ChaiProvider chaiProvider,
+            final Set<String> prefetchAttributes
     )
             throws ChaiUnavailableException
     {
@@ -109,6 +118,8 @@ public class UserInfoReader implements UserInfo
         this.pwmApplication = pwmApplication;
         this.locale = locale;
         this.sessionLabel = sessionLabel;
+        this.prefetchAttributes = prefetchAttributes;
+        this.prefetchComplete = prefetchAttributes.isEmpty();
 
         final ChaiProvider cachingProvider = CachingProxyWrapper.create( ChaiProvider.class, chaiProvider );
         this.chaiUser = cachingProvider.getEntryFactory().newChaiUser( userIdentity.getUserDN() );
@@ -120,13 +131,14 @@ public class UserInfoReader implements UserInfo
             final SessionLabel sessionLabel,
             final Locale locale,
             final PwmApplication pwmApplication,
-            final ChaiProvider chaiProvider
+            final ChaiProvider chaiProvider,
+            final Set<String> prefetchAttributes
     )
             throws ChaiUnavailableException, PwmUnrecoverableException
     {
         LdapOperationsHelper.addConfiguredUserObjectClass( sessionLabel, userIdentity, pwmApplication );
 
-        final UserInfoReader userInfo = new UserInfoReader( userIdentity, currentPassword, sessionLabel, locale, pwmApplication, chaiProvider );
+        final UserInfoReader userInfo = new UserInfoReader( userIdentity, currentPassword, sessionLabel, locale, pwmApplication, chaiProvider, prefetchAttributes );
         final UserInfo selfCachedReference = CachingProxyWrapper.create( UserInfo.class, userInfo );
         userInfo.selfCachedReference = selfCachedReference;
         return selfCachedReference;
@@ -591,7 +603,18 @@ public class UserInfoReader implements UserInfo
     @Override
     public String getUserGuid( ) throws PwmUnrecoverableException
     {
-        return LdapOperationsHelper.readLdapGuidValue( pwmApplication, sessionLabel, userIdentity, false );
+        final LdapProfile ldapProfile = getUserIdentity().getLdapProfile( pwmApplication.getConfig() );
+        final String guidAttributeName = ldapProfile.readSettingAsString( PwmSetting.LDAP_GUID_ATTRIBUTE );
+        final List<String> prefetchedValues = cacheMap.get( guidAttributeName );
+        final String prefetchedValue = prefetchedValues == null || prefetchedValues.isEmpty()
+                ? null
+                : prefetchedValues.get( 0 );
+        if ( prefetchedValue != null )
+        {
+            markPrefetchStat( LdapConnectionService.StatKey.userInfoPrefetchHits, 1 );
+        }
+
+        return LdapOperationsHelper.readLdapGuidValue( pwmApplication, sessionLabel, userIdentity, prefetchedValue, false );
     }
 
     @Override
@@ -647,21 +670,20 @@ public class UserInfoReader implements UserInfo
     @Override
     public Map<ProfileDefinition, String> getProfileIDs( ) throws PwmUnrecoverableException
     {
-        final Map<ProfileDefinition, String> returnMap = new HashMap<>();
-        for ( final ProfileDefinition profileDefinition : ProfileDefinition.values() )
+        final List<ProfileDefinition> profileDefinitions = Arrays.stream( ProfileDefinition.values() )
+                .filter( ProfileDefinition::isAuthenticated )
+                .collect( Collectors.toList() );
+        final Map<ProfileDefinition, String> returnMap = ProfileUtility.discoverProfileIDsForUser( pwmApplication, sessionLabel, userIdentity, profileDefinitions );
+        for ( final ProfileDefinition profileDefinition : profileDefinitions )
         {
-            if ( profileDefinition.isAuthenticated() )
+            final String profileID = returnMap.get( profileDefinition );
+            if ( profileID != null )
             {
-                final Optional<String> profileID = ProfileUtility.discoverProfileIDForUser( pwmApplication, sessionLabel, userIdentity, profileDefinition );
-                if ( profileID.isPresent() )
-                {
-                    returnMap.put( profileDefinition, profileID.get() );
-                    LOGGER.debug( sessionLabel, () -> "assigned " + profileDefinition.toString() + " profileID \"" + profileID.get() + "\" to " + userIdentity.toDisplayString() );
-                }
-                else
-                {
-                    LOGGER.debug( sessionLabel, () -> profileDefinition.toString() + " has no matching profiles for user " + userIdentity.toDisplayString() );
-                }
+                LOGGER.debug( sessionLabel, () -> "assigned " + profileDefinition.toString() + " profileID \"" + profileID + "\" to " + userIdentity.toDisplayString() );
+            }
+            else
+            {
+                LOGGER.debug( sessionLabel, () -> profileDefinition.toString() + " has no matching profiles for user " + userIdentity.toDisplayString() );
             }
         }
         return Collections.unmodifiableMap( returnMap );
@@ -778,6 +800,20 @@ public class UserInfoReader implements UserInfo
         final Set<String> uncachedAttributes = new HashSet<>( attributes );
         uncachedAttributes.removeAll( cacheMap.keySet() );
 
+        if ( !prefetchComplete )
+        {
+            // the first read also fetches every attribute this user info is expected to need
+            prefetchComplete = true;
+            uncachedAttributes.addAll( prefetchAttributes );
+            uncachedAttributes.removeAll( cacheMap.keySet() );
+            markPrefetchStat( LdapConnectionService.StatKey.userInfoPrefetchReads, 1 );
+        }
+        else if ( !prefetchAttributes.isEmpty() )
+        {
+            markPrefetchStat( LdapConnectionService.StatKey.userInfoPrefetchHits, attributes.size() - uncachedAttributes.size() );
+            markPrefetchStat( LdapConnectionService.StatKey.userInfoPrefetchMisses, uncachedAttributes.size() );
+        }
+
         // read uncached attributes into cache
         if ( !uncachedAttributes.isEmpty() )
         {
@@ -836,6 +872,14 @@ public class UserInfoReader implements UserInfo
         return Collections.unmodifiableMap( returnMap );
     }
 
+    private void markPrefetchStat( final LdapConnectionService.StatKey statKey, final long amount )
+    {
+        if ( amount > 0 )
+        {
+            pwmApplication.getLdapConnectionService().markStat( statKey, amount );
+        }
+    }
+
     @Override
     public boolean isRequiresInteraction( ) throws PwmUnrecoverableException
     {
@@ -75,7 +75,7 @@ class LdapQueryHelper implements PermissionTypeHelper
             return false;
         }
 
-        if ( "(objectClass=*)".equalsIgnoreCase( filterString ) || "objectClass=*".equalsIgnoreCase( filterString ) )
+        if ( isMatchAllFilter( filterString ) )
         {
             LOGGER.trace( sessionLabel, () -> "queryMatch check is guaranteed to be true, skipping ldap query" );
             return true;
@@ -85,6 +85,11 @@ class LdapQueryHelper implements PermissionTypeHelper
         return selfUserSearch( pwmApplication, sessionLabel, userIdentity, filterString );
     }
 
+    static boolean isMatchAllFilter( final String filterString )
+    {
+        return "(objectClass=*)".equalsIgnoreCase( filterString ) || "objectClass=*".equalsIgnoreCase( filterString );
+    }
+
     static boolean selfUserSearch(
             final PwmApplication pwmApplication,
             final SessionLabel sessionLabel,
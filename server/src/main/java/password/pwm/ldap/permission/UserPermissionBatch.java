@@ -0,0 +1,335 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.ldap.permission;
+
+import com.novell.ldapchai.ChaiUser;
+import com.novell.ldapchai.exception.ChaiException;
+import com.novell.ldapchai.provider.SearchScope;
+import password.pwm.PwmApplication;
+import password.pwm.bean.SessionLabel;
+import password.pwm.bean.UserIdentity;
+import password.pwm.config.PwmSetting;
+import password.pwm.config.value.data.UserPermission;
+import password.pwm.error.PwmUnrecoverableException;
+import password.pwm.util.java.StringUtil;
+import password.pwm.util.java.TimeDuration;
+import password.pwm.util.logging.PwmLogger;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Evaluates several lists of {@link UserPermission}s for a single user with as few LDAP operations as possible.
+ * Bit {@code i} of the result is set when the user matches any permission of list {@code i}.
+ *
+ * <ul>
+ *     <li>All-user and user DN permissions are evaluated locally.</li>
+ *     <li>Group permissions become the same {@code (groupAttribute=groupDN)} filter used when testing a single group
+ *     permission, so the directory server remains the authority on group membership.</li>
+ *     <li>Group and query filters of all unresolved lists are OR'd into a single base-scope search of the user entry.
+ *     When that matches and more than one list is involved, the lists are split in half and each half searched again,
+ *     so each matching list is attributed with a logarithmic number of additional searches.</li>
+ *     <li>If a search fails, the lists are split the same way to isolate the failure, and a single list whose
+ *     combined search fails has each of its permissions searched separately, as if tested one at a time.</li>
+ * </ul>
+ */
+class UserPermissionBatch
+{
+    private static final PwmLogger LOGGER = PwmLogger.forClass( UserPermissionBatch.class );
+
+    private final PwmApplication pwmApplication;
+    private final SessionLabel sessionLabel;
+    private final UserIdentity userIdentity;
+    private final FilterSearcher filterSearcher;
+
+    private final BitSet matches = new BitSet();
+    private final Map<Integer, List<String>> queryFilters = new TreeMap<>();
+    private int searchCount;
+
+    /**
+     * Tests whether the user entry matches an ldap filter.
+     */
+    interface FilterSearcher
+    {
+        boolean matches( String searchFilter ) throws PwmUnrecoverableException, ChaiException;
+    }
+
+    UserPermissionBatch(
+            final PwmApplication pwmApplication,
+            final SessionLabel sessionLabel,
+            final UserIdentity userIdentity,
+            final FilterSearcher filterSearcher
+    )
+    {
+        this.pwmApplication = pwmApplication;
+        this.sessionLabel = sessionLabel;
+        this.userIdentity = userIdentity;
+        this.filterSearcher = filterSearcher == null ? this::selfUserSearch : filterSearcher;
+    }
+
+    static BitSet evaluate(
+            final PwmApplication pwmApplication,
+            final SessionLabel sessionLabel,
+            final UserIdentity userIdentity,
+            final List<List<UserPermission>> permissionLists
+    )
+            throws PwmUnrecoverableException
+    {
+        if ( userIdentity == null || permissionLists == null || permissionLists.isEmpty() )
+        {
+            return new BitSet();
+        }
+
+        final Instant startTime = Instant.now();
+        final UserPermissionBatch batch = new UserPermissionBatch( pwmApplication, sessionLabel, userIdentity, null );
+
+        for ( int i = 0; i < permissionLists.size(); i++ )
+        {
+            batch.classify( i, permissionLists.get( i ) );
+        }
+        batch.resolveQueuedFilters();
+
+        LOGGER.debug( sessionLabel, () -> "user " + userIdentity.toDisplayString() + " matches " + batch.matches.cardinality()
+                        + " of " + permissionLists.size() + " permission lists using " + batch.searchCount + " ldap searches",
+                () -> TimeDuration.fromCurrent( startTime ) );
+
+        return batch.matches;
+    }
+
+    /**
+     * Resolve what can be decided locally, and queue the group and query permissions of lists that are still undecided.
+     */
+    private void classify( final int index, final List<UserPermission> userPermissions )
+            throws PwmUnrecoverableException
+    {
+        if ( userPermissions == null )
+        {
+            return;
+        }
+
+        final List<UserPermission> sortedList = new ArrayList<>( userPermissions );
+        Collections.sort( sortedList );
+
+        for ( final UserPermission userPermission : sortedList )
+        {
+            if ( userPermission == null || !UserPermissionUtility.checkIfProfileAppliesToUser( userIdentity, userPermission ) )
+            {
+                continue;
+            }
+
+            switch ( userPermission.getType() )
+            {
+                case ldapGroup:
+                    if ( !StringUtil.isEmpty( userPermission.getLdapBase() ) )
+                    {
+                        final String groupAttribute = userIdentity.getLdapProfile( pwmApplication.getConfig() )
+                                .readSettingAsString( PwmSetting.LDAP_USER_GROUP_ATTRIBUTE );
+                        queueFilter( index, "(" + groupAttribute + "=" + userPermission.getLdapBase() + ")" );
+                    }
+                    break;
+
+                case ldapQuery:
+                    if ( queryPermissionInScope( userPermission ) )
+                    {
+                        final String filter = userPermission.getLdapQuery();
+                        if ( LdapQueryHelper.isMatchAllFilter( filter ) )
+                        {
+                            markMatched( index );
+                            return;
+                        }
+                        queueFilter( index, filter );
+                    }
+                    break;
+
+                default:
+                    if ( userPermission.getType().getPermissionTypeTester().testMatch( pwmApplication, sessionLabel, userIdentity, userPermission ) )
+                    {
+                        markMatched( index );
+                        return;
+                    }
+            }
+        }
+    }
+
+    private boolean queryPermissionInScope( final UserPermission userPermission )
+            throws PwmUnrecoverableException
+    {
+        if ( StringUtil.isEmpty( userPermission.getLdapQuery() ) )
+        {
+            return false;
+        }
+
+        if ( !StringUtil.isTrimEmpty( userPermission.getLdapBase() ) )
+        {
+            final String canonicalBaseDN = userIdentity.getLdapProfile( pwmApplication.getConfig() )
+                    .readCanonicalDN( pwmApplication, userPermission.getLdapBase() );
+            return UserPermissionUtility.testBaseDnMatch( pwmApplication, canonicalBaseDN, userIdentity );
+        }
+
+        return true;
+    }
+
+    private void markMatched( final int index )
+    {
+        matches.set( index );
+        queryFilters.remove( index );
+    }
+
+    void queueFilter( final int index, final String filter )
+    {
+        if ( !matches.get( index ) )
+        {
+            queryFilters.computeIfAbsent( index, k -> new ArrayList<>() ).add( filter );
+        }
+    }
+
+    BitSet resolveQueuedFilters()
+            throws PwmUnrecoverableException
+    {
+        resolveQueries( new ArrayList<>( queryFilters.keySet() ) );
+        return matches;
+    }
+
+    int getSearchCount()
+    {
+        return searchCount;
+    }
+
+    private void resolveQueries( final List<Integer> indexes )
+            throws PwmUnrecoverableException
+    {
+        if ( indexes.isEmpty() )
+        {
+            return;
+        }
+
+        final List<String> filters = indexes.stream()
+                .flatMap( index -> queryFilters.get( index ).stream() )
+                .map( UserPermissionBatch::wrapFilter )
+                .collect( Collectors.toList() );
+
+        final String searchFilter = filters.size() == 1
+                ? filters.get( 0 )
+                : "(|" + String.join( "", filters ) + ")";
+
+        final boolean matched;
+        try
+        {
+            matched = search( searchFilter );
+        }
+        catch ( final ChaiException e )
+        {
+            if ( indexes.size() == 1 )
+            {
+                resolveEachFilter( indexes.get( 0 ), filters, e );
+                return;
+            }
+
+            // isolate the failing filter by searching each half separately
+            resolveHalves( indexes );
+            return;
+        }
+
+        if ( !matched )
+        {
+            return;
+        }
+
+        if ( indexes.size() == 1 )
+        {
+            markMatched( indexes.get( 0 ) );
+            return;
+        }
+
+        resolveHalves( indexes );
+    }
+
+    /**
+     * Search each filter of a single list separately, so that one failing permission does not hide a match by another.
+     */
+    private void resolveEachFilter( final int index, final List<String> filters, final ChaiException error )
+            throws PwmUnrecoverableException
+    {
+        if ( filters.size() == 1 )
+        {
+            LOGGER.warn( sessionLabel, () -> "LDAP error during check for " + userIdentity + " using " + filters.get( 0 ) + ", error:" + error.getMessage() );
+            return;
+        }
+
+        for ( final String filter : filters )
+        {
+            try
+            {
+                if ( search( filter ) )
+                {
+                    markMatched( index );
+                    return;
+                }
+            }
+            catch ( final ChaiException e )
+            {
+                LOGGER.warn( sessionLabel, () -> "LDAP error during check for " + userIdentity + " using " + filter + ", error:" + e.getMessage() );
+            }
+        }
+    }
+
+    private void resolveHalves( final List<Integer> indexes )
+            throws PwmUnrecoverableException
+    {
+        final int middle = indexes.size() / 2;
+        resolveQueries( new ArrayList<>( indexes.subList( 0, middle ) ) );
+        resolveQueries( new ArrayList<>( indexes.subList( middle, indexes.size() ) ) );
+    }
+
+    private boolean search( final String searchFilter )
+            throws PwmUnrecoverableException, ChaiException
+    {
+        searchCount++;
+        return filterSearcher.matches( searchFilter );
+    }
+
+    private boolean selfUserSearch( final String searchFilter )
+            throws PwmUnrecoverableException, ChaiException
+    {
+        LOGGER.trace( sessionLabel, () -> "checking ldap to see if " + userIdentity + " matches '" + searchFilter + "'" );
+        final ChaiUser theUser = pwmApplication.getProxiedChaiUser( userIdentity );
+        final Map<String, Map<String, String>> results = theUser.getChaiProvider().search(
+                theUser.getEntryDN(),
+                searchFilter,
+                Collections.emptySet(),
+                SearchScope.BASE );
+
+        return results.size() == 1 && results.containsKey( theUser.getEntryDN() );
+    }
+
+    private static String wrapFilter( final String filter )
+    {
+        final String trimmed = filter.trim();
+        return trimmed.startsWith( "(" ) ? trimmed : "(" + trimmed + ")";
+    }
+}
@@ -39,6 +39,7 @@ import password.pwm.util.logging.PwmLogger;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -76,56 +77,34 @@ public class UserPermissionUtility
             return false;
         }
 
-        final List<UserPermission> sortedList = new ArrayList<>( userPermissions );
-        Collections.sort( sortedList );
-
-        for ( final UserPermission userPermission : sortedList )
-        {
-            if ( testUserPermission( pwmApplication, sessionLabel, userIdentity, userPermission ) )
-            {
-                return true;
-            }
-        }
-        return false;
+        return testUserPermissions( pwmApplication, sessionLabel, userIdentity, Collections.singletonList( userPermissions ) ).get( 0 );
     }
 
-    private static boolean checkIfProfileAppliesToUser(
+    /**
+     * Test a user against several permission lists at once, using as few LDAP operations as possible.
+     *
+     * @return a bit set where bit {@code i} is set if the user matches any permission in {@code permissionLists.get( i )}
+     */
+    public static BitSet testUserPermissions(
+            final PwmApplication pwmApplication,
+            final SessionLabel sessionLabel,
             final UserIdentity userIdentity,
-            final UserPermission userPermission
+            final List<List<UserPermission>> permissionLists
     )
+            throws PwmUnrecoverableException
     {
-        return userPermission.getLdapProfileID() == null
-                || userPermission.getLdapProfileID().isEmpty()
-                || userPermission.getLdapProfileID().equals( PwmConstants.PROFILE_ID_ALL )
-                || userIdentity.getLdapProfileID().equals( userPermission.getLdapProfileID() );
+        return UserPermissionBatch.evaluate( pwmApplication, sessionLabel, userIdentity, permissionLists );
     }
 
-    private static boolean testUserPermission(
-            final PwmApplication pwmApplication,
-            final SessionLabel sessionLabel,
+    static boolean checkIfProfileAppliesToUser(
             final UserIdentity userIdentity,
             final UserPermission userPermission
     )
-            throws PwmUnrecoverableException
     {
-        if ( userPermission == null || userIdentity == null )
-        {
-            return false;
-        }
-
-        if ( !checkIfProfileAppliesToUser( userIdentity, userPermission ) )
-        {
-            return false;
-        }
-
-        final PermissionTypeHelper permissionTypeHelper = userPermission.getType().getPermissionTypeTester();
-        final Instant startTime = Instant.now();
-        final boolean match = permissionTypeHelper.testMatch( pwmApplication, sessionLabel, userIdentity, userPermission );
-        LOGGER.debug( sessionLabel, () -> "user " + userIdentity.toDisplayString() + " is "
-                        + ( match ? "" : "not " )
-                        + "a match for permission '" + userPermission + "'",
-                () -> TimeDuration.fromCurrent( startTime ) );
-        return match;
+        return userPermission.getLdapProfileID() == null
+                || userPermission.getLdapProfileID().isEmpty()
+                || userPermission.getLdapProfileID().equals( PwmConstants.PROFILE_ID_ALL )
+                || userIdentity.getLdapProfileID().equals( userPermission.getLdapProfileID() );
     }
 
     public static List<UserIdentity> discoverMatchingUsers(
@@ -72,6 +72,7 @@ import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 
 public class UserSearchEngine implements PwmService
@@ -140,6 +141,12 @@ public class UserSearchEngine implements PwmService
         return ServiceInfoBean.builder().debugProperties( debugProperties() ).build();
     }
 
+    @Override
+    public void collectStatisticCounters( final BiConsumer<String, StatisticCounterBundle<?>> collector )
+    {
+        collector.accept( "search", counters );
+    }
+
     public UserIdentity resolveUsername(
             final String username,
             final String context,
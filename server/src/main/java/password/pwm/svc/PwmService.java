@@ -27,12 +27,14 @@ import password.pwm.PwmApplication;
 import password.pwm.config.option.DataStorageMethod;
 import password.pwm.error.PwmException;
 import password.pwm.health.HealthRecord;
+import password.pwm.util.java.StatisticCounterBundle;
 
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 /**
  * An interface for daemon/background services.  Services are initialized, shutdown and accessed via {@link PwmApplication}.  Some services
@@ -56,6 +58,16 @@ public interface PwmService
 
     ServiceInfoBean serviceInfo( );
 
+    /**
+     * Supply each counter bundle maintained by this service along with a short bundle name.  Used for metrics
+     * exposition; services without counters need not override.
+     *
+     * @param collector receives each bundle name and bundle
+     */
+    default void collectStatisticCounters( final BiConsumer<String, StatisticCounterBundle<?>> collector )
+    {
+    }
+
     interface ServiceInfo
     {
         Collection<DataStorageMethod> getStorageMethods( );
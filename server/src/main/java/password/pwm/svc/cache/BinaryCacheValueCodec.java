@@ -0,0 +1,108 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package password.pwm.svc.cache;
+
+import password.pwm.error.PwmError;
+import password.pwm.error.PwmUnrecoverableException;
+import password.pwm.util.logging.PwmLogger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Binary codec using java serialization, which preserves the exact payload type and avoids the reflective
+ * json tree walk on every read.  Payloads whose object graph is not serializable fall back to json encoding.
+ * The first byte of each encoded value identifies the format.
+ *
+ * <p>Serialized values carry full class descriptors and are often larger than their json form, so this codec is
+ * only used for the memory tier and only when selected with {@code cache.memory.codec=BINARY}.  Entries demoted to
+ * the LocalDB tier are always stored as json.</p>
+ *
+ * <p>Decoding is restricted by an {@link ObjectInputFilter} to application and core JDK value classes, so a
+ * tampered or unexpected payload cannot instantiate arbitrary classes.</p>
+ */
+class BinaryCacheValueCodec implements CacheValueCodec
+{
+    private static final PwmLogger LOGGER = PwmLogger.forClass( BinaryCacheValueCodec.class );
+
+    private static final byte FORMAT_SERIALIZED = 1;
+    private static final byte FORMAT_JSON = 2;
+
+    private static final ObjectInputFilter DECODE_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=20;maxrefs=100000;maxarray=1000000;"
+                    + "password.pwm.**;java.lang.*;java.util.*;java.time.*;java.math.*;!*" );
+
+    private final JsonCacheValueCodec jsonCodec = new JsonCacheValueCodec();
+
+    @Override
+    public byte[] encode( final Serializable value )
+            throws PwmUnrecoverableException
+    {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream( 256 );
+        byteArrayOutputStream.write( FORMAT_SERIALIZED );
+        try ( ObjectOutputStream objectOutputStream = new ObjectOutputStream( byteArrayOutputStream ) )
+        {
+            objectOutputStream.writeObject( value );
+        }
+        catch ( final IOException e )
+        {
+            LOGGER.trace( () -> "unable to binary encode cache value of type " + value.getClass().getName()
+                    + ", will use json encoding; error: " + e.getMessage() );
+            final byte[] jsonValue = jsonCodec.encode( value );
+            final byte[] output = new byte[ jsonValue.length + 1 ];
+            output[ 0 ] = FORMAT_JSON;
+            System.arraycopy( jsonValue, 0, output, 1, jsonValue.length );
+            return output;
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    @Override
+    public <T extends Serializable> T decode( final byte[] encodedValue, final Class<T> classOfT )
+            throws PwmUnrecoverableException
+    {
+        if ( encodedValue[ 0 ] == FORMAT_JSON )
+        {
+            return jsonCodec.decode( Arrays.copyOfRange( encodedValue, 1, encodedValue.length ), classOfT );
+        }
+
+        try ( ObjectInputStream objectInputStream = new ObjectInputStream( new ByteArrayInputStream( encodedValue, 1, encodedValue.length - 1 ) ) )
+        {
+            objectInputStream.setObjectInputFilter( DECODE_FILTER );
+            final Object value = objectInputStream.readObject();
+            if ( value != null && !classOfT.isInstance( value ) )
+            {
+                return null;
+            }
+            return classOfT.cast( value );
+        }
+        catch ( final IOException | ClassNotFoundException e )
+        {
+            throw PwmUnrecoverableException.newException( PwmError.ERROR_INTERNAL, "error decoding cache value: " + e.getMessage() );
+        }
+    }
+}
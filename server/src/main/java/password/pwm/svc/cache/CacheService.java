@@ -20,16 +20,24 @@
 
 package password.pwm.svc.cache;
 
+import password.pwm.AppAttribute;
 import password.pwm.AppProperty;
 import password.pwm.PwmApplication;
+import password.pwm.PwmApplicationMode;
+import password.pwm.error.PwmError;
 import password.pwm.error.PwmException;
 import password.pwm.error.PwmUnrecoverableException;
 import password.pwm.health.HealthRecord;
 import password.pwm.svc.PwmService;
+import password.pwm.util.PwmScheduler;
 import password.pwm.util.java.ConditionalTaskExecutor;
+import password.pwm.util.java.JavaHelper;
 import password.pwm.util.java.JsonUtil;
 import password.pwm.util.java.StatisticCounterBundle;
+import password.pwm.util.java.StringUtil;
 import password.pwm.util.java.TimeDuration;
+import password.pwm.util.localdb.LocalDB;
+import password.pwm.util.localdb.LocalDBException;
 import password.pwm.util.logging.PwmLogger;
 
 import java.io.Serializable;
@@ -41,13 +49,45 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 
 public class CacheService implements PwmService
 {
     private static final PwmLogger LOGGER = PwmLogger.forClass( CacheService.class );
 
     private MemoryCacheStore memoryCacheStore;
+    private LocalDBCacheStore localDBCacheStore;
+
+    private final Map<CacheKey, CompletableFuture<Serializable>> inFlightLoads = new ConcurrentHashMap<>();
+
+    // keys whose loader is currently running on this thread, used to detect a loader that reads its own key
+    private final ThreadLocal<Set<CacheKey>> threadLoadingKeys = ThreadLocal.withInitial( HashSet::new );
+
+    private long loadWaitTimeoutMs;
+    private final StatisticCounterBundle<LoadDebugKey> loadStats = new StatisticCounterBundle<>( LoadDebugKey.class );
+    private float refreshAheadRatio;
+    private ExecutorService refreshExecutor;
+
+    enum LoadDebugKey
+    {
+        loadCount,
+        coalescedWaitCount,
+        coalescedWaitTimeoutCount,
+        reentrantLoadCount,
+        refreshAheadCount,
+        refreshAheadErrorCount,
+    }
 
     private STATUS status = STATUS.CLOSED;
 
@@ -71,8 +111,25 @@ public class CacheService implements PwmService
             return;
         }
 
-        final int maxMemItems = Integer.parseInt( pwmApplication.getConfig().readAppProperty( AppProperty.CACHE_MEMORY_MAX_ITEMS ) );
-        memoryCacheStore = new MemoryCacheStore( maxMemItems );
+        final long maxMemBytes = Long.parseLong( pwmApplication.getConfig().readAppProperty( AppProperty.CACHE_MEMORY_MAX_BYTES ) );
+        final CacheValueCodecType codecType = JavaHelper.readEnumFromString(
+                CacheValueCodecType.class,
+                CacheValueCodecType.JSON,
+                pwmApplication.getConfig().readAppProperty( AppProperty.CACHE_MEMORY_CODEC ) );
+        final CacheValueCodec cacheValueCodec = codecType.makeCodec();
+
+        localDBCacheStore = initLocalDBCacheStore( pwmApplication );
+        memoryCacheStore = new MemoryCacheStore(
+                maxMemBytes,
+                cacheValueCodec,
+                makeEvictionListener( codecType, cacheValueCodec, localDBCacheStore ) );
+        refreshAheadRatio = Float.parseFloat( pwmApplication.getConfig().readAppProperty( AppProperty.CACHE_REFRESH_AHEAD_RATIO ) );
+        loadWaitTimeoutMs = Long.parseLong( pwmApplication.getConfig().readAppProperty( AppProperty.CACHE_LOAD_WAIT_TIMEOUT_MS ) );
+        if ( refreshAheadRatio > 0 && refreshAheadRatio < 1 )
+        {
+            refreshExecutor = PwmScheduler.makeBackgroundExecutor( pwmApplication, CacheService.class );
+        }
+
         this.traceDebugOutputter = new ConditionalTaskExecutor(
                 ( ) -> outputTraceInfo(),
                 new ConditionalTaskExecutor.TimeDurationPredicate( 1, TimeDuration.Unit.MINUTES )
@@ -80,9 +137,106 @@ public class CacheService implements PwmService
         status = STATUS.OPEN;
     }
 
+    /**
+     * The LocalDB tier stores json, so entries encoded by any other memory codec are re-encoded when demoted.
+     */
+    static MemoryCacheStore.EvictionListener makeEvictionListener(
+            final CacheValueCodecType codecType,
+            final CacheValueCodec memoryCodec,
+            final LocalDBCacheStore localDBCacheStore
+    )
+    {
+        if ( localDBCacheStore == null )
+        {
+            return null;
+        }
+
+        if ( codecType == CacheValueCodecType.JSON )
+        {
+            return localDBCacheStore::storeEncoded;
+        }
+
+        return ( cacheKey, expirationDate, encodedValue ) ->
+        {
+            try
+            {
+                localDBCacheStore.store( cacheKey, expirationDate, memoryCodec.decode( encodedValue, Serializable.class ) );
+            }
+            catch ( final PwmUnrecoverableException | RuntimeException e )
+            {
+                LOGGER.trace( () -> "unable to demote evicted cache entry to localDB tier: " + e.getMessage() );
+            }
+        };
+    }
+
+    private static LocalDBCacheStore initLocalDBCacheStore( final PwmApplication pwmApplication )
+    {
+        if ( pwmApplication.getApplicationMode() == PwmApplicationMode.READ_ONLY
+                || pwmApplication.getLocalDB() == null
+                || pwmApplication.getLocalDB().status() != LocalDB.Status.OPEN )
+        {
+            LOGGER.debug( () -> "localDB cache tier unavailable, LocalDB is not open or application is read-only" );
+            return null;
+        }
+
+        try
+        {
+            final long maxBytes = Long.parseLong( pwmApplication.getConfig().readAppProperty( AppProperty.CACHE_LOCALDB_MAX_BYTES ) );
+            if ( maxBytes <= 0 )
+            {
+                LOGGER.debug( () -> "localDB cache tier disabled due to app property setting" );
+                clearLocalDBCacheStore( pwmApplication );
+                return null;
+            }
+
+            // stored entries reflect the configuration that produced them, so discard them when the configuration changes
+            final String configHash = pwmApplication.getConfig().configurationHash( pwmApplication.getSecureService() );
+            final Optional<String> storedConfigHash = pwmApplication.readAppAttribute( AppAttribute.CACHE_LOCALDB_CONFIG_HASH, String.class );
+            if ( !storedConfigHash.isPresent() || !configHash.equals( storedConfigHash.get() ) )
+            {
+                LOGGER.debug( () -> "configuration has changed, clearing localDB cache tier" );
+                clearLocalDBCacheStore( pwmApplication );
+                pwmApplication.writeAppAttribute( AppAttribute.CACHE_LOCALDB_CONFIG_HASH, configHash );
+            }
+
+            final Set<String> allowedKeyClasses = Set.copyOf( StringUtil.splitAndTrim(
+                    pwmApplication.getConfig().readAppProperty( AppProperty.CACHE_LOCALDB_ALLOWED_CLASSES ), "," ) );
+
+            return new LocalDBCacheStore(
+                    pwmApplication.getLocalDB(),
+                    maxBytes,
+                    pwmApplication.getConfig().getSecurityKey(),
+                    allowedKeyClasses );
+        }
+        catch ( final LocalDBException | PwmUnrecoverableException e )
+        {
+            LOGGER.warn( () -> "unable to initialize localDB cache tier: " + e.getMessage() );
+        }
+        return null;
+    }
+
+    private static void clearLocalDBCacheStore( final PwmApplication pwmApplication )
+            throws LocalDBException
+    {
+        final LocalDB localDB = pwmApplication.getLocalDB();
+        if ( localDB.size( LocalDB.DB.CACHE ) > 0 )
+        {
+            localDB.truncate( LocalDB.DB.CACHE );
+        }
+    }
+
     @Override
     public void close( )
     {
+        if ( status == STATUS.OPEN && localDBCacheStore != null )
+        {
+            memoryCacheStore.demoteAll();
+        }
+        if ( refreshExecutor != null )
+        {
+            refreshExecutor.shutdownNow();
+            refreshExecutor = null;
+        }
         status = STATUS.CLOSED;
     }
 
@@ -101,19 +255,55 @@ public class CacheService implements PwmService
         }
 
         final Map<String, String> debugInfo = new TreeMap<>( );
-        debugInfo.put( "itemCount", String.valueOf( memoryCacheStore.itemCount() ) );
-        debugInfo.put( "byteCount", String.valueOf( memoryCacheStore.byteCount() ) );
-        debugInfo.putAll( JsonUtil.deserializeStringMap( JsonUtil.serializeMap( memoryCacheStore.getCacheStoreInfo().debugStats() ) ) );
+        debugInfo.putAll( tierDebugInfo( "memory.", memoryCacheStore ) );
+        if ( localDBCacheStore != null )
+        {
+            debugInfo.putAll( tierDebugInfo( "localdb.", localDBCacheStore ) );
+        }
+        debugInfo.putAll( loadStats.debugStats() );
         debugInfo.putAll( JsonUtil.deserializeStringMap( JsonUtil.serializeMap( memoryCacheStore.storedClassHistogram( "histogram." ) ) ) );
         return ServiceInfoBean.builder().debugProperties( debugInfo ).build();
     }
 
+    @Override
+    public void collectStatisticCounters( final BiConsumer<String, StatisticCounterBundle<?>> collector )
+    {
+        if ( status == STATUS.CLOSED )
+        {
+            return;
+        }
+
+        collector.accept( "load", loadStats );
+        collector.accept( "memory", memoryCacheStore.getCacheStoreInfo() );
+        if ( localDBCacheStore != null )
+        {
+            collector.accept( "localdb", localDBCacheStore.getCacheStoreInfo() );
+        }
+    }
+
+    private static Map<String, String> tierDebugInfo( final String prefix, final CacheStore cacheStore )
+    {
+        final Map<String, String> debugInfo = new TreeMap<>( );
+        debugInfo.put( prefix + "itemCount", String.valueOf( cacheStore.itemCount() ) );
+        debugInfo.put( prefix + "byteCount", String.valueOf( cacheStore.byteCount() ) );
+        for ( final Map.Entry<String, String> entry : cacheStore.getCacheStoreInfo().debugStats().entrySet() )
+        {
+            debugInfo.put( prefix + entry.getKey(), entry.getValue() );
+        }
+        return debugInfo;
+    }
+
     public Map<String, Serializable> debugInfo( )
     {
         final Map<String, Serializable> debugInfo = new LinkedHashMap<>( );
         debugInfo.put( "memory-statistics", JsonUtil.serializeMap( memoryCacheStore.getCacheStoreInfo().debugStats() ) );
         debugInfo.put( "memory-items", new ArrayList<Serializable>( memoryCacheStore.getCacheDebugItems() ) );
         debugInfo.put( "memory-histogram", new HashMap<>( memoryCacheStore.storedClassHistogram( "" ) ) );
+        if ( localDBCacheStore != null )
+        {
+            debugInfo.put( "localdb-statistics", JsonUtil.serializeMap( localDBCacheStore.getCacheStoreInfo().debugStats() ) );
+            debugInfo.put( "localdb-items", new ArrayList<Serializable>( localDBCacheStore.getCacheDebugItems() ) );
+        }
         return Collections.unmodifiableMap( debugInfo );
     }
 
@@ -131,11 +321,16 @@ public class CacheService implements PwmService
 
         final Instant expirationDate = cachePolicy.getExpiration();
         memoryCacheStore.store( cacheKey, expirationDate, payload );
+        if ( localDBCacheStore != null )
+        {
+            localDBCacheStore.invalidate( cacheKey );
+        }
 
         traceDebugOutputter.conditionallyExecuteTask();
     }
 
     public <T extends Serializable> T get( final CacheKey cacheKey, final Class<T> classOfT  )
+            throws PwmUnrecoverableException
     {
         Objects.requireNonNull( cacheKey );
         Objects.requireNonNull( classOfT );
@@ -145,11 +340,7 @@ public class CacheService implements PwmService
             return null;
         }
 
-        T payload = null;
-        if ( memoryCacheStore != null )
-        {
-            payload = memoryCacheStore.read( cacheKey, classOfT );
-        }
+        final T payload = readTiers( cacheKey, classOfT );
 
         traceDebugOutputter.conditionallyExecuteTask();
 
@@ -171,8 +362,194 @@ public class CacheService implements PwmService
 
         traceDebugOutputter.conditionallyExecuteTask();
 
-        final Instant expirationDate = cachePolicy.getExpiration();
-        return memoryCacheStore.readAndStore( cacheKey, expirationDate, classOfT, cacheLoader );
+        final T cachedValue = readTiers( cacheKey, classOfT );
+        if ( cachedValue != null )
+        {
+            if ( refreshExecutor != null && memoryCacheStore.isRefreshDue( cacheKey, refreshAheadRatio ) )
+            {
+                scheduleRefresh( cacheKey, cachePolicy, cacheLoader );
+            }
+            return cachedValue;
+        }
+
+        // a loader that reads its own key would otherwise wait on itself forever
+        if ( threadLoadingKeys.get().contains( cacheKey ) )
+        {
+            loadStats.increment( LoadDebugKey.reentrantLoadCount );
+            LOGGER.debug( () -> "re-entrant cache load for key " + cacheKey.getSrcClass().getSimpleName() + ", loading directly" );
+            return cacheLoader.read();
+        }
+
+        // single-flight: only one caller per key runs the loader, concurrent callers wait for its result
+        final CompletableFuture<Serializable> loadFuture = new CompletableFuture<>();
+        final CompletableFuture<Serializable> existingLoad = inFlightLoads.putIfAbsent( cacheKey, loadFuture );
+        if ( existingLoad != null )
+        {
+            loadStats.increment( LoadDebugKey.coalescedWaitCount );
+            return awaitLoad( cacheKey, classOfT, existingLoad, cacheLoader );
+        }
+
+        final T data;
+        try
+        {
+            data = runLoader( cacheKey, cachePolicy, cacheLoader );
+        }
+        catch ( final Throwable e )
+        {
+            // waiters must never be left on an uncompleted future, whatever the loader throws
+            inFlightLoads.remove( cacheKey, loadFuture );
+            loadFuture.completeExceptionally( e );
+            throw e;
+        }
+
+        inFlightLoads.remove( cacheKey, loadFuture );
+        loadFuture.complete( data );
+        return data;
+    }
+
+    private <T extends Serializable> T runLoader( final CacheKey cacheKey, final CachePolicy cachePolicy, final CacheLoader<T> cacheLoader )
+            throws PwmUnrecoverableException
+    {
+        loadStats.increment( LoadDebugKey.loadCount );
+        final Set<CacheKey> loadingKeys = threadLoadingKeys.get();
+        loadingKeys.add( cacheKey );
+        final T data;
+        try
+        {
+            data = cacheLoader.read();
+        }
+        finally
+        {
+            loadingKeys.remove( cacheKey );
+        }
+        if ( data != null )
+        {
+            memoryCacheStore.store( cacheKey, cachePolicy.getExpiration(), data );
+        }
+        return data;
+    }
+
+    private <T extends Serializable> T awaitLoad(
+            final CacheKey cacheKey,
+            final Class<T> classOfT,
+            final CompletableFuture<Serializable> loadFuture,
+            final CacheLoader<T> cacheLoader
+    )
+            throws PwmUnrecoverableException
+    {
+        final Serializable loadedValue;
+        try
+        {
+            loadedValue = loadFuture.get( loadWaitTimeoutMs, TimeUnit.MILLISECONDS );
+        }
+        catch ( final TimeoutException e )
+        {
+            // the in-flight load is stuck or slow, don't tie this caller to it
+            loadStats.increment( LoadDebugKey.coalescedWaitTimeoutCount );
+            LOGGER.debug( () -> "timed out waiting " + loadWaitTimeoutMs + "ms for in-flight cache load, loading directly" );
+            return cacheLoader.read();
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw PwmUnrecoverableException.newException( PwmError.ERROR_INTERNAL, "interrupted while waiting for cache load" );
+        }
+        catch ( final ExecutionException e )
+        {
+            if ( e.getCause() instanceof PwmUnrecoverableException )
+            {
+                throw ( PwmUnrecoverableException ) e.getCause();
+            }
+            throw PwmUnrecoverableException.newException( PwmError.ERROR_INTERNAL, "error during cache load: " + e.getCause().getMessage() );
+        }
+
+        // read back through the cache so mutable values are copied rather than shared with the loading caller
+        final T cachedValue = memoryCacheStore.read( cacheKey, classOfT );
+        if ( cachedValue != null )
+        {
+            return cachedValue;
+        }
+
+        if ( loadedValue == null )
+        {
+            return null;
+        }
+
+        if ( classOfT.isInstance( loadedValue ) && MemoryCacheStore.isImmutable( loadedValue ) )
+        {
+            return classOfT.cast( loadedValue );
+        }
+
+        // loaded value was already evicted and can not be shared, load a private copy
+        return cacheLoader.read();
+    }
+
+    private <T extends Serializable> void scheduleRefresh( final CacheKey cacheKey, final CachePolicy cachePolicy, final CacheLoader<T> cacheLoader )
+    {
+        final CompletableFuture<Serializable> loadFuture = new CompletableFuture<>();
+        if ( inFlightLoads.putIfAbsent( cacheKey, loadFuture ) != null )
+        {
+            return;
+        }
+
+        loadStats.increment( LoadDebugKey.refreshAheadCount );
+        try
+        {
+            refreshExecutor.execute( () ->
+            {
+                final Serializable data;
+                try
+                {
+                    data = runLoader( cacheKey, cachePolicy, cacheLoader );
+                }
+                catch ( final PwmUnrecoverableException | RuntimeException e )
+                {
+                    loadStats.increment( LoadDebugKey.refreshAheadErrorCount );
+                    LOGGER.debug( () -> "error during cache refresh-ahead of " + cacheKey.getValueID() + ": " + e.getMessage() );
+                    inFlightLoads.remove( cacheKey, loadFuture );
+                    loadFuture.completeExceptionally( e );
+                    return;
+                }
+                catch ( final Throwable e )
+                {
+                    loadStats.increment( LoadDebugKey.refreshAheadErrorCount );
+                    inFlightLoads.remove( cacheKey, loadFuture );
+                    loadFuture.completeExceptionally( e );
+                    throw e;
+                }
+
+                inFlightLoads.remove( cacheKey, loadFuture );
+                loadFuture.complete( data );
+            } );
+        }
+        catch ( final RejectedExecutionException e )
+        {
+            inFlightLoads.remove( cacheKey, loadFuture );
+            loadFuture.cancel( false );
+        }
+    }
+
+    /**
+     * Read from the memory tier, falling back to the localDB tier.  Values found in the localDB tier are
+     * promoted back to the memory tier.
+     */
+    private <T extends Serializable> T readTiers( final CacheKey cacheKey, final Class<T> classOfT )
+            throws PwmUnrecoverableException
+    {
+        final T memoryValue = memoryCacheStore.read( cacheKey, classOfT );
+        if ( memoryValue != null || localDBCacheStore == null )
+        {
+            return memoryValue;
+        }
+
+        final LocalDBCacheStore.CacheEntry<T> cacheEntry = localDBCacheStore.promote( cacheKey, classOfT );
+        if ( cacheEntry == null )
+        {
+            return null;
+        }
+
+        memoryCacheStore.store( cacheKey, cacheEntry.getExpiration(), cacheEntry.getValue() );
+        return cacheEntry.getValue();
     }
 
     private void outputTraceInfo( )
@@ -186,6 +563,11 @@ public class CacheService implements PwmService
             traceOutput.append( ", histogram=" );
             traceOutput.append( JsonUtil.serializeMap( memoryCacheStore.storedClassHistogram( "" ) ) );
         }
+        if ( localDBCacheStore != null )
+        {
+            traceOutput.append( ", localDBCache=" );
+            traceOutput.append( JsonUtil.serializeMap( localDBCacheStore.getCacheStoreInfo().debugStats() ) );
+        }
         LOGGER.trace( () -> traceOutput );
     }
 }
@@ -50,5 +50,8 @@ public interface CacheStore
         readCount,
         hitCount,
         missCount,
+        demoteCount,
+        promoteCount,
+        evictCount,
     }
 }
@@ -0,0 +1,462 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.svc.cache;
+
+import lombok.Value;
+import password.pwm.error.PwmUnrecoverableException;
+import password.pwm.util.java.JsonUtil;
+import password.pwm.util.java.StatisticCounterBundle;
+import password.pwm.util.java.StringUtil;
+import password.pwm.util.java.TimeDuration;
+import password.pwm.util.localdb.LocalDB;
+import password.pwm.util.localdb.LocalDBException;
+import password.pwm.util.logging.PwmLogger;
+import password.pwm.util.password.PasswordUtility;
+import password.pwm.util.secure.HmacAlgorithm;
+import password.pwm.util.secure.PwmSecurityKey;
+import password.pwm.util.secure.SecureEngine;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Second level cache tier persisted in {@link LocalDB.DB#CACHE}.  Receives entries evicted from the
+ * {@link MemoryCacheStore} so that a warm cache survives restarts and heap pressure.  Entries are promoted
+ * back to the memory tier (and removed from this tier) when read.
+ *
+ * <p>An in-memory index of stored keys and sizes is kept so that misses, invalidations and the byte
+ * bound can be evaluated without touching the LocalDB.</p>
+ *
+ * <p>Only keys whose source class is in the configured allow list are persisted, and keys derived from passwords
+ * are never persisted.  Keys are stored only as an HMAC of the key fields, so user DNs and lookup values do not
+ * appear in the LocalDB.</p>
+ */
+class LocalDBCacheStore implements CacheStore
+{
+    private static final PwmLogger LOGGER = PwmLogger.forClass( LocalDBCacheStore.class );
+
+    private static final LocalDB.DB DB = LocalDB.DB.CACHE;
+
+    // when trimming, remove entries until the store is below this fraction of max bytes
+    private static final float TRIM_TARGET_RATIO = 0.9f;
+
+    // source classes whose keys are derived from password values, never persisted regardless of the allow list
+    private static final Set<String> DENIED_KEY_CLASSES = Set.of( PasswordUtility.class.getName() );
+
+    private final LocalDB localDB;
+    // persisted entries are always json, independent of the codec used by the memory tier
+    private final CacheValueCodec cacheValueCodec = new JsonCacheValueCodec();
+    private final long maxBytes;
+    private final PwmSecurityKey securityKey;
+    private final Set<String> allowedKeyClasses;
+
+    private final Map<String, IndexEntry> index = new ConcurrentHashMap<>();
+    private final LongAdder byteCounter = new LongAdder();
+    private final StatisticCounterBundle<DebugKey> cacheStoreInfo = new StatisticCounterBundle<>( DebugKey.class );
+
+    LocalDBCacheStore(
+            final LocalDB localDB,
+            final long maxBytes,
+            final PwmSecurityKey securityKey,
+            final Set<String> allowedKeyClasses
+    )
+            throws LocalDBException
+    {
+        this.localDB = localDB;
+        this.maxBytes = maxBytes;
+        this.securityKey = securityKey;
+        this.allowedKeyClasses = Set.copyOf( allowedKeyClasses );
+        loadIndex();
+    }
+
+    boolean isPersistable( final CacheKey cacheKey )
+    {
+        return isAllowedKeyClass( cacheKey.getSrcClass().getName() );
+    }
+
+    private boolean isAllowedKeyClass( final String keyClass )
+    {
+        return allowedKeyClasses.contains( keyClass ) && !DENIED_KEY_CLASSES.contains( keyClass );
+    }
+
+    @Override
+    public void store( final CacheKey cacheKey, final Instant expirationDate, final Serializable data )
+            throws PwmUnrecoverableException
+    {
+        storeEncoded( cacheKey, expirationDate, cacheValueCodec.encode( data ) );
+    }
+
+    /**
+     * Store an already json encoded value, used when the memory tier demotes an evicted entry.
+     */
+    void storeEncoded( final CacheKey cacheKey, final Instant expirationDate, final byte[] encodedValue )
+    {
+        if ( !expirationDate.isAfter( Instant.now() ) || !isPersistable( cacheKey ) )
+        {
+            return;
+        }
+
+        try
+        {
+            final String dbKey = makeDbKey( cacheKey );
+            final StoredRecord storedRecord = new StoredRecord(
+                    cacheKey.getSrcClass().getName(),
+                    expirationDate,
+                    StringUtil.base64Encode( encodedValue ) );
+            final String dbValue = JsonUtil.serialize( storedRecord );
+            if ( dbValue.length() > LocalDB.MAX_VALUE_LENGTH )
+            {
+                return;
+            }
+
+            localDB.put( DB, dbKey, dbValue );
+            cacheStoreInfo.increment( DebugKey.storeCount );
+            updateIndex( dbKey, new IndexEntry( storedRecord.getKeyClass(), expirationDate, dbKey.length() + dbValue.length() ) );
+        }
+        catch ( final PwmUnrecoverableException | LocalDBException e )
+        {
+            LOGGER.debug( () -> "error writing cache entry to localDB: " + e.getMessage() );
+        }
+
+        if ( byteCounter.sum() > maxBytes )
+        {
+            trim();
+        }
+    }
+
+    @Override
+    public <T extends Serializable> T readAndStore( final CacheKey cacheKey, final Instant expirationDate, final Class<T> classOfT, final CacheLoader<T> cacheLoader )
+            throws PwmUnrecoverableException
+    {
+        final T value = read( cacheKey, classOfT );
+        if ( value != null )
+        {
+            return value;
+        }
+
+        final T data = cacheLoader.read();
+        store( cacheKey, expirationDate, data );
+        return data;
+    }
+
+    @Override
+    public <T extends Serializable> T read( final CacheKey cacheKey, final Class<T> classOfT )
+            throws PwmUnrecoverableException
+    {
+        final CacheEntry<T> cacheEntry = readEntry( cacheKey, classOfT, false );
+        return cacheEntry == null ? null : cacheEntry.getValue();
+    }
+
+    /**
+     * Read and remove an entry so that it can be promoted to the memory tier.
+     */
+    <T extends Serializable> CacheEntry<T> promote( final CacheKey cacheKey, final Class<T> classOfT )
+            throws PwmUnrecoverableException
+    {
+        final CacheEntry<T> cacheEntry = readEntry( cacheKey, classOfT, true );
+        if ( cacheEntry != null )
+        {
+            cacheStoreInfo.increment( DebugKey.promoteCount );
+        }
+        return cacheEntry;
+    }
+
+    /**
+     * Remove any stored copy of the key, used when a fresh value is stored in the memory tier.
+     */
+    void invalidate( final CacheKey cacheKey )
+            throws PwmUnrecoverableException
+    {
+        if ( index.isEmpty() || !isPersistable( cacheKey ) )
+        {
+            return;
+        }
+
+        final String dbKey = makeDbKey( cacheKey );
+        if ( index.containsKey( dbKey ) )
+        {
+            removeKeys( Collections.singletonList( dbKey ) );
+        }
+    }
+
+    private <T extends Serializable> CacheEntry<T> readEntry( final CacheKey cacheKey, final Class<T> classOfT, final boolean remove )
+            throws PwmUnrecoverableException
+    {
+        cacheStoreInfo.increment( DebugKey.readCount );
+
+        if ( !isPersistable( cacheKey ) )
+        {
+            cacheStoreInfo.increment( DebugKey.missCount );
+            return null;
+        }
+
+        final String dbKey = makeDbKey( cacheKey );
+        if ( !index.containsKey( dbKey ) )
+        {
+            cacheStoreInfo.increment( DebugKey.missCount );
+            return null;
+        }
+
+        final CacheEntry<T> cacheEntry = readStoredValue( dbKey, cacheKey, classOfT );
+        if ( cacheEntry == null || remove )
+        {
+            removeKeys( Collections.singletonList( dbKey ) );
+        }
+
+        if ( cacheEntry == null )
+        {
+            cacheStoreInfo.increment( DebugKey.missCount );
+            return null;
+        }
+
+        cacheStoreInfo.increment( DebugKey.hitCount );
+        return cacheEntry;
+    }
+
+    private <T extends Serializable> CacheEntry<T> readStoredValue( final String dbKey, final CacheKey cacheKey, final Class<T> classOfT )
+    {
+        try
+        {
+            final String dbValue = localDB.get( DB, dbKey );
+            final StoredRecord storedRecord = parseRecord( dbValue );
+            if ( storedRecord == null
+                    || !storedRecord.getExpiration().isAfter( Instant.now() )
+                    || !cacheKey.getSrcClass().getName().equals( storedRecord.getKeyClass() ) )
+            {
+                return null;
+            }
+
+            final T value = cacheValueCodec.decode( StringUtil.base64Decode( storedRecord.getPayload() ), classOfT );
+            return value == null ? null : new CacheEntry<>( value, storedRecord.getExpiration() );
+        }
+        catch ( final PwmUnrecoverableException | LocalDBException | IOException e )
+        {
+            LOGGER.debug( () -> "error reading cache entry from localDB, entry will be discarded: " + e.getMessage() );
+        }
+
+        return null;
+    }
+
+    private void loadIndex()
+            throws LocalDBException
+    {
+        final Instant startTime = Instant.now();
+        final List<String> removalKeys = new ArrayList<>();
+        try ( LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator = localDB.iterator( DB ) )
+        {
+            while ( iterator.hasNext() )
+            {
+                final Map.Entry<String, String> entry = iterator.next();
+                final StoredRecord storedRecord = parseRecord( entry.getValue() );
+                if ( storedRecord == null
+                        || !storedRecord.getExpiration().isAfter( startTime )
+                        || !isAllowedKeyClass( storedRecord.getKeyClass() ) )
+                {
+                    removalKeys.add( entry.getKey() );
+                }
+                else
+                {
+                    final long byteCount = entry.getKey().length() + entry.getValue().length();
+                    updateIndex( entry.getKey(), new IndexEntry( storedRecord.getKeyClass(), storedRecord.getExpiration(), byteCount ) );
+                }
+            }
+        }
+
+        if ( !removalKeys.isEmpty() )
+        {
+            localDB.removeAll( DB, removalKeys );
+        }
+
+        LOGGER.debug( () -> "loaded " + index.size() + " cache entries (" + byteCounter.sum() + " bytes) from localDB, discarded "
+                + removalKeys.size() + " expired or disallowed entries", () -> TimeDuration.fromCurrent( startTime ) );
+    }
+
+    private synchronized void trim()
+    {
+        if ( byteCounter.sum() <= maxBytes )
+        {
+            return;
+        }
+
+        final long targetBytes = ( long ) ( maxBytes * TRIM_TARGET_RATIO );
+        final Instant now = Instant.now();
+        final List<String> removalKeys = new ArrayList<>();
+        long remainingBytes = byteCounter.sum();
+
+        // discard expired entries first, then arbitrary entries until under the target size
+        for ( final Map.Entry<String, IndexEntry> entry : index.entrySet() )
+        {
+            if ( !entry.getValue().getExpiration().isAfter( now ) )
+            {
+                removalKeys.add( entry.getKey() );
+                remainingBytes -= entry.getValue().getByteCount();
+            }
+        }
+
+        final Iterator<Map.Entry<String, IndexEntry>> iterator = index.entrySet().iterator();
+        while ( remainingBytes > targetBytes && iterator.hasNext() )
+        {
+            final Map.Entry<String, IndexEntry> entry = iterator.next();
+            if ( entry.getValue().getExpiration().isAfter( now ) )
+            {
+                removalKeys.add( entry.getKey() );
+                remainingBytes -= entry.getValue().getByteCount();
+            }
+        }
+
+        cacheStoreInfo.increment( DebugKey.evictCount, removalKeys.size() );
+        removeKeys( removalKeys );
+    }
+
+    private void removeKeys( final List<String> dbKeys )
+    {
+        for ( final String dbKey : dbKeys )
+        {
+            final IndexEntry removed = index.remove( dbKey );
+            if ( removed != null )
+            {
+                byteCounter.add( -removed.getByteCount() );
+            }
+        }
+
+        try
+        {
+            localDB.removeAll( DB, dbKeys );
+        }
+        catch ( final LocalDBException e )
+        {
+            LOGGER.debug( () -> "error removing cache entries from localDB: " + e.getMessage() );
+        }
+    }
+
+    private void updateIndex( final String dbKey, final IndexEntry indexEntry )
+    {
+        final IndexEntry previous = index.put( dbKey, indexEntry );
+        byteCounter.add( indexEntry.getByteCount() - ( previous == null ? 0 : previous.getByteCount() ) );
+    }
+
+    @Override
+    public StatisticCounterBundle<DebugKey> getCacheStoreInfo( )
+    {
+        return cacheStoreInfo;
+    }
+
+    @Override
+    public int itemCount( )
+    {
+        return index.size();
+    }
+
+    @Override
+    public List<CacheDebugItem> getCacheDebugItems( )
+    {
+        final List<CacheDebugItem> items = new ArrayList<>();
+        for ( final Map.Entry<String, IndexEntry> entry : index.entrySet() )
+        {
+            final IndexEntry indexEntry = entry.getValue();
+            items.add( CacheDebugItem.builder()
+                    .srcClass( indexEntry.getKeyClass() )
+                    .valueID( entry.getKey() )
+                    .age( Duration.between( indexEntry.getExpiration(), Instant.now() ).toString() )
+                    .chars( ( int ) indexEntry.getByteCount() )
+                    .build() );
+        }
+        return Collections.unmodifiableList( items );
+    }
+
+    @Override
+    public long byteCount()
+    {
+        return byteCounter.sum();
+    }
+
+    private String makeDbKey( final CacheKey cacheKey )
+            throws PwmUnrecoverableException
+    {
+        final String keyString = cacheKey.getSrcClass().getName()
+                + '|' + Objects.toString( keyUser( cacheKey ), "" )
+                + '|' + cacheKey.getValueID();
+        return SecureEngine.hmac( HmacAlgorithm.HMAC_SHA_256, securityKey, keyString );
+    }
+
+    private static String keyUser( final CacheKey cacheKey )
+    {
+        return cacheKey.getUserIdentity() == null ? null : cacheKey.getUserIdentity().toDelimitedKey();
+    }
+
+    private static StoredRecord parseRecord( final String dbValue )
+    {
+        if ( dbValue == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            final StoredRecord storedRecord = JsonUtil.deserialize( dbValue, StoredRecord.class );
+            if ( storedRecord == null || storedRecord.getExpiration() == null || storedRecord.getPayload() == null
+                    || storedRecord.getKeyClass() == null )
+            {
+                return null;
+            }
+            return storedRecord;
+        }
+        catch ( final Exception e )
+        {
+            return null;
+        }
+    }
+
+    @Value
+    static class CacheEntry<T extends Serializable>
+    {
+        private final T value;
+        private final Instant expiration;
+    }
+
+    @Value
+    private static class IndexEntry
+    {
+        private final String keyClass;
+        private final Instant expiration;
+        private final long byteCount;
+    }
+
+    @Value
+    private static class StoredRecord implements Serializable
+    {
+        private final String keyClass;
+        private final Instant expiration;
+        private final String payload;
+    }
+}
@@ -22,10 +22,10 @@ package password.pwm.svc.cache;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import lombok.Value;
 import password.pwm.bean.UserIdentity;
 import password.pwm.error.PwmUnrecoverableException;
-import password.pwm.util.java.JsonUtil;
 import password.pwm.util.java.StatisticCounterBundle;
 import password.pwm.util.logging.PwmLogger;
 
@@ -37,27 +37,56 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
 
 class MemoryCacheStore implements CacheStore
 {
     private static final PwmLogger LOGGER = PwmLogger.forClass( MemoryCacheStore.class );
+
+    private static final int REFERENCE_VALUE_BYTE_ESTIMATE = 16;
+
     private final Cache<CacheKey, CacheValueWrapper> memoryStore;
     private final StatisticCounterBundle<DebugKey> cacheStoreInfo = new StatisticCounterBundle<>( DebugKey.class );
+    private final CacheValueCodec cacheValueCodec;
+    private final LongAdder byteCounter = new LongAdder();
+    private final EvictionListener evictionListener;
 
-    MemoryCacheStore( final int maxItems )
+    MemoryCacheStore( final long maxBytes, final CacheValueCodec cacheValueCodec, final EvictionListener evictionListener )
     {
+        this.cacheValueCodec = cacheValueCodec;
+        this.evictionListener = evictionListener;
         memoryStore = Caffeine.newBuilder()
-                .maximumSize( maxItems )
+                .maximumWeight( maxBytes )
+                .weigher( ( CacheKey key, CacheValueWrapper value ) -> ( int ) Math.min( Integer.MAX_VALUE, value.getByteCount() ) )
+                .executor( Runnable::run )
+                .removalListener( ( CacheKey key, CacheValueWrapper value, RemovalCause cause ) ->
+                {
+                    if ( value != null )
+                    {
+                        byteCounter.add( -value.getByteCount() );
+                        if ( cause == RemovalCause.SIZE )
+                        {
+                            demote( key, value );
+                        }
+                    }
+                } )
                 .build();
     }
 
+    /**
+     * Receives entries evicted from the memory store due to the size bound, in encoded form.
+     */
+    interface EvictionListener
+    {
+        void evicted( CacheKey cacheKey, Instant expirationDate, byte[] encodedValue );
+    }
+
     @Override
     public void store( final CacheKey cacheKey, final Instant expirationDate, final Serializable data )
             throws PwmUnrecoverableException
     {
         cacheStoreInfo.increment( DebugKey.storeCount );
-        final String jsonData = JsonUtil.serialize( data );
-        memoryStore.put( cacheKey, new CacheValueWrapper( cacheKey, expirationDate, jsonData ) );
+        storeValue( cacheKey, expirationDate, data );
     }
 
     @Override
@@ -75,13 +104,35 @@ class MemoryCacheStore implements CacheStore
         }
 
         final T data = cacheLoader.read();
-        final String jsonIfiedData = JsonUtil.serialize( data );
         cacheStoreInfo.increment( DebugKey.missCount );
-        memoryStore.put( cacheKey, new CacheValueWrapper( cacheKey, expirationDate, jsonIfiedData ) );
+        storeValue( cacheKey, expirationDate, data );
         return data;
     }
 
+    private void storeValue( final CacheKey cacheKey, final Instant expirationDate, final Serializable data )
+            throws PwmUnrecoverableException
+    {
+        final CacheValueWrapper cacheValueWrapper;
+        if ( isImmutable( data ) )
+        {
+            final long byteCount = keyByteCount( cacheKey ) + referenceByteCount( data );
+            cacheValueWrapper = new CacheValueWrapper( cacheKey, Instant.now(), expirationDate, data, false, byteCount );
+        }
+        else
+        {
+            // encode even though stored in memory, this prevents object-reuse because the object may be mutable.
+            // Thus an effective clone is made for each store/read.
+            final byte[] encodedValue = cacheValueCodec.encode( data );
+            final long byteCount = keyByteCount( cacheKey ) + encodedValue.length;
+            cacheValueWrapper = new CacheValueWrapper( cacheKey, Instant.now(), expirationDate, encodedValue, true, byteCount );
+        }
+
+        byteCounter.add( cacheValueWrapper.getByteCount() );
+        memoryStore.put( cacheKey, cacheValueWrapper );
+    }
+
     private <T extends Serializable> T extractValue( final Class<T> classOfT, final CacheValueWrapper valueWrapper, final CacheKey cacheKey )
+            throws PwmUnrecoverableException
     {
         if ( valueWrapper != null )
         {
@@ -89,9 +140,18 @@ class MemoryCacheStore implements CacheStore
             {
                 if ( valueWrapper.getExpirationDate().isAfter( Instant.now() ) )
                 {
+                    if ( !valueWrapper.isEncoded() )
+                    {
+                        if ( classOfT.isInstance( valueWrapper.getPayload() ) )
+                        {
+                            cacheStoreInfo.increment( DebugKey.hitCount );
+                            return classOfT.cast( valueWrapper.getPayload() );
+                        }
+                        return null;
+                    }
+
                     cacheStoreInfo.increment( DebugKey.hitCount );
-                    final String jsonValue  = valueWrapper.getPayload();
-                    return JsonUtil.deserialize( jsonValue, classOfT );
+                    return cacheValueCodec.decode( ( byte[] ) valueWrapper.getPayload(), classOfT );
                 }
             }
         }
@@ -101,6 +161,7 @@ class MemoryCacheStore implements CacheStore
 
     @Override
     public <T extends Serializable> T read( final CacheKey cacheKey, final Class<T> classOfT )
+            throws PwmUnrecoverableException
     {
         cacheStoreInfo.increment( DebugKey.readCount );
         final CacheValueWrapper valueWrapper = memoryStore.getIfPresent( cacheKey );
@@ -115,6 +176,54 @@ class MemoryCacheStore implements CacheStore
         return null;
     }
 
+    /**
+     * Indicates if the stored entry has passed the given fraction of its lifetime and should be refreshed.
+     */
+    boolean isRefreshDue( final CacheKey cacheKey, final float refreshAheadRatio )
+    {
+        final CacheValueWrapper valueWrapper = memoryStore.getIfPresent( cacheKey );
+        if ( valueWrapper == null )
+        {
+            return false;
+        }
+
+        final long lifetimeMs = Duration.between( valueWrapper.getStoreDate(), valueWrapper.getExpirationDate() ).toMillis();
+        final long ageMs = Duration.between( valueWrapper.getStoreDate(), Instant.now() ).toMillis();
+        return lifetimeMs > 0 && ageMs >= lifetimeMs * refreshAheadRatio;
+    }
+
+    /**
+     * Hand all current entries to the eviction listener, used to preserve the cache contents at shutdown.
+     */
+    void demoteAll()
+    {
+        for ( final Map.Entry<CacheKey, CacheValueWrapper> entry : memoryStore.asMap().entrySet() )
+        {
+            demote( entry.getKey(), entry.getValue() );
+        }
+    }
+
+    private void demote( final CacheKey cacheKey, final CacheValueWrapper valueWrapper )
+    {
+        if ( evictionListener == null || !valueWrapper.getExpirationDate().isAfter( Instant.now() ) )
+        {
+            return;
+        }
+
+        try
+        {
+            final byte[] encodedValue = valueWrapper.isEncoded()
+                    ? ( byte[] ) valueWrapper.getPayload()
+                    : cacheValueCodec.encode( valueWrapper.getPayload() );
+            evictionListener.evicted( cacheKey, valueWrapper.getExpirationDate(), encodedValue );
+            cacheStoreInfo.increment( DebugKey.demoteCount );
+        }
+        catch ( final PwmUnrecoverableException e )
+        {
+            LOGGER.trace( () -> "unable to demote evicted cache entry: " + e.getMessage() );
+        }
+    }
+
     @Override
     public StatisticCounterBundle<DebugKey> getCacheStoreInfo( )
     {
@@ -137,7 +246,7 @@ class MemoryCacheStore implements CacheStore
             final CacheValueWrapper cacheValueWrapper = entry.getValue();
             final Instant storeDate = cacheValueWrapper.getExpirationDate();
             final String age = Duration.between( storeDate, Instant.now() ).toString();
-            final int chars = cacheValueWrapper.getPayload().length();
+            final int chars = ( int ) cacheValueWrapper.getByteCount();
             final String keyClass = cacheKey.getSrcClass() == null ? "null" : cacheKey.getSrcClass().getName();
             final String keyUserID = cacheKey.getUserIdentity() == null ? "null" : cacheKey.getUserIdentity().toDisplayString();
             final String keyValue = cacheKey.getValueID() == null ? "null" : cacheKey.getValueID();
@@ -159,11 +268,13 @@ class MemoryCacheStore implements CacheStore
     private static class CacheValueWrapper implements Serializable
     {
         private final CacheKey cacheKey;
+        private final Instant storeDate;
         private final Instant expirationDate;
 
-        // serialize to json even though stored in memory, this prevents object-reuse because we don't know
-        // if the object is immutable.  Thus an effective clone is made for each store/read.
-        private final String payload;
+        // either the immutable payload itself, or the codec encoded byte[] payload
+        private final Serializable payload;
+        private final boolean encoded;
+        private final long byteCount;
     }
 
     Map<String, Integer> storedClassHistogram( final String prefix )
@@ -183,17 +294,31 @@ class MemoryCacheStore implements CacheStore
     @Override
     public long byteCount()
     {
-        long byteCount = 0;
-        for ( final Map.Entry<CacheKey, CacheValueWrapper> entry : memoryStore.asMap().entrySet() )
-        {
-            final CacheKey cacheKey = entry.getKey();
-            final UserIdentity userIdentity = cacheKey.getUserIdentity();
-            byteCount += userIdentity == null ? 0 : cacheKey.getUserIdentity().toDelimitedKey().length();
-            final String valueID = cacheKey.getValueID();
-            byteCount += valueID == null ? 0 : cacheKey.getValueID().length();
-            final CacheValueWrapper cacheValueWrapper = entry.getValue();
-            byteCount += cacheValueWrapper.payload.length();
-        }
-        return byteCount;
+        return byteCounter.sum();
+    }
+
+    static boolean isImmutable( final Serializable data )
+    {
+        return data instanceof String
+                || data instanceof Boolean
+                || data instanceof Character
+                || data instanceof Enum
+                || data instanceof Instant
+                || ( data instanceof Number && data.getClass().getName().startsWith( "java." ) );
+    }
+
+    private static long keyByteCount( final CacheKey cacheKey )
+    {
+        final UserIdentity userIdentity = cacheKey.getUserIdentity();
+        final String valueID = cacheKey.getValueID();
+        return ( userIdentity == null ? 0 : userIdentity.toDelimitedKey().length() )
+                + ( valueID == null ? 0 : valueID.length() );
+    }
+
+    private static long referenceByteCount( final Serializable data )
+    {
+        return data instanceof String
+                ? ( ( String ) data ).length()
+                : REFERENCE_VALUE_BYTE_ESTIMATE;
     }
 }
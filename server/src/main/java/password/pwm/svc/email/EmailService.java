@@ -59,6 +59,7 @@ import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
 
 /**
  * @author Jason D. Rivard
@@ -122,6 +123,7 @@ public class EmailService implements PwmService
                 .retryDiscardAge( emailServiceSettings.getQueueDiscardAge() )
                 .retryInterval( emailServiceSettings.getQueueRetryTimeout() )
                 .preThreads( emailServiceSettings.getMaxThreads() )
+                .workerThreads( emailServiceSettings.getWorkerThreads() )
                 .build();
         final LocalDBStoredQueue localDBStoredQueue = LocalDBStoredQueue.createLocalDBStoredQueue( pwmApplication, pwmApplication.getLocalDB(), LocalDB.DB.EMAIL_QUEUE );
 
@@ -205,6 +207,19 @@ public class EmailService implements PwmService
                 .build();
     }
 
+    @Override
+    public void collectStatisticCounters( final BiConsumer<String, StatisticCounterBundle<?>> collector )
+    {
+        if ( workQueueProcessor != null )
+        {
+            collector.accept( "queue", workQueueProcessor.getWorkQueueStats() );
+        }
+        for ( final EmailServer emailServer : connectionPool.getServers() )
+        {
+            collector.accept( "server." + emailServer.getId(), emailServer.getConnectionStats() );
+        }
+    }
+
     public int queueSize( )
     {
         return workQueueProcessor == null
@@ -232,6 +247,12 @@ public class EmailService implements PwmService
         {
             return emailItemBean.toDebugString();
         }
+
+        @Override
+        public String orderingKey( final EmailItemBean emailItemBean )
+        {
+            return emailItemBean.getTo();
+        }
     }
 
     private void logStats()
@@ -44,6 +44,7 @@ public class EmailServiceSettings implements Serializable
     private final TimeDuration queueDiscardAge;
     private final int connectionSendItemLimit;
     private final int maxThreads;
+    private final int workerThreads;
     private final int queueMaxItems;
     private final Set<Integer> retryableStatusResponses;
 
@@ -52,6 +53,7 @@ public class EmailServiceSettings implements Serializable
     {
         return builder()
                 .maxThreads( Integer.parseInt( configuration.readAppProperty( AppProperty.QUEUE_EMAIL_MAX_THREADS ) ) )
+                .workerThreads( Integer.parseInt( configuration.readAppProperty( AppProperty.QUEUE_EMAIL_WORKER_THREADS ) ) )
                 .connectionSendItemDuration( TimeDuration.of(
                         Integer.parseInt( configuration.readAppProperty( AppProperty.QUEUE_EMAIL_MAX_SECONDS_PER_CONNECTION ) ),
                         TimeDuration.Unit.SECONDS ) )
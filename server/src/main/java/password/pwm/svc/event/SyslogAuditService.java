@@ -157,6 +157,13 @@ public class SyslogAuditService
         {
             return JsonUtil.serialize( workItem );
         }
+
+        @Override
+        public String orderingKey( final String workItem )
+        {
+            // audit events are delivered to the syslog servers in the order they occurred
+            return SyslogItemProcessor.class.getSimpleName();
+        }
     }
 
 
@@ -41,6 +41,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 public class HttpClientService extends AbstractPwmService implements PwmService
 {
@@ -173,4 +174,10 @@ public class HttpClientService extends AbstractPwmService implements PwmService
                 .build();
 
     }
+
+    @Override
+    public void collectStatisticCounters( final BiConsumer<String, StatisticCounterBundle<?>> collector )
+    {
+        collector.accept( "client", stats );
+    }
 }
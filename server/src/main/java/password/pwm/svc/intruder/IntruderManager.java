@@ -124,10 +124,10 @@ public class IntruderManager implements PwmService
             return;
         }
         final DataStore dataStore;
+        final DataStorageMethod storageMethodUsed;
         {
             final IntruderStorageMethod intruderStorageMethod = pwmApplication.getConfig().readSettingAsEnum( PwmSetting.INTRUDER_STORAGE_METHOD, IntruderStorageMethod.class );
             final String debugMsg;
-            final DataStorageMethod storageMethodUsed;
             switch ( intruderStorageMethod )
             {
                 case AUTO:
@@ -164,6 +164,8 @@ public class IntruderManager implements PwmService
             LOGGER.info( () -> debugMsg );
             serviceInfo = ServiceInfoBean.builder().storageMethod( storageMethodUsed ).build();
         }
+        // a remote database is shared by all nodes, so counters are only cached and written behind when stored in the node's own LocalDB
+        final boolean writeBehind = storageMethodUsed == DataStorageMethod.LOCALDB;
         final RecordStore recordStore;
         {
             recordStore = new DataStoreRecordStore( dataStore, this );
@@ -186,11 +188,24 @@ public class IntruderManager implements PwmService
                     }
                 }
             }, 1000, cleanerRunFrequency );
+
+            if ( writeBehind )
+            {
+                final long writeBehindInterval = Long.parseLong( pwmApplication.getConfig().readAppProperty( AppProperty.INTRUDER_WRITE_BEHIND_INTERVAL_MS ) );
+                timer.schedule( new TimerTask()
+                {
+                    @Override
+                    public void run( )
+                    {
+                        flushRecordManagers();
+                    }
+                }, writeBehindInterval, writeBehindInterval );
+            }
         }
 
         try
         {
-            initializeRecordManagers( config, recordStore );
+            initializeRecordManagers( config, recordStore, writeBehind );
             status = STATUS.OPEN;
         }
         catch ( final Exception e )
@@ -202,8 +217,26 @@ public class IntruderManager implements PwmService
         }
     }
 
-    private void initializeRecordManagers( final Configuration config, final RecordStore recordStore )
+    private void flushRecordManagers( )
     {
+        for ( final RecordManager recordManager : recordManagers.values() )
+        {
+            try
+            {
+                recordManager.flush();
+            }
+            catch ( final Exception e )
+            {
+                LOGGER.error( () -> "error writing intruder records: " + e.getMessage(), e );
+            }
+        }
+    }
+
+    private void initializeRecordManagers( final Configuration config, final RecordStore recordStore, final boolean writeBehind )
+    {
+        final TimeDuration idleTimeout = TimeDuration.of(
+                Long.parseLong( pwmApplication.getConfig().readAppProperty( AppProperty.INTRUDER_COUNTER_IDLE_TIMEOUT_MS ) ),
+                TimeDuration.Unit.MILLISECONDS );
         {
             final IntruderSettings settings = new IntruderSettings();
             settings.setCheckCount( ( int ) config.readSettingAsLong( PwmSetting.INTRUDER_USER_MAX_ATTEMPTS ) );
@@ -215,8 +248,8 @@ public class IntruderManager implements PwmService
             }
             else
             {
-                recordManagers.put( RecordType.USERNAME, new RecordManagerImpl( RecordType.USERNAME, recordStore, settings ) );
-                recordManagers.put( RecordType.USER_ID, new RecordManagerImpl( RecordType.USER_ID, recordStore, settings ) );
+                recordManagers.put( RecordType.USERNAME, new RecordManagerImpl( RecordType.USERNAME, recordStore, settings, idleTimeout, writeBehind ) );
+                recordManagers.put( RecordType.USER_ID, new RecordManagerImpl( RecordType.USER_ID, recordStore, settings, idleTimeout, writeBehind ) );
             }
         }
         {
@@ -230,7 +263,7 @@ public class IntruderManager implements PwmService
             }
             else
             {
-                recordManagers.put( RecordType.ATTRIBUTE, new RecordManagerImpl( RecordType.ATTRIBUTE, recordStore, settings ) );
+                recordManagers.put( RecordType.ATTRIBUTE, new RecordManagerImpl( RecordType.ATTRIBUTE, recordStore, settings, idleTimeout, writeBehind ) );
             }
         }
         {
@@ -244,7 +277,7 @@ public class IntruderManager implements PwmService
             }
             else
             {
-                recordManagers.put( RecordType.TOKEN_DEST, new RecordManagerImpl( RecordType.TOKEN_DEST, recordStore, settings ) );
+                recordManagers.put( RecordType.TOKEN_DEST, new RecordManagerImpl( RecordType.TOKEN_DEST, recordStore, settings, idleTimeout, writeBehind ) );
             }
         }
         {
@@ -258,7 +291,7 @@ public class IntruderManager implements PwmService
             }
             else
             {
-                recordManagers.put( RecordType.ADDRESS, new RecordManagerImpl( RecordType.ADDRESS, recordStore, settings ) );
+                recordManagers.put( RecordType.ADDRESS, new RecordManagerImpl( RecordType.ADDRESS, recordStore, settings, idleTimeout, writeBehind ) );
             }
         }
     }
@@ -271,12 +304,16 @@ public class IntruderManager implements PwmService
     @Override
     public void close( )
     {
-        status = STATUS.CLOSED;
         if ( timer != null )
         {
             timer.cancel();
             timer = null;
         }
+        if ( status == STATUS.OPEN )
+        {
+            flushRecordManagers();
+        }
+        status = STATUS.CLOSED;
     }
 
     @Override
@@ -365,6 +402,12 @@ public class IntruderManager implements PwmService
         {
             try
             {
+                if ( pwmApplication.getConfig().readAppPropertyAsIPMatcher( AppProperty.INTRUDER_ADDRESS_EXEMPT_RANGES ).match( subject ) )
+                {
+                    LOGGER.debug( sessionLabel, () -> "disregarding intruder attempt from exempt address: " + subject );
+                    return;
+                }
+
                 final InetAddress inetAddress = InetAddress.getByName( subject );
                 if ( inetAddress.isAnyLocalAddress() || inetAddress.isLoopbackAddress() || inetAddress.isLinkLocalAddress() )
                 {
@@ -37,5 +37,7 @@ public interface RecordManager
 
     IntruderRecord readIntruderRecord( String subject );
 
+    void flush( );
+
     ClosableIterator<IntruderRecord> iterator( ) throws PwmException;
 }
@@ -31,6 +31,22 @@ import password.pwm.util.logging.PwmLogger;
 import password.pwm.util.secure.PwmHashAlgorithm;
 import password.pwm.util.secure.SecureEngine;
 
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Record manager that counts attempts per subject with a {@link SlidingWindowCounter}.
+ *
+ * <p>In write-behind mode, used when the {@link RecordStore} is private to this node, counters are kept in memory,
+ * checks and marks are served from memory and changed counters are persisted by {@link #flush()}.  Otherwise the
+ * store is shared with other nodes, so each operation reads the stored record and writes any change immediately,
+ * holding a lock striped by subject so that concurrent operations on the same subject in this node are not lost.</p>
+ */
 class RecordManagerImpl implements RecordManager
 {
     private static final PwmLogger LOGGER = PwmLogger.forClass( RecordManagerImpl.class );
@@ -38,14 +54,28 @@ class RecordManagerImpl implements RecordManager
     private final RecordType recordType;
     private final RecordStore recordStore;
     private final IntruderSettings settings;
+    private final TimeDuration idleTimeout;
+    private final boolean writeBehind;
+
+    private final Map<String, SlidingWindowCounter> counters = new ConcurrentHashMap<>();
+    private final Lock[] subjectLocks = makeSubjectLocks();
 
     private static final PwmHashAlgorithm KEY_HASH_ALG = PwmHashAlgorithm.SHA256;
+    private static final int SUBJECT_LOCK_STRIPES = 64;
 
-    RecordManagerImpl( final RecordType recordType, final RecordStore recordStore, final IntruderSettings settings )
+    RecordManagerImpl(
+            final RecordType recordType,
+            final RecordStore recordStore,
+            final IntruderSettings settings,
+            final TimeDuration idleTimeout,
+            final boolean writeBehind
+    )
     {
         this.recordType = recordType;
         this.recordStore = recordStore;
         this.settings = settings;
+        this.idleTimeout = idleTimeout;
+        this.writeBehind = writeBehind;
     }
 
     @Override
@@ -56,20 +86,7 @@ class RecordManagerImpl implements RecordManager
             throw new IllegalArgumentException( "subject is required value" );
         }
 
-        final IntruderRecord record = readIntruderRecord( subject );
-        if ( record == null )
-        {
-            return false;
-        }
-        if ( TimeDuration.fromCurrent( record.getTimeStamp() ).isLongerThan( settings.getCheckDuration() ) )
-        {
-            return false;
-        }
-        if ( record.getAttemptCount() >= settings.getCheckCount() )
-        {
-            return true;
-        }
-        return false;
+        return withCounter( subject, counter -> counter.isLocked( Instant.now(), settings.getCheckCount() ) );
     }
 
     @Override
@@ -80,87 +97,146 @@ class RecordManagerImpl implements RecordManager
             throw new IllegalArgumentException( "subject is required value" );
         }
 
-        IntruderRecord record = readIntruderRecord( subject );
+        withCounter( subject, counter -> counter.increment( Instant.now() ) );
+    }
 
-        if ( record == null )
-        {
-            record = new IntruderRecord( recordType, subject );
-        }
+    @Override
+    public void clearSubject( final String subject )
+    {
+        withCounter( subject, SlidingWindowCounter::clear );
+    }
 
-        final TimeDuration age = TimeDuration.fromCurrent( record.getTimeStamp() );
-        if ( age.isLongerThan( settings.getCheckDuration() ) )
-        {
-            final IntruderRecord finalRecord = record;
-            LOGGER.debug( () -> "re-setting existing outdated record=" + JsonUtil.serialize( finalRecord ) + " (" + age.asCompactString() + ")" );
-            record = new IntruderRecord( recordType, subject );
-        }
+    @Override
+    public boolean isAlerted( final String subject )
+    {
+        return withCounter( subject, SlidingWindowCounter::isAlerted );
+    }
 
-        record.incrementAttemptCount();
+    @Override
+    public void markAlerted( final String subject )
+    {
+        withCounter( subject, SlidingWindowCounter::markAlerted );
+    }
 
-        writeIntruderRecord( record );
+    @Override
+    public IntruderRecord readIntruderRecord( final String subject )
+    {
+        return withCounter( subject, counter -> counter.toRecord( recordType, subject ) );
     }
 
     @Override
-    public void clearSubject( final String subject )
+    public void flush( )
     {
-        final IntruderRecord record = readIntruderRecord( subject );
-        if ( record == null )
+        int written = 0;
+        for ( final Map.Entry<String, SlidingWindowCounter> entry : counters.entrySet() )
         {
-            return;
+            final IntruderRecord record = entry.getValue().takeDirtyRecord( recordType, entry.getKey() );
+            if ( record != null )
+            {
+                if ( writeIntruderRecord( record ) )
+                {
+                    written++;
+                }
+                else
+                {
+                    entry.getValue().markDirty();
+                }
+            }
         }
 
-        if ( record.getAttemptCount() == 0 )
+        final long now = System.currentTimeMillis();
+        final long idleMs = idleTimeout.asMillis();
+        for ( final String subject : counters.keySet() )
         {
-            return;
+            counters.computeIfPresent( subject, ( key, counter ) -> counter.isIdle( now, idleMs ) ? null : counter );
         }
 
-        record.clearAttemptCount();
-        writeIntruderRecord( record );
+        if ( written > 0 )
+        {
+            final int finalWritten = written;
+            LOGGER.trace( () -> "wrote " + finalWritten + " changed " + recordType + " intruder records, " + counters.size() + " subjects in memory" );
+        }
     }
 
-    @Override
-    public boolean isAlerted( final String subject )
+    /**
+     * Apply the operation to the subject's counter while holding the map entry, so that the counter can
+     * not be evicted concurrently.  The stored record is read outside of the map entry lock when possible.
+     */
+    private <T> T withCounter( final String subject, final Function<SlidingWindowCounter, T> operation )
     {
-        final IntruderRecord record = readIntruderRecord( subject );
-        return record != null && record.isAlerted();
+        if ( !writeBehind )
+        {
+            final Lock lock = subjectLocks[ Math.floorMod( subject.hashCode(), SUBJECT_LOCK_STRIPES ) ];
+            lock.lock();
+            try
+            {
+                final SlidingWindowCounter counter = loadCounter( subject );
+                final T result = operation.apply( counter );
+                final IntruderRecord changedRecord = counter.takeDirtyRecord( recordType, subject );
+                if ( changedRecord != null )
+                {
+                    writeIntruderRecord( changedRecord );
+                }
+                return result;
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        final SlidingWindowCounter loadedCounter = counters.containsKey( subject )
+                ? null
+                : loadCounter( subject );
+
+        final AtomicReference<T> result = new AtomicReference<>();
+        counters.compute( subject, ( key, existing ) ->
+        {
+            final SlidingWindowCounter counter = existing != null
+                    ? existing
+                    : loadedCounter != null ? loadedCounter : loadCounter( subject );
+            result.set( operation.apply( counter ) );
+            return counter;
+        } );
+        return result.get();
     }
 
-    @Override
-    public void markAlerted( final String subject )
+    private static Lock[] makeSubjectLocks( )
     {
-        final IntruderRecord record = readIntruderRecord( subject );
-        if ( record == null || record.isAlerted() )
+        final Lock[] locks = new Lock[ SUBJECT_LOCK_STRIPES ];
+        for ( int i = 0; i < SUBJECT_LOCK_STRIPES; i++ )
         {
-            return;
+            locks[ i ] = new ReentrantLock();
         }
-        record.setAlerted();
-        writeIntruderRecord( record );
+        return locks;
     }
 
-    @Override
-    public IntruderRecord readIntruderRecord( final String subject )
+    private SlidingWindowCounter loadCounter( final String subject )
     {
+        IntruderRecord storedRecord = null;
         try
         {
-            return recordStore.read( makeKey( subject ) );
+            storedRecord = recordStore.read( makeKey( subject ) );
         }
         catch ( final PwmException e )
         {
             LOGGER.error( () -> "unable to read read intruder record from storage: " + e.getMessage() );
         }
-        return null;
+        return SlidingWindowCounter.fromRecord( settings.getCheckDuration().asMillis(), storedRecord, Instant.now() );
     }
 
-    private void writeIntruderRecord( final IntruderRecord intruderRecord )
+    private boolean writeIntruderRecord( final IntruderRecord intruderRecord )
     {
         try
         {
             recordStore.write( makeKey( intruderRecord.getSubject() ), intruderRecord );
+            return true;
         }
         catch ( final PwmException e )
         {
             LOGGER.warn( () -> "unexpected error attempting to write intruder record " + JsonUtil.serialize( intruderRecord ) + ", error: " + e.getMessage() );
         }
+        return false;
     }
 
     private String makeKey( final String subject ) throws PwmOperationalException
@@ -181,6 +257,7 @@ class RecordManagerImpl implements RecordManager
     @Override
     public ClosableIterator<IntruderRecord> iterator( ) throws PwmException
     {
+        flush();
         return new RecordIterator<>( recordStore.iterator() );
     }
 
@@ -0,0 +1,199 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.svc.intruder;
+
+import java.time.Instant;
+
+/**
+ * Per-subject attempt counter over a sliding window of {@link #SLOT_COUNT} time slots.  Attempts
+ * older than the window duration fall out of the count one slot at a time.
+ *
+ * <p>A subject whose attempts within the window reached the threshold stays locked until a full window has
+ * passed since its last attempt, the same lock expiry as a stored {@link IntruderRecord}.</p>
+ *
+ * <p>All methods synchronize on the counter instance, so contention is limited to concurrent
+ * operations on the same subject.</p>
+ */
+class SlidingWindowCounter
+{
+    static final int SLOT_COUNT = 10;
+
+    private final long windowMs;
+    private final long slotWidthMs;
+    private final long[] slotEpochs = new long[ SLOT_COUNT ];
+    private final int[] slotCounts = new int[ SLOT_COUNT ];
+
+    private Instant lastAttempt;
+    private int countAtLastAttempt;
+    private boolean alerted;
+    private boolean dirty;
+    private long lastAccessMs;
+
+    SlidingWindowCounter( final long windowMs )
+    {
+        this.windowMs = windowMs;
+        this.slotWidthMs = Math.max( 1, windowMs / SLOT_COUNT );
+        this.lastAccessMs = System.currentTimeMillis();
+    }
+
+    static SlidingWindowCounter fromRecord( final long windowMs, final IntruderRecord record, final Instant now )
+    {
+        final SlidingWindowCounter counter = new SlidingWindowCounter( windowMs );
+
+        // a record whose last attempt is older than the window belongs to a finished attempt window, so start a new one
+        if ( record != null && record.getTimeStamp() != null && !isExpired( windowMs, record.getTimeStamp(), now ) )
+        {
+            // stored records only carry the total and the last attempt time, so the total is placed in the last attempt's slot
+            counter.addToSlot( record.getTimeStamp().toEpochMilli(), record.getAttemptCount() );
+            counter.lastAttempt = record.getTimeStamp();
+            counter.countAtLastAttempt = record.getAttemptCount();
+            counter.alerted = record.isAlerted();
+        }
+        return counter;
+    }
+
+    synchronized int increment( final Instant now )
+    {
+        if ( lastAttempt != null && isExpired( windowMs, lastAttempt, now ) )
+        {
+            // a new attempt window begins, so a later lockout alerts again
+            countAtLastAttempt = 0;
+            alerted = false;
+        }
+
+        addToSlot( now.toEpochMilli(), 1 );
+        lastAttempt = now;
+        countAtLastAttempt = count( now.toEpochMilli() );
+        dirty = true;
+        lastAccessMs = now.toEpochMilli();
+        return countAtLastAttempt;
+    }
+
+    synchronized boolean isLocked( final Instant now, final int checkCount )
+    {
+        lastAccessMs = now.toEpochMilli();
+        if ( lastAttempt == null || isExpired( windowMs, lastAttempt, now ) )
+        {
+            return false;
+        }
+        return countAtLastAttempt >= checkCount;
+    }
+
+    synchronized int count( final Instant now )
+    {
+        lastAccessMs = now.toEpochMilli();
+        return count( now.toEpochMilli() );
+    }
+
+    synchronized boolean clear()
+    {
+        final boolean changed = count( System.currentTimeMillis() ) > 0 || countAtLastAttempt > 0 || alerted;
+        for ( int i = 0; i < SLOT_COUNT; i++ )
+        {
+            slotCounts[ i ] = 0;
+        }
+        countAtLastAttempt = 0;
+        alerted = false;
+        dirty |= changed;
+        return changed;
+    }
+
+    synchronized boolean isAlerted()
+    {
+        return alerted;
+    }
+
+    synchronized boolean markAlerted()
+    {
+        if ( alerted )
+        {
+            return false;
+        }
+        alerted = true;
+        dirty = true;
+        return true;
+    }
+
+    synchronized boolean isIdle( final long nowMs, final long idleMs )
+    {
+        return !dirty && nowMs - lastAccessMs > idleMs;
+    }
+
+    /**
+     * Returns a record of the current state if it has changed since the last call, otherwise null.
+     */
+    synchronized IntruderRecord takeDirtyRecord( final RecordType recordType, final String subject )
+    {
+        if ( !dirty )
+        {
+            return null;
+        }
+        dirty = false;
+        return toRecord( recordType, subject );
+    }
+
+    synchronized void markDirty()
+    {
+        dirty = true;
+    }
+
+    synchronized IntruderRecord toRecord( final RecordType recordType, final String subject )
+    {
+        if ( lastAttempt == null )
+        {
+            return null;
+        }
+        return new IntruderRecord( recordType, subject, lastAttempt, countAtLastAttempt, alerted );
+    }
+
+    private static boolean isExpired( final long windowMs, final Instant lastAttempt, final Instant now )
+    {
+        return now.toEpochMilli() - lastAttempt.toEpochMilli() > windowMs;
+    }
+
+    private void addToSlot( final long timestampMs, final int amount )
+    {
+        final long epoch = timestampMs / slotWidthMs;
+        final int index = ( int ) ( epoch % SLOT_COUNT );
+        if ( slotEpochs[ index ] != epoch )
+        {
+            slotEpochs[ index ] = epoch;
+            slotCounts[ index ] = 0;
+        }
+        slotCounts[ index ] += amount;
+    }
+
+    private int count( final long nowMs )
+    {
+        final long currentEpoch = nowMs / slotWidthMs;
+        int total = 0;
+        for ( int i = 0; i < SLOT_COUNT; i++ )
+        {
+            final long age = currentEpoch - slotEpochs[ i ];
+            if ( age >= 0 && age < SLOT_COUNT )
+            {
+                total += slotCounts[ i ];
+            }
+        }
+        return total;
+    }
+}
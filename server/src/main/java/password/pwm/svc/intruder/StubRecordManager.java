@@ -43,6 +43,11 @@ class StubRecordManager implements RecordManager
     {
     }
 
+    @Override
+    public void flush( )
+    {
+    }
+
     @Override
     public boolean isAlerted( final String subject )
     {
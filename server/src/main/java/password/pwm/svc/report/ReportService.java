@@ -76,7 +76,7 @@ public class ReportService implements PwmService
     private PwmApplication pwmApplication;
     private STATUS status = STATUS.CLOSED;
     private volatile boolean cancelFlag = false;
-    private ReportSummaryData summaryData = ReportSummaryData.newSummaryData( null );
+    private volatile ReportSummaryData summaryData = ReportSummaryData.newSummaryData( null );
     private ExecutorService executorService;
 
     private UserCacheService userCacheService;
@@ -272,51 +272,14 @@ public class ReportService implements PwmService
 
     public ClosableIterator<UserCacheRecord> iterator( )
     {
-        return new ClosableIterator<UserCacheRecord>()
+        try
         {
-            private UserCacheService.UserStatusCacheBeanIterator<UserCacheService.StorageKey> storageKeyIterator = userCacheService.iterator();
-
-            @Override
-            public boolean hasNext( )
-            {
-                return this.storageKeyIterator.hasNext();
-            }
-
-            @Override
-            public UserCacheRecord next( )
-            {
-                try
-                {
-                    while ( this.storageKeyIterator.hasNext() )
-                    {
-                        final UserCacheService.StorageKey key = this.storageKeyIterator.next();
-                        final Optional<UserCacheRecord> returnBean = userCacheService.readStorageKey( key );
-                        if ( returnBean.isPresent() )
-                        {
-                            return returnBean.get();
-                        }
-
-                    }
-                }
-                catch ( final LocalDBException e )
-                {
-                    throw new IllegalStateException( "unexpected iterator traversal error while reading LocalDB: " + e.getMessage() );
-                }
-                return null;
-            }
-
-            @Override
-            public void remove( )
-            {
-
-            }
-
-            @Override
-            public void close( )
-            {
-                storageKeyIterator.close();
-            }
-        };
+            return userCacheService.recordIterator();
+        }
+        catch ( final LocalDBException e )
+        {
+            throw new IllegalStateException( "unexpected iterator traversal error while reading LocalDB: " + e.getMessage() );
+        }
     }
 
 
@@ -626,10 +589,9 @@ public class ReportService implements PwmService
                     SessionLabel.REPORTING_SESSION_LABEL,
                     userIdentity
             );
-            final UserCacheRecord newUserCacheRecord = userCacheService.updateUserCache( userInfo );
-
-            userCacheService.store( newUserCacheRecord );
-            summaryData.update( newUserCacheRecord );
+            final UserCacheRecord newUserCacheRecord = UserCacheRecord.fromUserInfo( userInfo );
+            final Optional<UserCacheRecord> previousUserCacheRecord = userCacheService.store( newUserCacheRecord );
+            summaryData.replace( previousUserCacheRecord.orElse( null ), newUserCacheRecord );
             processRateMeter.markEvents( 1 );
 
             LOGGER.trace( SessionLabel.REPORTING_SESSION_LABEL, () -> "stored cache for " + userIdentity, () -> TimeDuration.fromCurrent( startTime ) );
@@ -709,6 +671,10 @@ public class ReportService implements PwmService
                 initReportStatus();
                 executeCommand( ReportCommand.Clear );
             }
+            else
+            {
+                loadSummaryData();
+            }
 
             startNextTask();
         }
@@ -725,6 +691,30 @@ public class ReportService implements PwmService
         }
     }
 
+    /**
+     * Rebuild the summary from the stored records.  Only needed at startup; afterwards the summary is
+     * kept current by applying each stored record as a delta.
+     */
+    private void loadSummaryData( )
+    {
+        final Instant startTime = Instant.now();
+        final ReportSummaryData newSummaryData = ReportSummaryData.newSummaryData( settings.getTrackDays() );
+        try ( ClosableIterator<UserCacheRecord> recordIterator = userCacheService.recordIterator() )
+        {
+            while ( recordIterator.hasNext() )
+            {
+                newSummaryData.update( recordIterator.next() );
+            }
+            summaryData = newSummaryData;
+            LOGGER.debug( SessionLabel.REPORTING_SESSION_LABEL, () -> "loaded summary data for "
+                    + newSummaryData.getTotalUsers().sum() + " stored records", () -> TimeDuration.fromCurrent( startTime ) );
+        }
+        catch ( final LocalDBException e )
+        {
+            LOGGER.error( SessionLabel.REPORTING_SESSION_LABEL, () -> "error loading summary data from stored records: " + e.getMessage() );
+        }
+    }
+
     private class ClearTask implements Runnable
     {
         @Override
@@ -38,16 +38,19 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 @Value
 public class ReportSummaryData
 {
-    private static final long MS_DAY = TimeDuration.DAY.asMillis();
+    private static final long MS_HOUR = TimeDuration.HOUR.asMillis();
+    private static final long HOURS_PER_DAY = TimeDuration.DAY.asMillis() / MS_HOUR;
 
     private final LongAdder totalUsers = new LongAdder();
     private final LongAdder hasResponses = new LongAdder();
@@ -67,37 +70,26 @@ public class ReportSummaryData
     private final Map<DataStorageMethod, LongAdder> responseStorage = new ConcurrentHashMap<>();
     private final Map<Answer.FormatType, LongAdder> responseFormatType = new ConcurrentHashMap<>();
     private final Map<String, LongAdder> ldapProfile = new ConcurrentHashMap<>();
-    private final Map<Integer, LongAdder> pwExpireDays = new ConcurrentHashMap<>();
-    private final Map<Integer, LongAdder> accountExpireDays = new ConcurrentHashMap<>();
-    private final Map<Integer, LongAdder> changePwDays = new ConcurrentHashMap<>();
-    private final Map<Integer, LongAdder> responseSetDays = new ConcurrentHashMap<>();
-    private final Map<Integer, LongAdder> otpSetDays = new ConcurrentHashMap<>();
-    private final Map<Integer, LongAdder> loginDays = new ConcurrentHashMap<>();
-    private final Map<Integer, LongAdder> pwExpireNotificationDays = new ConcurrentHashMap<>();
-
-    private ReportSummaryData( )
+    private final EventTimeHistogram pwExpireTimes = new EventTimeHistogram();
+    private final EventTimeHistogram accountExpireTimes = new EventTimeHistogram();
+    private final EventTimeHistogram changePwTimes = new EventTimeHistogram();
+    private final EventTimeHistogram responseSetTimes = new EventTimeHistogram();
+    private final EventTimeHistogram otpSetTimes = new EventTimeHistogram();
+    private final EventTimeHistogram loginTimes = new EventTimeHistogram();
+    private final EventTimeHistogram pwExpireNotificationTimes = new EventTimeHistogram();
+
+    private final List<Integer> trackedDays;
+
+    private ReportSummaryData( final List<Integer> trackedDays )
     {
+        this.trackedDays = trackedDays == null
+                ? Collections.emptyList()
+                : List.copyOf( new TreeSet<>( trackedDays ) );
     }
 
     static ReportSummaryData newSummaryData( final List<Integer> trackedDays )
     {
-        final ReportSummaryData reportSummaryData = new ReportSummaryData();
-
-        if ( trackedDays != null )
-        {
-            for ( final int day : trackedDays )
-            {
-                reportSummaryData.pwExpireDays.put( day, new LongAdder() );
-                reportSummaryData.accountExpireDays.put( day, new LongAdder() );
-                reportSummaryData.changePwDays.put( day, new LongAdder() );
-                reportSummaryData.responseSetDays.put( day, new LongAdder() );
-                reportSummaryData.otpSetDays.put( day, new LongAdder() );
-                reportSummaryData.loginDays.put( day, new LongAdder() );
-                reportSummaryData.pwExpireNotificationDays.put( day, new LongAdder() );
-            }
-        }
-
-        return reportSummaryData;
+        return new ReportSummaryData( trackedDays );
     }
 
     public Map<DataStorageMethod, Long> getResponseStorage( )
@@ -118,67 +110,90 @@ public class ReportSummaryData
 
     void update( final UserCacheRecord userCacheRecord )
     {
-        totalUsers.increment();
+        apply( userCacheRecord, 1 );
+    }
+
+    void remove( final UserCacheRecord userCacheRecord )
+    {
+        apply( userCacheRecord, -1 );
+    }
+
+    /**
+     * Apply the change from {@code previousRecord} (if any) to {@code newRecord} as a delta, so that
+     * a replaced record is not counted twice.
+     */
+    void replace( final UserCacheRecord previousRecord, final UserCacheRecord newRecord )
+    {
+        if ( previousRecord != null )
+        {
+            remove( previousRecord );
+        }
+        update( newRecord );
+    }
+
+    private void apply( final UserCacheRecord userCacheRecord, final int delta )
+    {
+        totalUsers.add( delta );
 
         if ( userCacheRecord.isHasResponses() )
         {
-            hasResponses.increment();
+            hasResponses.add( delta );
         }
 
         if ( userCacheRecord.isHasHelpdeskResponses() )
         {
-            hasHelpdeskResponses.increment();
+            hasHelpdeskResponses.add( delta );
         }
 
         if ( userCacheRecord.getResponseSetTime() != null )
         {
-            hasResponseSetTime.increment();
-            incrementIfWithinTimeWindow( userCacheRecord, responseSetDays );
+            hasResponseSetTime.add( delta );
+            responseSetTimes.add( userCacheRecord.getResponseSetTime(), delta );
         }
 
         if ( userCacheRecord.getPasswordExpirationTime() != null )
         {
-            hasPasswordExpirationTime.increment();
-            incrementIfWithinTimeWindow( userCacheRecord, pwExpireDays );
+            hasPasswordExpirationTime.add( delta );
+            pwExpireTimes.add( userCacheRecord.getPasswordExpirationTime(), delta );
         }
 
         if ( userCacheRecord.getAccountExpirationTime() != null )
         {
-            hasAccountExpirationTime.increment();
-            incrementIfWithinTimeWindow( userCacheRecord, accountExpireDays );
+            hasAccountExpirationTime.add( delta );
+            accountExpireTimes.add( userCacheRecord.getAccountExpirationTime(), delta );
         }
 
         if ( userCacheRecord.getLastLoginTime() != null )
         {
-            hasLoginTime.increment();
-            incrementIfWithinTimeWindow( userCacheRecord, loginDays );
+            hasLoginTime.add( delta );
+            loginTimes.add( userCacheRecord.getLastLoginTime(), delta );
         }
 
         if ( userCacheRecord.getPasswordChangeTime() != null )
         {
-            hasChangePwTime.increment();
-            incrementIfWithinTimeWindow( userCacheRecord, changePwDays );
+            hasChangePwTime.add( delta );
+            changePwTimes.add( userCacheRecord.getPasswordChangeTime(), delta );
         }
 
         if ( userCacheRecord.getPasswordExpirationNoticeSendTime() != null )
         {
-            hasReceivedPwExpireNotification.increment();
-            incrementIfWithinTimeWindow( userCacheRecord, pwExpireNotificationDays );
+            hasReceivedPwExpireNotification.add( delta );
+            pwExpireNotificationTimes.add( userCacheRecord.getPasswordExpirationNoticeSendTime(), delta );
         }
 
         if ( userCacheRecord.getPasswordStatus() != null )
         {
             if ( userCacheRecord.getPasswordStatus().isExpired() )
             {
-                pwExpired.increment();
+                pwExpired.add( delta );
             }
             if ( userCacheRecord.getPasswordStatus().isPreExpired() )
             {
-                pwPreExpired.increment();
+                pwPreExpired.add( delta );
             }
             if ( userCacheRecord.getPasswordStatus().isWarnPeriod() )
             {
-                pwWarnPeriod.increment();
+                pwWarnPeriod.add( delta );
             }
         }
 
@@ -187,7 +202,7 @@ public class ReportSummaryData
             final DataStorageMethod method = userCacheRecord.getResponseStorageMethod();
             responseStorage
                     .computeIfAbsent( method, dataStorageMethod -> new LongAdder() )
-                    .increment();
+                    .add( delta );
         }
 
         if ( userCacheRecord.getLdapProfile() != null )
@@ -195,7 +210,7 @@ public class ReportSummaryData
             final String userProfile = userCacheRecord.getLdapProfile();
             ldapProfile
                     .computeIfAbsent( userProfile, type -> new LongAdder() )
-                    .increment();
+                    .add( delta );
         }
 
         if ( userCacheRecord.getResponseFormatType() != null )
@@ -203,51 +218,30 @@ public class ReportSummaryData
             final Answer.FormatType type = userCacheRecord.getResponseFormatType();
             responseFormatType
                     .computeIfAbsent( type, formatType -> new LongAdder() )
-                    .increment();
+                    .add( delta );
         }
 
         if ( userCacheRecord.isHasOtpSecret() )
         {
-            hasOtpSecret.increment();
+            hasOtpSecret.add( delta );
         }
 
         if ( userCacheRecord.getOtpSecretSetTime() != null )
         {
-            hasOtpSecretSetTime.increment();
-            incrementIfWithinTimeWindow( userCacheRecord, otpSetDays );
+            hasOtpSecretSetTime.add( delta );
+            otpSetTimes.add( userCacheRecord.getOtpSecretSetTime(), delta );
         }
     }
 
-    private void incrementIfWithinTimeWindow(
-            final UserCacheRecord userCacheRecord,
-            final Map<Integer, LongAdder> map
-    )
+    public List<PresentationRow> asPresentableCollection( final Configuration config, final Locale locale )
     {
-        for ( final Map.Entry<Integer, LongAdder> entry : map.entrySet() )
-        {
-            final int day = entry.getKey();
-            final Instant eventDate = userCacheRecord.getOtpSecretSetTime();
-            final long timeWindow = MS_DAY * day;
-            final LongAdder number = entry.getValue();
-
-            if ( eventDate != null )
-            {
-                final TimeDuration timeBoundary = TimeDuration.of( timeWindow, TimeDuration.Unit.MILLISECONDS );
-                final TimeDuration eventDifference = TimeDuration.fromCurrent( eventDate );
-
-                if (
-                        ( timeWindow >= 0 && eventDate.isAfter( Instant.now() ) && eventDifference.isShorterThan( timeBoundary ) )
-                                || ( timeWindow < 0 && eventDate.isBefore( Instant.now() ) && eventDifference.isShorterThan( timeBoundary ) )
-                )
-                {
-                    number.increment();
-                }
-            }
-        }
+        return asPresentableCollection( config, locale, Instant.now() );
     }
 
-
-    public List<PresentationRow> asPresentableCollection( final Configuration config, final Locale locale )
+    /**
+     * Build the summary rows, with the tracked day windows measured from {@code reportTime}.
+     */
+    List<PresentationRow> asPresentableCollection( final Configuration config, final Locale locale, final Instant reportTime )
     {
         final ArrayList<PresentationRow> returnCollection = new ArrayList<>();
         final PresentationRowBuilder builder = new PresentationRowBuilder( config, this.totalUsers.sum(), locale );
@@ -273,36 +267,42 @@ public class ReportSummaryData
         }
 
         returnCollection.add( builder.makeRow( "Field_Report_Sum_HaveLoginTime", this.hasLoginTime.sum() ) );
-        for ( final Integer day : new TreeSet<>( loginDays.keySet() ) )
+        for ( final Integer day : trackedDays )
         {
             if ( day < 0 )
             {
-                returnCollection.add( builder.makeRow( "Field_Report_Sum_LoginTimePrevious", this.loginDays.get( day ).sum(), String.valueOf( Math.abs( day ) ) ) );
+                returnCollection.add( builder.makeRow(
+                        "Field_Report_Sum_LoginTimePrevious",
+                        this.loginTimes.countWithinDays( day, reportTime ),
+                        String.valueOf( Math.abs( day ) ) ) );
             }
         }
 
         returnCollection.add( builder.makeRow( "Field_Report_Sum_HaveAccountExpirationTime", this.hasAccountExpirationTime.sum() ) );
-        for ( final Integer day : new TreeSet<>( accountExpireDays.keySet() ) )
+        for ( final Integer day : trackedDays )
         {
             final String key = day < 0 ? "Field_Report_Sum_AccountExpirationPrevious" : "Field_Report_Sum_AccountExpirationNext";
-            returnCollection.add( builder.makeRow( key, this.accountExpireDays.get( day ).sum(), String.valueOf( Math.abs( day ) ) ) );
+            returnCollection.add( builder.makeRow( key, this.accountExpireTimes.countWithinDays( day, reportTime ), String.valueOf( Math.abs( day ) ) ) );
         }
         returnCollection.add( builder.makeRow( "Field_Report_Sum_HavePwExpirationTime", this.hasPasswordExpirationTime.sum() ) );
         returnCollection.add( builder.makeRow( "Field_Report_Sum_HaveExpiredPw", this.pwExpired.sum() ) );
         returnCollection.add( builder.makeRow( "Field_Report_Sum_HavePreExpiredPw", this.pwPreExpired.sum() ) );
         returnCollection.add( builder.makeRow( "Field_Report_Sum_HaveExpiredPwWarn", this.pwWarnPeriod.sum() ) );
-        for ( final Integer day : new TreeSet<>( pwExpireDays.keySet() ) )
+        for ( final Integer day : trackedDays )
         {
             final String key = day < 0 ? "Field_Report_Sum_PwExpirationPrevious" : "Field_Report_Sum_PwExpirationNext";
-            returnCollection.add( builder.makeRow( key, this.pwExpireDays.get( day ).sum(), String.valueOf( Math.abs( day ) ) ) );
+            returnCollection.add( builder.makeRow( key, this.pwExpireTimes.countWithinDays( day, reportTime ), String.valueOf( Math.abs( day ) ) ) );
         }
 
         returnCollection.add( builder.makeRow( "Field_Report_Sum_HaveChgPw", this.hasChangePwTime.sum() ) );
-        for ( final Integer day : new TreeSet<>( changePwDays.keySet() ) )
+        for ( final Integer day : trackedDays )
         {
             if ( day < 0 )
             {
-                returnCollection.add( builder.makeRow( "Field_Report_Sum_ChgPwPrevious", this.changePwDays.get( day ).sum(), String.valueOf( Math.abs( day ) ) ) );
+                returnCollection.add( builder.makeRow(
+                        "Field_Report_Sum_ChgPwPrevious",
+                        this.changePwTimes.countWithinDays( day, reportTime ),
+                        String.valueOf( Math.abs( day ) ) ) );
             }
         }
 
@@ -320,11 +320,14 @@ public class ReportSummaryData
         }
 
         returnCollection.add( builder.makeRow( "Field_Report_Sum_HaveResponseTime", this.hasResponseSetTime.sum() ) );
-        for ( final Integer day : new TreeSet<>( responseSetDays.keySet() ) )
+        for ( final Integer day : trackedDays )
         {
             if ( day < 0 )
             {
-                returnCollection.add( builder.makeRow( "Field_Report_Sum_ResponseTimePrevious", this.responseSetDays.get( day ).sum(), String.valueOf( Math.abs( day ) ) ) );
+                returnCollection.add( builder.makeRow(
+                        "Field_Report_Sum_ResponseTimePrevious",
+                        this.responseSetTimes.countWithinDays( day, reportTime ),
+                        String.valueOf( Math.abs( day ) ) ) );
             }
         }
 
@@ -332,11 +335,14 @@ public class ReportSummaryData
         {
             returnCollection.add( builder.makeRow( "Field_Report_Sum_HaveOtpSecret", this.hasOtpSecret.sum() ) );
             returnCollection.add( builder.makeRow( "Field_Report_Sum_HaveOtpSecretSetTime", this.hasOtpSecretSetTime.sum() ) );
-            for ( final Integer day : new TreeSet<>( otpSetDays.keySet() ) )
+            for ( final Integer day : trackedDays )
             {
                 if ( day < 0 )
                 {
-                    returnCollection.add( builder.makeRow( "Field_Report_Sum_OtpSecretTimePrevious", this.otpSetDays.get( day ).sum(), String.valueOf( Math.abs( day ) ) ) );
+                    returnCollection.add( builder.makeRow(
+                            "Field_Report_Sum_OtpSecretTimePrevious",
+                            this.otpSetTimes.countWithinDays( day, reportTime ),
+                            String.valueOf( Math.abs( day ) ) ) );
                 }
             }
         }
@@ -344,11 +350,14 @@ public class ReportSummaryData
         if ( this.hasReceivedPwExpireNotification.sum() > 0 )
         {
             returnCollection.add( new PresentationRow( "Has Received PwExpiry Notice", Long.toString( this.hasReceivedPwExpireNotification.sum() ), null ) );
-            for ( final Integer day : new TreeSet<>( pwExpireNotificationDays.keySet() ) )
+            for ( final Integer day : trackedDays )
             {
                 if ( day < 0 )
                 {
-                    returnCollection.add( new PresentationRow( "PwExpireNotice " + day, Long.toString( this.pwExpireNotificationDays.get( day ).sum() ), null ) );
+                    returnCollection.add( new PresentationRow(
+                            "PwExpireNotice " + day,
+                            Long.toString( this.pwExpireNotificationTimes.countWithinDays( day, reportTime ) ),
+                            null ) );
                 }
             }
         }
@@ -357,6 +366,49 @@ public class ReportSummaryData
         return returnCollection;
     }
 
+    /**
+     * Count of event times per hour.  Adding and removing a record are exact inverses regardless of when they
+     * happen, and the tracked day windows are evaluated against the report time when the summary is read.
+     */
+    static class EventTimeHistogram
+    {
+        private final NavigableMap<Long, LongAdder> hourCounts = new ConcurrentSkipListMap<>();
+
+        void add( final Instant eventTime, final int delta )
+        {
+            if ( eventTime != null )
+            {
+                hourCounts.computeIfAbsent( hourOf( eventTime ), hour -> new LongAdder() ).add( delta );
+            }
+        }
+
+        /**
+         * Count the events within {@code days} of the report time, following it when positive and preceding it
+         * when negative.  Windows have a resolution of one hour, and the hour containing the report time is
+         * included in both directions.
+         */
+        long countWithinDays( final int days, final Instant reportTime )
+        {
+            final long reportHour = hourOf( reportTime );
+            final long windowHours = days * HOURS_PER_DAY;
+            final NavigableMap<Long, LongAdder> window = days >= 0
+                    ? hourCounts.subMap( reportHour, true, reportHour + windowHours, false )
+                    : hourCounts.subMap( reportHour + windowHours, false, reportHour, true );
+
+            long total = 0;
+            for ( final LongAdder count : window.values() )
+            {
+                total += count.sum();
+            }
+            return total;
+        }
+
+        private static long hourOf( final Instant instant )
+        {
+            return Math.floorDiv( instant.toEpochMilli(), MS_HOUR );
+        }
+    }
+
     @Value
     @Builder( toBuilder = true )
     public static class PresentationRow
@@ -32,7 +32,7 @@ import java.io.Serializable;
 import java.time.Instant;
 
 @Value
-@Builder
+@Builder( toBuilder = true )
 public class UserCacheRecord implements Serializable
 {
     private String userDN;
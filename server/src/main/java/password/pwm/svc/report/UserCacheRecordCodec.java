@@ -0,0 +1,253 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.svc.report;
+
+import com.novell.ldapchai.cr.Answer;
+import password.pwm.bean.PasswordStatus;
+import password.pwm.config.option.DataStorageMethod;
+import password.pwm.util.java.JavaHelper;
+import password.pwm.util.java.JsonUtil;
+import password.pwm.util.java.StringUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Compact binary encoding of {@link UserCacheRecord} values stored in the user cache.  Records are
+ * written as a version byte, a boolean flag word, a presence mask for nullable fields, and then only
+ * the fields that are present.  The encoded bytes are stored in LocalDB as base64.
+ *
+ * <p>Values written by earlier versions as JSON are still readable; they are recognized by their
+ * leading brace, which never appears in base64 output.</p>
+ */
+final class UserCacheRecordCodec
+{
+    private static final int VERSION = 1;
+
+    private static final int FLAG_HAS_RESPONSES = 1;
+    private static final int FLAG_HAS_HELPDESK_RESPONSES = 1 << 1;
+    private static final int FLAG_HAS_OTP_SECRET = 1 << 2;
+    private static final int FLAG_REQUIRES_PASSWORD_UPDATE = 1 << 3;
+    private static final int FLAG_REQUIRES_RESPONSE_UPDATE = 1 << 4;
+    private static final int FLAG_REQUIRES_PROFILE_UPDATE = 1 << 5;
+    private static final int FLAG_PW_STATUS = 1 << 6;
+    private static final int FLAG_PW_EXPIRED = 1 << 7;
+    private static final int FLAG_PW_PRE_EXPIRED = 1 << 8;
+    private static final int FLAG_PW_VIOLATES_POLICY = 1 << 9;
+    private static final int FLAG_PW_WARN_PERIOD = 1 << 10;
+
+    private UserCacheRecordCodec()
+    {
+    }
+
+    static String encode( final UserCacheRecord record )
+            throws IOException
+    {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream( 256 );
+        final DataOutputStream output = new DataOutputStream( byteArrayOutputStream );
+
+        output.writeByte( VERSION );
+        output.writeShort( flagsFor( record ) );
+
+        final Object[] nullableValues = nullableValues( record );
+        int presentMask = 0;
+        for ( int i = 0; i < nullableValues.length; i++ )
+        {
+            if ( nullableValues[ i ] != null )
+            {
+                presentMask |= 1 << i;
+            }
+        }
+        output.writeShort( presentMask );
+
+        for ( final Object value : nullableValues )
+        {
+            if ( value instanceof Instant )
+            {
+                output.writeLong( ( ( Instant ) value ).toEpochMilli() );
+            }
+            else if ( value instanceof Enum )
+            {
+                writeString( output, ( ( Enum ) value ).name() );
+            }
+            else if ( value != null )
+            {
+                writeString( output, ( String ) value );
+            }
+        }
+
+        output.flush();
+        return StringUtil.base64Encode( byteArrayOutputStream.toByteArray() );
+    }
+
+    static UserCacheRecord decode( final String value )
+            throws IOException
+    {
+        if ( value.charAt( 0 ) == '{' )
+        {
+            return JsonUtil.deserialize( value, UserCacheRecord.class );
+        }
+
+        final DataInputStream input = new DataInputStream( new ByteArrayInputStream( StringUtil.base64Decode( value ) ) );
+        final int version = input.readUnsignedByte();
+        if ( version != VERSION )
+        {
+            throw new IOException( "unsupported user cache record version " + version );
+        }
+
+        final int flags = input.readUnsignedShort();
+        final int presentMask = input.readUnsignedShort();
+        final FieldReader reader = new FieldReader( input, presentMask );
+
+        final UserCacheRecord.UserCacheRecordBuilder builder = UserCacheRecord.builder();
+        builder.userDN( reader.readString() );
+        builder.ldapProfile( reader.readString() );
+        builder.userGUID( reader.readString() );
+        builder.username( reader.readString() );
+        builder.email( reader.readString() );
+        builder.passwordExpirationTime( reader.readInstant() );
+        builder.passwordChangeTime( reader.readInstant() );
+        builder.lastLoginTime( reader.readInstant() );
+        builder.accountExpirationTime( reader.readInstant() );
+        builder.passwordExpirationNoticeSendTime( reader.readInstant() );
+        builder.responseSetTime( reader.readInstant() );
+        builder.otpSecretSetTime( reader.readInstant() );
+        builder.cacheTimestamp( reader.readInstant() );
+        builder.responseStorageMethod( JavaHelper.readEnumFromString( DataStorageMethod.class, null, reader.readString() ) );
+        builder.responseFormatType( JavaHelper.readEnumFromString( Answer.FormatType.class, null, reader.readString() ) );
+
+        builder.hasResponses( ( flags & FLAG_HAS_RESPONSES ) != 0 );
+        builder.hasHelpdeskResponses( ( flags & FLAG_HAS_HELPDESK_RESPONSES ) != 0 );
+        builder.hasOtpSecret( ( flags & FLAG_HAS_OTP_SECRET ) != 0 );
+        builder.requiresPasswordUpdate( ( flags & FLAG_REQUIRES_PASSWORD_UPDATE ) != 0 );
+        builder.requiresResponseUpdate( ( flags & FLAG_REQUIRES_RESPONSE_UPDATE ) != 0 );
+        builder.requiresProfileUpdate( ( flags & FLAG_REQUIRES_PROFILE_UPDATE ) != 0 );
+
+        if ( ( flags & FLAG_PW_STATUS ) != 0 )
+        {
+            builder.passwordStatus( PasswordStatus.builder()
+                    .expired( ( flags & FLAG_PW_EXPIRED ) != 0 )
+                    .preExpired( ( flags & FLAG_PW_PRE_EXPIRED ) != 0 )
+                    .violatesPolicy( ( flags & FLAG_PW_VIOLATES_POLICY ) != 0 )
+                    .warnPeriod( ( flags & FLAG_PW_WARN_PERIOD ) != 0 )
+                    .build() );
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Nullable fields in encoding order.  {@link #decode(String)} must read them back in the same order.
+     */
+    private static Object[] nullableValues( final UserCacheRecord record )
+    {
+        return new Object[]
+                {
+                        record.getUserDN(),
+                        record.getLdapProfile(),
+                        record.getUserGUID(),
+                        record.getUsername(),
+                        record.getEmail(),
+                        record.getPasswordExpirationTime(),
+                        record.getPasswordChangeTime(),
+                        record.getLastLoginTime(),
+                        record.getAccountExpirationTime(),
+                        record.getPasswordExpirationNoticeSendTime(),
+                        record.getResponseSetTime(),
+                        record.getOtpSecretSetTime(),
+                        record.getCacheTimestamp(),
+                        record.getResponseStorageMethod(),
+                        record.getResponseFormatType(),
+                };
+    }
+
+    private static int flagsFor( final UserCacheRecord record )
+    {
+        int flags = 0;
+        flags |= record.isHasResponses() ? FLAG_HAS_RESPONSES : 0;
+        flags |= record.isHasHelpdeskResponses() ? FLAG_HAS_HELPDESK_RESPONSES : 0;
+        flags |= record.isHasOtpSecret() ? FLAG_HAS_OTP_SECRET : 0;
+        flags |= record.isRequiresPasswordUpdate() ? FLAG_REQUIRES_PASSWORD_UPDATE : 0;
+        flags |= record.isRequiresResponseUpdate() ? FLAG_REQUIRES_RESPONSE_UPDATE : 0;
+        flags |= record.isRequiresProfileUpdate() ? FLAG_REQUIRES_PROFILE_UPDATE : 0;
+
+        final PasswordStatus passwordStatus = record.getPasswordStatus();
+        if ( passwordStatus != null )
+        {
+            flags |= FLAG_PW_STATUS;
+            flags |= passwordStatus.isExpired() ? FLAG_PW_EXPIRED : 0;
+            flags |= passwordStatus.isPreExpired() ? FLAG_PW_PRE_EXPIRED : 0;
+            flags |= passwordStatus.isViolatesPolicy() ? FLAG_PW_VIOLATES_POLICY : 0;
+            flags |= passwordStatus.isWarnPeriod() ? FLAG_PW_WARN_PERIOD : 0;
+        }
+        return flags;
+    }
+
+    private static void writeString( final DataOutputStream output, final String value )
+            throws IOException
+    {
+        final byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+        output.writeInt( bytes.length );
+        output.write( bytes );
+    }
+
+    private static class FieldReader
+    {
+        private final DataInputStream input;
+        private final int presentMask;
+        private int fieldIndex;
+
+        FieldReader( final DataInputStream input, final int presentMask )
+        {
+            this.input = input;
+            this.presentMask = presentMask;
+        }
+
+        String readString()
+                throws IOException
+        {
+            if ( !nextPresent() )
+            {
+                return null;
+            }
+            final byte[] bytes = new byte[ input.readInt() ];
+            input.readFully( bytes );
+            return new String( bytes, StandardCharsets.UTF_8 );
+        }
+
+        Instant readInstant()
+                throws IOException
+        {
+            return nextPresent() ? Instant.ofEpochMilli( input.readLong() ) : null;
+        }
+
+        private boolean nextPresent()
+        {
+            return ( presentMask & ( 1 << fieldIndex++ ) ) != 0;
+        }
+    }
+}
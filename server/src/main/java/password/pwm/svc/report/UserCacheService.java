@@ -32,15 +32,16 @@ import password.pwm.ldap.LdapOperationsHelper;
 import password.pwm.ldap.UserInfo;
 import password.pwm.svc.PwmService;
 import password.pwm.util.java.ClosableIterator;
-import password.pwm.util.java.JsonUtil;
 import password.pwm.util.localdb.LocalDB;
 import password.pwm.util.localdb.LocalDBException;
 import password.pwm.util.logging.PwmLogger;
 import password.pwm.util.secure.SecureService;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 public class UserCacheService implements PwmService
@@ -60,39 +61,23 @@ public class UserCacheService implements PwmService
         return status;
     }
 
-    UserCacheRecord updateUserCache( final UserInfo userInfo )
-            throws PwmUnrecoverableException
-    {
-        final StorageKey storageKey = StorageKey.fromUserInfo( userInfo, pwmApplication );
-
-        try
-        {
-            final UserCacheRecord userCacheRecord = UserCacheRecord.fromUserInfo( userInfo );
-            store( userCacheRecord );
-            return userCacheRecord;
-        }
-        catch ( final LocalDBException e )
-        {
-            LOGGER.error( () -> "unable to store user status cache to localdb: " + e.getMessage() );
-        }
-
-        {
-            LOGGER.trace( () -> "updateCache: read user cache for "
-                    + userInfo.getUserIdentity() + " user key " + storageKey.getKey() );
-        }
-        return null;
-    }
-
     Optional<UserCacheRecord> readStorageKey( final StorageKey storageKey ) throws LocalDBException
     {
         return cacheStore.read( storageKey );
     }
 
-    public void store( final UserCacheRecord userCacheRecord )
+    /**
+     * Store a record, replacing any existing record for the same user.
+     *
+     * @return the record that was replaced, if any, so that callers can apply the change as a delta.
+     */
+    public Optional<UserCacheRecord> store( final UserCacheRecord userCacheRecord )
             throws LocalDBException, PwmUnrecoverableException
     {
         final StorageKey storageKey = StorageKey.fromUserGUID( userCacheRecord.getUserGUID(), pwmApplication );
+        final Optional<UserCacheRecord> previousRecord = cacheStore.read( storageKey );
         cacheStore.write( storageKey, userCacheRecord );
+        return previousRecord;
     }
 
     public void clear( )
@@ -114,6 +99,66 @@ public class UserCacheService implements PwmService
         }
     }
 
+    /**
+     * Iterate all stored records in a single pass over the underlying store, decoding each value
+     * as it is read.  Undecodable values are skipped.
+     */
+    ClosableIterator<UserCacheRecord> recordIterator( )
+            throws LocalDBException
+    {
+        return new RecordIterator( cacheStore.localDB.iterator( CacheStoreWrapper.DB ) );
+    }
+
+    private static class RecordIterator implements ClosableIterator<UserCacheRecord>
+    {
+        private final LocalDB.LocalDBIterator<Map.Entry<String, String>> innerIterator;
+        private UserCacheRecord nextRecord;
+
+        RecordIterator( final LocalDB.LocalDBIterator<Map.Entry<String, String>> innerIterator )
+        {
+            this.innerIterator = innerIterator;
+            this.nextRecord = advance();
+        }
+
+        private UserCacheRecord advance( )
+        {
+            while ( innerIterator.hasNext() )
+            {
+                final Map.Entry<String, String> entry = innerIterator.next();
+                final Optional<UserCacheRecord> record = CacheStoreWrapper.decode( entry.getKey(), entry.getValue() );
+                if ( record.isPresent() )
+                {
+                    return record.get();
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext( )
+        {
+            return nextRecord != null;
+        }
+
+        @Override
+        public UserCacheRecord next( )
+        {
+            if ( nextRecord == null )
+            {
+                throw new NoSuchElementException();
+            }
+            final UserCacheRecord returnRecord = nextRecord;
+            nextRecord = advance();
+            return returnRecord;
+        }
+
+        @Override
+        public void close( )
+        {
+            innerIterator.close();
+        }
+    }
+
     public class UserStatusCacheBeanIterator<K extends StorageKey> implements ClosableIterator
     {
 
@@ -235,24 +280,39 @@ public class UserCacheService implements PwmService
         private void write( final StorageKey key, final UserCacheRecord cacheBean )
                 throws LocalDBException
         {
-            final String jsonValue = JsonUtil.serialize( cacheBean );
-            localDB.put( DB, key.getKey(), jsonValue );
+            try
+            {
+                localDB.put( DB, key.getKey(), UserCacheRecordCodec.encode( cacheBean ) );
+            }
+            catch ( final IOException e )
+            {
+                throw new IllegalStateException( "unexpected error encoding user cache record: " + e.getMessage(), e );
+            }
         }
 
         private Optional<UserCacheRecord> read( final StorageKey key )
                 throws LocalDBException
         {
-            final String jsonValue = localDB.get( DB, key.getKey() );
-            if ( jsonValue != null && !jsonValue.isEmpty() )
+            final String storedValue = localDB.get( DB, key.getKey() );
+            final Optional<UserCacheRecord> record = decode( key.getKey(), storedValue );
+            if ( record.isEmpty() && storedValue != null && !storedValue.isEmpty() )
+            {
+                localDB.remove( DB, key.getKey() );
+            }
+            return record;
+        }
+
+        private static Optional<UserCacheRecord> decode( final String key, final String storedValue )
+        {
+            if ( storedValue != null && !storedValue.isEmpty() )
             {
                 try
                 {
-                    return Optional.of( JsonUtil.deserialize( jsonValue, UserCacheRecord.class ) );
+                    return Optional.of( UserCacheRecordCodec.decode( storedValue ) );
                 }
-                catch ( final JsonSyntaxException e )
+                catch ( final IOException | JsonSyntaxException e )
                 {
-                    LOGGER.error( () -> "error reading record from cache store for key=" + key.getKey() + ", error: " + e.getMessage() );
-                    localDB.remove( DB, key.getKey() );
+                    LOGGER.error( () -> "error reading record from cache store for key=" + key + ", error: " + e.getMessage() );
                 }
             }
             return Optional.empty();
@@ -0,0 +1,190 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package password.pwm.svc.stats;
+
+import password.pwm.svc.PwmService;
+import password.pwm.util.java.LogLinearHistogram;
+import password.pwm.util.java.StatisticCounterBundle;
+
+import java.util.Collection;
+
+/**
+ * Writes statistics in the OpenMetrics text exposition format directly into a {@link StringBuilder}.
+ * Values are appended as primitives and label values are escaped in place, so no intermediate maps or
+ * per-series strings are built.
+ */
+class OpenMetricsWriter
+{
+    private static final double[] QUANTILES = {
+            0.5,
+            0.95,
+            0.99,
+    };
+
+    private final StringBuilder output;
+
+    OpenMetricsWriter( final StringBuilder output )
+    {
+        this.output = output;
+    }
+
+    void writeStatistics( final StatisticsBundle bundle )
+    {
+        writeFamilyHeader( "pwm_statistic", "counter", "Application event counts since startup." );
+        for ( final Statistic statistic : Statistic.values() )
+        {
+            startSample( "pwm_statistic_total" );
+            label( "statistic", statistic.name(), true );
+            endSample( bundle.getStatisticValue( statistic ) );
+        }
+    }
+
+    void writeEventRates( final StatisticsManager statisticsManager )
+    {
+        writeFamilyHeader( "pwm_event_rate", "gauge", "Moving average of events per second." );
+        for ( final EpsStatistic epsStatistic : EpsStatistic.values() )
+        {
+            for ( final Statistic.EpsDuration epsDuration : Statistic.EpsDuration.values() )
+            {
+                startSample( "pwm_event_rate" );
+                label( "statistic", epsStatistic.name(), true );
+                label( "window", epsDuration.name(), false );
+                endSample( statisticsManager.readEps( epsStatistic, epsDuration ).doubleValue() );
+            }
+        }
+    }
+
+    void writeAverages( final StatisticsBundle bundle )
+    {
+        writeFamilyHeader( "pwm_average", "summary", "Distribution of timed and scored values since startup." );
+        for ( final AvgStatistic avgStatistic : AvgStatistic.values() )
+        {
+            final LogLinearHistogram.Snapshot snapshot = bundle.getAvgStatisticHistogram( avgStatistic );
+            for ( final double quantile : QUANTILES )
+            {
+                startSample( "pwm_average" );
+                label( "statistic", avgStatistic.name(), true );
+                label( "quantile", quantile );
+                endSample( snapshot.getPercentile( quantile * 100 ) );
+            }
+
+            startSample( "pwm_average_sum" );
+            label( "statistic", avgStatistic.name(), true );
+            endSample( snapshot.getSum() );
+
+            startSample( "pwm_average_count" );
+            label( "statistic", avgStatistic.name(), true );
+            endSample( snapshot.getCount() );
+        }
+
+        writeFamilyHeader( "pwm_average_max", "gauge", "Largest value recorded since startup." );
+        for ( final AvgStatistic avgStatistic : AvgStatistic.values() )
+        {
+            startSample( "pwm_average_max" );
+            label( "statistic", avgStatistic.name(), true );
+            endSample( bundle.getAvgStatisticHistogram( avgStatistic ).getMax() );
+        }
+    }
+
+    void writeServiceCounters( final Collection<PwmService> services )
+    {
+        writeFamilyHeader( "pwm_service_counter", "counter", "Internal counters maintained by application services." );
+        for ( final PwmService service : services )
+        {
+            final String serviceName = service.getClass().getSimpleName();
+            service.collectStatisticCounters( ( bundleName, bundle ) -> writeCounterBundle( serviceName, bundleName, bundle ) );
+        }
+    }
+
+    void writeCounterBundle( final String serviceName, final String bundleName, final StatisticCounterBundle<?> bundle )
+    {
+        bundle.forEach( ( key, value ) ->
+        {
+            startSample( "pwm_service_counter_total" );
+            label( "service", serviceName, true );
+            label( "bundle", bundleName, false );
+            label( "counter", key.name(), false );
+            endSample( value );
+        } );
+    }
+
+    void finish()
+    {
+        output.append( "# EOF\n" );
+    }
+
+    private void writeFamilyHeader( final String name, final String type, final String help )
+    {
+        output.append( "# TYPE " ).append( name ).append( ' ' ).append( type ).append( '\n' );
+        output.append( "# HELP " ).append( name ).append( ' ' ).append( help ).append( '\n' );
+    }
+
+    private void startSample( final String name )
+    {
+        output.append( name ).append( '{' );
+    }
+
+    private void label( final String name, final String value, final boolean first )
+    {
+        if ( !first )
+        {
+            output.append( ',' );
+        }
+        output.append( name ).append( "=\"" );
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            final char nextChar = value.charAt( i );
+            switch ( nextChar )
+            {
+                case '\\':
+                    output.append( "\\\\" );
+                    break;
+
+                case '"':
+                    output.append( "\\\"" );
+                    break;
+
+                case '\n':
+                    output.append( "\\n" );
+                    break;
+
+                default:
+                    output.append( nextChar );
+            }
+        }
+        output.append( '"' );
+    }
+
+    private void label( final String name, final double value )
+    {
+        output.append( ',' ).append( name ).append( "=\"" ).append( value ).append( '"' );
+    }
+
+    private void endSample( final long value )
+    {
+        output.append( "} " ).append( value ).append( '\n' );
+    }
+
+    private void endSample( final double value )
+    {
+        output.append( "} " ).append( value ).append( '\n' );
+    }
+}
@@ -20,9 +20,10 @@
 
 package password.pwm.svc.stats;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.Value;
 import password.pwm.util.java.JavaHelper;
 import password.pwm.util.java.JsonUtil;
+import password.pwm.util.java.LogLinearHistogram;
 import password.pwm.util.java.StringUtil;
 
 import java.io.Serializable;
@@ -31,13 +32,11 @@ import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.LongAdder;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 public class StatisticsBundle
 {
     private final Map<Statistic, LongAdder> incrementerMap = new EnumMap<>( Statistic.class );
-    private final Map<AvgStatistic, AverageBean> avgMap = new EnumMap<>( AvgStatistic.class );
+    private final Map<AvgStatistic, LogLinearHistogram> avgMap = new EnumMap<>( AvgStatistic.class );
 
     StatisticsBundle( )
     {
@@ -47,7 +46,7 @@ public class StatisticsBundle
         }
         for ( final AvgStatistic avgStatistic : AvgStatistic.values() )
         {
-            avgMap.put( avgStatistic, new AverageBean() );
+            avgMap.put( avgStatistic, new LogLinearHistogram() );
         }
     }
 
@@ -65,10 +64,10 @@ public class StatisticsBundle
         }
         for ( final AvgStatistic epsStatistic : AvgStatistic.values() )
         {
-            final AverageBean averageBean = avgMap.get( epsStatistic );
-            if ( !averageBean.isZero() )
+            final LogLinearHistogram.Snapshot snapshot = avgMap.get( epsStatistic ).snapshot();
+            if ( snapshot.getCount() > 0 )
             {
-                outputMap.put( epsStatistic.name(), JsonUtil.serialize( averageBean ) );
+                outputMap.put( epsStatistic.name(), JsonUtil.serialize( snapshot ) );
             }
         }
 
@@ -97,8 +96,7 @@ public class StatisticsBundle
             final String value = loadedMap.get( loopStat.name() );
             if ( !StringUtil.isEmpty( value ) )
             {
-                final AverageBean avgBean = JsonUtil.deserialize( value, AverageBean.class );
-                bundle.avgMap.put( loopStat, avgBean );
+                bundle.avgMap.put( loopStat, LogLinearHistogram.fromSnapshot( readHistogramSnapshot( value ) ) );
             }
         }
 
@@ -112,7 +110,7 @@ public class StatisticsBundle
 
     void updateAverageValue( final AvgStatistic statistic, final long timeDuration )
     {
-        avgMap.get( statistic ).appendValue( timeDuration );
+        avgMap.get( statistic ).update( timeDuration );
     }
 
     public String getStatistic( final Statistic statistic )
@@ -120,67 +118,44 @@ public class StatisticsBundle
         return Long.toString( incrementerMap.get( statistic ).longValue() );
     }
 
-    public String getAvgStatistic( final AvgStatistic statistic )
+    long getStatisticValue( final Statistic statistic )
     {
-        return avgMap.get( statistic ).getAverage().toString();
+        return incrementerMap.get( statistic ).longValue();
     }
 
-    private static class AverageBean implements Serializable
+    public String getAvgStatistic( final AvgStatistic statistic )
     {
-        private static final long serialVersionUID = 1L;
-
-        private BigInteger total = BigInteger.ZERO;
-        private BigInteger count = BigInteger.ZERO;
+        return Long.toString( avgMap.get( statistic ).snapshot().getMean() );
+    }
 
-        @SuppressFBWarnings( "SE_TRANSIENT_FIELD_NOT_RESTORED" )
-        private final transient Lock lock = new ReentrantLock();
+    public LogLinearHistogram.Snapshot getAvgStatisticHistogram( final AvgStatistic statistic )
+    {
+        return avgMap.get( statistic ).snapshot();
+    }
 
-        AverageBean( )
+    private static LogLinearHistogram.Snapshot readHistogramSnapshot( final String value )
+    {
+        final LogLinearHistogram.Snapshot snapshot = JsonUtil.deserialize( value, LogLinearHistogram.Snapshot.class );
+        if ( snapshot.getBuckets() != null )
         {
+            return snapshot;
         }
 
-        BigInteger getAverage( )
+        // stored by a version that only kept a running total and count
+        final LegacyAverageBean legacyAverageBean = JsonUtil.deserialize( value, LegacyAverageBean.class );
+        if ( legacyAverageBean.getTotal() == null || legacyAverageBean.getCount() == null )
         {
-            lock.lock();
-            try
-            {
-                if ( BigInteger.ZERO.equals( count ) )
-                {
-                    return BigInteger.ZERO;
-                }
-                return total.divide( count );
-            }
-            finally
-            {
-                lock.unlock();
-            }
+            return null;
         }
+        return LogLinearHistogram.approximateFromMean( legacyAverageBean.getCount().longValue(), legacyAverageBean.getTotal().longValue() );
+    }
 
-        void appendValue( final long value )
-        {
-            lock.lock();
-            try
-            {
-                count = count.add( BigInteger.ONE );
-                total = total.add( BigInteger.valueOf( value ) );
-            }
-            finally
-            {
-                lock.unlock();
-            }
-        }
+    @Value
+    private static class LegacyAverageBean implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
 
-        boolean isZero()
-        {
-            lock.lock();
-            try
-            {
-                return total.equals( BigInteger.ZERO );
-            }
-            finally
-            {
-                lock.unlock();
-            }
-        }
+        private BigInteger total;
+        private BigInteger count;
     }
 }
@@ -21,6 +21,8 @@
 package password.pwm.svc.stats;
 
 import org.apache.commons.csv.CSVPrinter;
+import lombok.Value;
+import password.pwm.AppProperty;
 import password.pwm.PwmApplication;
 import password.pwm.PwmConstants;
 import password.pwm.config.option.DataStorageMethod;
@@ -85,6 +87,9 @@ public class StatisticsManager implements PwmService
 
     private STATUS status = STATUS.CLOSED;
 
+    private final Object openMetricsLock = new Object();
+    private volatile CachedOutput cachedOpenMetrics;
+
 
     private final Map<String, StatisticsBundle> cachedStoredStats = new LinkedHashMap<String, StatisticsBundle>()
     {
@@ -402,6 +407,54 @@ public class StatisticsManager implements PwmService
     }
 
 
+    /**
+     * Current statistics, event rates, averages and service counters in the OpenMetrics text format.  The rendered
+     * output is reused for {@link AppProperty#WS_REST_SERVER_METRICS_CACHE_SECONDS} so frequent scrapes from many
+     * collectors do not each walk every service.
+     *
+     * @return OpenMetrics exposition text, terminated by an EOF marker
+     */
+    public String outputOpenMetrics( )
+    {
+        final TimeDuration cacheDuration = TimeDuration.of(
+                Long.parseLong( pwmApplication.getConfig().readAppProperty( AppProperty.WS_REST_SERVER_METRICS_CACHE_SECONDS ) ),
+                TimeDuration.Unit.SECONDS );
+
+        CachedOutput cachedOutput = cachedOpenMetrics;
+        if ( cachedOutput != null && TimeDuration.fromCurrent( cachedOutput.getTimestamp() ).isShorterThan( cacheDuration ) )
+        {
+            return cachedOutput.getOutput();
+        }
+
+        synchronized ( openMetricsLock )
+        {
+            cachedOutput = cachedOpenMetrics;
+            if ( cachedOutput != null && TimeDuration.fromCurrent( cachedOutput.getTimestamp() ).isShorterThan( cacheDuration ) )
+            {
+                return cachedOutput.getOutput();
+            }
+
+            final StringBuilder output = new StringBuilder( cachedOutput == null ? 16 * 1024 : cachedOutput.getOutput().length() + 1024 );
+            final OpenMetricsWriter openMetricsWriter = new OpenMetricsWriter( output );
+            openMetricsWriter.writeStatistics( statsCurrent );
+            openMetricsWriter.writeEventRates( this );
+            openMetricsWriter.writeAverages( statsCurrent );
+            openMetricsWriter.writeServiceCounters( pwmApplication.getPwmServices() );
+            openMetricsWriter.finish();
+
+            cachedOutput = new CachedOutput( Instant.now(), output.toString() );
+            cachedOpenMetrics = cachedOutput;
+            return cachedOutput.getOutput();
+        }
+    }
+
+    @Value
+    private static class CachedOutput
+    {
+        private final Instant timestamp;
+        private final String output;
+    }
+
     public int outputStatsToCsv( final OutputStream outputStream, final Locale locale, final boolean includeHeader )
             throws IOException
     {
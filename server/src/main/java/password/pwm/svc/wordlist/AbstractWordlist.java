@@ -32,6 +32,7 @@ import password.pwm.health.HealthMessage;
 import password.pwm.health.HealthRecord;
 import password.pwm.svc.PwmService;
 import password.pwm.util.PwmScheduler;
+import password.pwm.util.java.ClosableIterator;
 import password.pwm.util.java.JavaHelper;
 import password.pwm.util.java.JsonUtil;
 import password.pwm.util.java.Percent;
@@ -45,8 +46,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BooleanSupplier;
@@ -59,6 +62,7 @@ abstract class AbstractWordlist implements Wordlist, PwmService
     private WordlistBucket wordlistBucket;
     private ExecutorService executorService;
     private Set<WordType> wordTypesCache = null;
+    private volatile WordlistBloomFilter wordlistFilter;
 
     private volatile STATUS wlStatus = STATUS.CLOSED;
 
@@ -113,7 +117,9 @@ abstract class AbstractWordlist implements Wordlist, PwmService
                 lastError = new ErrorInformation( PwmError.ERROR_SERVICE_NOT_AVAILABLE, errorMsg );
             }
 
-            this.wordlistBucket = new LocalDBWordlistBucket( pwmApplication, wordlistConfiguration, type );
+            this.wordlistBucket = wordlistConfiguration.getBucketType() == WordlistBucketType.MappedFile
+                    ? new MappedFileWordlistBucket( pwmApplication, wordlistConfiguration, type )
+                    : new LocalDBWordlistBucket( pwmApplication, wordlistConfiguration, type );
         }
 
         inhibitBackgroundImportFlag.set( false );
@@ -192,6 +198,14 @@ abstract class AbstractWordlist implements Wordlist, PwmService
     private boolean realBucketCheck( final String word, final WordType wordType )
             throws PwmUnrecoverableException
     {
+        final WordlistBloomFilter filter = wordlistFilter;
+        if ( filter != null && !filter.mightContain( word ) )
+        {
+            getStatistics().getFilterRejects().increment();
+            getStatistics().getMisses().increment();
+            return false;
+        }
+
         getStatistics().getWordChecks().increment();
 
         final Instant startTime = Instant.now();
@@ -271,6 +285,11 @@ abstract class AbstractWordlist implements Wordlist, PwmService
                 getLogger().warn( () -> "background thread still running after waiting " + closeWaitTime.asCompactString() );
             }
         }
+
+        if ( wordlistBucket != null )
+        {
+            wordlistBucket.close();
+        }
     }
 
     @Override
@@ -352,6 +371,7 @@ abstract class AbstractWordlist implements Wordlist, PwmService
         final Instant startTime = Instant.now();
         getLogger().trace( () -> "clearing stored wordlist" );
         activity = Wordlist.Activity.Clearing;
+        clearFilter();
         writeWordlistStatus( WordlistStatus.builder().build() );
         getWordlistBucket().clear();
         getLogger().debug( () -> "cleared stored wordlist (" + TimeDuration.compactFromCurrent( startTime ) + ")" );
@@ -359,6 +379,82 @@ abstract class AbstractWordlist implements Wordlist, PwmService
     }
 
 
+    void clearFilter()
+    {
+        if ( wordlistFilter != null || wordlistConfiguration.isFilterEnabled() )
+        {
+            wordlistFilter = null;
+            getWordlistBucket().writeFilter( null );
+        }
+    }
+
+    /**
+     * Make the bloom filter available for lookups, either by reading the stored filter from the bucket, or
+     * if the stored filter is missing or stale, by building it from the current bucket contents.
+     */
+    void initFilter( final BooleanSupplier cancelFlag )
+            throws PwmUnrecoverableException
+    {
+        if ( !wordlistConfiguration.isFilterEnabled() || !readWordlistStatus().isCompleted() )
+        {
+            return;
+        }
+
+        final long bucketSize = getWordlistBucket().size();
+        final String filterHash = wordlistConfiguration.filterHash();
+        if ( wordlistFilter != null && wordlistFilter.matches( filterHash, bucketSize ) )
+        {
+            return;
+        }
+
+        final Optional<WordlistBloomFilter> storedFilter = getWordlistBucket().readFilter();
+        if ( storedFilter.isPresent() && storedFilter.get().matches( filterHash, bucketSize ) )
+        {
+            wordlistFilter = storedFilter.get();
+            getLogger().debug( () -> "loaded stored wordlist filter: " + JsonUtil.serializeMap( wordlistFilter.debugInfo() ) );
+            return;
+        }
+
+        buildFilter( cancelFlag );
+    }
+
+    void buildFilter( final BooleanSupplier cancelFlag )
+            throws PwmUnrecoverableException
+    {
+        if ( !wordlistConfiguration.isFilterEnabled() )
+        {
+            return;
+        }
+
+        final Instant startTime = Instant.now();
+        wordlistFilter = null;
+
+        final WordlistBloomFilter.Builder builder = WordlistBloomFilter.builder(
+                getWordlistBucket().size(),
+                wordlistConfiguration.getFilterBitsPerEntry(),
+                wordlistConfiguration.getFilterMaxBytes(),
+                wordlistConfiguration.filterHash() );
+
+        try ( ClosableIterator<String> iterator = getWordlistBucket().keyIterator() )
+        {
+            while ( iterator.hasNext() )
+            {
+                if ( cancelFlag.getAsBoolean() )
+                {
+                    getLogger().debug( () -> "cancelling wordlist filter build due to cancel flag" );
+                    return;
+                }
+                builder.add( iterator.next() );
+            }
+        }
+
+        final WordlistBloomFilter newFilter = builder.build();
+        getWordlistBucket().writeFilter( newFilter );
+        wordlistFilter = newFilter;
+        getLogger().debug( () -> "built wordlist filter: " + JsonUtil.serializeMap( newFilter.debugInfo() ),
+                () -> TimeDuration.fromCurrent( startTime ) );
+    }
+
     void setAutoImportError( final ErrorInformation autoImportError )
     {
         this.autoImportError = autoImportError;
@@ -366,6 +462,11 @@ abstract class AbstractWordlist implements Wordlist, PwmService
 
     abstract PwmLogger getLogger();
 
+    PwmApplication getPwmApplication()
+    {
+        return pwmApplication;
+    }
+
     WordlistBucket getWordlistBucket()
     {
         return wordlistBucket;
@@ -476,9 +577,16 @@ abstract class AbstractWordlist implements Wordlist, PwmService
     {
         if ( status() == STATUS.OPEN )
         {
+            final Map<String, String> debugMap = new TreeMap<>( getStatistics().asDebugMap() );
+            final WordlistBloomFilter filter = wordlistFilter;
+            if ( filter != null )
+            {
+                debugMap.putAll( filter.debugInfo() );
+            }
+
             return ServiceInfoBean.builder()
                     .storageMethod( DataStorageMethod.LOCALDB )
-                    .debugProperties( getStatistics().asDebugMap() )
+                    .debugProperties( Collections.unmodifiableMap( debugMap ) )
                     .build();
         }
 
@@ -26,14 +26,21 @@ import password.pwm.error.PwmUnrecoverableException;
 import password.pwm.util.java.AtomicLoopLongIncrementer;
 import password.pwm.util.java.JavaHelper;
 import password.pwm.util.java.StringUtil;
+import password.pwm.util.logging.PwmLogger;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Optional;
 import java.util.TreeMap;
 
 public abstract class AbstractWordlistBucket implements WordlistBucket
 {
+    private static final PwmLogger LOGGER = PwmLogger.forClass( AbstractWordlistBucket.class );
+
     protected final PwmApplication pwmApplication;
     protected final WordlistConfiguration wordlistConfiguration;
     protected final WordlistType type;
@@ -144,6 +151,54 @@ public abstract class AbstractWordlistBucket implements WordlistBucket
         return containsKey( word );
     }
 
+    @Override
+    public void completePopulation()
+            throws PwmUnrecoverableException
+    {
+    }
+
+    static Optional<WordlistBloomFilter> readFilterFile( final File filterFile )
+    {
+        if ( filterFile == null || !filterFile.exists() )
+        {
+            return Optional.empty();
+        }
+
+        try
+        {
+            return Optional.of( WordlistBloomFilter.read( filterFile ) );
+        }
+        catch ( final IOException e )
+        {
+            LOGGER.debug( () -> "unable to read wordlist filter file " + filterFile.getAbsolutePath() + ": " + e.getMessage() );
+        }
+        return Optional.empty();
+    }
+
+    static void writeFilterFile( final File filterFile, final WordlistBloomFilter wordlistBloomFilter )
+    {
+        if ( filterFile == null )
+        {
+            return;
+        }
+
+        try
+        {
+            if ( wordlistBloomFilter == null )
+            {
+                Files.deleteIfExists( filterFile.toPath() );
+            }
+            else
+            {
+                wordlistBloomFilter.write( filterFile );
+            }
+        }
+        catch ( final IOException e )
+        {
+            LOGGER.error( () -> "error writing wordlist filter file " + filterFile.getAbsolutePath() + ": " + e.getMessage() );
+        }
+    }
+
     abstract void putValues( Map<String, String> values )
             throws PwmUnrecoverableException;
 
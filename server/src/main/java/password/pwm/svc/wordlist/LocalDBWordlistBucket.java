@@ -24,14 +24,19 @@ import password.pwm.AppAttribute;
 import password.pwm.PwmApplication;
 import password.pwm.error.PwmError;
 import password.pwm.error.PwmUnrecoverableException;
+import password.pwm.util.java.ClosableIterator;
 import password.pwm.util.java.FileSystemUtility;
 import password.pwm.util.localdb.LocalDB;
 import password.pwm.util.localdb.LocalDBException;
 
+import java.io.File;
 import java.util.Map;
+import java.util.Optional;
 
 class LocalDBWordlistBucket extends AbstractWordlistBucket implements WordlistBucket
 {
+    private static final String FILTER_FILE_SUFFIX = ".filter";
+
     private final LocalDB.DB db;
     private final LocalDB localDB;
 
@@ -135,4 +140,58 @@ class LocalDBWordlistBucket extends AbstractWordlistBucket implements WordlistBu
     {
         return FileSystemUtility.diskSpaceRemaining( localDB.getFileLocation() );
     }
+
+    @Override
+    public ClosableIterator<String> keyIterator()
+            throws PwmUnrecoverableException
+    {
+        try
+        {
+            final LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator = localDB.iterator( db );
+            return new ClosableIterator<String>()
+            {
+                @Override
+                public boolean hasNext()
+                {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public String next()
+                {
+                    return iterator.next().getKey();
+                }
+
+                @Override
+                public void close()
+                {
+                    iterator.close();
+                }
+            };
+        }
+        catch ( final LocalDBException e )
+        {
+            throw PwmUnrecoverableException.newException( PwmError.ERROR_LOCALDB_UNAVAILABLE, e.getMessage() );
+        }
+    }
+
+    @Override
+    public Optional<WordlistBloomFilter> readFilter()
+    {
+        return readFilterFile( filterFile() );
+    }
+
+    @Override
+    public void writeFilter( final WordlistBloomFilter wordlistBloomFilter )
+    {
+        writeFilterFile( filterFile(), wordlistBloomFilter );
+    }
+
+    private File filterFile()
+    {
+        final File localDBLocation = localDB.getFileLocation();
+        return localDBLocation == null
+                ? null
+                : new File( localDBLocation, db.name().toLowerCase() + FILTER_FILE_SUFFIX );
+    }
 }
@@ -0,0 +1,520 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package password.pwm.svc.wordlist;
+
+import password.pwm.AppAttribute;
+import password.pwm.PwmApplication;
+import password.pwm.error.PwmError;
+import password.pwm.error.PwmUnrecoverableException;
+import password.pwm.util.java.ClosableIterator;
+import password.pwm.util.java.FileSystemUtility;
+import password.pwm.util.java.TimeDuration;
+import password.pwm.util.logging.PwmLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wordlist bucket backed by a {@link SortedWordFile}.  During import each transaction is written as a sorted run
+ * file in a staging directory.  Once population completes the runs are merged into a new sorted word file which
+ * replaces the previous file with an atomic rename, after which lookups are served from the new memory mapping.
+ * Clearing the bucket for a rebuild leaves the previous file serving lookups until its replacement is published.
+ *
+ * <p>Only {@link WordlistType#WORDLIST} is supported, seedlists require keyed random access.</p>
+ */
+class MappedFileWordlistBucket extends AbstractWordlistBucket implements WordlistBucket
+{
+    private static final PwmLogger LOGGER = PwmLogger.forClass( MappedFileWordlistBucket.class );
+
+    private static final String WORD_FILE_NAME = "words.sorted";
+    private static final String FILTER_FILE_NAME = "words.filter";
+    private static final String REBUILD_MARKER_FILE_NAME = "rebuild.pending";
+    private static final String RUN_FILE_PREFIX = "run-";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int MERGE_FAN_IN = 64;
+
+    private final File directory;
+    private final File stagingDirectory;
+    private final AtomicInteger runCounter = new AtomicInteger();
+
+    // words written to run files but not yet merged into the word file, so size is accurate during an import
+    private final AtomicLong stagedWords = new AtomicLong();
+
+    private volatile SortedWordFile sortedWordFile;
+
+    // set by clear(), the current word file still answers lookups but no longer counts as bucket content
+    private volatile boolean rebuildPending;
+
+    MappedFileWordlistBucket(
+            final PwmApplication pwmApplication,
+            final WordlistConfiguration wordlistConfiguration,
+            final WordlistType type
+    )
+            throws PwmUnrecoverableException
+    {
+        super( pwmApplication, wordlistConfiguration, type );
+
+        if ( type != WordlistType.WORDLIST )
+        {
+            throw new IllegalStateException( "mapped file bucket does not support type " + type );
+        }
+
+        final File localDBLocation = pwmApplication.getLocalDB().getFileLocation();
+        if ( localDBLocation == null )
+        {
+            throw PwmUnrecoverableException.newException( PwmError.ERROR_LOCALDB_UNAVAILABLE, "mapped file wordlist bucket requires a file based LocalDB" );
+        }
+
+        this.directory = new File( localDBLocation, wordlistConfiguration.getDb().name().toLowerCase() + "-mapped" );
+        this.stagingDirectory = new File( directory, "staging" );
+
+        try
+        {
+            Files.createDirectories( stagingDirectory.toPath() );
+            for ( final File runFile : listRunFiles() )
+            {
+                final int runNumber = Integer.parseInt( runFile.getName().substring( RUN_FILE_PREFIX.length() ) );
+                runCounter.set( Math.max( runCounter.get(), runNumber ) );
+                stagedWords.addAndGet( countRunEntries( runFile ) );
+            }
+            rebuildPending = new File( directory, REBUILD_MARKER_FILE_NAME ).exists();
+            openWordFile();
+        }
+        catch ( final IOException e )
+        {
+            throw PwmUnrecoverableException.newException( PwmError.ERROR_WORDLIST_IMPORT_ERROR, "error opening mapped wordlist: " + e.getMessage() );
+        }
+    }
+
+    @Override
+    void putValues( final Map<String, String> values )
+            throws PwmUnrecoverableException
+    {
+        final List<byte[]> words = new ArrayList<>( values.size() );
+        for ( final String key : values.keySet() )
+        {
+            words.add( key.getBytes( StandardCharsets.UTF_8 ) );
+        }
+        words.sort( SortedWordFile.BYTE_ORDER );
+
+        try
+        {
+            writeRunFile( words );
+            stagedWords.addAndGet( words.size() );
+        }
+        catch ( final IOException e )
+        {
+            throw PwmUnrecoverableException.newException( PwmError.ERROR_WORDLIST_IMPORT_ERROR, "error while writing words to wordlist: " + e.getMessage() );
+        }
+    }
+
+    @Override
+    boolean containsKey( final String key )
+    {
+        final SortedWordFile wordFile = sortedWordFile;
+        return wordFile != null && wordFile.contains( key );
+    }
+
+    @Override
+    String getValue( final String key )
+    {
+        return containsKey( key ) ? "" : null;
+    }
+
+    @Override
+    public long size()
+    {
+        final SortedWordFile wordFile = sortedWordFile;
+        return ( wordFile == null || rebuildPending ? 0 : wordFile.size() ) + stagedWords.get();
+    }
+
+    @Override
+    public void close()
+    {
+        replaceWordFile( null );
+    }
+
+    @Override
+    public void clear()
+            throws PwmUnrecoverableException
+    {
+        try
+        {
+            for ( final File runFile : listRunFiles() )
+            {
+                Files.deleteIfExists( runFile.toPath() );
+            }
+            runCounter.set( 0 );
+            stagedWords.set( 0 );
+            final File markerFile = new File( directory, REBUILD_MARKER_FILE_NAME );
+            if ( !markerFile.exists() )
+            {
+                Files.createFile( markerFile.toPath() );
+            }
+            rebuildPending = true;
+        }
+        catch ( final IOException e )
+        {
+            throw PwmUnrecoverableException.newException( PwmError.ERROR_WORDLIST_IMPORT_ERROR, "error clearing mapped wordlist: " + e.getMessage() );
+        }
+    }
+
+    @Override
+    public void completePopulation()
+            throws PwmUnrecoverableException
+    {
+        final Instant startTime = Instant.now();
+        final File wordFile = new File( directory, WORD_FILE_NAME );
+        final File tempFile = new File( directory, WORD_FILE_NAME + TEMP_SUFFIX );
+
+        try
+        {
+            final List<File> runFiles = mergeRunsToFanIn( listRunFiles() );
+
+            try ( SortedWordFile.Writer writer = new SortedWordFile.Writer( tempFile ) )
+            {
+                mergeRuns( runFiles, writer::add );
+            }
+
+            Files.move( tempFile.toPath(), wordFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+            openWordFile();
+            rebuildPending = false;
+            Files.deleteIfExists( new File( directory, REBUILD_MARKER_FILE_NAME ).toPath() );
+
+            for ( final File runFile : runFiles )
+            {
+                Files.deleteIfExists( runFile.toPath() );
+            }
+            runCounter.set( 0 );
+            stagedWords.set( 0 );
+        }
+        catch ( final IOException e )
+        {
+            throw PwmUnrecoverableException.newException( PwmError.ERROR_WORDLIST_IMPORT_ERROR, "error compiling mapped wordlist: " + e.getMessage() );
+        }
+
+        LOGGER.debug( () -> "compiled mapped wordlist file with " + size() + " entries", () -> TimeDuration.fromCurrent( startTime ) );
+    }
+
+    @Override
+    public WordlistStatus readWordlistStatus()
+    {
+        final AppAttribute appAttribute = wordlistConfiguration.getMetaDataAppAttribute();
+        return pwmApplication.readAppAttribute( appAttribute, WordlistStatus.class )
+                .orElseGet( () -> WordlistStatus.builder().build() );
+    }
+
+    @Override
+    public void writeWordlistStatus( final WordlistStatus wordlistStatus )
+    {
+        final AppAttribute appAttribute = wordlistConfiguration.getMetaDataAppAttribute();
+        pwmApplication.writeAppAttribute( appAttribute, wordlistStatus );
+    }
+
+    @Override
+    public long spaceRemaining()
+    {
+        return FileSystemUtility.diskSpaceRemaining( directory );
+    }
+
+    @Override
+    public ClosableIterator<String> keyIterator()
+    {
+        final SortedWordFile wordFile = sortedWordFile;
+        return wordFile == null || rebuildPending
+                ? emptyIterator()
+                : wordFile.iterator();
+    }
+
+    @Override
+    public Optional<WordlistBloomFilter> readFilter()
+    {
+        return readFilterFile( new File( directory, FILTER_FILE_NAME ) );
+    }
+
+    @Override
+    public void writeFilter( final WordlistBloomFilter wordlistBloomFilter )
+    {
+        writeFilterFile( new File( directory, FILTER_FILE_NAME ), wordlistBloomFilter );
+    }
+
+    private void openWordFile()
+            throws IOException
+    {
+        final File wordFile = new File( directory, WORD_FILE_NAME );
+        replaceWordFile( wordFile.exists()
+                ? SortedWordFile.open( wordFile )
+                : null );
+    }
+
+    /**
+     * Publish the new word file, then stop the old one.  Lookups that already read the old reference finish
+     * against its mapping, which stays valid until it is garbage collected.
+     */
+    private synchronized void replaceWordFile( final SortedWordFile newWordFile )
+    {
+        final SortedWordFile oldWordFile = sortedWordFile;
+        sortedWordFile = newWordFile;
+        if ( oldWordFile != null )
+        {
+            oldWordFile.close();
+        }
+    }
+
+    private static long countRunEntries( final File runFile )
+            throws IOException
+    {
+        long count = 0;
+        try ( RunReader runReader = new RunReader( runFile ) )
+        {
+            while ( runReader.advance() )
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private List<File> listRunFiles()
+    {
+        final File[] files = stagingDirectory.listFiles( ( dir, name ) -> name.startsWith( RUN_FILE_PREFIX ) && !name.endsWith( TEMP_SUFFIX ) );
+        if ( files == null )
+        {
+            return Collections.emptyList();
+        }
+        final List<File> returnList = new ArrayList<>( Arrays.asList( files ) );
+        returnList.sort( Comparator.comparing( File::getName ) );
+        return returnList;
+    }
+
+    private void writeRunFile( final List<byte[]> sortedWords )
+            throws IOException
+    {
+        final String fileName = RUN_FILE_PREFIX + String.format( "%09d", runCounter.incrementAndGet() );
+        final File tempFile = new File( stagingDirectory, fileName + TEMP_SUFFIX );
+        final File runFile = new File( stagingDirectory, fileName );
+
+        try ( OutputStream outputStream = new BufferedOutputStream( Files.newOutputStream( tempFile.toPath() ), 1024 * 1024 ) )
+        {
+            for ( final byte[] word : sortedWords )
+            {
+                SortedWordFile.writeVarInt( outputStream, word.length );
+                outputStream.write( word );
+            }
+        }
+
+        // runs become visible only once fully written so a resumed import never sees a partial run
+        Files.move( tempFile.toPath(), runFile.toPath(), StandardCopyOption.ATOMIC_MOVE );
+    }
+
+    private List<File> mergeRunsToFanIn( final List<File> initialRuns )
+            throws IOException
+    {
+        List<File> runs = initialRuns;
+        while ( runs.size() > MERGE_FAN_IN )
+        {
+            final List<File> mergedRuns = new ArrayList<>();
+            for ( int i = 0; i < runs.size(); i += MERGE_FAN_IN )
+            {
+                final List<File> group = runs.subList( i, Math.min( runs.size(), i + MERGE_FAN_IN ) );
+                final String fileName = RUN_FILE_PREFIX + String.format( "%09d", runCounter.incrementAndGet() );
+                final File tempFile = new File( stagingDirectory, fileName + TEMP_SUFFIX );
+                try ( OutputStream outputStream = new BufferedOutputStream( Files.newOutputStream( tempFile.toPath() ), 1024 * 1024 ) )
+                {
+                    mergeRuns( group, word ->
+                    {
+                        SortedWordFile.writeVarInt( outputStream, word.length );
+                        outputStream.write( word );
+                    } );
+                }
+
+                final File mergedFile = new File( stagingDirectory, fileName );
+                Files.move( tempFile.toPath(), mergedFile.toPath(), StandardCopyOption.ATOMIC_MOVE );
+                for ( final File runFile : group )
+                {
+                    Files.deleteIfExists( runFile.toPath() );
+                }
+                mergedRuns.add( mergedFile );
+            }
+            runs = mergedRuns;
+        }
+        return runs;
+    }
+
+    private static void mergeRuns( final List<File> runFiles, final WordConsumer consumer )
+            throws IOException
+    {
+        final PriorityQueue<RunReader> queue = new PriorityQueue<>( Comparator.comparing( RunReader::current, SortedWordFile.BYTE_ORDER ) );
+        try
+        {
+            for ( final File runFile : runFiles )
+            {
+                final RunReader runReader = new RunReader( runFile );
+                if ( runReader.advance() )
+                {
+                    queue.add( runReader );
+                }
+                else
+                {
+                    runReader.close();
+                }
+            }
+
+            byte[] previous = null;
+            while ( !queue.isEmpty() )
+            {
+                final RunReader runReader = queue.poll();
+                final byte[] word = runReader.current();
+                if ( previous == null || !Arrays.equals( previous, word ) )
+                {
+                    consumer.accept( word );
+                    previous = word;
+                }
+
+                if ( runReader.advance() )
+                {
+                    queue.add( runReader );
+                }
+                else
+                {
+                    runReader.close();
+                }
+            }
+        }
+        finally
+        {
+            for ( final RunReader runReader : queue )
+            {
+                runReader.close();
+            }
+        }
+    }
+
+    private static ClosableIterator<String> emptyIterator()
+    {
+        return new ClosableIterator<String>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return false;
+            }
+
+            @Override
+            public String next()
+            {
+                throw new NoSuchElementException();
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        };
+    }
+
+    private interface WordConsumer
+    {
+        void accept( byte[] word ) throws IOException;
+    }
+
+    private static class RunReader implements Closeable
+    {
+        private final DataInputStream inputStream;
+        private byte[] current;
+
+        RunReader( final File file )
+                throws IOException
+        {
+            final InputStream fileStream = Files.newInputStream( file.toPath() );
+            this.inputStream = new DataInputStream( new BufferedInputStream( fileStream, 64 * 1024 ) );
+        }
+
+        byte[] current()
+        {
+            return current;
+        }
+
+        boolean advance()
+                throws IOException
+        {
+            final int length;
+            try
+            {
+                length = readVarInt();
+            }
+            catch ( final EOFException e )
+            {
+                current = null;
+                return false;
+            }
+
+            current = new byte[ length ];
+            inputStream.readFully( current );
+            return true;
+        }
+
+        private int readVarInt()
+                throws IOException
+        {
+            int value = 0;
+            int shift = 0;
+            byte nextByte;
+            do
+            {
+                nextByte = inputStream.readByte();
+                value |= ( nextByte & 0x7F ) << shift;
+                shift += 7;
+            }
+            while ( ( nextByte & 0x80 ) != 0 );
+            return value;
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            inputStream.close();
+        }
+    }
+}
@@ -22,14 +22,18 @@ package password.pwm.svc.wordlist;
 
 import password.pwm.PwmApplication;
 import password.pwm.error.PwmUnrecoverableException;
+import password.pwm.util.java.ClosableIterator;
 
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class MemoryWordlistBucket extends AbstractWordlistBucket
 {
     private final Map<String, String> map = new ConcurrentHashMap<>(  );
     private WordlistStatus wordlistStatus;
+    private WordlistBloomFilter wordlistBloomFilter;
 
     public MemoryWordlistBucket( final PwmApplication pwmApplication, final WordlistConfiguration wordlistConfiguration, final WordlistType type )
     {
@@ -88,4 +92,41 @@ public class MemoryWordlistBucket extends AbstractWordlistBucket
     {
         return Long.MAX_VALUE;
     }
+
+    @Override
+    public ClosableIterator<String> keyIterator()
+    {
+        final Iterator<String> iterator = map.keySet().iterator();
+        return new ClosableIterator<String>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public String next()
+            {
+                return iterator.next();
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        };
+    }
+
+    @Override
+    public Optional<WordlistBloomFilter> readFilter()
+    {
+        return Optional.ofNullable( wordlistBloomFilter );
+    }
+
+    @Override
+    public void writeFilter( final WordlistBloomFilter wordlistBloomFilter )
+    {
+        this.wordlistBloomFilter = wordlistBloomFilter;
+    }
 }
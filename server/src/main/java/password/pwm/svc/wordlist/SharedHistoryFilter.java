@@ -0,0 +1,102 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.svc.wordlist;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent in-memory Bloom filter of the hashed words stored by {@link SharedHistoryManager}.  Lookups that
+ * miss the filter are known not to be in the shared history and skip the LocalDB read.
+ *
+ * <p>Entries cannot be removed, so the manager replaces the filter after each cleaner pass.</p>
+ */
+class SharedHistoryFilter
+{
+    private static final int BITS_PER_ENTRY = 10;
+    private static final int HASH_COUNT = 7;
+    private static final long MIN_BITS = 1L << 16;
+    private static final long MAX_BITS = 1L << 30;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final LongAdder entries = new LongAdder();
+    private final long capacity;
+
+    SharedHistoryFilter( final long expectedEntries )
+    {
+        final long desiredBits = Math.max( MIN_BITS, Math.min( MAX_BITS, expectedEntries * BITS_PER_ENTRY ) );
+        final int longs = (int) ( ( desiredBits + Long.SIZE - 1 ) / Long.SIZE );
+        this.bits = new AtomicLongArray( longs );
+        this.bitCount = (long) longs * Long.SIZE;
+        this.capacity = bitCount / BITS_PER_ENTRY;
+    }
+
+    void add( final String hashedWord )
+    {
+        final long hash1 = WordlistBloomFilter.hash( hashedWord, 0x9E3779B97F4A7C15L );
+        final long hash2 = WordlistBloomFilter.hash( hashedWord, 0xC2B2AE3D27D4EB4FL ) | 1L;
+
+        for ( int i = 0; i < HASH_COUNT; i++ )
+        {
+            final long bitIndex = Long.remainderUnsigned( hash1 + i * hash2, bitCount );
+            final int index = (int) ( bitIndex >>> 6 );
+            final long mask = 1L << bitIndex;
+            long current = bits.get( index );
+            while ( ( current & mask ) == 0 && !bits.compareAndSet( index, current, current | mask ) )
+            {
+                current = bits.get( index );
+            }
+        }
+        entries.increment();
+    }
+
+    boolean mightContain( final String hashedWord )
+    {
+        final long hash1 = WordlistBloomFilter.hash( hashedWord, 0x9E3779B97F4A7C15L );
+        final long hash2 = WordlistBloomFilter.hash( hashedWord, 0xC2B2AE3D27D4EB4FL ) | 1L;
+
+        for ( int i = 0; i < HASH_COUNT; i++ )
+        {
+            final long bitIndex = Long.remainderUnsigned( hash1 + i * hash2, bitCount );
+            if ( ( bits.get( (int) ( bitIndex >>> 6 ) ) & ( 1L << bitIndex ) ) == 0 )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * True once more entries have been added than the filter was sized for, after which the false positive
+     * rate climbs and the filter should be rebuilt.
+     */
+    boolean isSaturated()
+    {
+        return entries.sum() > capacity;
+    }
+
+    long getEntries()
+    {
+        return entries.sum();
+    }
+}
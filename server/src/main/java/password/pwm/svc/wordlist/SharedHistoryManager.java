@@ -32,6 +32,7 @@ import password.pwm.health.HealthRecord;
 import password.pwm.svc.PwmService;
 import password.pwm.util.PwmScheduler;
 import password.pwm.util.java.JavaHelper;
+import password.pwm.util.java.StringUtil;
 import password.pwm.util.java.TimeDuration;
 import password.pwm.util.localdb.LocalDB;
 import password.pwm.util.localdb.LocalDBException;
@@ -41,10 +42,13 @@ import password.pwm.util.secure.PwmRandom;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TimerTask;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -56,6 +60,17 @@ public class SharedHistoryManager implements PwmService
     private static final String KEY_OLDEST_ENTRY = "oldest_entry";
     private static final String KEY_VERSION = "version";
     private static final String KEY_SALT = "salt";
+    private static final String KEY_INDEX_VERSION = "index_version";
+    private static final String INDEX_VERSION = "1";
+
+    // index records in META_DB are keyed by time bucket so expired words can be found with a range scan
+    private static final String KEY_INDEX_PREFIX = "t:";
+    private static final long INDEX_BUCKET_MS = 1000 * 60 * 60;
+    private static final int INDEX_BUCKET_KEY_LENGTH = 13;
+
+    private static final int ADD_WORD_LOCK_STRIPES = 32;
+    private static final int CLEANER_BATCH_SIZE = 1000;
+    private static final long MIN_FILTER_ENTRIES = 100_000;
 
     // 1 hour
     private static final int MIN_CLEANER_FREQUENCY = 1000 * 60 * 60;
@@ -72,13 +87,23 @@ public class SharedHistoryManager implements PwmService
 
     private LocalDB localDB;
     private String salt;
-    private long oldestEntry;
+    private volatile long oldestEntry;
 
     private final Settings settings = new Settings();
-    private final Lock addWordLock = new ReentrantLock();
+    private final Lock[] addWordLocks = new Lock[ ADD_WORD_LOCK_STRIPES ];
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial( this::makeDigest );
+
+    // null until the filter has been loaded; words are added to both filters while a replacement is being built
+    private volatile SharedHistoryFilter filter;
+    private volatile SharedHistoryFilter rebuildingFilter;
+    private final AtomicBoolean filterRebuildPending = new AtomicBoolean();
 
     public SharedHistoryManager( ) throws LocalDBException
     {
+        for ( int i = 0; i < addWordLocks.length; i++ )
+        {
+            addWordLocks[ i ] = new ReentrantLock();
+        }
     }
 
     @Override
@@ -112,10 +137,16 @@ public class SharedHistoryManager implements PwmService
         try
         {
             final String hashedWord = hashWord( testWord );
-            final boolean inDB = localDB.contains( WORDS_DB, hashedWord );
-            if ( inDB )
+            final SharedHistoryFilter currentFilter = filter;
+            if ( currentFilter != null && !currentFilter.mightContain( hashedWord ) )
+            {
+                return false;
+            }
+
+            final String storedValue = localDB.get( WORDS_DB, hashedWord );
+            if ( storedValue != null )
             {
-                final long timeStamp = Long.parseLong( localDB.get( WORDS_DB, hashedWord ) );
+                final long timeStamp = Long.parseLong( storedValue );
                 final long entryAge = System.currentTimeMillis() - timeStamp;
                 if ( entryAge < settings.maxAgeMs )
                 {
@@ -180,18 +211,70 @@ public class SharedHistoryManager implements PwmService
         if ( !result )
         {
             LOGGER.info( () -> "existing db version does not match current db version db=(" + versionInDB + ")  current=(" + currentVersion + "), clearing db" );
-            localDB.truncate( WORDS_DB );
+            clearWords();
             localDB.put( META_DB, KEY_VERSION, currentVersion );
+            localDB.put( META_DB, KEY_INDEX_VERSION, INDEX_VERSION );
             localDB.remove( META_DB, KEY_OLDEST_ENTRY );
         }
         else
         {
             LOGGER.trace( () -> "existing db version matches current db version db=(" + versionInDB + ")  current=(" + currentVersion + ")" );
+            if ( !INDEX_VERSION.equals( localDB.get( META_DB, KEY_INDEX_VERSION ) ) )
+            {
+                buildIndex();
+            }
         }
 
         return result;
     }
 
+    /**
+     * Words stored before index records were kept have no index record, so build them from the stored timestamps.
+     */
+    private void buildIndex( )
+            throws LocalDBException
+    {
+        final Instant startTime = Instant.now();
+        LOGGER.debug( () -> "building shared history time index from existing words" );
+
+        int indexCount = 0;
+        final Map<String, String> indexRecords = new LinkedHashMap<>();
+        try ( LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator = localDB.iterator( WORDS_DB ) )
+        {
+            while ( iterator.hasNext() )
+            {
+                final Map.Entry<String, String> entry = iterator.next();
+                try
+                {
+                    final long timestamp = Long.parseLong( entry.getValue() );
+                    indexRecords.put( indexKey( timestamp, entry.getKey() ), entry.getKey() );
+                }
+                catch ( final NumberFormatException e )
+                {
+                    LOGGER.trace( () -> "skipping shared history word with invalid timestamp: " + entry.getValue() );
+                }
+
+                if ( indexRecords.size() >= CLEANER_BATCH_SIZE )
+                {
+                    localDB.putAll( META_DB, indexRecords );
+                    indexCount += indexRecords.size();
+                    indexRecords.clear();
+                }
+            }
+        }
+
+        if ( !indexRecords.isEmpty() )
+        {
+            localDB.putAll( META_DB, indexRecords );
+            indexCount += indexRecords.size();
+        }
+
+        localDB.put( META_DB, KEY_INDEX_VERSION, INDEX_VERSION );
+
+        final int finalIndexCount = indexCount;
+        LOGGER.debug( () -> "built shared history time index with " + finalIndexCount + " records", () -> TimeDuration.fromCurrent( startTime ) );
+    }
+
     private void init( final PwmApplication pwmApplication, final long maxAgeMs )
     {
         final Instant startTime = Instant.now();
@@ -231,6 +314,7 @@ public class SharedHistoryManager implements PwmService
 
         try
         {
+            loadFilter();
             final long size = localDB.size( WORDS_DB );
             LOGGER.debug( () -> "open with " + size + " words"
                     + ", maxAgeMs=" + TimeDuration.of( maxAgeMs, TimeDuration.Unit.MILLISECONDS ).asCompactString()
@@ -295,31 +379,156 @@ public class SharedHistoryManager implements PwmService
 
         final Instant startTime = Instant.now();
 
-        addWordLock.lock();
         try
         {
             final String hashedWord = hashWord( addWord );
+            final long timestamp = System.currentTimeMillis();
+
+            final Lock addWordLock = addWordLocks[ Math.floorMod( hashedWord.hashCode(), addWordLocks.length ) ];
+            final boolean preExisting;
+            addWordLock.lock();
+            try
+            {
+                preExisting = localDB.put( WORDS_DB, hashedWord, Long.toString( timestamp ) );
+                localDB.put( META_DB, indexKey( timestamp, hashedWord ), hashedWord );
+            }
+            finally
+            {
+                addWordLock.unlock();
+            }
 
-            final boolean preExisting = localDB.contains( WORDS_DB, hashedWord );
-            localDB.put( WORDS_DB, hashedWord, Long.toString( System.currentTimeMillis() ) );
+            addToFilters( hashedWord );
 
             LOGGER.trace( () -> ( preExisting ? "updated" : "added" ) + " word"
-                    + " (" + TimeDuration.compactFromCurrent( startTime ) + ")"
-                    + " (" + this.size() + " total words)" );
+                    + " (" + TimeDuration.compactFromCurrent( startTime ) + ")" );
         }
         catch ( final Exception e )
         {
             LOGGER.warn( sessionLabel, () -> "error adding word to global history list: " + e.getMessage() );
         }
+    }
+
+    private void addToFilters( final String hashedWord )
+    {
+        // read the filter being built first: loadFilter() installs it before clearing it, so one of the two reads sees it
+        final SharedHistoryFilter nextFilter = rebuildingFilter;
+        final SharedHistoryFilter currentFilter = filter;
+        if ( currentFilter != null )
+        {
+            currentFilter.add( hashedWord );
+            if ( currentFilter.isSaturated() && executorService != null && filterRebuildPending.compareAndSet( false, true ) )
+            {
+                executorService.submit( this::rebuildFilter );
+            }
+        }
+
+        if ( nextFilter != null && nextFilter != currentFilter )
+        {
+            nextFilter.add( hashedWord );
+        }
+    }
+
+    private void rebuildFilter( )
+    {
+        try
+        {
+            loadFilter();
+            LOGGER.debug( () -> "rebuilt shared history filter with " + filter.getEntries() + " entries" );
+        }
+        catch ( final LocalDBException e )
+        {
+            LOGGER.error( () -> "error rebuilding shared history filter: " + e.getMessage() );
+        }
+        finally
+        {
+            filterRebuildPending.set( false );
+        }
+    }
+
+    /**
+     * Build a new filter from the words currently stored and install it.  Words added while the filter is being
+     * built are added to it directly, and it is installed before those direct additions stop.
+     */
+    private void loadFilter( )
+            throws LocalDBException
+    {
+        final SharedHistoryFilter newFilter = new SharedHistoryFilter( Math.max( MIN_FILTER_ENTRIES, localDB.size( WORDS_DB ) * 2 ) );
+        rebuildingFilter = newFilter;
+        try ( LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator = localDB.iterator( WORDS_DB ) )
+        {
+            while ( iterator.hasNext() )
+            {
+                newFilter.add( iterator.next().getKey() );
+            }
+            filter = newFilter;
+        }
         finally
         {
-            addWordLock.unlock();
+            rebuildingFilter = null;
         }
     }
 
-    private String hashWord( final String word ) throws NoSuchAlgorithmException
+    private static String indexKey( final long timestamp, final String hashedWord )
+    {
+        return indexBucketKey( timestamp ) + ":" + hashedWord;
+    }
+
+    private static String indexBucketKey( final long timestamp )
+    {
+        final long bucketStart = timestamp - Math.floorMod( timestamp, INDEX_BUCKET_MS );
+        return KEY_INDEX_PREFIX + StringUtil.padLeft( Long.toString( bucketStart ), INDEX_BUCKET_KEY_LENGTH, '0' );
+    }
+
+    /**
+     * Read up to {@link #CLEANER_BATCH_SIZE} index records with keys below {@code toKey}, or any index records
+     * if {@code toKey} is null.
+     */
+    private Map<String, String> readIndexBatch( final String toKey )
+            throws LocalDBException
     {
-        final MessageDigest md = MessageDigest.getInstance( settings.hashName );
+        final Map<String, String> indexRecords = new LinkedHashMap<>();
+        try ( LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator = toKey == null
+                ? localDB.prefixIterator( META_DB, KEY_INDEX_PREFIX )
+                : localDB.iterator( META_DB, KEY_INDEX_PREFIX, toKey ) )
+        {
+            while ( indexRecords.size() < CLEANER_BATCH_SIZE && iterator.hasNext() )
+            {
+                final Map.Entry<String, String> entry = iterator.next();
+                indexRecords.put( entry.getKey(), entry.getValue() );
+            }
+        }
+        return indexRecords;
+    }
+
+    private void clearWords( )
+            throws LocalDBException
+    {
+        localDB.truncate( WORDS_DB );
+
+        Map<String, String> indexRecords = readIndexBatch( null );
+        while ( !indexRecords.isEmpty() )
+        {
+            localDB.removeAll( META_DB, indexRecords.keySet() );
+            indexRecords = readIndexBatch( null );
+        }
+    }
+
+    private MessageDigest makeDigest( )
+    {
+        try
+        {
+            return MessageDigest.getInstance( settings.hashName );
+        }
+        catch ( final NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( "unable to load shared history hash algorithm: " + e.getMessage(), e );
+        }
+    }
+
+    private String hashWord( final String word )
+    {
+        final MessageDigest md = digests.get();
+        md.reset();
         final String wordWithSalt = salt + word;
         final int hashLoopCount = settings.hashIterations;
         byte[] hashedAnswer = md.digest( ( wordWithSalt ).getBytes( PwmConstants.DEFAULT_CHARSET ) );
@@ -372,62 +581,45 @@ public class SharedHistoryManager implements PwmService
             }
 
             final Instant startTime = Instant.now();
-            final long initialSize = size();
+            final long cutoffTime = System.currentTimeMillis() - settings.maxAgeMs;
+            final String cutoffKey = indexBucketKey( cutoffTime );
             int removeCount = 0;
-            long localOldestEntry = System.currentTimeMillis();
 
-            LOGGER.debug( () -> "beginning wordDB reduce operation, examining " + initialSize
-                    + " words for entries older than " + TimeDuration.asCompactString( settings.maxAgeMs ) );
+            LOGGER.debug( () -> "beginning wordDB reduce operation, removing entries older than " + TimeDuration.asCompactString( settings.maxAgeMs ) );
 
-            LocalDB.LocalDBIterator<Map.Entry<String, String>> keyIterator = null;
-            try
+            // only index buckets that ended before the cutoff are read; newer words are never visited
+            Map<String, String> indexRecords = readIndexBatch( cutoffKey );
+            while ( status == STATUS.OPEN && !indexRecords.isEmpty() )
             {
-                keyIterator = localDB.iterator( WORDS_DB );
-                while ( status == STATUS.OPEN && keyIterator.hasNext() )
-                {
-                    final Map.Entry<String, String> entry = keyIterator.next();
-                    final String key = entry.getKey();
-                    final String value = entry.getValue();
-                    final long timeStamp = Long.parseLong( value );
-                    final long entryAge = System.currentTimeMillis() - timeStamp;
-
-                    if ( entryAge > settings.maxAgeMs )
-                    {
-                        localDB.remove( WORDS_DB, key );
-                        removeCount++;
-
-                        if ( removeCount % 1000 == 0 )
-                        {
-                            final int finalRemove = removeCount;
-                            LOGGER.trace( () -> "wordDB reduce operation in progress, removed=" + finalRemove + ", total=" + ( initialSize - finalRemove ) );
-                        }
-                    }
-                    else
-                    {
-                        localOldestEntry = timeStamp < localOldestEntry ? timeStamp : localOldestEntry;
-                    }
-                }
-            }
-            finally
-            {
-                try
+                final Map<String, String> storedTimestamps = localDB.getAll( WORDS_DB, indexRecords.values() );
+                final List<String> expiredWords = new ArrayList<>();
+                for ( final Map.Entry<String, String> entry : storedTimestamps.entrySet() )
                 {
-                    if ( keyIterator != null )
+                    // words re-added since this index record was written keep their newer timestamp
+                    if ( Long.parseLong( entry.getValue() ) <= cutoffTime )
                     {
-                        keyIterator.close();
+                        expiredWords.add( entry.getKey() );
                     }
                 }
-                catch ( final Exception e )
-                {
-                    LOGGER.warn( () -> "error returning LocalDB iterator: " + e.getMessage() );
-                }
+
+                localDB.removeAll( WORDS_DB, expiredWords );
+                localDB.removeAll( META_DB, indexRecords.keySet() );
+                removeCount += expiredWords.size();
+
+                final int finalRemove = removeCount;
+                LOGGER.trace( () -> "wordDB reduce operation in progress, removed=" + finalRemove );
+
+                indexRecords = readIndexBatch( cutoffKey );
             }
 
-            //update the oldest entry
             if ( status == STATUS.OPEN )
             {
-                oldestEntry = localOldestEntry;
+                //update the oldest entry
+                oldestEntry = readOldestIndexBucket();
                 localDB.put( META_DB, KEY_OLDEST_ENTRY, Long.toString( oldestEntry ) );
+
+                // removed words can not be cleared from the filter, so replace it
+                loadFilter();
             }
 
             {
@@ -438,6 +630,21 @@ public class SharedHistoryManager implements PwmService
                         + " in ", () -> TimeDuration.fromCurrent( startTime ) );
             }
         }
+
+        private long readOldestIndexBucket( )
+                throws LocalDBException
+        {
+            try ( LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator = localDB.prefixIterator( META_DB, KEY_INDEX_PREFIX ) )
+            {
+                if ( iterator.hasNext() )
+                {
+                    final String key = iterator.next().getKey();
+                    final int bucketStart = KEY_INDEX_PREFIX.length();
+                    return Long.parseLong( key.substring( bucketStart, bucketStart + INDEX_BUCKET_KEY_LENGTH ) );
+                }
+            }
+            return System.currentTimeMillis();
+        }
     }
 
     @Override
@@ -490,7 +697,7 @@ public class SharedHistoryManager implements PwmService
             LOGGER.trace( () -> "clearing wordlist" );
             try
             {
-                localDB.truncate( WORDS_DB );
+                clearWords();
             }
             catch ( final Exception e )
             {
@@ -0,0 +1,460 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package password.pwm.svc.wordlist;
+
+import password.pwm.util.java.ClosableIterator;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable, sorted, prefix-compressed word file that is memory-mapped and binary searched off-heap.
+ *
+ * <p>File layout:</p>
+ * <ul>
+ *     <li>header: magic, version, entry count, block count, index offset</li>
+ *     <li>blocks of up to {@link #ENTRIES_PER_BLOCK} entries, each entry stored as a varint shared-prefix length,
+ *     a varint suffix length and the UTF-8 suffix bytes.  The first entry of each block is always stored in full.</li>
+ *     <li>index of block start offsets as longs</li>
+ * </ul>
+ *
+ * <p>Entries are ordered by unsigned UTF-8 byte value.  Blocks never span a mapped segment boundary, so each
+ * block can be decoded from a single {@link MappedByteBuffer}.</p>
+ *
+ * <p>Lookups take no lock.  Because a lookup may still be reading when the file is replaced, {@link #close()} does
+ * not unmap the buffers; the mappings are released once the closed instance is garbage collected.  After close,
+ * lookups report no matches and iterators end.</p>
+ */
+class SortedWordFile implements Closeable
+{
+    static final Comparator<byte[]> BYTE_ORDER = Arrays::compareUnsigned;
+
+    private static final int FILE_MAGIC = 0x50574D53;
+    private static final int FILE_VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int ENTRIES_PER_BLOCK = 64;
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private final MappedByteBuffer[] segments;
+    private final long entryCount;
+    private final int blockCount;
+    private final long indexOffset;
+
+    private volatile boolean closed;
+
+    private SortedWordFile( final MappedByteBuffer[] segments, final long entryCount, final int blockCount, final long indexOffset )
+    {
+        this.segments = segments;
+        this.entryCount = entryCount;
+        this.blockCount = blockCount;
+        this.indexOffset = indexOffset;
+    }
+
+    static SortedWordFile open( final File file )
+            throws IOException
+    {
+        try ( FileChannel fileChannel = FileChannel.open( file.toPath(), StandardOpenOption.READ ) )
+        {
+            final long fileSize = fileChannel.size();
+            final int segmentCount = (int) ( ( fileSize + SEGMENT_SIZE - 1 ) / SEGMENT_SIZE );
+            final MappedByteBuffer[] segments = new MappedByteBuffer[ segmentCount ];
+            for ( int i = 0; i < segmentCount; i++ )
+            {
+                final long position = i * SEGMENT_SIZE;
+                segments[ i ] = fileChannel.map( FileChannel.MapMode.READ_ONLY, position, Math.min( SEGMENT_SIZE, fileSize - position ) );
+            }
+
+            if ( segmentCount == 0 || segments[ 0 ].limit() < HEADER_SIZE || segments[ 0 ].getInt( 0 ) != FILE_MAGIC )
+            {
+                throw new IOException( "unrecognized sorted word file format" );
+            }
+
+            if ( segments[ 0 ].getInt( 4 ) != FILE_VERSION )
+            {
+                throw new IOException( "unsupported sorted word file version " + segments[ 0 ].getInt( 4 ) );
+            }
+
+            final long entryCount = segments[ 0 ].getLong( 8 );
+            final int blockCount = segments[ 0 ].getInt( 16 );
+            final long indexOffset = segments[ 0 ].getLong( 20 );
+            return new SortedWordFile( segments, entryCount, blockCount, indexOffset );
+        }
+    }
+
+    long size()
+    {
+        return entryCount;
+    }
+
+    boolean contains( final String word )
+    {
+        if ( closed || blockCount == 0 )
+        {
+            return false;
+        }
+        return containsImpl( word.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    private boolean containsImpl( final byte[] key )
+    {
+
+        // find last block whose first entry is <= key
+        int low = 0;
+        int high = blockCount - 1;
+        while ( low < high )
+        {
+            final int mid = ( low + high + 1 ) >>> 1;
+            final int compare = compareFirstEntry( mid, key );
+            if ( compare == 0 )
+            {
+                return true;
+            }
+            if ( compare < 0 )
+            {
+                low = mid;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+
+        final BlockCursor cursor = new BlockCursor( low );
+        while ( cursor.next() )
+        {
+            final int compare = cursor.compareTo( key );
+            if ( compare == 0 )
+            {
+                return true;
+            }
+            if ( compare > 0 )
+            {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    ClosableIterator<String> iterator()
+    {
+        return new ClosableIterator<String>()
+        {
+            private int nextBlock;
+            private BlockCursor cursor;
+            private String nextValue = advance();
+
+            private String advance()
+            {
+                while ( !closed )
+                {
+                    if ( cursor != null && cursor.next() )
+                    {
+                        return cursor.currentAsString();
+                    }
+
+                    if ( nextBlock >= blockCount )
+                    {
+                        return null;
+                    }
+
+                    cursor = new BlockCursor( nextBlock++ );
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext()
+            {
+                return nextValue != null;
+            }
+
+            @Override
+            public String next()
+            {
+                if ( nextValue == null )
+                {
+                    throw new NoSuchElementException();
+                }
+                final String returnValue = nextValue;
+                nextValue = advance();
+                return returnValue;
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        };
+    }
+
+    /**
+     * Stop serving lookups.  The mappings are left for the garbage collector so in-progress lookups never read
+     * released memory.
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+    }
+
+    private int compareFirstEntry( final int block, final byte[] key )
+    {
+        final BlockCursor cursor = new BlockCursor( block );
+        cursor.next();
+        return cursor.compareTo( key );
+    }
+
+    private long blockOffset( final int block )
+    {
+        final long position = indexOffset + (long) block * Long.BYTES;
+        return segments[ (int) ( position / SEGMENT_SIZE ) ].getLong( (int) ( position % SEGMENT_SIZE ) );
+    }
+
+    private class BlockCursor
+    {
+        private final ByteBuffer segment;
+        private final int end;
+        private int position;
+        private int remaining;
+        private byte[] current = new byte[ 64 ];
+        private int currentLength;
+
+        BlockCursor( final int block )
+        {
+            final long offset = blockOffset( block );
+            this.segment = segments[ (int) ( offset / SEGMENT_SIZE ) ];
+            this.position = (int) ( offset % SEGMENT_SIZE );
+            this.end = segment.limit();
+            this.remaining = Math.min( ENTRIES_PER_BLOCK, (int) Math.min( Integer.MAX_VALUE, entryCount - (long) block * ENTRIES_PER_BLOCK ) );
+        }
+
+        boolean next()
+        {
+            if ( remaining <= 0 || position >= end )
+            {
+                return false;
+            }
+
+            final int sharedLength = readVarInt();
+            final int suffixLength = readVarInt();
+            final int newLength = sharedLength + suffixLength;
+            if ( newLength > current.length )
+            {
+                current = Arrays.copyOf( current, Math.max( newLength, current.length * 2 ) );
+            }
+            for ( int i = 0; i < suffixLength; i++ )
+            {
+                current[ sharedLength + i ] = segment.get( position++ );
+            }
+            currentLength = newLength;
+            remaining--;
+            return true;
+        }
+
+        int compareTo( final byte[] key )
+        {
+            return Arrays.compareUnsigned( current, 0, currentLength, key, 0, key.length );
+        }
+
+        String currentAsString()
+        {
+            return new String( current, 0, currentLength, StandardCharsets.UTF_8 );
+        }
+
+        private int readVarInt()
+        {
+            int value = 0;
+            int shift = 0;
+            byte nextByte;
+            do
+            {
+                nextByte = segment.get( position++ );
+                value |= ( nextByte & 0x7F ) << shift;
+                shift += 7;
+            }
+            while ( ( nextByte & 0x80 ) != 0 );
+            return value;
+        }
+    }
+
+    /**
+     * Writes a sorted word file.  Words must be supplied in {@link #BYTE_ORDER} order; duplicates are discarded.
+     */
+    static class Writer implements Closeable
+    {
+        private final File file;
+        private final OutputStream outputStream;
+        private final ByteArrayOutputStream blockBuffer = new ByteArrayOutputStream();
+        private long[] blockOffsets = new long[ 1024 ];
+        private int blockOffsetCount;
+
+        private long position = HEADER_SIZE;
+        private long entryCount;
+        private int entriesInBlock;
+        private byte[] previous;
+
+        Writer( final File file )
+                throws IOException
+        {
+            this.file = file;
+            this.outputStream = new BufferedOutputStream( Files.newOutputStream( file.toPath() ), 1024 * 1024 );
+            this.outputStream.write( new byte[ HEADER_SIZE ] );
+        }
+
+        void add( final byte[] word )
+                throws IOException
+        {
+            if ( previous != null )
+            {
+                final int compare = BYTE_ORDER.compare( previous, word );
+                if ( compare == 0 )
+                {
+                    return;
+                }
+                if ( compare > 0 )
+                {
+                    throw new IllegalStateException( "words must be added in sorted order" );
+                }
+            }
+
+            if ( entriesInBlock == ENTRIES_PER_BLOCK )
+            {
+                flushBlock();
+            }
+
+            final int sharedLength = entriesInBlock == 0 ? 0 : sharedPrefixLength( previous, word );
+            writeVarInt( blockBuffer, sharedLength );
+            writeVarInt( blockBuffer, word.length - sharedLength );
+            blockBuffer.write( word, sharedLength, word.length - sharedLength );
+
+            previous = word;
+            entriesInBlock++;
+            entryCount++;
+        }
+
+        long getEntryCount()
+        {
+            return entryCount;
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            flushBlock();
+
+            // align index so that no long value spans a segment boundary
+            padTo( ( position + Long.BYTES - 1 ) / Long.BYTES * Long.BYTES );
+            final long indexOffset = position;
+            final ByteBuffer longBuffer = ByteBuffer.allocate( Long.BYTES );
+            for ( int i = 0; i < blockOffsetCount; i++ )
+            {
+                longBuffer.clear();
+                longBuffer.putLong( blockOffsets[ i ] );
+                outputStream.write( longBuffer.array() );
+            }
+            outputStream.close();
+
+            try ( RandomAccessFile randomAccessFile = new RandomAccessFile( file, "rw" ) )
+            {
+                randomAccessFile.seek( 0 );
+                randomAccessFile.writeInt( FILE_MAGIC );
+                randomAccessFile.writeInt( FILE_VERSION );
+                randomAccessFile.writeLong( entryCount );
+                randomAccessFile.writeInt( blockOffsetCount );
+                randomAccessFile.writeLong( indexOffset );
+                randomAccessFile.getFD().sync();
+            }
+        }
+
+        private void flushBlock()
+                throws IOException
+        {
+            if ( entriesInBlock == 0 )
+            {
+                return;
+            }
+
+            final int blockLength = blockBuffer.size();
+            if ( position / SEGMENT_SIZE != ( position + blockLength - 1 ) / SEGMENT_SIZE )
+            {
+                padTo( ( position / SEGMENT_SIZE + 1 ) * SEGMENT_SIZE );
+            }
+
+            if ( blockOffsetCount == blockOffsets.length )
+            {
+                blockOffsets = Arrays.copyOf( blockOffsets, blockOffsets.length * 2 );
+            }
+            blockOffsets[ blockOffsetCount++ ] = position;
+            blockBuffer.writeTo( outputStream );
+            position += blockLength;
+            blockBuffer.reset();
+            entriesInBlock = 0;
+        }
+
+        private void padTo( final long newPosition )
+                throws IOException
+        {
+            while ( position < newPosition )
+            {
+                outputStream.write( 0 );
+                position++;
+            }
+        }
+
+        private static int sharedPrefixLength( final byte[] a, final byte[] b )
+        {
+            final int max = Math.min( a.length, b.length );
+            int length = 0;
+            while ( length < max && a[ length ] == b[ length ] )
+            {
+                length++;
+            }
+            return length;
+        }
+    }
+
+    static void writeVarInt( final OutputStream outputStream, final int value )
+            throws IOException
+    {
+        int remaining = value;
+        while ( ( remaining & ~0x7F ) != 0 )
+        {
+            outputStream.write( ( remaining & 0x7F ) | 0x80 );
+            remaining >>>= 7;
+        }
+        outputStream.write( remaining );
+    }
+}
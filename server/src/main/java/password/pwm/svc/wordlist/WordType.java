@@ -26,6 +26,7 @@ import password.pwm.util.secure.PwmHashAlgorithm;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
 import java.util.Objects;
 import java.util.regex.Pattern;
@@ -39,10 +40,17 @@ public enum WordType
     SHA512( PwmHashAlgorithm.SHA512 ),;
 
     private static final String DELIMITER = ":";
+
+    /**
+     * Control character that never occurs in an imported wordlist line, keeps binary hash keys in a key space
+     * separate from raw words.
+     */
+    private static final char BINARY_KEY_PREFIX = '\u0001';
     private static final Pattern HEX_CHAR_PATTERN = Pattern.compile( "^[0-9a-fA-F]*$" );
 
     private final String prefix;
     private final String suffix;
+    private final String binaryKeyPrefix;
     private final PwmHashAlgorithm hashAlgorithm;
 
     WordType( final PwmHashAlgorithm pwmHashAlgorithm )
@@ -50,6 +58,7 @@ public enum WordType
         this.hashAlgorithm = pwmHashAlgorithm;
         prefix = ( this.name() + DELIMITER ).toLowerCase();
         suffix = ( DELIMITER + this.name() ).toLowerCase();
+        binaryKeyPrefix = String.valueOf( BINARY_KEY_PREFIX ) + (char) ( 'A' + this.ordinal() );
     }
 
     public String convertInputFromWordlist(
@@ -67,12 +76,12 @@ public enum WordType
         if ( input.startsWith( prefix ) )
         {
             final String strippedValue = input.substring( prefix.length() );
-            return makeHashedStoredValue( strippedValue );
+            return makeHashedStoredValue( wordlistConfiguration, strippedValue );
         }
         else
         {
             final String strippedValue = input.substring( 0, input.length() - suffix.length() );
-            return makeHashedStoredValue( strippedValue );
+            return makeHashedStoredValue( wordlistConfiguration, strippedValue );
         }
     }
 
@@ -91,15 +100,32 @@ public enum WordType
         }
 
         final String hashedValue = pwmApplication.getSecureService().hash( this.hashAlgorithm, input );
-        return makeHashedStoredValue( hashedValue );
+        return makeHashedStoredValue( wordlistConfiguration, hashedValue );
     }
 
-    private String makeHashedStoredValue( final String hash )
+    private String makeHashedStoredValue( final WordlistConfiguration wordlistConfiguration, final String hash )
     {
+        if ( wordlistConfiguration.getHashStorage() == WordlistHashStorage.Binary )
+        {
+            return binaryKeyPrefix + Base64.getUrlEncoder().withoutPadding().encodeToString( hexToBytes( hash ) );
+        }
+
         // stored hash first to improve sorting/storage efficiency
         return hash.toLowerCase() + DELIMITER + name();
     }
 
+    private static byte[] hexToBytes( final String hex )
+    {
+        final byte[] output = new byte[ hex.length() / 2 ];
+        for ( int i = 0; i < output.length; i++ )
+        {
+            final int high = Character.digit( hex.charAt( i * 2 ), 16 );
+            final int low = Character.digit( hex.charAt( i * 2 + 1 ), 16 );
+            output[ i ] = (byte) ( ( high << 4 ) | low );
+        }
+        return output;
+    }
+
     public static WordType determineWordType( final String input )
     {
         Objects.requireNonNull( input );
@@ -0,0 +1,235 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package password.pwm.svc.wordlist;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * In-memory Bloom filter of all keys stored in a {@link WordlistBucket}.  Consulted before any bucket
+ * lookup so that words that are definitely not in the wordlist can be rejected without a LocalDB read.
+ *
+ * <p>Instances are immutable once built by {@link Builder}, and are safe for concurrent reads.</p>
+ */
+class WordlistBloomFilter
+{
+    private static final int FILE_MAGIC = 0x50574D42;
+    private static final int FILE_VERSION = 1;
+    private static final int MAX_HASH_COUNT = 16;
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final long entries;
+    private final String configHash;
+
+    private WordlistBloomFilter(
+            final long[] bits,
+            final int hashCount,
+            final long entries,
+            final String configHash
+    )
+    {
+        this.bits = bits;
+        this.bitCount = (long) bits.length * Long.SIZE;
+        this.hashCount = hashCount;
+        this.entries = entries;
+        this.configHash = configHash;
+    }
+
+    static Builder builder(
+            final long expectedEntries,
+            final int bitsPerEntry,
+            final long maxBytes,
+            final String configHash
+    )
+    {
+        return new Builder( expectedEntries, bitsPerEntry, maxBytes, configHash );
+    }
+
+    boolean mightContain( final String word )
+    {
+        final long hash1 = hash( word, 0x9E3779B97F4A7C15L );
+        final long hash2 = hash( word, 0xC2B2AE3D27D4EB4FL ) | 1L;
+
+        for ( int i = 0; i < hashCount; i++ )
+        {
+            final long bitIndex = Long.remainderUnsigned( hash1 + i * hash2, bitCount );
+            if ( ( bits[ (int) ( bitIndex >>> 6 ) ] & ( 1L << bitIndex ) ) == 0 )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    long getEntries()
+    {
+        return entries;
+    }
+
+    String getConfigHash()
+    {
+        return configHash;
+    }
+
+    long byteSize()
+    {
+        return bits.length * (long) Long.BYTES;
+    }
+
+    Map<String, String> debugInfo()
+    {
+        final Map<String, String> returnMap = new TreeMap<>();
+        returnMap.put( "FilterEntries", Long.toString( entries ) );
+        returnMap.put( "FilterBytes", Long.toString( byteSize() ) );
+        returnMap.put( "FilterHashCount", Integer.toString( hashCount ) );
+        return returnMap;
+    }
+
+    void write( final File file )
+            throws IOException
+    {
+        final File tempFile = new File( file.getAbsolutePath() + ".tmp" );
+        try ( DataOutputStream output = new DataOutputStream( new BufferedOutputStream( Files.newOutputStream( tempFile.toPath() ) ) ) )
+        {
+            output.writeInt( FILE_MAGIC );
+            output.writeInt( FILE_VERSION );
+            output.writeUTF( configHash == null ? "" : configHash );
+            output.writeLong( entries );
+            output.writeInt( hashCount );
+            output.writeInt( bits.length );
+            for ( final long value : bits )
+            {
+                output.writeLong( value );
+            }
+        }
+
+        Files.move( tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+    }
+
+    static WordlistBloomFilter read( final File file )
+            throws IOException
+    {
+        try ( DataInputStream input = new DataInputStream( new BufferedInputStream( Files.newInputStream( file.toPath() ) ) ) )
+        {
+            if ( input.readInt() != FILE_MAGIC || input.readInt() != FILE_VERSION )
+            {
+                throw new IOException( "unrecognized wordlist filter file format" );
+            }
+
+            final String configHash = input.readUTF();
+            final long entries = input.readLong();
+            final int hashCount = input.readInt();
+            final int length = input.readInt();
+            if ( hashCount < 1 || hashCount > MAX_HASH_COUNT || length < 1 )
+            {
+                throw new IOException( "invalid wordlist filter file header" );
+            }
+
+            final long[] bits = new long[ length ];
+            for ( int i = 0; i < length; i++ )
+            {
+                bits[ i ] = input.readLong();
+            }
+            return new WordlistBloomFilter( bits, hashCount, entries, configHash );
+        }
+    }
+
+    boolean matches( final String configHash, final long entries )
+    {
+        return Objects.equals( this.configHash, configHash ) && this.entries == entries;
+    }
+
+    static long hash( final String word, final long seed )
+    {
+        long hash = seed ^ word.length();
+        for ( int i = 0; i < word.length(); i++ )
+        {
+            hash ^= word.charAt( i );
+            hash *= 0x100000001B3L;
+        }
+
+        // murmur3 64-bit finalizer
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    static class Builder
+    {
+        private final long[] bits;
+        private final long bitCount;
+        private final int hashCount;
+        private final String configHash;
+        private long entries;
+
+        private Builder(
+                final long expectedEntries,
+                final int bitsPerEntry,
+                final long maxBytes,
+                final String configHash
+        )
+        {
+            final long maxLongs = Math.min( Integer.MAX_VALUE - 8, Math.max( 1, maxBytes / Long.BYTES ) );
+            final long desiredBits = Math.max( Long.SIZE, Math.max( 1, expectedEntries ) * Math.max( 1, bitsPerEntry ) );
+            final long longs = Math.min( maxLongs, ( desiredBits + Long.SIZE - 1 ) / Long.SIZE );
+
+            this.bits = new long[ (int) longs ];
+            this.bitCount = longs * Long.SIZE;
+            this.configHash = configHash;
+
+            final double effectiveBitsPerEntry = (double) bitCount / Math.max( 1, expectedEntries );
+            this.hashCount = (int) Math.max( 1, Math.min( MAX_HASH_COUNT, Math.round( effectiveBitsPerEntry * Math.log( 2 ) ) ) );
+        }
+
+        void add( final String word )
+        {
+            final long hash1 = hash( word, 0x9E3779B97F4A7C15L );
+            final long hash2 = hash( word, 0xC2B2AE3D27D4EB4FL ) | 1L;
+
+            for ( int i = 0; i < hashCount; i++ )
+            {
+                final long bitIndex = Long.remainderUnsigned( hash1 + i * hash2, bitCount );
+                bits[ (int) ( bitIndex >>> 6 ) ] |= 1L << bitIndex;
+            }
+            entries++;
+        }
+
+        WordlistBloomFilter build()
+        {
+            return new WordlistBloomFilter( bits, hashCount, entries, configHash );
+        }
+    }
+}
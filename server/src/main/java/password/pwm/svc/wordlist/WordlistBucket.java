@@ -21,8 +21,10 @@
 package password.pwm.svc.wordlist;
 
 import password.pwm.error.PwmUnrecoverableException;
+import password.pwm.util.java.ClosableIterator;
 
 import java.util.Collection;
+import java.util.Optional;
 
 public interface WordlistBucket
 {
@@ -43,4 +45,19 @@ public interface WordlistBucket
     void writeWordlistStatus( WordlistStatus wordlistStatus );
 
     long spaceRemaining();
+
+    void completePopulation() throws PwmUnrecoverableException;
+
+    ClosableIterator<String> keyIterator() throws PwmUnrecoverableException;
+
+    Optional<WordlistBloomFilter> readFilter();
+
+    void writeFilter( WordlistBloomFilter wordlistBloomFilter );
+
+    /**
+     * Release any resources held by the bucket, such as file mappings.
+     */
+    default void close()
+    {
+    }
 }
@@ -75,8 +75,25 @@ public class WordlistConfiguration implements Serializable
     private final long importMaxChars;
     private final long importMinFreeSpace;
 
+    // import pipeline tuning does not affect stored content, so is excluded from the config hash
+    private final transient int importParserThreads;
+    private final transient int importPipelineBatches;
+    private final transient int importLinesPerBatch;
+
     private final TimeDuration inspectorFrequency;
 
+    // storage format fields are added to the config hash only when not default, see configHash
+    @Builder.Default
+    private final transient WordlistHashStorage hashStorage = WordlistHashStorage.Hex;
+
+    @Builder.Default
+    private final transient WordlistBucketType bucketType = WordlistBucketType.LocalDB;
+
+    // the filter is rebuilt from the stored words, so its settings are excluded from the config hash
+    private final transient boolean filterEnabled;
+    private final transient int filterBitsPerEntry;
+    private final transient long filterMaxBytes;
+
     static WordlistConfiguration fromConfiguration(
             final Configuration configuration,
             final WordlistType type
@@ -105,6 +122,15 @@ public class WordlistConfiguration implements Serializable
                         .builtInWordlistLocationProperty( AppProperty.WORDLIST_BUILTIN_PATH )
                         .db( LocalDB.DB.WORDLIST_WORDS )
                         .wordlistFilenameSetting( PwmSetting.WORDLIST_FILENAME )
+                        .filterEnabled( Boolean.parseBoolean( configuration.readAppProperty( AppProperty.WORDLIST_FILTER_ENABLE ) ) )
+                        .hashStorage( JavaHelper.readEnumFromString(
+                                WordlistHashStorage.class,
+                                WordlistHashStorage.Hex,
+                                configuration.readAppProperty( AppProperty.WORDLIST_HASH_STORAGE ) ) )
+                        .bucketType( JavaHelper.readEnumFromString(
+                                WordlistBucketType.class,
+                                WordlistBucketType.LocalDB,
+                                configuration.readAppProperty( AppProperty.WORDLIST_BUCKET_TYPE ) ) )
                         .build();
             }
 
@@ -140,9 +166,22 @@ public class WordlistConfiguration implements Serializable
                         Long.parseLong( configuration.readAppProperty( AppProperty.WORDLIST_INSPECTOR_FREQUENCY_SECONDS ) ),
                         TimeDuration.Unit.SECONDS ) )
                 .importMinFreeSpace( JavaHelper.silentParseLong( configuration.readAppProperty( AppProperty.WORDLIST_IMPORT_MIN_FREE_SPACE ), 100_000_000 ) )
+                .importParserThreads( readImportParserThreads( configuration ) )
+                .importPipelineBatches( JavaHelper.silentParseInt( configuration.readAppProperty( AppProperty.WORDLIST_IMPORT_PIPELINE_BATCHES ), 64 ) )
+                .importLinesPerBatch( JavaHelper.silentParseInt( configuration.readAppProperty( AppProperty.WORDLIST_IMPORT_LINES_PER_BATCH ), 1000 ) )
+                .filterBitsPerEntry( JavaHelper.silentParseInt( configuration.readAppProperty( AppProperty.WORDLIST_FILTER_BITS_PER_ENTRY ), 10 ) )
+                .filterMaxBytes( JavaHelper.silentParseLong( configuration.readAppProperty( AppProperty.WORDLIST_FILTER_MAX_BYTES ), 268_435_456 ) )
                 .build();
     }
 
+    private static int readImportParserThreads( final Configuration configuration )
+    {
+        final int configuredThreads = JavaHelper.silentParseInt( configuration.readAppProperty( AppProperty.WORDLIST_IMPORT_PARSER_THREADS ), 0 );
+        return configuredThreads > 0
+                ? configuredThreads
+                : Math.max( 1, Runtime.getRuntime().availableProcessors() - 1 );
+    }
+
     private static String readAutoImportUrl(
             final Configuration configuration,
             final PwmSetting wordlistFileSetting
@@ -168,7 +207,7 @@ public class WordlistConfiguration implements Serializable
     {
         try
         {
-            return SecureEngine.hash( JsonUtil.serialize( WordlistConfiguration.this ), HASH_ALGORITHM );
+            return SecureEngine.hash( JsonUtil.serialize( WordlistConfiguration.this ) + storageFormatHashSuffix(), HASH_ALGORITHM );
         }
         catch ( final PwmUnrecoverableException e )
         {
@@ -181,4 +220,31 @@ public class WordlistConfiguration implements Serializable
         return configHash.get();
     }
 
+    /**
+     * Storage format settings change the stored content and so must change the config hash, but configurations
+     * using the default formats hash the same as before these settings existed, so upgrading does not re-import.
+     */
+    private String storageFormatHashSuffix()
+    {
+        final StringBuilder suffix = new StringBuilder();
+        if ( hashStorage != null && hashStorage != WordlistHashStorage.Hex )
+        {
+            suffix.append( "|hashStorage=" ).append( hashStorage );
+        }
+        if ( bucketType != null && bucketType != WordlistBucketType.LocalDB )
+        {
+            suffix.append( "|bucketType=" ).append( bucketType );
+        }
+        return suffix.toString();
+    }
+
+    /**
+     * Identifies a bloom filter built for the current stored content and filter settings, so a stored filter is
+     * rebuilt (without re-importing the wordlist) when the filter settings change.
+     */
+    String filterHash( )
+    {
+        return configHash() + ":" + filterBitsPerEntry + ":" + filterMaxBytes;
+    }
+
 }
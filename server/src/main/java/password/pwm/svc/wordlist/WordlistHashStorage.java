@@ -0,0 +1,33 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package password.pwm.svc.wordlist;
+
+/**
+ * Storage format of hashed (non-{@link WordType#RAW}) wordlist entries.
+ */
+public enum WordlistHashStorage
+{
+    /** Lowercase hex hash followed by a type suffix, for example {@code 5baa...fd8:SHA1}. */
+    Hex,
+
+    /** Fixed-width raw hash bytes (url-safe base64 encoded) in a separate key space per {@link WordType}. */
+    Binary,
+}
@@ -25,8 +25,10 @@ import org.apache.commons.io.IOUtils;
 import password.pwm.error.ErrorInformation;
 import password.pwm.error.PwmError;
 import password.pwm.error.PwmUnrecoverableException;
+import password.pwm.util.PwmScheduler;
 import password.pwm.util.TransactionSizeCalculator;
 import password.pwm.util.java.ConditionalTaskExecutor;
+import password.pwm.util.java.JavaHelper;
 import password.pwm.util.java.JsonUtil;
 import password.pwm.util.java.MovingAverage;
 import password.pwm.util.java.Percent;
@@ -37,22 +39,41 @@ import password.pwm.util.logging.PwmLogger;
 
 import java.text.DecimalFormat;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BooleanSupplier;
 
 /**
+ * Imports a zipped wordlist using a three stage pipeline: a reader thread reads batches of lines from the
+ * {@link WordlistZipReader}, a pool of parser threads normalizes, chunks and hashes each batch, and the calling
+ * thread writes parsed batches to the {@link WordlistBucket} in source order.  The number of batches in flight is
+ * bounded so a slow bucket applies backpressure to the reader.  The stored byte count only advances once all words
+ * read before it have been written, so a paused import can resume with {@link #skipForward(long)}.
+ *
  * @author Jason D. Rivard
  */
 class WordlistImporter implements Runnable
 {
+    private static final TimeDuration PIPELINE_POLL_INTERVAL = TimeDuration.of( 100, TimeDuration.Unit.MILLISECONDS );
+
     private final WordlistZipReader zipFileReader;
     private final WordlistSourceType sourceType;
     private final AbstractWordlist rootWordlist;
@@ -71,6 +92,9 @@ class WordlistImporter implements Runnable
     private final Map<WordType, LongAdder> seenWordTypes = new EnumMap<>( WordType.class );
     private boolean completed;
 
+    private long bufferedBytePosition;
+    private volatile long committedBytePosition;
+
     private enum DebugKey
     {
         LinesRead,
@@ -89,6 +113,11 @@ class WordlistImporter implements Runnable
         CharsPerTxn,
         ChunksPerWord,
         AvgWordLength,
+        ParserThreads,
+        PipelineBatches,
+        ReadLinesPerSecond,
+        ParsedWordsPerSecond,
+        WrittenWordsPerSecond,
     }
 
     WordlistImporter(
@@ -185,11 +214,6 @@ class WordlistImporter implements Runnable
     {
         rootWordlist.setActivity( Wordlist.Activity.Importing );
 
-        final ConditionalTaskExecutor metaUpdater = new ConditionalTaskExecutor(
-                this::writeCurrentWordlistStatus,
-                new ConditionalTaskExecutor.TimeDurationPredicate( TimeDuration.SECONDS_10 )
-        );
-
         final ConditionalTaskExecutor debugOutputter = new ConditionalTaskExecutor(
                 () -> getLogger().debug( this::makeStatString ),
                 new ConditionalTaskExecutor.TimeDurationPredicate( AbstractWordlist.DEBUG_OUTPUT_FREQUENCY )
@@ -201,33 +225,16 @@ class WordlistImporter implements Runnable
 
             initImportProcess();
 
+            // words are about to be added to the bucket, so any existing filter is no longer complete
+            rootWordlist.clearFilter();
+
             startTime = Instant.now();
+            committedBytePosition = zipFileReader.getByteCount();
+            bufferedBytePosition = committedBytePosition;
 
             getLogger().debug( () -> "beginning import: " + JsonUtil.serialize( rootWordlist.readWordlistStatus() ) );
 
-            String line;
-            do
-            {
-                line = zipFileReader.nextLine();
-                if ( line != null )
-                {
-                    addLine( line );
-
-                    debugOutputter.conditionallyExecuteTask();
-
-                    if (
-                            bufferedWords.size() > transactionCalculator.getTransactionSize()
-                                    || charsInBuffer > rootWordlist.getConfiguration().getImportMaxChars()
-                    )
-                    {
-                        flushBuffer();
-                        metaUpdater.conditionallyExecuteTask();
-                        checkWordlistSpaceRemaining();
-                    }
-                }
-            }
-            while ( !cancelFlag.getAsBoolean() && line != null );
-
+            runPipeline( debugOutputter );
 
             if ( cancelFlag.getAsBoolean() )
             {
@@ -244,7 +251,164 @@ class WordlistImporter implements Runnable
         }
     }
 
-    private void addLine( final String input )
+    private void runPipeline( final ConditionalTaskExecutor debugOutputter )
+            throws PwmUnrecoverableException
+    {
+        final WordlistConfiguration wordlistConfiguration = rootWordlist.getConfiguration();
+        final int parserThreads = wordlistConfiguration.getImportParserThreads();
+        final ImportPipeline pipeline = new ImportPipeline( wordlistConfiguration.getImportPipelineBatches() );
+
+        final ConditionalTaskExecutor metaUpdater = new ConditionalTaskExecutor(
+                this::writeCurrentWordlistStatus,
+                new ConditionalTaskExecutor.TimeDurationPredicate( TimeDuration.SECONDS_10 )
+        );
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(
+                parserThreads + 1,
+                PwmScheduler.makePwmThreadFactory( PwmScheduler.makeThreadName( rootWordlist.getPwmApplication(), WordlistImporter.class ) + "-", true ) );
+
+        try
+        {
+            executorService.execute( () -> readerStage( pipeline, wordlistConfiguration.getImportLinesPerBatch() ) );
+            for ( int i = 0; i < parserThreads; i++ )
+            {
+                executorService.execute( () -> parserStage( pipeline ) );
+            }
+
+            final Map<Long, ParsedBatch> pendingBatches = new TreeMap<>();
+            long nextSequence = 0;
+
+            while ( !cancelFlag.getAsBoolean() )
+            {
+                pipeline.checkError();
+
+                if ( pipeline.readerDone.get() && nextSequence >= pipeline.batchesRead.get() )
+                {
+                    break;
+                }
+
+                final ParsedBatch parsedBatch = pipeline.pollParsed();
+                if ( parsedBatch != null )
+                {
+                    pendingBatches.put( parsedBatch.getSequence(), parsedBatch );
+                }
+
+                // write batches strictly in source order so the committed byte position is always resumable
+                while ( pendingBatches.containsKey( nextSequence ) )
+                {
+                    writerStage( pendingBatches.remove( nextSequence ), metaUpdater );
+                    pipeline.inFlight.release();
+                    nextSequence++;
+                }
+
+                debugOutputter.conditionallyExecuteTask();
+            }
+        }
+        finally
+        {
+            pipeline.stopFlag.set( true );
+            executorService.shutdownNow();
+            JavaHelper.closeAndWaitExecutor( executorService, TimeDuration.SECONDS_10 );
+        }
+    }
+
+    private void readerStage( final ImportPipeline pipeline, final int linesPerBatch )
+    {
+        try
+        {
+            long sequence = 0;
+            boolean endOfStream = false;
+            while ( !endOfStream && !pipeline.isStopped() )
+            {
+                if ( !pipeline.inFlight.tryAcquire( PIPELINE_POLL_INTERVAL.asMillis(), TimeUnit.MILLISECONDS ) )
+                {
+                    continue;
+                }
+
+                final List<String> lines = new ArrayList<>( linesPerBatch );
+                while ( lines.size() < linesPerBatch )
+                {
+                    final String line = zipFileReader.nextLine();
+                    if ( line == null )
+                    {
+                        endOfStream = true;
+                        break;
+                    }
+                    lines.add( line );
+                }
+
+                importStatistics.getLinesRead().add( lines.size() );
+                pipeline.lineQueue.put( new LineBatch( sequence, lines, zipFileReader.getByteCount() ) );
+                sequence++;
+                pipeline.batchesRead.set( sequence );
+            }
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch ( final Throwable t )
+        {
+            pipeline.error.compareAndSet( null, t );
+        }
+        finally
+        {
+            pipeline.readerDone.set( true );
+        }
+    }
+
+    private void parserStage( final ImportPipeline pipeline )
+    {
+        try
+        {
+            while ( !pipeline.isStopped() )
+            {
+                final LineBatch lineBatch = pipeline.lineQueue.poll( PIPELINE_POLL_INTERVAL.asMillis(), TimeUnit.MILLISECONDS );
+                if ( lineBatch != null )
+                {
+                    final ParsedBatch parsedBatch = new ParsedBatch( lineBatch.getSequence(), lineBatch.getBytePosition() );
+                    for ( final String line : lineBatch.getLines() )
+                    {
+                        addLine( line, parsedBatch );
+                    }
+                    importStatistics.getWordsParsed().add( parsedBatch.getWords().size() );
+                    pipeline.parsedQueue.put( parsedBatch );
+                }
+            }
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch ( final Throwable t )
+        {
+            pipeline.error.compareAndSet( null, t );
+        }
+    }
+
+    private void writerStage( final ParsedBatch parsedBatch, final ConditionalTaskExecutor metaUpdater )
+            throws PwmUnrecoverableException
+    {
+        bufferedWords.addAll( parsedBatch.getWords() );
+        charsInBuffer += parsedBatch.getChars();
+        bufferedBytePosition = parsedBatch.getBytePosition();
+        for ( final Map.Entry<WordType, Long> entry : parsedBatch.getWordTypes().entrySet() )
+        {
+            seenWordTypes.computeIfAbsent( entry.getKey(), t -> new LongAdder() ).add( entry.getValue() );
+        }
+
+        if (
+                bufferedWords.size() > transactionCalculator.getTransactionSize()
+                        || charsInBuffer > rootWordlist.getConfiguration().getImportMaxChars()
+        )
+        {
+            flushBuffer();
+            metaUpdater.conditionallyExecuteTask();
+            checkWordlistSpaceRemaining();
+        }
+    }
+
+    private void addLine( final String input, final ParsedBatch parsedBatch )
     {
         if ( StringUtil.isEmpty( input ) )
         {
@@ -260,7 +424,7 @@ class WordlistImporter implements Runnable
         }
 
         final WordType wordType = WordType.determineWordType( input );
-        seenWordTypes.computeIfAbsent( wordType, t -> new LongAdder() ).increment();
+        parsedBatch.getWordTypes().merge( wordType, 1L, Long::sum );
 
         if ( wordType == WordType.RAW )
         {
@@ -271,23 +435,13 @@ class WordlistImporter implements Runnable
                 final Set<String> words = WordlistUtil.chunkWord( normalizedWord, rootWordlist.getConfiguration().getCheckSize() );
                 importStatistics.getAverageWordLength().update( normalizedWord.length() );
                 importStatistics.getChunksPerWord().update( words.size() );
-                incrementCharBufferCounter( words );
-                bufferedWords.addAll( words );
+                parsedBatch.addWords( words );
             }
         }
         else
         {
             final String normalizedWord = wordType.convertInputFromWordlist( this.rootWordlist.getConfiguration(), input );
-            incrementCharBufferCounter( Collections.singleton( normalizedWord ) );
-            bufferedWords.add( normalizedWord );
-        }
-    }
-
-    private void incrementCharBufferCounter( final Collection<String> words )
-    {
-        for ( final String word : words )
-        {
-            charsInBuffer += word.length();
+            parsedBatch.addWords( Collections.singleton( normalizedWord ) );
         }
     }
 
@@ -310,6 +464,8 @@ class WordlistImporter implements Runnable
 
         importStatistics.getWordsPerTransaction().update( bufferedWords.size() );
         importStatistics.getCharsPerTransaction().update( charsInBuffer );
+        importStatistics.getWordsWritten().add( bufferedWords.size() );
+        committedBytePosition = bufferedBytePosition;
 
         //clear the buffers.
         bufferedWords.clear();
@@ -320,6 +476,7 @@ class WordlistImporter implements Runnable
             throws PwmUnrecoverableException
     {
         flushBuffer();
+        wordlistBucket.completePopulation();
         getLogger().info( this::makeStatString );
         final long wordlistSize = wordlistBucket.size();
 
@@ -329,6 +486,8 @@ class WordlistImporter implements Runnable
         completed = true;
         writeCurrentWordlistStatus();
 
+        rootWordlist.buildFilter( cancelFlag );
+
         getLogger().debug( () -> "final post-population status: " + JsonUtil.serialize( rootWordlist.readWordlistStatus() ) );
     }
 
@@ -432,6 +591,17 @@ class WordlistImporter implements Runnable
         stats.put( DebugKey.ZipFile, zipFileReader.currentZipName() );
         stats.put( DebugKey.WordTypes, JsonUtil.serializeMap( seenWordTypes ) );
 
+        stats.put( DebugKey.ParserThreads, Integer.toString( rootWordlist.getConfiguration().getImportParserThreads() ) );
+        stats.put( DebugKey.PipelineBatches, Integer.toString( rootWordlist.getConfiguration().getImportPipelineBatches() ) );
+        final long elapsedSeconds = TimeDuration.fromCurrent( startTime ).as( TimeDuration.Unit.SECONDS );
+        if ( elapsedSeconds > 0 )
+        {
+            final PwmNumberFormat numberFormat = PwmNumberFormat.forDefaultLocale();
+            stats.put( DebugKey.ReadLinesPerSecond, numberFormat.format( importStatistics.getLinesRead().sum() / elapsedSeconds ) );
+            stats.put( DebugKey.ParsedWordsPerSecond, numberFormat.format( importStatistics.getWordsParsed().sum() / elapsedSeconds ) );
+            stats.put( DebugKey.WrittenWordsPerSecond, numberFormat.format( importStatistics.getWordsWritten().sum() / elapsedSeconds ) );
+        }
+
         if ( importStatistics.getChunksPerWord().getAverage() > 1 )
         {
             final DecimalFormat decimalFormat = new DecimalFormat( "#.##" );
@@ -470,7 +640,7 @@ class WordlistImporter implements Runnable
                 .sourceType( sourceType )
                 .completed( completed )
                 .wordTypes( outputWordTypeMap )
-                .bytes( zipFileReader.getByteCount() )
+                .bytes( committedBytePosition )
                 .build() );
     }
 
@@ -481,6 +651,92 @@ class WordlistImporter implements Runnable
         private final MovingAverage wordsPerTransaction = new MovingAverage( TimeDuration.MINUTE );
         private final MovingAverage chunksPerWord = new MovingAverage( TimeDuration.MINUTE );
         private final MovingAverage averageWordLength = new MovingAverage( TimeDuration.MINUTE );
+        private final LongAdder linesRead = new LongAdder();
+        private final LongAdder wordsParsed = new LongAdder();
+        private final LongAdder wordsWritten = new LongAdder();
+    }
+
+    private static class ImportPipeline
+    {
+        private final BlockingQueue<LineBatch> lineQueue = new LinkedBlockingQueue<>();
+        private final BlockingQueue<ParsedBatch> parsedQueue = new LinkedBlockingQueue<>();
+        private final Semaphore inFlight;
+        private final AtomicLong batchesRead = new AtomicLong();
+        private final AtomicBoolean readerDone = new AtomicBoolean();
+        private final AtomicBoolean stopFlag = new AtomicBoolean();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        ImportPipeline( final int maxBatchesInFlight )
+        {
+            this.inFlight = new Semaphore( Math.max( 1, maxBatchesInFlight ) );
+        }
+
+        boolean isStopped()
+        {
+            return stopFlag.get() || error.get() != null;
+        }
+
+        ParsedBatch pollParsed()
+                throws PwmUnrecoverableException
+        {
+            try
+            {
+                return parsedQueue.poll( PIPELINE_POLL_INTERVAL.asMillis(), TimeUnit.MILLISECONDS );
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw PwmUnrecoverableException.newException( PwmError.ERROR_WORDLIST_IMPORT_ERROR, "wordlist import interrupted" );
+            }
+        }
+
+        void checkError()
+                throws PwmUnrecoverableException
+        {
+            final Throwable throwable = error.get();
+            if ( throwable instanceof PwmUnrecoverableException )
+            {
+                throw ( PwmUnrecoverableException ) throwable;
+            }
+            if ( throwable != null )
+            {
+                throw PwmUnrecoverableException.newException( PwmError.ERROR_WORDLIST_IMPORT_ERROR, "error during wordlist import: " + throwable.getMessage() );
+            }
+        }
+    }
+
+    @Value
+    private static class LineBatch
+    {
+        private final long sequence;
+        private final List<String> lines;
+        private final long bytePosition;
+    }
+
+    @Value
+    private static class ParsedBatch
+    {
+        private final long sequence;
+        private final long bytePosition;
+        private final Set<String> words = new TreeSet<>();
+        private final Map<WordType, Long> wordTypes = new EnumMap<>( WordType.class );
+        private final LongAdder charCounter = new LongAdder();
+
+        void addWords( final Collection<String> newWords )
+        {
+            for ( final String word : newWords )
+            {
+                if ( words.add( word ) )
+                {
+                    charCounter.add( word.length() );
+                }
+            }
+        }
+
+        long getChars()
+        {
+            return charCounter.sum();
+        }
     }
 
     private void checkWordlistSpaceRemaining()
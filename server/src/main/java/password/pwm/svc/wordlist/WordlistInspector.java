@@ -54,6 +54,11 @@ class WordlistInspector implements Runnable
         try
         {
             checkPopulation();
+
+            if ( !cancelFlag.getAsBoolean() )
+            {
+                rootWordlist.initFilter( cancelFlag );
+            }
         }
         catch ( final Exception e )
         {
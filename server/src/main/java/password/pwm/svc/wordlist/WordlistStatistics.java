@@ -38,6 +38,7 @@ class WordlistStatistics
     private LongAdder wordChecks = new LongAdder();
     private Map<WordType, LongAdder> wordTypeHits = new HashMap<>(  );
     private LongAdder misses = new LongAdder();
+    private LongAdder filterRejects = new LongAdder();
 
     WordlistStatistics()
     {
@@ -54,6 +55,7 @@ class WordlistStatistics
         outputMap.put( "ChunksPerCheck", Double.toString( chunksPerWordCheck.getAverage() ) );
         outputMap.put( "LocalDBWordChecks", Long.toString( wordChecks.sum() ) );
         outputMap.put( "Misses", Long.toString( misses.sum() ) );
+        outputMap.put( "FilterRejects", Long.toString( filterRejects.sum() ) );
         for ( final Map.Entry<WordType, LongAdder> entry : wordTypeHits.entrySet() )
         {
             outputMap.put( "Hits-" + entry.getKey().name(), Long.toString( entry.getValue().sum() ) );
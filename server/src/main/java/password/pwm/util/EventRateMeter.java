@@ -20,21 +20,20 @@
 
 package password.pwm.util;
 
-import password.pwm.util.java.MovingAverage;
 import password.pwm.util.java.TimeDuration;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Exponentially weighted rate of events per second.  State is swapped by compare-and-set, so marking
+ * events never blocks; events marked within the same millisecond are carried into the next update.
+ */
 public class EventRateMeter implements Serializable
 {
-    private final TimeDuration maxDuration;
-    private final Lock lock = new ReentrantLock();
-
-    private MovingAverage movingAverage;
-    private double remainder;
+    private final long windowMillis;
+    private final AtomicReference<MeterState> state = new AtomicReference<>();
 
     public EventRateMeter( final TimeDuration maxDuration )
     {
@@ -42,58 +41,67 @@ public class EventRateMeter implements Serializable
         {
             throw new NullPointerException( "maxDuration cannot be null" );
         }
-        this.maxDuration = maxDuration;
+        this.windowMillis = maxDuration.asMillis();
         reset();
     }
 
     public void reset( )
     {
-        lock.lock();
-        try
-        {
-            movingAverage = new MovingAverage( maxDuration.asMillis() );
-            remainder = 0;
-        }
-        finally
-        {
-            lock.unlock();
-        }
+        state.set( new MeterState( 0, 0, 0 ) );
     }
 
     public void markEvents( final int eventCount )
     {
-        lock.lock();
-        try
+        final long now = System.currentTimeMillis();
+        MeterState current;
+        MeterState next;
+        do
         {
-            final long timeSinceLastUpdate = System.currentTimeMillis() - movingAverage.getLastMillis();
+            current = state.get();
+            final long timeSinceLastUpdate = now - current.lastMillis;
             if ( timeSinceLastUpdate != 0 )
             {
-                final double eventRate = ( eventCount + remainder ) / timeSinceLastUpdate;
-                movingAverage.update( eventRate * 1000 );
-                remainder = 0;
+                final double eventRate = ( eventCount + current.remainder ) / timeSinceLastUpdate * 1000;
+                final double average = current.lastMillis == 0
+                        ? eventRate
+                        : ( 1.0 - coefficient( current, now ) ) * eventRate + coefficient( current, now ) * current.average;
+                next = new MeterState( average, now, 0 );
             }
             else
             {
-                remainder += eventCount;
+                next = new MeterState( current.average, current.lastMillis, current.remainder + eventCount );
             }
         }
-        finally
-        {
-            lock.unlock();
-        }
+        while ( !state.compareAndSet( current, next ) );
     }
 
     public BigDecimal readEventRate( )
     {
-        lock.lock();
-        try
+        final MeterState current = state.get();
+        if ( current.lastMillis == 0 )
         {
-            return BigDecimal.valueOf( this.movingAverage.getAverage() );
+            return BigDecimal.valueOf( 0.0 );
         }
-        finally
+        return BigDecimal.valueOf( coefficient( current, System.currentTimeMillis() ) * current.average );
+    }
+
+    private double coefficient( final MeterState current, final long now )
+    {
+        final long deltaTime = Math.max( 0, now - current.lastMillis );
+        return Math.exp( -1.0 * ( ( double ) deltaTime / windowMillis ) );
+    }
+
+    private static final class MeterState implements Serializable
+    {
+        private final double average;
+        private final long lastMillis;
+        private final double remainder;
+
+        private MeterState( final double average, final long lastMillis, final double remainder )
         {
-            lock.unlock();
+            this.average = average;
+            this.lastMillis = lastMillis;
+            this.remainder = remainder;
         }
     }
-
 }
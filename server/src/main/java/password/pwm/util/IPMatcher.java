@@ -22,6 +22,7 @@ package password.pwm.util;
 
 import java.net.Inet6Address;
 import java.net.UnknownHostException;
+import java.util.Arrays;
 
 public class IPMatcher
 {
@@ -89,7 +90,10 @@ public class IPMatcher
                     {
                         netmask[ i ] = ( byte ) 0Xff;
                     }
-                    netmask[ maskBytes ] = ( byte ) ( ( byte ) 0Xff << 8 - ( maskBits % 8 ) );
+                    if ( maskBytes < netmask.length )
+                    {
+                        netmask[ maskBytes ] = ( byte ) ( ( byte ) 0Xff << 8 - ( maskBits % 8 ) );
+                    }
                     for ( int i = maskBytes + 1; i < ( 128 / 8 ); i++ )
                     {
                         netmask[ i ] = 0;
@@ -244,35 +248,75 @@ public class IPMatcher
      */
     public boolean match( final String ipIn ) throws IPMatcherException
     {
-        byte[] candidate;
+        final byte[] candidate = addressToBytes( ipIn );
+
+        for ( int i = 0; i < netmask.length; i++ )
+        {
+            if ( ( candidate[ i ] & netmask[ i ] ) != ( network[ i ] & netmask[ i ] ) )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
 
+    /**
+     * Parse a full IPv4 or IPv6 address into the 16 byte form used for matching.
+     *
+     * @param ipIn IP address as a String
+     * @return IPv6 address, or the IPv4-compatible IPv6 address for an IPv4 address
+     * @throws IPMatcherException if the address cannot be parsed
+     */
+    static byte[] addressToBytes( final String ipIn ) throws IPMatcherException
+    {
         if ( ipIn.indexOf( ':' ) < 0 )
         {
-            candidate = new byte[ 4 ];
+            final byte[] candidate = new byte[ 4 ];
             ipToBytes( ipIn, candidate, true );
-            candidate = ip4ToIp6( candidate );
+            return ip4ToIp6( candidate );
         }
-        else
+
+        try
         {
-            try
-            {
-                candidate = Inet6Address.getByName( ipIn ).getAddress();
-            }
-            catch ( final UnknownHostException e )
-            {
-                throw new IPMatcherException( "Malformed IPv6 address ", e );
-            }
+            return Inet6Address.getByName( ipIn ).getAddress();
+        }
+        catch ( final UnknownHostException e )
+        {
+            throw new IPMatcherException( "Malformed IPv6 address ", e );
         }
+    }
 
-        for ( int i = 0; i < netmask.length; i++ )
+    byte[] getNetwork( )
+    {
+        return Arrays.copyOf( network, network.length );
+    }
+
+    /**
+     * Number of leading one bits in the netmask.
+     *
+     * @return the prefix length, or -1 if the netmask is not a contiguous prefix (e.g. 255.0.255.0)
+     */
+    int getPrefixLength( )
+    {
+        int prefixLength = 0;
+        while ( prefixLength < netmask.length * 8 && bitAt( netmask, prefixLength ) )
         {
-            if ( ( candidate[ i ] & netmask[ i ] ) != ( network[ i ] & netmask[ i ] ) )
+            prefixLength++;
+        }
+        for ( int i = prefixLength; i < netmask.length * 8; i++ )
+        {
+            if ( bitAt( netmask, i ) )
             {
-                return false;
+                return -1;
             }
         }
+        return prefixLength;
+    }
 
-        return true;
+    static boolean bitAt( final byte[] bytes, final int bitIndex )
+    {
+        return ( bytes[ bitIndex >>> 3 ] & ( 0x80 >>> ( bitIndex & 7 ) ) ) != 0;
     }
 
     /**
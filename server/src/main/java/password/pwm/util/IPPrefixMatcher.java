@@ -0,0 +1,229 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.util;
+
+import password.pwm.util.logging.PwmLogger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable matcher for a list of IPv4 and IPv6 address ranges, using the range syntax of {@link IPMatcher}.
+ *
+ * <p>Ranges are compiled into a binary trie of address bits, so a lookup costs at most one step per bit of
+ * the longest matching prefix regardless of how many ranges are configured.  IPv4 ranges are stored as
+ * IPv4-compatible IPv6 prefixes, matching {@link IPMatcher}.  Ranges whose netmask is not a contiguous prefix
+ * are rare and are checked individually.</p>
+ */
+public final class IPPrefixMatcher
+{
+    private static final PwmLogger LOGGER = PwmLogger.forClass( IPPrefixMatcher.class );
+
+    private static final IPPrefixMatcher EMPTY = new IPPrefixMatcher( new int[ 2 ], new BitSet(), Collections.emptyList(), 0 );
+
+    private static final int ADDRESS_BITS = 128;
+    private static final int NO_CHILD = 0;
+
+    /**
+     * Child node index for each node and bit value; node {@code n} has children at {@code 2n} and {@code 2n+1}.
+     * Node 0 is the root, so 0 doubles as the no-child marker.
+     */
+    private final int[] children;
+    private final BitSet terminalNodes;
+    private final List<IPMatcher> nonPrefixMatchers;
+    private final int size;
+
+    private IPPrefixMatcher( final int[] children, final BitSet terminalNodes, final List<IPMatcher> nonPrefixMatchers, final int size )
+    {
+        this.children = children;
+        this.terminalNodes = terminalNodes;
+        this.nonPrefixMatchers = nonPrefixMatchers;
+        this.size = size;
+    }
+
+    public static IPPrefixMatcher empty( )
+    {
+        return EMPTY;
+    }
+
+    /**
+     * Compile a list of range specifications.  Specifications that cannot be parsed are logged and ignored.
+     *
+     * @param ipSpecs range specifications as accepted by {@link IPMatcher#IPMatcher(String)}
+     * @return a matcher for all the valid specifications
+     */
+    public static IPPrefixMatcher compile( final Collection<String> ipSpecs )
+    {
+        if ( ipSpecs == null || ipSpecs.isEmpty() )
+        {
+            return EMPTY;
+        }
+
+        final Builder builder = new Builder();
+        for ( final String ipSpec : ipSpecs )
+        {
+            if ( ipSpec == null || ipSpec.trim().isEmpty() )
+            {
+                continue;
+            }
+
+            try
+            {
+                builder.add( new IPMatcher( ipSpec.trim() ) );
+            }
+            catch ( final IPMatcher.IPMatcherException | RuntimeException e )
+            {
+                LOGGER.error( () -> "error parsing address range '" + ipSpec + "', error: " + e );
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Test an address against the compiled ranges.
+     *
+     * @param address IPv4 or IPv6 address
+     * @return true if the address is within any of the ranges
+     * @throws IPMatcher.IPMatcherException if the address cannot be parsed
+     */
+    public boolean match( final String address ) throws IPMatcher.IPMatcherException
+    {
+        if ( size == 0 )
+        {
+            return false;
+        }
+
+        final byte[] candidate = IPMatcher.addressToBytes( address );
+
+        int node = 0;
+        for ( int bit = 0; bit < ADDRESS_BITS; bit++ )
+        {
+            if ( terminalNodes.get( node ) )
+            {
+                return true;
+            }
+            node = children[ 2 * node + ( IPMatcher.bitAt( candidate, bit ) ? 1 : 0 ) ];
+            if ( node == NO_CHILD )
+            {
+                break;
+            }
+        }
+
+        if ( node != NO_CHILD && terminalNodes.get( node ) )
+        {
+            return true;
+        }
+
+        for ( final IPMatcher ipMatcher : nonPrefixMatchers )
+        {
+            if ( ipMatcher.match( address ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public boolean isEmpty( )
+    {
+        return size == 0;
+    }
+
+    /**
+     * @return the number of valid ranges the matcher was compiled from
+     */
+    public int size( )
+    {
+        return size;
+    }
+
+    private static class Builder
+    {
+        private int[] children = new int[ 64 ];
+        private final BitSet terminalNodes = new BitSet();
+        private final List<IPMatcher> nonPrefixMatchers = new ArrayList<>();
+        private int nodeCount = 1;
+        private int size;
+
+        void add( final IPMatcher ipMatcher )
+        {
+            size++;
+
+            final int prefixLength = ipMatcher.getPrefixLength();
+            if ( prefixLength < 0 )
+            {
+                nonPrefixMatchers.add( ipMatcher );
+                return;
+            }
+
+            final byte[] network = ipMatcher.getNetwork();
+            int node = 0;
+            for ( int bit = 0; bit < prefixLength; bit++ )
+            {
+                if ( terminalNodes.get( node ) )
+                {
+                    // a shorter prefix already covers this range
+                    return;
+                }
+
+                final int childSlot = 2 * node + ( IPMatcher.bitAt( network, bit ) ? 1 : 0 );
+                if ( children[ childSlot ] == NO_CHILD )
+                {
+                    // allocate before indexing, newNode() may replace the children array
+                    final int child = newNode();
+                    children[ childSlot ] = child;
+                }
+                node = children[ childSlot ];
+            }
+
+            terminalNodes.set( node );
+        }
+
+        private int newNode( )
+        {
+            final int node = nodeCount++;
+            if ( 2 * nodeCount > children.length )
+            {
+                children = Arrays.copyOf( children, children.length * 2 );
+            }
+            return node;
+        }
+
+        IPPrefixMatcher build( )
+        {
+            if ( size == 0 )
+            {
+                return EMPTY;
+            }
+            return new IPPrefixMatcher(
+                    Arrays.copyOf( children, 2 * nodeCount ),
+                    ( BitSet ) terminalNodes.clone(),
+                    Collections.unmodifiableList( new ArrayList<>( nonPrefixMatchers ) ),
+                    size );
+        }
+    }
+}
@@ -22,15 +22,18 @@ package password.pwm.util.cli.commands;
 
 import password.pwm.error.PwmOperationalException;
 import password.pwm.util.cli.CliParameters;
+import password.pwm.util.java.JavaHelper;
 import password.pwm.util.localdb.LocalDB;
 import password.pwm.util.localdb.LocalDBUtility;
 
 import java.io.File;
 import java.io.FileOutputStream;
-import java.util.Collections;
+import java.util.Arrays;
 
 public class ExportLocalDBCommand extends AbstractCliCommand
 {
+    private static final String FORMAT_OPTIONNAME = "format";
+
     @Override
     void doCommand( )
             throws Exception
@@ -44,10 +47,20 @@ public class ExportLocalDBCommand extends AbstractCliCommand
             return;
         }
 
+        final String formatValue = ( String ) cliEnvironment.getOptions().get( FORMAT_OPTIONNAME );
+        final LocalDBUtility.ExportFormat exportFormat = formatValue == null
+                ? LocalDBUtility.ExportFormat.BINARY
+                : JavaHelper.readEnumFromString( LocalDBUtility.ExportFormat.class, null, formatValue );
+        if ( exportFormat == null )
+        {
+            out( "unknown format '" + formatValue + "', must be one of " + Arrays.toString( LocalDBUtility.ExportFormat.values() ) );
+            return;
+        }
+
         final LocalDBUtility localDBUtility = new LocalDBUtility( localDB );
         try ( FileOutputStream fileOutputStream = new FileOutputStream( outputFile ) )
         {
-            localDBUtility.exportLocalDB( fileOutputStream, System.out );
+            localDBUtility.exportLocalDB( fileOutputStream, System.out, exportFormat );
         }
         catch ( final PwmOperationalException e )
         {
@@ -58,10 +71,31 @@ public class ExportLocalDBCommand extends AbstractCliCommand
     @Override
     public CliParameters getCliParameters( )
     {
+        final CliParameters.Option formatOption = new CliParameters.Option()
+        {
+            @Override
+            public boolean isOptional( )
+            {
+                return true;
+            }
+
+            @Override
+            public Type getType( )
+            {
+                return Type.STRING;
+            }
+
+            @Override
+            public String getName( )
+            {
+                return FORMAT_OPTIONNAME;
+            }
+        };
+
         final CliParameters cliParameters = new CliParameters();
         cliParameters.commandName = "ExportLocalDB";
-        cliParameters.description = "Export the entire LocalDB contents to a backup file";
-        cliParameters.options = Collections.singletonList( CliParameters.REQUIRED_NEW_OUTPUT_FILE );
+        cliParameters.description = "Export the entire LocalDB contents to a backup file, optionally in CSV format";
+        cliParameters.options = Arrays.asList( CliParameters.REQUIRED_NEW_OUTPUT_FILE, formatOption );
 
         cliParameters.needsLocalDB = true;
         cliParameters.readOnly = true;
@@ -51,6 +51,8 @@ public class DBConfiguration implements Serializable
     private final Set<JDBCDriverLoader.ClassLoaderStrategy> classLoaderStrategies;
     private final int maxConnections;
     private final int connectionTimeout;
+    private final int connectionWaitTimeout;
+    private final int batchSize;
     private final int keyColumnLength;
     private final boolean failOnIndexCreation;
 
@@ -91,6 +93,8 @@ public class DBConfiguration implements Serializable
 
         final int maxConnections = Integer.parseInt( config.readAppProperty( AppProperty.DB_CONNECTIONS_MAX ) );
         final int connectionTimeout = Integer.parseInt( config.readAppProperty( AppProperty.DB_CONNECTIONS_TIMEOUT_MS ) );
+        final int connectionWaitTimeout = Integer.parseInt( config.readAppProperty( AppProperty.DB_CONNECTIONS_WAIT_TIMEOUT_MS ) );
+        final int batchSize = Integer.parseInt( config.readAppProperty( AppProperty.DB_BATCH_SIZE ) );
 
         final int keyColumnLength = Integer.parseInt( config.readAppProperty( AppProperty.DB_SCHEMA_KEY_LENGTH ) );
 
@@ -107,6 +111,8 @@ public class DBConfiguration implements Serializable
                 strategies,
                 maxConnections,
                 connectionTimeout,
+                connectionWaitTimeout,
+                batchSize,
                 keyColumnLength,
                 haltOnIndexCreateError
         );
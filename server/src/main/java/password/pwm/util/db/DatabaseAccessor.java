@@ -24,6 +24,7 @@ import password.pwm.util.java.ClosableIterator;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.Collection;
 import java.util.Map;
 
 public interface DatabaseAccessor
@@ -54,6 +55,17 @@ public interface DatabaseAccessor
     )
             throws DatabaseException;
 
+    /**
+     * Writes all of the supplied values in a single transaction using batched statements.
+     */
+    @DbOperation
+    @DbModifyOperation
+    void putAll(
+            DatabaseTable table,
+            Map<String, String> keyValueMap
+    )
+            throws DatabaseException;
+
     @DbOperation
     @DbModifyOperation
     boolean putIfAbsent(
@@ -77,6 +89,16 @@ public interface DatabaseAccessor
     )
             throws DatabaseException;
 
+    /**
+     * Reads the values for the supplied keys using multi-row queries.  Keys that are not present are omitted from the result.
+     */
+    @DbOperation
+    Map<String, String> getAll(
+            DatabaseTable table,
+            Collection<String> keys
+    )
+            throws DatabaseException;
+
     ClosableIterator<Map.Entry<String, String>> iterator( DatabaseTable table )
             throws DatabaseException;
 
@@ -88,6 +110,17 @@ public interface DatabaseAccessor
     )
             throws DatabaseException;
 
+    /**
+     * Removes all of the supplied keys in a single transaction using batched statements.
+     */
+    @DbOperation
+    @DbModifyOperation
+    void removeAll(
+            DatabaseTable table,
+            Collection<String> keys
+    )
+            throws DatabaseException;
+
     @DbOperation
     int size( DatabaseTable table ) throws
             DatabaseException;
@@ -30,14 +30,23 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * @author Jason D. Rivard
@@ -47,7 +56,7 @@ class DatabaseAccessorImpl implements DatabaseAccessor
 
     private static final PwmLogger LOGGER = PwmLogger.forClass( DatabaseAccessorImpl.class, true );
 
-    private final Connection connection;
+    private final DatabaseConnectionPool connectionPool;
     private final DatabaseService databaseService;
     private final DBConfiguration dbConfiguration;
 
@@ -61,16 +70,14 @@ class DatabaseAccessorImpl implements DatabaseAccessor
 
     private final AtomicBoolean closed = new AtomicBoolean( false );
 
-    private final ReentrantLock lock = new ReentrantLock();
-
     DatabaseAccessorImpl(
             final DatabaseService databaseService,
             final DBConfiguration dbConfiguration,
-            final Connection connection,
+            final DatabaseConnectionPool connectionPool,
             final boolean traceLogEnabled
     )
     {
-        this.connection = connection;
+        this.connectionPool = connectionPool;
         this.dbConfiguration = dbConfiguration;
         this.traceLogEnabled = traceLogEnabled;
         this.databaseService = databaseService;
@@ -78,6 +85,7 @@ class DatabaseAccessorImpl implements DatabaseAccessor
 
 
     private void processSqlException(
+            final Connection connection,
             final DatabaseUtil.DebugInfo debugInfo,
             final SQLException e
     )
@@ -101,39 +109,80 @@ class DatabaseAccessorImpl implements DatabaseAccessor
 
         final DatabaseUtil.DebugInfo debugInfo = DatabaseUtil.DebugInfo.create( "put", table, key, value );
 
-        return execute( debugInfo, ( ) ->
+        return execute( debugInfo, connection ->
         {
             boolean exists = false;
             try
             {
-                exists = containsImpl( table, key );
+                exists = containsImpl( connection, table, key );
             }
             catch ( final SQLException e )
             {
-                processSqlException( debugInfo, e );
+                processSqlException( connection, debugInfo, e );
             }
 
             if ( exists )
             {
-                final String sqlText = "UPDATE " + table.toString()
-                        + " SET " + DatabaseService.VALUE_COLUMN + "=? WHERE "
-                        + DatabaseService.KEY_COLUMN + "=?";
-
                 // note the value/key are reversed for this statement
-                executeUpdate( sqlText, debugInfo, value, key );
+                executeUpdate( connection, updateSql( table ), debugInfo, value, key );
             }
             else
             {
-                final String sqlText = "INSERT INTO " + table.toString()
-                        + "(" + DatabaseService.KEY_COLUMN + ", "
-                        + DatabaseService.VALUE_COLUMN + ") VALUES(?,?)";
-                executeUpdate( sqlText, debugInfo, key, value );
+                executeUpdate( connection, insertSql( table ), debugInfo, key, value );
             }
 
             return !exists;
         } );
     }
 
+    @Override
+    public void putAll(
+            final DatabaseTable table,
+            final Map<String, String> keyValueMap
+    )
+            throws DatabaseException
+    {
+        preCheck();
+
+        if ( keyValueMap == null || keyValueMap.isEmpty() )
+        {
+            return;
+        }
+
+        final DatabaseUtil.DebugInfo debugInfo = DatabaseUtil.DebugInfo.create( "putAll", table, null, null );
+
+        execute( debugInfo, connection ->
+        {
+            try
+            {
+                final Set<String> existingKeys = selectInChunks( connection, table, keyValueMap.keySet(), false ).keySet();
+
+                final List<List<String>> updateRows = new ArrayList<>();
+                final List<List<String>> insertRows = new ArrayList<>();
+                for ( final Map.Entry<String, String> entry : keyValueMap.entrySet() )
+                {
+                    if ( existingKeys.contains( entry.getKey() ) )
+                    {
+                        // note the value/key are reversed for the update statement
+                        updateRows.add( Arrays.asList( entry.getValue(), entry.getKey() ) );
+                    }
+                    else
+                    {
+                        insertRows.add( Arrays.asList( entry.getKey(), entry.getValue() ) );
+                    }
+                }
+
+                executeBatch( connection, updateSql( table ), updateRows );
+                executeBatch( connection, insertSql( table ), insertRows );
+            }
+            catch ( final SQLException e )
+            {
+                processSqlException( connection, debugInfo, e );
+            }
+            return null;
+        } );
+    }
+
     @Override
     public boolean putIfAbsent(
             final DatabaseTable table,
@@ -146,22 +195,21 @@ class DatabaseAccessorImpl implements DatabaseAccessor
 
         final DatabaseUtil.DebugInfo debugInfo = DatabaseUtil.DebugInfo.create( "putIfAbsent", table, key, value );
 
-        return execute( debugInfo, ( ) ->
+        return execute( debugInfo, connection ->
         {
             boolean valueExists = false;
             try
             {
-                valueExists = DatabaseAccessorImpl.this.containsImpl( table, key );
+                valueExists = containsImpl( connection, table, key );
             }
             catch ( final SQLException e )
             {
-                DatabaseAccessorImpl.this.processSqlException( debugInfo, e );
+                processSqlException( connection, debugInfo, e );
             }
 
             if ( !valueExists )
             {
-                final String insertSql = "INSERT INTO " + table.name() + "(" + DatabaseService.KEY_COLUMN + ", " + DatabaseService.VALUE_COLUMN + ") VALUES(?,?)";
-                DatabaseAccessorImpl.this.executeUpdate( insertSql, debugInfo, key, value );
+                executeUpdate( connection, insertSql( table ), debugInfo, key, value );
             }
 
             return !valueExists;
@@ -180,16 +228,16 @@ class DatabaseAccessorImpl implements DatabaseAccessor
 
         final DatabaseUtil.DebugInfo debugInfo = DatabaseUtil.DebugInfo.create( "contains", table, key, null );
 
-        return execute( debugInfo, ( ) ->
+        return execute( debugInfo, connection ->
         {
             boolean valueExists = false;
             try
             {
-                valueExists = containsImpl( table, key );
+                valueExists = containsImpl( connection, table, key );
             }
             catch ( final SQLException e )
             {
-                processSqlException( debugInfo, e );
+                processSqlException( connection, debugInfo, e );
             }
             return valueExists;
         } );
@@ -206,7 +254,7 @@ class DatabaseAccessorImpl implements DatabaseAccessor
 
         final DatabaseUtil.DebugInfo debugInfo = DatabaseUtil.DebugInfo.create( "get", table, key, null );
 
-        return execute( debugInfo, ( ) ->
+        return execute( debugInfo, connection ->
         {
             final String sqlStatement = "SELECT * FROM " + table.name() + " WHERE " + DatabaseService.KEY_COLUMN + " = ?";
 
@@ -225,25 +273,49 @@ class DatabaseAccessorImpl implements DatabaseAccessor
             }
             catch ( final SQLException e )
             {
-                processSqlException( debugInfo, e );
+                processSqlException( connection, debugInfo, e );
             }
             return null;
         } );
     }
 
     @Override
-    public ClosableIterator<Map.Entry<String, String>> iterator( final DatabaseTable table )
+    public Map<String, String> getAll(
+            final DatabaseTable table,
+            final Collection<String> keys
+    )
             throws DatabaseException
     {
-        try
+        preCheck();
+
+        if ( keys == null || keys.isEmpty() )
         {
-            lock.lock();
-            return new DBIterator( table );
+            return Collections.emptyMap();
         }
-        finally
+
+        final DatabaseUtil.DebugInfo debugInfo = DatabaseUtil.DebugInfo.create( "getAll", table, null, null );
+
+        return execute( debugInfo, connection ->
         {
-            lock.unlock();
-        }
+            try
+            {
+                return Collections.unmodifiableMap( selectInChunks( connection, table, keys, true ) );
+            }
+            catch ( final SQLException e )
+            {
+                processSqlException( connection, debugInfo, e );
+            }
+            return Collections.emptyMap();
+        } );
+    }
+
+    @Override
+    public ClosableIterator<Map.Entry<String, String>> iterator( final DatabaseTable table )
+            throws DatabaseException
+    {
+        preCheck();
+
+        return new DBIterator( table );
     }
 
     @Override
@@ -257,13 +329,45 @@ class DatabaseAccessorImpl implements DatabaseAccessor
 
         final DatabaseUtil.DebugInfo debugInfo = DatabaseUtil.DebugInfo.create( "remove", table, key, null );
 
-        execute( debugInfo, ( ) ->
+        execute( debugInfo, connection ->
         {
+            executeUpdate( connection, deleteSql( table ), debugInfo, key );
+            return null;
+        } );
+    }
 
+    @Override
+    public void removeAll(
+            final DatabaseTable table,
+            final Collection<String> keys
+    )
+            throws DatabaseException
+    {
+        preCheck();
 
-            final String sqlText = "DELETE FROM " + table.name() + " WHERE " + DatabaseService.KEY_COLUMN + "=?";
-            executeUpdate( sqlText, debugInfo, key );
+        if ( keys == null || keys.isEmpty() )
+        {
+            return;
+        }
 
+        final DatabaseUtil.DebugInfo debugInfo = DatabaseUtil.DebugInfo.create( "removeAll", table, null, null );
+
+        execute( debugInfo, connection ->
+        {
+            final List<List<String>> deleteRows = new ArrayList<>( keys.size() );
+            for ( final String key : new LinkedHashSet<>( keys ) )
+            {
+                deleteRows.add( Collections.singletonList( key ) );
+            }
+
+            try
+            {
+                executeBatch( connection, deleteSql( table ), deleteRows );
+            }
+            catch ( final SQLException e )
+            {
+                processSqlException( connection, debugInfo, e );
+            }
             return null;
         } );
     }
@@ -276,7 +380,7 @@ class DatabaseAccessorImpl implements DatabaseAccessor
 
         final DatabaseUtil.DebugInfo debugInfo = DatabaseUtil.DebugInfo.create( "size", table, null, null );
 
-        return execute( debugInfo, ( ) ->
+        return execute( debugInfo, connection ->
         {
             final String sqlStatement = "SELECT COUNT(" + DatabaseService.KEY_COLUMN + ") FROM " + table.name();
 
@@ -292,7 +396,7 @@ class DatabaseAccessorImpl implements DatabaseAccessor
             }
             catch ( final SQLException e )
             {
-                processSqlException( debugInfo, e );
+                processSqlException( connection, debugInfo, e );
             }
 
             return 0;
@@ -303,38 +407,23 @@ class DatabaseAccessorImpl implements DatabaseAccessor
     {
         preCheck();
 
-        if ( connection == null )
-        {
-            return false;
-        }
-
-        try
-        {
-            if ( connection.isClosed() )
-            {
-                return false;
-            }
-
-            final int connectionTimeout = dbConfiguration.getConnectionTimeout();
-
-            if ( !connection.isValid( connectionTimeout ) )
-            {
-                return false;
-            }
+        final int timeoutSeconds = (int) Math.max( 1, TimeUnit.MILLISECONDS.toSeconds( dbConfiguration.getConnectionTimeout() ) );
+        return connectionPool.isValid( timeoutSeconds );
+    }
 
-        }
-        catch ( final SQLException e )
-        {
-            LOGGER.debug( () -> "error while checking connection validity: " + e.getMessage() );
-        }
 
-        return true;
+    Map<String, String> connectionPoolDebugInfo( )
+    {
+        return connectionPool.debugInfo();
     }
 
-
+    /**
+     * Iterates a table using a pooled connection that is held until the iterator is closed.
+     */
     public class DBIterator implements ClosableIterator<Map.Entry<String, String>>
     {
         private final DatabaseTable table;
+        private Connection connection;
         private ResultSet resultSet;
         private PreparedStatement statement;
         private Map.Entry<String, String> nextValue;
@@ -356,6 +445,7 @@ class DatabaseAccessorImpl implements DatabaseAccessor
             traceBegin( debugInfo );
 
             final String sqlText = "SELECT * FROM " + table.name();
+            connection = connectionPool.borrow();
             try
             {
                 outstandingIterators.add( this );
@@ -365,7 +455,14 @@ class DatabaseAccessorImpl implements DatabaseAccessor
             }
             catch ( final SQLException e )
             {
-                processSqlException( null, e );
+                try
+                {
+                    processSqlException( connection, null, e );
+                }
+                finally
+                {
+                    close();
+                }
             }
 
             traceResult( debugInfo, null );
@@ -412,57 +509,55 @@ class DatabaseAccessorImpl implements DatabaseAccessor
             }
             catch ( final SQLException e )
             {
-                finished = true;
+                close();
                 LOGGER.warn( () -> "unexpected error during result set iteration: " + e.getMessage() );
             }
             databaseService.updateStats( DatabaseService.OperationType.READ );
         }
 
         @Override
-        public void close( )
+        public synchronized void close( )
         {
+            if ( finished )
+            {
+                return;
+            }
+
             final DatabaseUtil.DebugInfo debugInfo = DatabaseUtil.DebugInfo.create(
                     "iterator #" + counter + " close", table, null, null );
             traceBegin( debugInfo );
 
-            lock.lock();
-            try
-            {
-                outstandingIterators.remove( this );
+            outstandingIterators.remove( this );
 
-                if ( resultSet != null )
+            if ( resultSet != null )
+            {
+                try
                 {
-                    try
-                    {
-                        resultSet.close();
-                        resultSet = null;
-                    }
-                    catch ( final SQLException e )
-                    {
-                        LOGGER.error( () -> "error closing inner resultSet in iterator: " + e.getMessage() );
-                    }
+                    resultSet.close();
+                    resultSet = null;
                 }
-
-                if ( statement != null )
+                catch ( final SQLException e )
                 {
-                    try
-                    {
-                        statement.close();
-                        statement = null;
-                    }
-                    catch ( final SQLException e )
-                    {
-                        LOGGER.error( () -> "error closing inner statement in iterator: " + e.getMessage() );
-                    }
+                    LOGGER.error( () -> "error closing inner resultSet in iterator: " + e.getMessage() );
                 }
-
-                finished = true;
             }
-            finally
+
+            if ( statement != null )
             {
-                lock.unlock();
+                try
+                {
+                    statement.close();
+                    statement = null;
+                }
+                catch ( final SQLException e )
+                {
+                    LOGGER.error( () -> "error closing inner statement in iterator: " + e.getMessage() );
+                }
             }
 
+            connectionPool.release( connection );
+            finished = true;
+
             traceResult( debugInfo, "outstandingIterators=" + outstandingIterators.size() );
         }
     }
@@ -498,7 +593,7 @@ class DatabaseAccessorImpl implements DatabaseAccessor
 
     private interface SqlFunction<T>
     {
-        T execute( ) throws DatabaseException;
+        T execute( Connection connection ) throws DatabaseException;
     }
 
     private <T> T execute( final DatabaseUtil.DebugInfo debugInfo, final SqlFunction<T> sqlFunction )
@@ -506,13 +601,13 @@ class DatabaseAccessorImpl implements DatabaseAccessor
     {
         traceBegin( debugInfo );
 
+        final Instant startTime = Instant.now();
+        final Connection connection = connectionPool.borrow();
         try
         {
-            lock.lock();
-
             try
             {
-                final T result = sqlFunction.execute();
+                final T result = sqlFunction.execute( connection );
                 traceResult( debugInfo, result );
                 databaseService.updateStats( DatabaseService.OperationType.WRITE );
                 return result;
@@ -521,18 +616,12 @@ class DatabaseAccessorImpl implements DatabaseAccessor
             {
                 DatabaseUtil.commit( connection );
             }
-
         }
         finally
         {
-            lock.unlock();
+            connectionPool.release( connection );
+            databaseService.recordLatency( debugInfo.getTable(), Duration.between( startTime, Instant.now() ) );
         }
-
-    }
-
-    Connection getConnection( )
-    {
-        return connection;
     }
 
     void close( )
@@ -541,41 +630,45 @@ class DatabaseAccessorImpl implements DatabaseAccessor
 
         try
         {
-            lock.lock();
-            try
-            {
-                if ( !outstandingIterators.isEmpty() )
-                {
-                    LOGGER.warn( () -> "closing outstanding " + outstandingIterators.size() + " iterators" );
-                }
-                for ( final DBIterator iterator : new HashSet<>( outstandingIterators ) )
-                {
-                    iterator.close();
-                }
-            }
-            catch ( final Exception e )
-            {
-                LOGGER.warn( () -> "error while closing connection: " + e.getMessage() );
-            }
-
-            try
+            if ( !outstandingIterators.isEmpty() )
             {
-                connection.close();
+                LOGGER.warn( () -> "closing outstanding " + outstandingIterators.size() + " iterators" );
             }
-            catch ( final SQLException e )
+            for ( final DBIterator iterator : new HashSet<>( outstandingIterators ) )
             {
-                LOGGER.warn( () -> "error while closing connection: " + e.getMessage() );
+                iterator.close();
             }
         }
-        finally
+        catch ( final Exception e )
         {
-            lock.unlock();
+            LOGGER.warn( () -> "error while closing connection: " + e.getMessage() );
         }
 
+        connectionPool.close();
+
         LOGGER.trace( () -> "closed accessor #" + accessorNumber );
     }
 
-    private boolean containsImpl( final DatabaseTable table, final String key )
+    private static String insertSql( final DatabaseTable table )
+    {
+        return "INSERT INTO " + table.name()
+                + "(" + DatabaseService.KEY_COLUMN + ", "
+                + DatabaseService.VALUE_COLUMN + ") VALUES(?,?)";
+    }
+
+    private static String updateSql( final DatabaseTable table )
+    {
+        return "UPDATE " + table.name()
+                + " SET " + DatabaseService.VALUE_COLUMN + "=? WHERE "
+                + DatabaseService.KEY_COLUMN + "=?";
+    }
+
+    private static String deleteSql( final DatabaseTable table )
+    {
+        return "DELETE FROM " + table.name() + " WHERE " + DatabaseService.KEY_COLUMN + "=?";
+    }
+
+    private boolean containsImpl( final Connection connection, final DatabaseTable table, final String key )
             throws SQLException
     {
         final String sqlStatement = "SELECT COUNT(" + DatabaseService.KEY_COLUMN + ") FROM " + table.name()
@@ -598,7 +691,101 @@ class DatabaseAccessorImpl implements DatabaseAccessor
         return false;
     }
 
-    private void executeUpdate( final String sqlStatement, final DatabaseUtil.DebugInfo debugInfo, final String... params )
+    /**
+     * Reads the rows matching the supplied keys using multi-row {@code IN} queries of at most batch size keys each.
+     * When {@code includeValues} is false only the key column is read and the returned map values are null.
+     */
+    private Map<String, String> selectInChunks(
+            final Connection connection,
+            final DatabaseTable table,
+            final Collection<String> keys,
+            final boolean includeValues
+    )
+            throws SQLException
+    {
+        final Map<String, String> results = new LinkedHashMap<>();
+        final List<String> distinctKeys = new ArrayList<>( new LinkedHashSet<>( keys ) );
+        final int batchSize = batchSize();
+        final String columns = includeValues
+                ? DatabaseService.KEY_COLUMN + ", " + DatabaseService.VALUE_COLUMN
+                : DatabaseService.KEY_COLUMN;
+
+        for ( int offset = 0; offset < distinctKeys.size(); offset += batchSize )
+        {
+            final List<String> chunk = distinctKeys.subList( offset, Math.min( distinctKeys.size(), offset + batchSize ) );
+            final String sqlStatement = "SELECT " + columns + " FROM " + table.name()
+                    + " WHERE " + DatabaseService.KEY_COLUMN + " IN (" + String.join( ",", Collections.nCopies( chunk.size(), "?" ) ) + ")";
+
+            try ( PreparedStatement statement = connection.prepareStatement( sqlStatement ) )
+            {
+                for ( int i = 0; i < chunk.size(); i++ )
+                {
+                    statement.setString( i + 1, chunk.get( i ) );
+                }
+
+                try ( ResultSet resultSet = statement.executeQuery() )
+                {
+                    while ( resultSet.next() )
+                    {
+                        final String value = includeValues ? resultSet.getString( DatabaseService.VALUE_COLUMN ) : null;
+                        results.put( resultSet.getString( DatabaseService.KEY_COLUMN ), value );
+                    }
+                }
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Executes the statement once per row using JDBC batching, flushing every batch size rows.
+     */
+    private void executeBatch( final Connection connection, final String sqlStatement, final List<List<String>> rows )
+            throws SQLException
+    {
+        if ( rows.isEmpty() )
+        {
+            return;
+        }
+
+        final int batchSize = batchSize();
+        try ( PreparedStatement statement = connection.prepareStatement( sqlStatement ) )
+        {
+            int pending = 0;
+            for ( final List<String> params : rows )
+            {
+                for ( int i = 0; i < params.size(); i++ )
+                {
+                    statement.setString( i + 1, params.get( i ) );
+                }
+                statement.addBatch();
+                pending++;
+
+                if ( pending >= batchSize )
+                {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+            }
+
+            if ( pending > 0 )
+            {
+                statement.executeBatch();
+            }
+        }
+    }
+
+    private int batchSize( )
+    {
+        return Math.max( 1, dbConfiguration.getBatchSize() );
+    }
+
+    private void executeUpdate(
+            final Connection connection,
+            final String sqlStatement,
+            final DatabaseUtil.DebugInfo debugInfo,
+            final String... params
+    )
             throws DatabaseException
     {
         try ( PreparedStatement statement = connection.prepareStatement( sqlStatement ) )
@@ -611,7 +798,7 @@ class DatabaseAccessorImpl implements DatabaseAccessor
         }
         catch ( final SQLException e )
         {
-            processSqlException( debugInfo, e );
+            processSqlException( connection, debugInfo, e );
         }
     }
 
@@ -626,14 +813,20 @@ class DatabaseAccessorImpl implements DatabaseAccessor
     @Override
     public boolean isConnected()
     {
+        Connection connection = null;
         try
         {
+            connection = connectionPool.borrow();
             return connection.isValid( 5000 );
         }
-        catch ( final SQLException e )
+        catch ( final DatabaseException | SQLException e )
         {
             LOGGER.error( () -> "error while checking database connection: " + e.getMessage() );
         }
+        finally
+        {
+            connectionPool.release( connection );
+        }
 
         return false;
     }
@@ -648,7 +841,7 @@ class DatabaseAccessorImpl implements DatabaseAccessor
         final DatabaseUtil.DebugInfo debugInfo = DatabaseUtil.DebugInfo.create( "clearTable", table, null, null );
         final String sqlText = "DELETE FROM " + table.name();
 
-        execute( debugInfo, ( ) ->
+        execute( debugInfo, connection ->
         {
             try ( PreparedStatement statement = connection.prepareStatement( sqlText ) )
             {
@@ -656,7 +849,7 @@ class DatabaseAccessorImpl implements DatabaseAccessor
             }
             catch ( final SQLException e )
             {
-                processSqlException( debugInfo, e );
+                processSqlException( connection, debugInfo, e );
             }
             return null;
         } );
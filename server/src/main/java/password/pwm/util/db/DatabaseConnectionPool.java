@@ -0,0 +1,191 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.util.db;
+
+import password.pwm.error.PwmError;
+import password.pwm.util.java.StatisticCounterBundle;
+import password.pwm.util.java.TimeDuration;
+import password.pwm.util.logging.PwmLogger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fixed size pool of JDBC connections.  Connections are handed out to one caller at a time and callers wait
+ * up to the configured borrow timeout for a connection to become available before failing.
+ */
+class DatabaseConnectionPool
+{
+    private static final PwmLogger LOGGER = PwmLogger.forClass( DatabaseConnectionPool.class );
+
+    private final List<Connection> allConnections;
+    private final BlockingQueue<Connection> idleConnections;
+    private final TimeDuration borrowTimeout;
+    private final AtomicBoolean closed = new AtomicBoolean( false );
+    private final StatisticCounterBundle<DebugStat> stats = new StatisticCounterBundle<>( DebugStat.class );
+
+    enum DebugStat
+    {
+        borrows,
+        waits,
+        timeouts,
+    }
+
+    DatabaseConnectionPool( final List<Connection> connections, final TimeDuration borrowTimeout )
+    {
+        this.allConnections = Collections.unmodifiableList( new ArrayList<>( connections ) );
+        this.idleConnections = new ArrayBlockingQueue<>( Math.max( 1, connections.size() ), false, connections );
+        this.borrowTimeout = borrowTimeout;
+    }
+
+    Connection borrow( )
+            throws DatabaseException
+    {
+        if ( closed.get() )
+        {
+            throw new DatabaseException( PwmError.ERROR_DB_UNAVAILABLE, "database connection pool is closed" );
+        }
+
+        Connection connection = idleConnections.poll();
+        if ( connection == null )
+        {
+            stats.increment( DebugStat.waits );
+            try
+            {
+                connection = idleConnections.poll( borrowTimeout.asMillis(), TimeUnit.MILLISECONDS );
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new DatabaseException( PwmError.ERROR_DB_UNAVAILABLE, "interrupted while waiting for database connection" );
+            }
+
+            if ( connection == null )
+            {
+                stats.increment( DebugStat.timeouts );
+                throw new DatabaseException( PwmError.ERROR_DB_UNAVAILABLE, "timed out after " + borrowTimeout.asCompactString()
+                        + " waiting for an available database connection (pool size " + allConnections.size() + ")" );
+            }
+        }
+
+        stats.increment( DebugStat.borrows );
+        return connection;
+    }
+
+    void release( final Connection connection )
+    {
+        if ( connection == null )
+        {
+            return;
+        }
+
+        if ( closed.get() )
+        {
+            closeConnection( connection );
+            return;
+        }
+
+        idleConnections.offer( connection );
+    }
+
+    /**
+     * Checks each currently idle connection.  Connections that are in use by a caller are not checked.
+     */
+    boolean isValid( final int timeoutSeconds )
+    {
+        if ( closed.get() || allConnections.isEmpty() )
+        {
+            return false;
+        }
+
+        final int idleCount = idleConnections.size();
+        for ( int i = 0; i < idleCount; i++ )
+        {
+            final Connection connection = idleConnections.poll();
+            if ( connection == null )
+            {
+                break;
+            }
+
+            try
+            {
+                if ( connection.isClosed() || !connection.isValid( timeoutSeconds ) )
+                {
+                    return false;
+                }
+            }
+            catch ( final SQLException e )
+            {
+                LOGGER.debug( () -> "error while checking connection validity: " + e.getMessage() );
+            }
+            finally
+            {
+                release( connection );
+            }
+        }
+
+        return true;
+    }
+
+    Map<String, String> debugInfo( )
+    {
+        final Map<String, String> returnMap = new TreeMap<>( stats.debugStats() );
+        returnMap.put( "size", Integer.toString( allConnections.size() ) );
+        returnMap.put( "idle", Integer.toString( idleConnections.size() ) );
+        return Collections.unmodifiableMap( returnMap );
+    }
+
+    void close( )
+    {
+        if ( closed.getAndSet( true ) )
+        {
+            return;
+        }
+
+        idleConnections.clear();
+        for ( final Connection connection : allConnections )
+        {
+            closeConnection( connection );
+        }
+    }
+
+    private static void closeConnection( final Connection connection )
+    {
+        try
+        {
+            connection.close();
+        }
+        catch ( final SQLException e )
+        {
+            LOGGER.warn( () -> "error while closing connection: " + e.getMessage() );
+        }
+    }
+}
@@ -36,9 +36,9 @@ import password.pwm.svc.PwmService;
 import password.pwm.svc.stats.EpsStatistic;
 import password.pwm.svc.stats.StatisticsManager;
 import password.pwm.util.PwmScheduler;
-import password.pwm.util.java.AtomicLoopIntIncrementer;
 import password.pwm.util.java.JavaHelper;
 import password.pwm.util.java.JsonUtil;
+import password.pwm.util.java.LogLinearHistogram;
 import password.pwm.util.java.TimeDuration;
 import password.pwm.util.logging.PwmLogger;
 
@@ -46,15 +46,17 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.Driver;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 
 
@@ -77,8 +79,8 @@ public class DatabaseService implements PwmService
 
     private STATUS status = STATUS.CLOSED;
 
-    private AtomicLoopIntIncrementer slotIncrementer;
-    private final Map<Integer, DatabaseAccessorImpl> accessors = new ConcurrentHashMap<>();
+    private volatile DatabaseAccessorImpl accessor;
+    private final Map<DatabaseTable, LogLinearHistogram> latencyHistograms = makeLatencyHistograms();
 
     private ExecutorService executorService;
 
@@ -138,7 +140,6 @@ public class DatabaseService implements PwmService
             }
 
             LOGGER.debug( () -> "opening connection to database " + this.dbConfiguration.getConnectionString() );
-            slotIncrementer = AtomicLoopIntIncrementer.builder().ceiling( dbConfiguration.getMaxConnections() ).build();
 
             {
                 // make initial connection and establish schema
@@ -156,16 +157,29 @@ public class DatabaseService implements PwmService
                 connection.close();
             }
 
-            accessors.clear();
             {
                 // set up connection pool
                 final boolean traceLogging = config.readSettingAsBoolean( PwmSetting.DATABASE_DEBUG_TRACE );
-                for ( int i = 0; i < dbConfiguration.getMaxConnections(); i++ )
+                final List<Connection> connections = new ArrayList<>();
+                try
                 {
-                    final Connection connection = openConnection( dbConfiguration );
-                    final DatabaseAccessorImpl accessor = new DatabaseAccessorImpl( this, this.dbConfiguration, connection, traceLogging );
-                    accessors.put( i, accessor );
+                    for ( int i = 0; i < dbConfiguration.getMaxConnections(); i++ )
+                    {
+                        connections.add( openConnection( dbConfiguration ) );
+                    }
+                }
+                catch ( final DatabaseException e )
+                {
+                    for ( final Connection connection : connections )
+                    {
+                        connection.close();
+                    }
+                    throw e;
                 }
+
+                final TimeDuration waitTimeout = TimeDuration.of( dbConfiguration.getConnectionWaitTimeout(), TimeDuration.Unit.MILLISECONDS );
+                final DatabaseConnectionPool connectionPool = new DatabaseConnectionPool( connections, waitTimeout );
+                accessor = new DatabaseAccessorImpl( this, this.dbConfiguration, connectionPool, traceLogging );
             }
 
             LOGGER.debug( () -> "successfully connected to remote database (" + TimeDuration.compactFromCurrent( startTime ) + ")" );
@@ -212,11 +226,12 @@ public class DatabaseService implements PwmService
 
     private void clearCurrentAccessors( )
     {
-        for ( final DatabaseAccessorImpl accessor : accessors.values() )
+        final DatabaseAccessorImpl currentAccessor = accessor;
+        accessor = null;
+        if ( currentAccessor != null )
         {
-            accessor.close();
+            currentAccessor.close();
         }
-        accessors.clear();
     }
 
     @Override
@@ -314,6 +329,24 @@ public class DatabaseService implements PwmService
             debugProperties.put( databaseAboutProperty.name(), entry.getValue() );
         }
 
+        final DatabaseAccessorImpl currentAccessor = accessor;
+        if ( currentAccessor != null )
+        {
+            for ( final Map.Entry<String, String> entry : currentAccessor.connectionPoolDebugInfo().entrySet() )
+            {
+                debugProperties.put( "connectionPool." + entry.getKey(), entry.getValue() );
+            }
+        }
+
+        for ( final Map.Entry<DatabaseTable, LogLinearHistogram> entry : latencyHistograms.entrySet() )
+        {
+            final LogLinearHistogram.Snapshot snapshot = entry.getValue().snapshot();
+            if ( snapshot.getCount() > 0 )
+            {
+                debugProperties.put( "latency." + entry.getKey().name(), latencyDebugString( snapshot ) );
+            }
+        }
+
         if ( status() == STATUS.OPEN )
         {
             return ServiceInfoBean.builder()
@@ -338,7 +371,13 @@ public class DatabaseService implements PwmService
             throw new PwmUnrecoverableException( makeUninitializedError() );
         }
 
-        return accessors.get( slotIncrementer.next() );
+        final DatabaseAccessorImpl currentAccessor = accessor;
+        if ( currentAccessor == null )
+        {
+            throw new PwmUnrecoverableException( makeUninitializedError() );
+        }
+
+        return currentAccessor;
     }
 
     private Connection openConnection( final DBConfiguration dbConfiguration )
@@ -404,6 +443,42 @@ public class DatabaseService implements PwmService
         }
     }
 
+    void recordLatency( final DatabaseTable table, final Duration duration )
+    {
+        if ( table != null )
+        {
+            latencyHistograms.get( table ).update( duration.toNanos() / 1000 );
+        }
+    }
+
+    /**
+     * Formats a snapshot of latencies recorded in microseconds.
+     */
+    static String latencyDebugString( final LogLinearHistogram.Snapshot snapshot )
+    {
+        return "count=" + snapshot.getCount()
+                + ", avg=" + formatMicros( snapshot.getMean() )
+                + ", p50=" + formatMicros( snapshot.getPercentile( 50 ) )
+                + ", p95=" + formatMicros( snapshot.getPercentile( 95 ) )
+                + ", p99=" + formatMicros( snapshot.getPercentile( 99 ) )
+                + ", max=" + formatMicros( snapshot.getMax() );
+    }
+
+    private static String formatMicros( final long micros )
+    {
+        return String.format( Locale.ROOT, "%.2fms", micros / 1000.0 );
+    }
+
+    private static Map<DatabaseTable, LogLinearHistogram> makeLatencyHistograms( )
+    {
+        final Map<DatabaseTable, LogLinearHistogram> histograms = new EnumMap<>( DatabaseTable.class );
+        for ( final DatabaseTable table : DatabaseTable.values() )
+        {
+            histograms.put( table, new LogLinearHistogram() );
+        }
+        return Collections.unmodifiableMap( histograms );
+    }
+
     public Map<DatabaseAboutProperty, String> getConnectionDebugProperties( )
     {
         return Collections.unmodifiableMap( debugInfo );
@@ -443,16 +518,8 @@ public class DatabaseService implements PwmService
         {
             if ( initialized )
             {
-                boolean valid = true;
-                for ( final DatabaseAccessorImpl databaseAccessor : accessors.values() )
-                {
-                    if ( !databaseAccessor.isValid() )
-                    {
-                        valid = false;
-                        break;
-                    }
-                }
-                if ( !valid )
+                final DatabaseAccessorImpl currentAccessor = accessor;
+                if ( currentAccessor == null || !currentAccessor.isValid() )
                 {
                     LOGGER.warn( () -> "database connection lost; will retry connect periodically" );
                     initialized = false;
@@ -0,0 +1,234 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package password.pwm.util.java;
+
+import lombok.Value;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free, fixed-memory histogram of non-negative long values.
+ *
+ * <p>Values below 16 are counted exactly; larger values are grouped into 16 linear sub-buckets per
+ * power of two, giving a relative error of roughly 6%.
+ * Recording is spread over a small number of striped recorders selected by thread, which are allocated
+ * the first time a thread mapped to them records a value.  Reads sum all stripes into a {@link Snapshot}.</p>
+ */
+public class LogLinearHistogram
+{
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+
+    static final int BUCKET_COUNT = SUB_BUCKET_COUNT + ( Long.SIZE - 1 - SUB_BUCKET_BITS ) * SUB_BUCKET_COUNT;
+
+    private static final int SLOT_COUNT = BUCKET_COUNT;
+    private static final int SLOT_SUM = BUCKET_COUNT + 1;
+    private static final int SLOT_MAX = BUCKET_COUNT + 2;
+    private static final int STRIPE_LENGTH = BUCKET_COUNT + 3;
+
+    private static final int MAX_STRIPES = 8;
+    private static final int STRIPE_MASK = stripeCount() - 1;
+
+    private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>( STRIPE_MASK + 1 );
+
+    public LogLinearHistogram()
+    {
+    }
+
+    public static LogLinearHistogram fromSnapshot( final Snapshot snapshot )
+    {
+        final LogLinearHistogram histogram = new LogLinearHistogram();
+        if ( snapshot != null && snapshot.getCount() > 0 && snapshot.getBuckets() != null )
+        {
+            final AtomicLongArray stripe = histogram.stripe( 0 );
+            for ( final Map.Entry<Integer, Long> entry : snapshot.getBuckets().entrySet() )
+            {
+                final int index = entry.getKey();
+                if ( index >= 0 && index < BUCKET_COUNT && entry.getValue() != null )
+                {
+                    stripe.addAndGet( index, entry.getValue() );
+                }
+            }
+            stripe.set( SLOT_COUNT, snapshot.getCount() );
+            stripe.set( SLOT_SUM, snapshot.getSum() );
+            stripe.set( SLOT_MAX, snapshot.getMax() );
+        }
+        return histogram;
+    }
+
+    /**
+     * Approximate a series for which only the count and sum are known, such as averages recorded before
+     * histograms were kept.  All samples are placed in the bucket of the mean.
+     *
+     * @param count number of samples
+     * @param sum sum of all samples
+     * @return a snapshot whose percentiles and max all equal the mean
+     */
+    public static Snapshot approximateFromMean( final long count, final long sum )
+    {
+        if ( count <= 0 )
+        {
+            return new Snapshot( 0, 0, 0, Collections.emptyMap() );
+        }
+        final long mean = Math.max( 0, sum / count );
+        return new Snapshot( count, sum, mean, Collections.singletonMap( bucketIndex( mean ), count ) );
+    }
+
+    public void update( final long value )
+    {
+        final long sample = Math.max( 0, value );
+        final AtomicLongArray stripe = stripe( (int) Thread.currentThread().getId() & STRIPE_MASK );
+        stripe.incrementAndGet( bucketIndex( sample ) );
+        stripe.incrementAndGet( SLOT_COUNT );
+        stripe.addAndGet( SLOT_SUM, sample );
+
+        long currentMax = stripe.get( SLOT_MAX );
+        while ( sample > currentMax && !stripe.compareAndSet( SLOT_MAX, currentMax, sample ) )
+        {
+            currentMax = stripe.get( SLOT_MAX );
+        }
+    }
+
+    public Snapshot snapshot()
+    {
+        final long[] buckets = new long[ BUCKET_COUNT ];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        for ( int i = 0; i < stripes.length(); i++ )
+        {
+            final AtomicLongArray stripe = stripes.get( i );
+            if ( stripe != null )
+            {
+                for ( int j = 0; j < BUCKET_COUNT; j++ )
+                {
+                    buckets[ j ] += stripe.get( j );
+                }
+                count += stripe.get( SLOT_COUNT );
+                sum += stripe.get( SLOT_SUM );
+                max = Math.max( max, stripe.get( SLOT_MAX ) );
+            }
+        }
+
+        final Map<Integer, Long> sparseBuckets = new TreeMap<>();
+        for ( int j = 0; j < BUCKET_COUNT; j++ )
+        {
+            if ( buckets[ j ] > 0 )
+            {
+                sparseBuckets.put( j, buckets[ j ] );
+            }
+        }
+
+        return new Snapshot( count, sum, max, Collections.unmodifiableMap( sparseBuckets ) );
+    }
+
+    private AtomicLongArray stripe( final int index )
+    {
+        final AtomicLongArray existing = stripes.get( index );
+        if ( existing != null )
+        {
+            return existing;
+        }
+        stripes.compareAndSet( index, null, new AtomicLongArray( STRIPE_LENGTH ) );
+        return stripes.get( index );
+    }
+
+    static int bucketIndex( final long value )
+    {
+        if ( value < SUB_BUCKET_COUNT )
+        {
+            return (int) value;
+        }
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros( value );
+        final int subBucket = (int) ( value >>> ( exponent - SUB_BUCKET_BITS ) ) & SUB_BUCKET_MASK;
+        return SUB_BUCKET_COUNT + ( exponent - SUB_BUCKET_BITS ) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long bucketUpperBound( final int index )
+    {
+        if ( index < SUB_BUCKET_COUNT )
+        {
+            return index;
+        }
+        final int exponent = ( index - SUB_BUCKET_COUNT ) / SUB_BUCKET_COUNT + SUB_BUCKET_BITS;
+        final int subBucket = ( index - SUB_BUCKET_COUNT ) % SUB_BUCKET_COUNT;
+        final int shift = exponent - SUB_BUCKET_BITS;
+        final long lowerBound = ( (long) ( SUB_BUCKET_COUNT | subBucket ) ) << shift;
+        return lowerBound + ( ( 1L << shift ) - 1 );
+    }
+
+    private static int stripeCount()
+    {
+        final int processors = Math.min( MAX_STRIPES, Runtime.getRuntime().availableProcessors() );
+        return Integer.highestOneBit( Math.max( 1, processors ) );
+    }
+
+    /**
+     * Point-in-time, serializable copy of a histogram.  Buckets are stored sparsely as index to count.
+     */
+    @Value
+    public static class Snapshot implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private long count;
+        private long sum;
+        private long max;
+        private Map<Integer, Long> buckets;
+
+        public long getMean()
+        {
+            return count == 0 ? 0 : sum / count;
+        }
+
+        /**
+         * Estimate the value at the given percentile.
+         *
+         * @param percentile percentile between 0 and 100
+         * @return the upper bound of the bucket containing the percentile, never more than the recorded max
+         */
+        public long getPercentile( final double percentile )
+        {
+            if ( count == 0 || buckets == null )
+            {
+                return 0;
+            }
+
+            final long rank = Math.max( 1, (long) Math.ceil( count * Math.min( 100, Math.max( 0, percentile ) ) / 100 ) );
+            long seen = 0;
+            for ( final Map.Entry<Integer, Long> entry : new TreeMap<>( buckets ).entrySet() )
+            {
+                seen += entry.getValue();
+                if ( seen >= rank )
+                {
+                    return Math.min( max, bucketUpperBound( entry.getKey() ) );
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -21,8 +21,7 @@
 package password.pwm.util.java;
 
 import java.io.Serializable;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * <p>MovingAverage.java</p>
@@ -45,14 +44,14 @@ import java.util.concurrent.locks.ReentrantLock;
  * algorithm described at <a href="http://en.wikipedia.org/wiki/Moving_average">http://en.wikipedia.org/wiki/Moving_average</a>. The average does not
  * sample itself; it merely computes the new average when updated with
  * a sample by an external mechanism.</p>
+ *
+ * <p>State is held as an immutable value swapped by compare-and-set, so updates never block and reads
+ * never modify the average.</p>
  **/
 public class MovingAverage implements Serializable
 {
-    private long windowMillis;
-    private long lastMillis;
-    private double average;
-
-    private final Lock lock = new ReentrantLock();
+    private final long windowMillis;
+    private final AtomicReference<State> state = new AtomicReference<>( State.EMPTY );
 
     /**
      * Construct a {@link MovingAverage}, providing the time window
@@ -79,43 +78,57 @@ public class MovingAverage implements Serializable
      */
     public void update( final double sample )
     {
-        lock.lock();
-        try
-        {
-            final long now = System.currentTimeMillis();
-
-            if ( lastMillis == 0 )
-            {
-                // first sample
-                average = sample;
-                lastMillis = now;
-                return;
-            }
-            final long deltaTime = now - lastMillis;
-            final double coeff = Math.exp( -1.0 * ( ( double ) deltaTime / windowMillis ) );
-            average = ( 1.0 - coeff ) * sample + coeff * average;
-
-            lastMillis = now;
-        }
-        finally
+        final long now = System.currentTimeMillis();
+        State current;
+        State next;
+        do
         {
-            lock.unlock();
+            current = state.get();
+            next = current.lastMillis == 0
+                    ? new State( sample, now )
+                    : new State( decay( current, now, windowMillis ) + ( 1.0 - coefficient( current, now, windowMillis ) ) * sample, now );
         }
+        while ( !state.compareAndSet( current, next ) );
     }
 
     /**
-     * Returns the last computed average value.
+     * Returns the average, decayed to the current time as if a zero sample had been recorded now.
      *
      * @return current average value
      */
     public double getAverage( )
     {
-        update( 0 );
-        return average;
+        final State current = state.get();
+        return current.lastMillis == 0 ? 0 : decay( current, System.currentTimeMillis(), windowMillis );
     }
 
     public long getLastMillis( )
     {
-        return lastMillis;
+        return state.get().lastMillis;
+    }
+
+    private static double decay( final State current, final long now, final long windowMillis )
+    {
+        return coefficient( current, now, windowMillis ) * current.average;
+    }
+
+    private static double coefficient( final State current, final long now, final long windowMillis )
+    {
+        final long deltaTime = Math.max( 0, now - current.lastMillis );
+        return Math.exp( -1.0 * ( ( double ) deltaTime / windowMillis ) );
+    }
+
+    private static final class State implements Serializable
+    {
+        private static final State EMPTY = new State( 0, 0 );
+
+        private final double average;
+        private final long lastMillis;
+
+        private State( final double average, final long lastMillis )
+        {
+            this.average = average;
+            this.lastMillis = lastMillis;
+        }
     }
 }
@@ -27,16 +27,17 @@ import java.util.Collections;
 import java.util.EnumMap;
 import java.util.Map;
 import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.ObjLongConsumer;
 import java.util.stream.Collectors;
 
 public class StatisticCounterBundle<K extends Enum<K>>
 {
-    private final Class<K> keyType;
+    private final K[] keys;
     private final Map<K, LongAccumulator> statMap;
 
     public StatisticCounterBundle( final Class<K> keyType )
     {
-        this.keyType = keyType;
+        this.keys = keyType.getEnumConstants();
         statMap = new EnumMap<>( keyType );
     }
 
@@ -56,9 +57,22 @@ public class StatisticCounterBundle<K extends Enum<K>>
         return longAdder == null ? 0 : longAdder.longValue();
     }
 
+    /**
+     * Visit every key and its current value in declaration order, without building an intermediate map.
+     *
+     * @param consumer receives each key and value
+     */
+    public void forEach( final ObjLongConsumer<K> consumer )
+    {
+        for ( final K key : keys )
+        {
+            consumer.accept( key, get( key ) );
+        }
+    }
+
     public Map<String, String> debugStats()
     {
-        return Collections.unmodifiableMap( Arrays.stream( keyType.getEnumConstants() )
+        return Collections.unmodifiableMap( Arrays.stream( keys )
                 .collect( Collectors.toMap(
                         Enum::name,
                         stat -> Long.toString( get( stat ) )
@@ -37,9 +37,13 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.Instant;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -53,6 +57,7 @@ public abstract class AbstractJDBCLocalDB implements LocalDBProvider
     private static final String KEY_COLUMN = "id";
     private static final String VALUE_COLUMN = "value";
     private static final int ITERATOR_LIMIT = 100;
+    private static final int GET_ALL_CHUNK_SIZE = 100;
 
     private static final String WIDTH_KEY = String.valueOf( LocalDB.MAX_KEY_LENGTH );
 
@@ -278,6 +283,60 @@ public abstract class AbstractJDBCLocalDB implements LocalDBProvider
         return null;
     }
 
+    @Override
+    public Map<String, String> getAll( final LocalDB.DB db, final Collection<String> keys )
+            throws LocalDBException
+    {
+        preCheck( false );
+        final List<String> keyList = new ArrayList<>( keys );
+        final Map<String, String> foundValues = new HashMap<>();
+
+        try
+        {
+            lock.readLock().lock();
+            for ( int offset = 0; offset < keyList.size(); offset += GET_ALL_CHUNK_SIZE )
+            {
+                final List<String> chunk = keyList.subList( offset, Math.min( keyList.size(), offset + GET_ALL_CHUNK_SIZE ) );
+                final String sqlText = "SELECT * FROM " + db.toString() + " WHERE " + KEY_COLUMN + " IN ("
+                        + String.join( ",", Collections.nCopies( chunk.size(), "?" ) ) + ")";
+
+                try ( PreparedStatement statement = dbConnection.prepareStatement( sqlText ) )
+                {
+                    for ( int i = 0; i < chunk.size(); i++ )
+                    {
+                        statement.setString( i + 1, chunk.get( i ) );
+                    }
+                    try ( ResultSet resultSet = statement.executeQuery() )
+                    {
+                        while ( resultSet.next() )
+                        {
+                            foundValues.put( resultSet.getString( KEY_COLUMN ), resultSet.getString( VALUE_COLUMN ) );
+                        }
+                    }
+                }
+            }
+        }
+        catch ( final SQLException ex )
+        {
+            throw new LocalDBException( new ErrorInformation( PwmError.ERROR_LOCALDB_UNAVAILABLE, ex.getMessage() ) );
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+
+        final Map<String, String> returnMap = new LinkedHashMap<>();
+        for ( final String key : keyList )
+        {
+            final String value = foundValues.get( key );
+            if ( value != null )
+            {
+                returnMap.put( key, value );
+            }
+        }
+        return Collections.unmodifiableMap( returnMap );
+    }
+
     @Override
     public void init( final File dbDirectory, final Map<String, String> initParams, final Map<Parameter, String> parameters )
             throws LocalDBException
@@ -298,6 +357,13 @@ public abstract class AbstractJDBCLocalDB implements LocalDBProvider
     @Override
     public LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator( final LocalDB.DB db )
             throws LocalDBException
+    {
+        return iterator( db, null, null );
+    }
+
+    @Override
+    public LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator( final LocalDB.DB db, final String fromKey, final String toKey )
+            throws LocalDBException
     {
         try
         {
@@ -306,7 +372,7 @@ public abstract class AbstractJDBCLocalDB implements LocalDBProvider
                 throw new LocalDBException( new ErrorInformation( PwmError.ERROR_INTERNAL, "over " + ITERATOR_LIMIT + " iterators are outstanding, maximum limit exceeded" ) );
             }
 
-            final LocalDB.LocalDBIterator iterator = new DbIterator( db );
+            final LocalDB.LocalDBIterator iterator = new DbIterator( db, fromKey, toKey );
             dbIterators.add( iterator );
             LOGGER.trace( () -> this.getClass().getSimpleName() + " issued iterator for " + db.toString() + ", outstanding iterators: " + dbIterators.size() );
             return iterator;
@@ -614,20 +680,51 @@ public abstract class AbstractJDBCLocalDB implements LocalDBProvider
 
         private ResultSet resultSet;
         private final LocalDB.DB db;
+        private final String fromKey;
+        private final String toKey;
 
-        private DbIterator( final LocalDB.DB db ) throws LocalDBException
+        private DbIterator( final LocalDB.DB db, final String fromKey, final String toKey ) throws LocalDBException
         {
             this.db = db;
+            this.fromKey = fromKey;
+            this.toKey = toKey;
             init();
             fetchNext();
         }
 
         private void init( ) throws LocalDBException
         {
-            final String sqlText = "SELECT * FROM " + db.toString();
+            final StringBuilder sqlText = new StringBuilder();
+            sqlText.append( "SELECT * FROM " ).append( db.toString() );
+            if ( fromKey != null || toKey != null )
+            {
+                sqlText.append( " WHERE " );
+                if ( fromKey != null )
+                {
+                    sqlText.append( KEY_COLUMN + " >= ?" );
+                }
+                if ( fromKey != null && toKey != null )
+                {
+                    sqlText.append( " AND " );
+                }
+                if ( toKey != null )
+                {
+                    sqlText.append( KEY_COLUMN + " < ?" );
+                }
+                sqlText.append( " ORDER BY " + KEY_COLUMN );
+            }
 
-            try ( PreparedStatement statement = dbConnection.prepareStatement( sqlText ) )
+            try ( PreparedStatement statement = dbConnection.prepareStatement( sqlText.toString() ) )
             {
+                int parameterIndex = 1;
+                if ( fromKey != null )
+                {
+                    statement.setString( parameterIndex++, fromKey );
+                }
+                if ( toKey != null )
+                {
+                    statement.setString( parameterIndex, toKey );
+                }
                 resultSet = statement.executeQuery();
             }
             catch ( final SQLException ex )
@@ -50,6 +50,28 @@ public interface LocalDB
         NEW, OPEN, CLOSED
     }
 
+    /**
+     * Durability of single-key writes ({@link #put(DB, String, String)} and {@link #remove(DB, String)}) to a {@link DB}.
+     */
+    enum Durability
+    {
+        /**
+         * Each write is committed in its own transaction before the call returns.
+         */
+        SYNC,
+
+        /**
+         * Concurrent writes are coalesced into a shared transaction; the call returns once that transaction commits.
+         */
+        GROUP,
+
+        /**
+         * Writes are coalesced into a shared transaction and the call returns immediately.  Writes made shortly
+         * before an unclean shutdown may be lost.
+         */
+        ASYNC,
+    }
+
     @WriteOperation
     void close( )
             throws LocalDBException;
@@ -65,6 +87,51 @@ public interface LocalDB
     LocalDBIterator<Map.Entry<String, String>> iterator( DB db )
             throws LocalDBException;
 
+    /**
+     * Iterate the keys of a database in ascending order, from {@code fromKey} (inclusive) to {@code toKey} (exclusive).
+     *
+     * @param db      database to iterate
+     * @param fromKey lowest key to return, or null to start at the first key
+     * @param toKey   key to stop before, or null to continue to the last key
+     * @return an iterator that must be closed by the caller
+     * @throws LocalDBException if there is an error reading the store
+     */
+    LocalDBIterator<Map.Entry<String, String>> iterator( DB db, String fromKey, String toKey )
+            throws LocalDBException;
+
+    /**
+     * Iterate the keys of a database that start with {@code prefix}, in ascending order.
+     *
+     * @param db     database to iterate
+     * @param prefix key prefix
+     * @return an iterator that must be closed by the caller
+     * @throws LocalDBException if there is an error reading the store
+     */
+    LocalDBIterator<Map.Entry<String, String>> prefixIterator( DB db, String prefix )
+            throws LocalDBException;
+
+    /**
+     * Read the values of several keys in one operation.
+     *
+     * @param db   database to read
+     * @param keys keys to read
+     * @return map of the keys found to their values; keys that are not present are omitted
+     * @throws LocalDBException if there is an error reading the store
+     */
+    @ReadOperation
+    Map<String, String> getAll( DB db, Collection<String> keys )
+            throws LocalDBException;
+
+    /**
+     * Open a read-only view of the databases.  Where the provider supports it, every iterator opened from the
+     * snapshot reads the same point in time regardless of concurrent writes.
+     *
+     * @return a snapshot that must be closed by the caller
+     * @throws LocalDBException if there is an error reading the store
+     */
+    Snapshot snapshot( )
+            throws LocalDBException;
+
     @WriteOperation
     void putAll( DB db, Map<String, String> keyValueMap )
             throws LocalDBException;
@@ -175,4 +242,22 @@ public interface LocalDB
     interface LocalDBIterator<K> extends ClosableIterator<Map.Entry<String, String>>
     {
     }
+
+    /**
+     * Read-only view of the databases returned by {@link #snapshot()}.  Iterators may be opened and consumed from
+     * different threads, but each individual iterator must only be used by one thread at a time.
+     */
+    interface Snapshot extends AutoCloseable
+    {
+        LocalDBIterator<Map.Entry<String, String>> iterator( DB db )
+                throws LocalDBException;
+
+        /**
+         * @return true if iterators read a single point in time, false if they read live data
+         */
+        boolean isPointInTime( );
+
+        @Override
+        void close( );
+    }
 }
@@ -24,18 +24,23 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import password.pwm.error.ErrorInformation;
 import password.pwm.error.PwmError;
 import password.pwm.util.java.StatisticCounterBundle;
+import password.pwm.util.java.TimeDuration;
 
 import java.io.File;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 public class LocalDBAdaptor implements LocalDB
 {
     private final LocalDBProvider innerDB;
+    private final LocalDBGroupCommitter groupCommitter;
     private final StatisticCounterBundle<DebugKey> stats = new StatisticCounterBundle<>( DebugKey.class );
 
     enum DebugKey
@@ -45,9 +50,20 @@ public class LocalDBAdaptor implements LocalDB
     }
 
     LocalDBAdaptor( final LocalDBProvider innerDB )
+    {
+        this( innerDB, Collections.emptyMap(), TimeDuration.ZERO, 1 );
+    }
+
+    LocalDBAdaptor(
+            final LocalDBProvider innerDB,
+            final Map<DB, Durability> durabilityModes,
+            final TimeDuration groupCommitInterval,
+            final int groupCommitMaxPendingWrites
+    )
     {
         Objects.requireNonNull( innerDB );
         this.innerDB = innerDB;
+        this.groupCommitter = new LocalDBGroupCommitter( innerDB, durabilityModes, groupCommitInterval, groupCommitMaxPendingWrites );
     }
 
     @Override
@@ -60,6 +76,7 @@ public class LocalDBAdaptor implements LocalDB
     @WriteOperation
     public void close( ) throws LocalDBException
     {
+        groupCommitter.close();
         innerDB.close();
     }
 
@@ -69,7 +86,12 @@ public class LocalDBAdaptor implements LocalDB
         ParameterValidator.validateDBValue( db );
         ParameterValidator.validateKeyValue( key );
 
-        final boolean value = innerDB.contains( db, key );
+        final LocalDBGroupCommitter.PendingWrite pendingWrite = groupCommitter.isBuffered( db )
+                ? groupCommitter.lookup( db, key )
+                : null;
+        final boolean value = pendingWrite == null
+                ? innerDB.contains( db, key )
+                : pendingWrite.getValue() != null;
         markRead();
         return value;
     }
@@ -81,7 +103,12 @@ public class LocalDBAdaptor implements LocalDB
         ParameterValidator.validateDBValue( db );
         ParameterValidator.validateKeyValue( key );
 
-        final String value = innerDB.get( db, key );
+        final LocalDBGroupCommitter.PendingWrite pendingWrite = groupCommitter.isBuffered( db )
+                ? groupCommitter.lookup( db, key )
+                : null;
+        final String value = pendingWrite == null
+                ? innerDB.get( db, key )
+                : pendingWrite.getValue();
         markRead();
         return value;
     }
@@ -96,14 +123,90 @@ public class LocalDBAdaptor implements LocalDB
     public LocalDBIterator<Map.Entry<String, String>> iterator( final DB db ) throws LocalDBException
     {
         ParameterValidator.validateDBValue( db );
+        flushIfBuffered( db );
         return innerDB.iterator( db );
     }
 
+    @Override
+    public LocalDBIterator<Map.Entry<String, String>> iterator( final DB db, final String fromKey, final String toKey ) throws LocalDBException
+    {
+        ParameterValidator.validateDBValue( db );
+        flushIfBuffered( db );
+        return innerDB.iterator( db, fromKey, toKey );
+    }
+
+    @Override
+    public LocalDBIterator<Map.Entry<String, String>> prefixIterator( final DB db, final String prefix ) throws LocalDBException
+    {
+        ParameterValidator.validateDBValue( db );
+        ParameterValidator.validateKeyValue( prefix );
+        flushIfBuffered( db );
+        return innerDB.iterator( db, prefix, LocalDBUtility.prefixUpperBound( prefix ) );
+    }
+
+    @Override
+    public Snapshot snapshot( ) throws LocalDBException
+    {
+        groupCommitter.flush();
+        return innerDB.snapshot();
+    }
+
+    @Override
+    public Map<String, String> getAll( final DB db, final Collection<String> keys ) throws LocalDBException
+    {
+        ParameterValidator.validateDBValue( db );
+        for ( final String key : keys )
+        {
+            ParameterValidator.validateKeyValue( key );
+        }
+
+        if ( !groupCommitter.isBuffered( db ) )
+        {
+            final Map<String, String> values = innerDB.getAll( db, keys );
+            markRead();
+            return values;
+        }
+
+        final Map<String, LocalDBGroupCommitter.PendingWrite> bufferedWrites = new HashMap<>();
+        final List<String> unbufferedKeys = new ArrayList<>();
+        for ( final String key : keys )
+        {
+            final LocalDBGroupCommitter.PendingWrite pendingWrite = groupCommitter.lookup( db, key );
+            if ( pendingWrite == null )
+            {
+                unbufferedKeys.add( key );
+            }
+            else
+            {
+                bufferedWrites.put( key, pendingWrite );
+            }
+        }
+
+        final Map<String, String> unbufferedValues = unbufferedKeys.isEmpty()
+                ? Collections.emptyMap()
+                : innerDB.getAll( db, unbufferedKeys );
+
+        // iterate the requested keys so the result keeps their order
+        final Map<String, String> returnMap = new LinkedHashMap<>();
+        for ( final String key : keys )
+        {
+            final LocalDBGroupCommitter.PendingWrite pendingWrite = bufferedWrites.get( key );
+            final String value = pendingWrite == null ? unbufferedValues.get( key ) : pendingWrite.getValue();
+            if ( value != null )
+            {
+                returnMap.put( key, value );
+            }
+        }
+        markRead();
+        return Collections.unmodifiableMap( returnMap );
+    }
+
     @Override
     public Map<String, Serializable> debugInfo( )
     {
         final Map<String, Serializable> debugValues = new LinkedHashMap<>( innerDB.debugInfo() );
         debugValues.putAll( stats.debugStats() );
+        debugValues.putAll( groupCommitter.debugInfo() );
         return Collections.unmodifiableMap( debugValues );
     }
 
@@ -132,7 +235,11 @@ public class LocalDBAdaptor implements LocalDB
             }
         }
 
-        innerDB.putAll( db, keyValueMap );
+        applyAfterBuffered( db, () ->
+        {
+            innerDB.putAll( db, keyValueMap );
+            return null;
+        } );
 
         markWrite( keyValueMap.size() );
     }
@@ -145,7 +252,9 @@ public class LocalDBAdaptor implements LocalDB
         ParameterValidator.validateKeyValue( key );
         ParameterValidator.validateValueValue( value );
 
-        final boolean preExisting = innerDB.put( db, key, value );
+        final boolean preExisting = groupCommitter.isBuffered( db )
+                ? groupCommitter.put( db, key, value )
+                : innerDB.put( db, key, value );
 
         markWrite( 1 );
         return preExisting;
@@ -159,7 +268,7 @@ public class LocalDBAdaptor implements LocalDB
         ParameterValidator.validateKeyValue( key );
         ParameterValidator.validateValueValue( value );
 
-        final boolean success = innerDB.putIfAbsent( db, key, value );
+        final boolean success = applyAfterBuffered( db, () -> innerDB.putIfAbsent( db, key, value ) );
         markWrite( 1 );
         return success;
     }
@@ -171,7 +280,9 @@ public class LocalDBAdaptor implements LocalDB
         ParameterValidator.validateDBValue( db );
         ParameterValidator.validateKeyValue( key );
 
-        final boolean result = innerDB.remove( db, key );
+        final boolean result = groupCommitter.isBuffered( db )
+                ? groupCommitter.remove( db, key )
+                : innerDB.remove( db, key );
         markWrite( 1 );
         return result;
     }
@@ -200,7 +311,11 @@ public class LocalDBAdaptor implements LocalDB
 
         if ( keys.size() > 1 )
         {
-            innerDB.removeAll( db, keys );
+            applyAfterBuffered( db, () ->
+            {
+                innerDB.removeAll( db, keys );
+                return null;
+            } );
         }
         else
         {
@@ -217,6 +332,7 @@ public class LocalDBAdaptor implements LocalDB
     public long size( final DB db ) throws LocalDBException
     {
         ParameterValidator.validateDBValue( db );
+        flushIfBuffered( db );
         return innerDB.size( db );
     }
 
@@ -225,7 +341,11 @@ public class LocalDBAdaptor implements LocalDB
     public void truncate( final DB db ) throws LocalDBException
     {
         ParameterValidator.validateDBValue( db );
-        innerDB.truncate( db );
+        applyAfterBuffered( db, () ->
+        {
+            innerDB.truncate( db );
+            return null;
+        } );
     }
 
     @Override
@@ -277,6 +397,25 @@ public class LocalDBAdaptor implements LocalDB
         }
     }
 
+    private void flushIfBuffered( final DB db ) throws LocalDBException
+    {
+        if ( groupCommitter.isBuffered( db ) )
+        {
+            groupCommitter.flush();
+        }
+    }
+
+    /**
+     * Runs a direct provider write so that it is ordered after every write already buffered for the db, and before
+     * any write buffered concurrently.
+     */
+    private <T> T applyAfterBuffered( final DB db, final LocalDBGroupCommitter.DirectOperation<T> operation ) throws LocalDBException
+    {
+        return groupCommitter.isBuffered( db )
+                ? groupCommitter.flushAndApply( operation )
+                : operation.apply();
+    }
+
     private void markRead()
     {
         stats.increment( DebugKey.readOperations );
@@ -0,0 +1,423 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.util.localdb;
+
+import lombok.Value;
+import password.pwm.util.PwmScheduler;
+import password.pwm.util.java.JavaHelper;
+import password.pwm.util.logging.PwmLogger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Chunked binary LocalDB backup format.
+ *
+ * <p>File layout:</p>
+ * <ul>
+ *     <li>header: magic, version</li>
+ *     <li>chunks, each holding records of a single DB: DB name, record count, compressed length and the
+ *     deflate-compressed records.  Each record is a length-prefixed UTF-8 key followed by a length-prefixed UTF-8
+ *     value.</li>
+ *     <li>end marker: an empty DB name</li>
+ * </ul>
+ *
+ * <p>Export reads and compresses each DB on its own worker thread while the calling thread writes finished chunks,
+ * so chunks of different DBs are interleaved in the file.  Import decompresses and writes chunks of different DBs
+ * in parallel; chunks of the same DB are written in file order.</p>
+ */
+class LocalDBBinaryArchive
+{
+    private static final PwmLogger LOGGER = PwmLogger.forClass( LocalDBBinaryArchive.class );
+
+    private static final int FILE_MAGIC = 0x50574D42;
+    private static final int FILE_VERSION = 1;
+    private static final String END_MARKER = "";
+    private static final int MAX_CHUNK_RECORDS = 10_000;
+    private static final int MAX_CHUNK_BYTES = 8 * 1024 * 1024;
+    private static final int NULL_LENGTH = -1;
+
+    private final int threads;
+
+    LocalDBBinaryArchive( final int threads )
+    {
+        this.threads = Math.max( 1, threads );
+    }
+
+    /**
+     * Checks if the stream begins with the binary archive header.  The stream position is not changed.
+     */
+    static boolean isBinaryArchive( final BufferedInputStream inputStream )
+            throws IOException
+    {
+        inputStream.mark( Integer.BYTES );
+        try
+        {
+            final byte[] header = inputStream.readNBytes( Integer.BYTES );
+            return header.length == Integer.BYTES
+                    && new DataInputStream( new ByteArrayInputStream( header ) ).readInt() == FILE_MAGIC;
+        }
+        finally
+        {
+            inputStream.reset();
+        }
+    }
+
+    /**
+     * Writes the contents of {@code dbs} read from {@code snapshot}.  The output stream is flushed but not closed.
+     *
+     * @param recordListener called on the calling thread with the record count of each chunk written
+     */
+    void export(
+            final LocalDB.Snapshot snapshot,
+            final Collection<LocalDB.DB> dbs,
+            final OutputStream outputStream,
+            final IntConsumer recordListener
+    )
+            throws IOException, LocalDBException
+    {
+        final DataOutputStream dataOutput = new DataOutputStream( outputStream );
+        dataOutput.writeInt( FILE_MAGIC );
+        dataOutput.writeInt( FILE_VERSION );
+
+        final BlockingQueue<ExportItem> exportQueue = new ArrayBlockingQueue<>( threads * 2 );
+        final ExecutorService executorService = makeExecutor( "export" );
+        try
+        {
+            for ( final LocalDB.DB db : dbs )
+            {
+                executorService.execute( () -> exportDB( snapshot, db, exportQueue ) );
+            }
+
+            int remainingDBs = dbs.size();
+            while ( remainingDBs > 0 )
+            {
+                final ExportItem exportItem = exportQueue.take();
+                if ( exportItem.getError() != null )
+                {
+                    rethrow( exportItem.getError() );
+                }
+                else if ( exportItem.getChunk() == null )
+                {
+                    remainingDBs--;
+                }
+                else
+                {
+                    final Chunk chunk = exportItem.getChunk();
+                    dataOutput.writeUTF( chunk.getDb().name() );
+                    dataOutput.writeInt( chunk.getRecordCount() );
+                    dataOutput.writeInt( chunk.getCompressedRecords().length );
+                    dataOutput.write( chunk.getCompressedRecords() );
+                    recordListener.accept( chunk.getRecordCount() );
+                }
+            }
+
+            dataOutput.writeUTF( END_MARKER );
+            dataOutput.flush();
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "interrupted during LocalDB export" );
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads an archive and writes its contents to {@code localDB}.  Records of unknown DBs are skipped.
+     *
+     * @param recordListener called from worker threads with the record count of each chunk written
+     */
+    void importArchive(
+            final InputStream inputStream,
+            final LocalDB localDB,
+            final IntConsumer recordListener
+    )
+            throws IOException, LocalDBException
+    {
+        final DataInputStream dataInput = new DataInputStream( inputStream );
+        if ( dataInput.readInt() != FILE_MAGIC )
+        {
+            throw new IOException( "unrecognized LocalDB archive format" );
+        }
+
+        final int version = dataInput.readInt();
+        if ( version != FILE_VERSION )
+        {
+            throw new IOException( "unsupported LocalDB archive version " + version );
+        }
+
+        final Map<LocalDB.DB, CompletableFuture<Void>> lastChunkWrites = new EnumMap<>( LocalDB.DB.class );
+        final AtomicReference<Exception> firstError = new AtomicReference<>();
+        final Semaphore pendingChunks = new Semaphore( threads * 2 );
+        final ExecutorService executorService = makeExecutor( "import" );
+        try
+        {
+            while ( firstError.get() == null )
+            {
+                final String dbName = dataInput.readUTF();
+                if ( END_MARKER.equals( dbName ) )
+                {
+                    break;
+                }
+
+                final int recordCount = dataInput.readInt();
+                final byte[] compressedRecords = new byte[ dataInput.readInt() ];
+                dataInput.readFully( compressedRecords );
+
+                final LocalDB.DB db = JavaHelper.readEnumFromString( LocalDB.DB.class, null, dbName );
+                if ( db == null )
+                {
+                    LOGGER.debug( () -> "skipping " + recordCount + " archived records for unknown DB '" + dbName + "'" );
+                }
+                else
+                {
+                    final Chunk chunk = new Chunk( db, recordCount, compressedRecords );
+                    pendingChunks.acquire();
+                    final CompletableFuture<Void> previousWrite = lastChunkWrites.getOrDefault( db, CompletableFuture.completedFuture( null ) );
+                    lastChunkWrites.put( db, previousWrite.thenRunAsync( () ->
+                    {
+                        try
+                        {
+                            if ( firstError.get() == null )
+                            {
+                                localDB.putAll( db, readRecords( chunk ) );
+                                recordListener.accept( chunk.getRecordCount() );
+                            }
+                        }
+                        catch ( final Exception e )
+                        {
+                            firstError.compareAndSet( null, e );
+                        }
+                        finally
+                        {
+                            pendingChunks.release();
+                        }
+                    }, executorService ) );
+                }
+            }
+
+            CompletableFuture.allOf( lastChunkWrites.values().toArray( new CompletableFuture[0] ) ).join();
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "interrupted during LocalDB import" );
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+
+        if ( firstError.get() != null )
+        {
+            rethrow( firstError.get() );
+        }
+    }
+
+    private static void exportDB( final LocalDB.Snapshot snapshot, final LocalDB.DB db, final BlockingQueue<ExportItem> exportQueue )
+    {
+        try
+        {
+            try
+            {
+                try ( LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator = snapshot.iterator( db ) )
+                {
+                    ChunkWriter chunkWriter = new ChunkWriter( db );
+                    while ( iterator.hasNext() )
+                    {
+                        final Map.Entry<String, String> entry = iterator.next();
+                        chunkWriter.add( entry.getKey(), entry.getValue() );
+                        if ( chunkWriter.isFull() )
+                        {
+                            exportQueue.put( new ExportItem( chunkWriter.finish(), null ) );
+                            chunkWriter = new ChunkWriter( db );
+                        }
+                    }
+
+                    final Chunk lastChunk = chunkWriter.finish();
+                    if ( lastChunk.getRecordCount() > 0 )
+                    {
+                        exportQueue.put( new ExportItem( lastChunk, null ) );
+                    }
+                }
+                exportQueue.put( new ExportItem( null, null ) );
+            }
+            catch ( final IOException | LocalDBException | RuntimeException e )
+            {
+                exportQueue.put( new ExportItem( null, e ) );
+            }
+        }
+        catch ( final InterruptedException e )
+        {
+            // export has been abandoned by the writing thread
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> readRecords( final Chunk chunk )
+            throws IOException
+    {
+        final Map<String, String> records = new LinkedHashMap<>( chunk.getRecordCount() * 2 );
+        try ( DataInputStream recordInput = new DataInputStream( new InflaterInputStream( new ByteArrayInputStream( chunk.getCompressedRecords() ) ) ) )
+        {
+            for ( int i = 0; i < chunk.getRecordCount(); i++ )
+            {
+                final String key = readString( recordInput );
+                final String value = readString( recordInput );
+                records.put( key, value );
+            }
+        }
+        return records;
+    }
+
+    private static String readString( final DataInputStream dataInput )
+            throws IOException
+    {
+        final int length = dataInput.readInt();
+        if ( length == NULL_LENGTH )
+        {
+            return null;
+        }
+        final byte[] bytes = new byte[ length ];
+        dataInput.readFully( bytes );
+        return new String( bytes, StandardCharsets.UTF_8 );
+    }
+
+    private static void rethrow( final Exception e )
+            throws IOException, LocalDBException
+    {
+        if ( e instanceof IOException )
+        {
+            throw ( IOException ) e;
+        }
+        if ( e instanceof LocalDBException )
+        {
+            throw ( LocalDBException ) e;
+        }
+        throw new IOException( "error processing LocalDB archive: " + e.getMessage(), e );
+    }
+
+    private ExecutorService makeExecutor( final String operation )
+    {
+        final String threadName = PwmScheduler.makeThreadName( ( String ) null, LocalDBBinaryArchive.class ) + "-" + operation + "-";
+        return Executors.newFixedThreadPool( threads, PwmScheduler.makePwmThreadFactory( threadName, true ) );
+    }
+
+    @Value
+    private static class Chunk
+    {
+        private final LocalDB.DB db;
+        private final int recordCount;
+        private final byte[] compressedRecords;
+    }
+
+    /**
+     * Item passed from export workers to the writing thread; a null chunk and error marks a completed DB.
+     */
+    @Value
+    private static class ExportItem
+    {
+        private final Chunk chunk;
+        private final Exception error;
+    }
+
+    private static class ChunkWriter
+    {
+        private final LocalDB.DB db;
+        private final ByteArrayOutputStream compressedRecords = new ByteArrayOutputStream();
+        private final Deflater deflater = new Deflater( Deflater.BEST_SPEED );
+        private final DataOutputStream recordOutput = new DataOutputStream( new DeflaterOutputStream( compressedRecords, deflater ) );
+
+        private int recordCount;
+
+        ChunkWriter( final LocalDB.DB db )
+        {
+            this.db = db;
+        }
+
+        void add( final String key, final String value )
+                throws IOException
+        {
+            writeString( key );
+            writeString( value );
+            recordCount++;
+        }
+
+        boolean isFull()
+        {
+            return recordCount >= MAX_CHUNK_RECORDS || recordOutput.size() >= MAX_CHUNK_BYTES;
+        }
+
+        Chunk finish()
+                throws IOException
+        {
+            try
+            {
+                recordOutput.close();
+            }
+            finally
+            {
+                deflater.end();
+            }
+            return new Chunk( db, recordCount, compressedRecords.toByteArray() );
+        }
+
+        private void writeString( final String value )
+                throws IOException
+        {
+            if ( value == null )
+            {
+                recordOutput.writeInt( NULL_LENGTH );
+                return;
+            }
+            final byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+            recordOutput.writeInt( bytes.length );
+            recordOutput.write( bytes );
+        }
+    }
+}
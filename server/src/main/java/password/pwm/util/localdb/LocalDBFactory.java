@@ -26,6 +26,7 @@ import password.pwm.config.Configuration;
 import password.pwm.error.ErrorInformation;
 import password.pwm.error.PwmError;
 import password.pwm.util.java.FileSystemUtility;
+import password.pwm.util.java.JavaHelper;
 import password.pwm.util.java.StringUtil;
 import password.pwm.util.java.TimeDuration;
 import password.pwm.util.logging.PwmLogger;
@@ -33,8 +34,10 @@ import password.pwm.util.logging.PwmLogger;
 import java.io.File;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -84,7 +87,13 @@ public class LocalDBFactory
             final LocalDBProvider dbProvider = createInstance( className );
             LOGGER.debug( () -> "initializing " + className + " localDBProvider instance" );
 
-            final LocalDB localDB = new LocalDBAdaptor( dbProvider );
+            final LocalDB localDB = readonly
+                    ? new LocalDBAdaptor( dbProvider )
+                    : new LocalDBAdaptor(
+                            dbProvider,
+                            readDurabilityModes( config ),
+                            TimeDuration.of( Long.parseLong( readAppProperty( config, AppProperty.LOCALDB_GROUP_COMMIT_INTERVAL_MS ) ), TimeDuration.Unit.MILLISECONDS ),
+                            Integer.parseInt( readAppProperty( config, AppProperty.LOCALDB_GROUP_COMMIT_MAX_PENDING_WRITES ) ) );
 
             initInstance( dbProvider, dbDirectory, initParameters, className, parameters );
             final TimeDuration openTime = TimeDuration.of( System.currentTimeMillis() - startTime, TimeDuration.Unit.MILLISECONDS );
@@ -183,6 +192,35 @@ public class LocalDBFactory
         LOGGER.trace( () -> "db init completed for " + theClass );
     }
 
+    private static String readAppProperty( final Configuration configuration, final AppProperty appProperty )
+    {
+        return configuration == null
+                ? appProperty.getDefaultValue()
+                : configuration.readAppProperty( appProperty );
+    }
+
+    private static Map<LocalDB.DB, LocalDB.Durability> readDurabilityModes( final Configuration configuration )
+    {
+        final String durabilityStrings = readAppProperty( configuration, AppProperty.LOCALDB_DURABILITY );
+        final Map<String, String> durabilityValues = StringUtil.convertStringListToNameValuePair( Arrays.asList( durabilityStrings.split( ";;;" ) ), "=" );
+
+        final Map<LocalDB.DB, LocalDB.Durability> durabilityModes = new EnumMap<>( LocalDB.DB.class );
+        for ( final Map.Entry<String, String> entry : durabilityValues.entrySet() )
+        {
+            final Optional<LocalDB.DB> db = JavaHelper.readEnumFromString( LocalDB.DB.class, entry.getKey() );
+            final Optional<LocalDB.Durability> durability = JavaHelper.readEnumFromString( LocalDB.Durability.class, entry.getValue() );
+            if ( db.isPresent() && durability.isPresent() )
+            {
+                durabilityModes.put( db.get(), durability.get() );
+            }
+            else
+            {
+                LOGGER.warn( () -> "ignoring invalid localdb durability setting '" + entry.getKey() + "=" + entry.getValue() + "'" );
+            }
+        }
+        return Collections.unmodifiableMap( durabilityModes );
+    }
+
     private static Map<LocalDBProvider.Parameter, String> makeParameterMap( final Configuration configuration, final boolean readOnly )
     {
         final Map<LocalDBProvider.Parameter, String> parameters = new HashMap<>();
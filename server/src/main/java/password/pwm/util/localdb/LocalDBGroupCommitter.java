@@ -0,0 +1,556 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.util.localdb;
+
+import password.pwm.error.ErrorInformation;
+import password.pwm.error.PwmError;
+import password.pwm.util.PwmScheduler;
+import password.pwm.util.java.StatisticCounterBundle;
+import password.pwm.util.java.TimeDuration;
+import password.pwm.util.logging.PwmLogger;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers single-key writes to {@link LocalDB.DB}s configured with {@link LocalDB.Durability#GROUP} or
+ * {@link LocalDB.Durability#ASYNC} and commits them to the {@link LocalDBProvider} as one
+ * {@link LocalDBProvider#putAll(LocalDB.DB, Map)} / {@link LocalDBProvider#removeAll(LocalDB.DB, java.util.Collection)}
+ * pair per database every commit interval.
+ *
+ * <p>Buffered writes are visible to {@link #lookup(LocalDB.DB, String)} until they are committed, so callers
+ * that consult the buffer before the provider always read their own writes.  Operations that read or write
+ * the provider directly must call {@link #flush()} first, and operations that write the provider directly go through
+ * {@link #flushAndApply(DirectOperation)} so that no buffered write can be committed after them.</p>
+ *
+ * <p>If a commit fails, the writes for {@link LocalDB.Durability#ASYNC} databases are returned to the buffer and retried
+ * with the next commit.  The failure is reported to {@link #flush()} and to any writer waiting on that commit.</p>
+ */
+class LocalDBGroupCommitter
+{
+    private static final PwmLogger LOGGER = PwmLogger.forClass( LocalDBGroupCommitter.class );
+    private static final TimeDuration MAX_RETRY_DELAY = TimeDuration.MINUTE;
+
+    private final LocalDBProvider innerDB;
+    private final Map<LocalDB.DB, LocalDB.Durability> durabilityModes;
+    private final TimeDuration commitInterval;
+    private final int maxPendingWrites;
+    private final StatisticCounterBundle<DebugKey> stats = new StatisticCounterBundle<>( DebugKey.class );
+
+    private final ReentrantLock bufferLock = new ReentrantLock();
+    private final Condition workAvailable = bufferLock.newCondition();
+    private final ReentrantLock commitLock = new ReentrantLock();
+
+    private Map<LocalDB.DB, Map<String, PendingWrite>> pending = new EnumMap<>( LocalDB.DB.class );
+    private Map<LocalDB.DB, Map<String, PendingWrite>> committing = Collections.emptyMap();
+    private CompletableFuture<Void> pendingCommit = new CompletableFuture<>();
+    private int pendingCount;
+
+    private volatile boolean running = true;
+    private final Thread commitThread;
+
+    enum DebugKey
+    {
+        groupCommits,
+        groupCommitWrites,
+        groupCommitCoalescedWrites,
+        groupCommitErrors,
+        groupCommitRetainedWrites,
+    }
+
+    LocalDBGroupCommitter(
+            final LocalDBProvider innerDB,
+            final Map<LocalDB.DB, LocalDB.Durability> durabilityModes,
+            final TimeDuration commitInterval,
+            final int maxPendingWrites
+    )
+    {
+        this.innerDB = innerDB;
+        this.durabilityModes = durabilityModes.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap( new EnumMap<>( durabilityModes ) );
+        this.commitInterval = commitInterval;
+        this.maxPendingWrites = Math.max( 1, maxPendingWrites );
+
+        final boolean buffered = this.durabilityModes.values().stream().anyMatch( durability -> durability != LocalDB.Durability.SYNC );
+        if ( buffered )
+        {
+            final String threadName = PwmScheduler.makeThreadName( ( String ) null, LocalDBGroupCommitter.class );
+            commitThread = PwmScheduler.makePwmThreadFactory( threadName + "-", true ).newThread( this::commitLoop );
+            commitThread.start();
+        }
+        else
+        {
+            commitThread = null;
+        }
+    }
+
+    boolean isBuffered( final LocalDB.DB db )
+    {
+        return commitThread != null && durabilityModes.getOrDefault( db, LocalDB.Durability.SYNC ) != LocalDB.Durability.SYNC;
+    }
+
+    /**
+     * Returns the buffered write for the key, or null if there is no uncommitted write for the key.
+     */
+    PendingWrite lookup( final LocalDB.DB db, final String key )
+    {
+        bufferLock.lock();
+        try
+        {
+            return lookupLocked( db, key );
+        }
+        finally
+        {
+            bufferLock.unlock();
+        }
+    }
+
+    boolean put( final LocalDB.DB db, final String key, final String value )
+            throws LocalDBException
+    {
+        return write( db, key, new PendingWrite( value ) );
+    }
+
+    boolean remove( final LocalDB.DB db, final String key )
+            throws LocalDBException
+    {
+        return write( db, key, new PendingWrite( null ) );
+    }
+
+    /**
+     * Commits all buffered writes to the provider before returning.
+     */
+    void flush()
+            throws LocalDBException
+    {
+        commitLock.lock();
+        try
+        {
+            final Map<LocalDB.DB, Map<String, PendingWrite>> batch;
+            final CompletableFuture<Void> batchCompletion;
+
+            bufferLock.lock();
+            try
+            {
+                if ( pendingCount == 0 )
+                {
+                    return;
+                }
+                batch = pending;
+                batchCompletion = pendingCommit;
+                committing = batch;
+                pending = new EnumMap<>( LocalDB.DB.class );
+                pendingCommit = new CompletableFuture<>();
+                pendingCount = 0;
+            }
+            finally
+            {
+                bufferLock.unlock();
+            }
+
+            try
+            {
+                commit( batch );
+                batchCompletion.complete( null );
+            }
+            catch ( final LocalDBException | RuntimeException e )
+            {
+                stats.increment( DebugKey.groupCommitErrors );
+                retainFailedBatch( batch );
+                batchCompletion.completeExceptionally( e );
+                throw e;
+            }
+            finally
+            {
+                bufferLock.lock();
+                try
+                {
+                    committing = Collections.emptyMap();
+                }
+                finally
+                {
+                    bufferLock.unlock();
+                }
+            }
+        }
+        finally
+        {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Commits all buffered writes and then runs the operation against the provider while holding the buffer, so that
+     * a write buffered concurrently is committed after the operation instead of before it.
+     */
+    <T> T flushAndApply( final DirectOperation<T> operation )
+            throws LocalDBException
+    {
+        // same lock order as the commit thread: commitLock, then bufferLock
+        commitLock.lock();
+        try
+        {
+            bufferLock.lock();
+            try
+            {
+                flush();
+                return operation.apply();
+            }
+            finally
+            {
+                bufferLock.unlock();
+            }
+        }
+        finally
+        {
+            commitLock.unlock();
+        }
+    }
+
+    void close()
+            throws LocalDBException
+    {
+        running = false;
+        if ( commitThread != null )
+        {
+            bufferLock.lock();
+            try
+            {
+                workAvailable.signalAll();
+            }
+            finally
+            {
+                bufferLock.unlock();
+            }
+
+            try
+            {
+                commitThread.join();
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    Map<String, Serializable> debugInfo()
+    {
+        final Map<String, Serializable> debugValues = new LinkedHashMap<>( stats.debugStats() );
+        bufferLock.lock();
+        try
+        {
+            debugValues.put( "groupCommitPendingWrites", pendingCount );
+        }
+        finally
+        {
+            bufferLock.unlock();
+        }
+        return Collections.unmodifiableMap( debugValues );
+    }
+
+    private boolean write( final LocalDB.DB db, final String key, final PendingWrite pendingWrite )
+            throws LocalDBException
+    {
+        // resolve the previous state before taking the buffer lock so a provider read never blocks other writers
+        final PendingWrite existingWrite = lookup( db, key );
+        final boolean preExisting = existingWrite == null
+                ? innerDB.contains( db, key )
+                : existingWrite.getValue() != null;
+
+        final CompletableFuture<Void> commitCompletion;
+        final boolean overLimit;
+
+        bufferLock.lock();
+        try
+        {
+            if ( !running )
+            {
+                throw new LocalDBException( new ErrorInformation( PwmError.ERROR_LOCALDB_UNAVAILABLE, "localdb is closing" ) );
+            }
+
+            final PendingWrite replacedWrite = pending.computeIfAbsent( db, k -> new HashMap<>() ).put( key, pendingWrite );
+            if ( replacedWrite == null )
+            {
+                pendingCount++;
+            }
+            else
+            {
+                stats.increment( DebugKey.groupCommitCoalescedWrites );
+            }
+            commitCompletion = pendingCommit;
+            overLimit = pendingCount >= maxPendingWrites;
+            workAvailable.signalAll();
+        }
+        finally
+        {
+            bufferLock.unlock();
+        }
+
+        if ( overLimit || durabilityModes.get( db ) == LocalDB.Durability.GROUP )
+        {
+            awaitCommit( commitCompletion );
+        }
+
+        return preExisting;
+    }
+
+    /**
+     * Returns the writes of a failed commit for {@link LocalDB.Durability#ASYNC} databases to the buffer so they are
+     * retried, unless a newer write for the same key was buffered in the meantime.  Writers to
+     * {@link LocalDB.Durability#GROUP} databases wait for the commit and are told it failed instead.
+     */
+    private void retainFailedBatch( final Map<LocalDB.DB, Map<String, PendingWrite>> batch )
+    {
+        bufferLock.lock();
+        try
+        {
+            for ( final Map.Entry<LocalDB.DB, Map<String, PendingWrite>> dbEntry : batch.entrySet() )
+            {
+                if ( durabilityModes.get( dbEntry.getKey() ) == LocalDB.Durability.ASYNC )
+                {
+                    final Map<String, PendingWrite> pendingWrites = pending.computeIfAbsent( dbEntry.getKey(), k -> new HashMap<>() );
+                    for ( final Map.Entry<String, PendingWrite> entry : dbEntry.getValue().entrySet() )
+                    {
+                        if ( pendingWrites.putIfAbsent( entry.getKey(), entry.getValue() ) == null )
+                        {
+                            pendingCount++;
+                            stats.increment( DebugKey.groupCommitRetainedWrites );
+                        }
+                    }
+                }
+            }
+        }
+        finally
+        {
+            bufferLock.unlock();
+        }
+    }
+
+    private PendingWrite lookupLocked( final LocalDB.DB db, final String key )
+    {
+        final Map<String, PendingWrite> pendingWrites = pending.get( db );
+        if ( pendingWrites != null )
+        {
+            final PendingWrite pendingWrite = pendingWrites.get( key );
+            if ( pendingWrite != null )
+            {
+                return pendingWrite;
+            }
+        }
+
+        final Map<String, PendingWrite> committingWrites = committing.get( db );
+        return committingWrites == null ? null : committingWrites.get( key );
+    }
+
+    private void commit( final Map<LocalDB.DB, Map<String, PendingWrite>> batch )
+            throws LocalDBException
+    {
+        for ( final Map.Entry<LocalDB.DB, Map<String, PendingWrite>> dbEntry : batch.entrySet() )
+        {
+            final LocalDB.DB db = dbEntry.getKey();
+            final Map<String, String> puts = new HashMap<>();
+            final List<String> removes = new ArrayList<>();
+            for ( final Map.Entry<String, PendingWrite> entry : dbEntry.getValue().entrySet() )
+            {
+                final String value = entry.getValue().getValue();
+                if ( value == null )
+                {
+                    removes.add( entry.getKey() );
+                }
+                else
+                {
+                    puts.put( entry.getKey(), value );
+                }
+            }
+
+            if ( !puts.isEmpty() )
+            {
+                innerDB.putAll( db, puts );
+            }
+            if ( !removes.isEmpty() )
+            {
+                innerDB.removeAll( db, removes );
+            }
+
+            stats.increment( DebugKey.groupCommitWrites, dbEntry.getValue().size() );
+        }
+        stats.increment( DebugKey.groupCommits );
+    }
+
+    private void commitLoop()
+    {
+        int failureCount = 0;
+        String lastFailure = null;
+
+        while ( running )
+        {
+            bufferLock.lock();
+            try
+            {
+                while ( running && pendingCount == 0 )
+                {
+                    workAvailable.await();
+                }
+            }
+            catch ( final InterruptedException e )
+            {
+                return;
+            }
+            finally
+            {
+                bufferLock.unlock();
+            }
+
+            // let concurrent writers join the batch before committing it
+            if ( running )
+            {
+                commitInterval.pause();
+            }
+
+            try
+            {
+                flush();
+                if ( failureCount > 0 )
+                {
+                    final int finalFailureCount = failureCount;
+                    LOGGER.info( () -> "buffered localdb writes committed after " + finalFailureCount + " failed attempts" );
+                }
+                failureCount = 0;
+                lastFailure = null;
+            }
+            catch ( final LocalDBException | RuntimeException e )
+            {
+                failureCount++;
+                final TimeDuration retryDelay = retryDelay( failureCount );
+                final String errorMsg = "error committing buffered localdb writes, asynchronous writes will be retried in "
+                        + retryDelay.asCompactString() + ": " + e.getMessage();
+
+                // the stack trace is only useful the first time a given error is seen
+                if ( !String.valueOf( e.getMessage() ).equals( lastFailure ) )
+                {
+                    LOGGER.error( () -> errorMsg, e );
+                }
+                else
+                {
+                    final int finalFailureCount = failureCount;
+                    LOGGER.warn( () -> errorMsg + " (failure " + finalFailureCount + ")" );
+                }
+                lastFailure = String.valueOf( e.getMessage() );
+                pauseWhileRunning( retryDelay );
+            }
+        }
+    }
+
+    /**
+     * Doubles the commit interval for each consecutive failure, up to {@link #MAX_RETRY_DELAY}.
+     */
+    private TimeDuration retryDelay( final int failureCount )
+    {
+        final long maxMs = MAX_RETRY_DELAY.asMillis();
+        long delayMs = Math.max( 1, commitInterval.asMillis() );
+        for ( int i = 1; i < failureCount && delayMs < maxMs; i++ )
+        {
+            delayMs *= 2;
+        }
+        return TimeDuration.of( Math.min( delayMs, maxMs ), TimeDuration.Unit.MILLISECONDS );
+    }
+
+    private void pauseWhileRunning( final TimeDuration timeDuration )
+    {
+        bufferLock.lock();
+        try
+        {
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos( timeDuration.asMillis() );
+            while ( running && remainingNanos > 0 )
+            {
+                remainingNanos = workAvailable.awaitNanos( remainingNanos );
+            }
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            bufferLock.unlock();
+        }
+    }
+
+    private static void awaitCommit( final CompletableFuture<Void> commitCompletion )
+            throws LocalDBException
+    {
+        try
+        {
+            commitCompletion.get();
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new LocalDBException( new ErrorInformation( PwmError.ERROR_INTERNAL, "interrupted waiting for localdb group commit" ) );
+        }
+        catch ( final ExecutionException e )
+        {
+            if ( e.getCause() instanceof LocalDBException )
+            {
+                throw ( LocalDBException ) e.getCause();
+            }
+            throw new LocalDBException( new ErrorInformation( PwmError.ERROR_INTERNAL, "error during localdb group commit: " + e.getCause().getMessage() ) );
+        }
+    }
+
+    interface DirectOperation<T>
+    {
+        T apply() throws LocalDBException;
+    }
+
+    /**
+     * An uncommitted write; a null value marks a removal.
+     */
+    static class PendingWrite
+    {
+        private final String value;
+
+        PendingWrite( final String value )
+        {
+            this.value = value;
+        }
+
+        String getValue()
+        {
+            return value;
+        }
+    }
+}
@@ -23,8 +23,12 @@ package password.pwm.util.localdb;
 import java.io.File;
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 public interface LocalDBProvider
 {
@@ -59,6 +63,112 @@ public interface LocalDBProvider
     LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator( LocalDB.DB db )
             throws LocalDBException;
 
+    /**
+     * Iterate the keys of a database in ascending order, starting at {@code fromKey} (inclusive) and ending
+     * before {@code toKey} (exclusive).  Either bound may be null.  The default implementation scans the entire
+     * database and sorts the matching entries in memory; providers backed by an ordered store should override it.
+     *
+     * @param db      database to iterate
+     * @param fromKey lowest key to return, or null to start at the first key
+     * @param toKey   key to stop before, or null to continue to the last key
+     * @return an iterator that must be closed by the caller
+     * @throws LocalDBException if there is an error reading the store
+     */
+    default LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator( final LocalDB.DB db, final String fromKey, final String toKey )
+            throws LocalDBException
+    {
+        final Map<String, String> matchingEntries = new TreeMap<>();
+        try ( LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator = iterator( db ) )
+        {
+            while ( iterator.hasNext() )
+            {
+                final Map.Entry<String, String> entry = iterator.next();
+                if ( LocalDBUtility.keyInRange( entry.getKey(), fromKey, toKey ) )
+                {
+                    matchingEntries.put( entry.getKey(), entry.getValue() );
+                }
+            }
+        }
+
+        final Iterator<Map.Entry<String, String>> innerIterator = matchingEntries.entrySet().iterator();
+        return new LocalDB.LocalDBIterator<>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return innerIterator.hasNext();
+            }
+
+            @Override
+            public Map.Entry<String, String> next()
+            {
+                return innerIterator.next();
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        };
+    }
+
+    /**
+     * Read the values of several keys.  Keys that are not present are omitted from the returned map.  The default
+     * implementation reads each key individually.
+     *
+     * @param db   database to read
+     * @param keys keys to read
+     * @return map of the keys found to their values, in the iteration order of {@code keys}
+     * @throws LocalDBException if there is an error reading the store
+     */
+    @LocalDB.ReadOperation
+    default Map<String, String> getAll( final LocalDB.DB db, final Collection<String> keys )
+            throws LocalDBException
+    {
+        final Map<String, String> returnMap = new LinkedHashMap<>();
+        for ( final String key : keys )
+        {
+            final String value = get( db, key );
+            if ( value != null )
+            {
+                returnMap.put( key, value );
+            }
+        }
+        return Collections.unmodifiableMap( returnMap );
+    }
+
+    /**
+     * Open a read-only view of the databases.  The default implementation returns iterators over the live data;
+     * providers that can pin a consistent read view should override it.
+     *
+     * @return a snapshot that must be closed by the caller
+     * @throws LocalDBException if there is an error reading the store
+     */
+    default LocalDB.Snapshot snapshot( )
+            throws LocalDBException
+    {
+        return new LocalDB.Snapshot()
+        {
+            @Override
+            public LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator( final LocalDB.DB db )
+                    throws LocalDBException
+            {
+                return LocalDBProvider.this.iterator( db );
+            }
+
+            @Override
+            public boolean isPointInTime( )
+            {
+                return false;
+            }
+
+            @Override
+            public void close( )
+            {
+            }
+        };
+    }
+
     @LocalDB.WriteOperation
     void putAll( LocalDB.DB db, Map<String, String> keyValueMap )
             throws LocalDBException;
@@ -125,6 +125,21 @@ public class LocalDBStoredQueue implements Queue<String>, Deque<String>
         }
     }
 
+    /**
+     * Returns up to {@code count} values from the head of the queue without removing them, skipping the first {@code offset} values.
+     */
+    public List<String> peekFirst( final int offset, final int count )
+    {
+        try
+        {
+            return internalQueue.getFirst( offset, count );
+        }
+        catch ( final LocalDBException e )
+        {
+            throw new IllegalStateException( "unexpected localDB error while reading queue: " + e.getMessage(), e );
+        }
+    }
+
     @Override
     public boolean isEmpty( )
     {
@@ -518,6 +533,90 @@ public class LocalDBStoredQueue implements Queue<String>, Deque<String>
         return internalQueue.localDB;
     }
 
+    /**
+     * Key of the most recently added element, or null if the queue is empty.  Keys remain stable
+     * for the lifetime of an element, so they can be used to seek back to it with {@link #iterator(String, long)}.
+     *
+     * @return key of the head element
+     */
+    public String headKey( )
+    {
+        try
+        {
+            return internalQueue.size() == 0 ? null : internalQueue.headPosition.key();
+        }
+        catch ( final LocalDBException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * Returns the key of the element {@code offset} positions older than the element with {@code key}.
+     *
+     * @param key key of a queue element
+     * @param offset number of positions towards the tail
+     * @return the offset key
+     */
+    public static String offsetKey( final String key, final long offset )
+    {
+        return new Position( key ).previous( offset ).key();
+    }
+
+    /**
+     * Iterate {@code count} elements, starting with the element at {@code startKey} and moving towards
+     * the tail (older elements).  Elements that have since been removed are returned as null.
+     *
+     * @param startKey key of the first element to return
+     * @param count number of elements to return
+     * @return iterator of element values
+     */
+    public Iterator<String> iterator( final String startKey, final long count )
+    {
+        return new RangeIterator( internalQueue, new Position( startKey ), count );
+    }
+
+    private static class RangeIterator implements Iterator<String>
+    {
+        private final InternalQueue internalQueue;
+        private Position position;
+        private long remaining;
+
+        private RangeIterator( final InternalQueue internalQueue, final Position startPosition, final long count )
+        {
+            this.internalQueue = internalQueue;
+            this.position = startPosition;
+            this.remaining = count;
+        }
+
+        @Override
+        public boolean hasNext( )
+        {
+            return remaining > 0;
+        }
+
+        @Override
+        public String next( )
+        {
+            if ( remaining <= 0 )
+            {
+                throw new NoSuchElementException();
+            }
+
+            try
+            {
+                final String value = internalQueue.localDB.get( internalQueue.db, position.key() );
+                position = position.previous();
+                remaining--;
+                return value;
+            }
+            catch ( final LocalDBException e )
+            {
+                throw new IllegalStateException( "unexpected localDB error while iterating queue: " + e.getMessage(), e );
+            }
+        }
+    }
+
     private static class InnerIterator implements Iterator<String>
     {
         private Position position;
@@ -618,6 +717,13 @@ public class LocalDBStoredQueue implements Queue<String>, Deque<String>
             return new Position( previous );
         }
 
+        Position previous( final long count )
+        {
+            final long range = MAXIMUM_POSITION - MINIMUM_POSITION + 1;
+            final long previous = Math.floorMod( bigInt - MINIMUM_POSITION - count, range ) + MINIMUM_POSITION;
+            return new Position( previous );
+        }
+
         public long distanceToHead( final Position head )
         {
             final int compareToValue = Long.compare( head.bigInt, this.bigInt );
@@ -844,20 +950,11 @@ public class LocalDBStoredQueue implements Queue<String>, Deque<String>
             }
 
             final List<String> removalKeys = new ArrayList<>();
-            final List<String> removedValues = new ArrayList<>();
             Position loopPosition = forward ? headPosition : tailPosition;
             int removedPositions = 0;
             while ( removedPositions < removalCount )
             {
                 removalKeys.add( loopPosition.key() );
-                if ( returnValues )
-                {
-                    final String loopValue = localDB.get( db, loopPosition.key() );
-                    if ( loopValue != null )
-                    {
-                        removedValues.add( loopValue );
-                    }
-                }
 
                 if ( forward )
                 {
@@ -870,6 +967,10 @@ public class LocalDBStoredQueue implements Queue<String>, Deque<String>
 
                 removedPositions++;
             }
+
+            final List<String> removedValues = returnValues
+                    ? valuesInKeyOrder( removalKeys )
+                    : Collections.emptyList();
             localDB.removeAll( db, removalKeys );
             localDB.put( db, forward ? KEY_HEAD_POSITION : KEY_TAIL_POSITION, loopPosition.key() );
 
@@ -967,7 +1068,7 @@ public class LocalDBStoredQueue implements Queue<String>, Deque<String>
             try
             {
                 debugOutput( "pre getFirst()" );
-                final List<String> returnList = getImpl( count, true );
+                final List<String> returnList = getImpl( 0, count, true );
                 debugOutput( "post getFirst()" );
                 return returnList;
             }
@@ -977,6 +1078,20 @@ public class LocalDBStoredQueue implements Queue<String>, Deque<String>
             }
         }
 
+        List<String> getFirst( final int offset, final int count )
+                throws LocalDBException
+        {
+            lock.readLock().lock();
+            try
+            {
+                return getImpl( offset, count, true );
+            }
+            finally
+            {
+                lock.readLock().unlock();
+            }
+        }
+
         List<String> getLast( final int count )
                 throws LocalDBException
         {
@@ -984,7 +1099,7 @@ public class LocalDBStoredQueue implements Queue<String>, Deque<String>
             try
             {
                 debugOutput( "pre getLast()" );
-                final List<String> returnList = getImpl( count, false );
+                final List<String> returnList = getImpl( 0, count, false );
                 debugOutput( "post getLast()" );
                 return returnList;
             }
@@ -994,30 +1109,52 @@ public class LocalDBStoredQueue implements Queue<String>, Deque<String>
             }
         }
 
-        private List<String> getImpl( final long count, final boolean forward )
+        private List<String> getImpl( final long offset, final long count, final boolean forward )
                 throws LocalDBException
         {
             long getCount = count;
-            if ( getCount < 1 )
+            if ( getCount < 1 || offset < 0 )
             {
                 return Collections.emptyList();
             }
 
-            if ( getCount > internalSize() )
+            if ( getCount > internalSize() - offset )
+            {
+                getCount = internalSize() - offset;
+            }
+
+            if ( getCount < 1 )
             {
-                getCount = internalSize();
+                return Collections.emptyList();
             }
 
-            final List<String> returnList = new ArrayList<>();
+            final List<String> keys = new ArrayList<>();
 
-            Position nextPosition = forward ? headPosition : tailPosition;
-            while ( returnList.size() < getCount )
+            Position nextPosition = forward ? headPosition.previous( offset ) : tailPosition.previous( -offset );
+            while ( keys.size() < getCount )
             {
-                returnList.add( localDB.get( db, nextPosition.key() ) );
+                keys.add( nextPosition.key() );
                 nextPosition = forward ? nextPosition.previous() : nextPosition.next();
             }
 
-            return Collections.unmodifiableList( returnList );
+            return Collections.unmodifiableList( valuesInKeyOrder( keys ) );
+        }
+
+        private List<String> valuesInKeyOrder( final List<String> keys )
+                throws LocalDBException
+        {
+            final Map<String, String> values = localDB.getAll( db, keys );
+            final List<String> returnList = new ArrayList<>( keys.size() );
+            for ( final String key : keys )
+            {
+                // a position without a stored value is skipped, never returned as a null element
+                final String value = values.get( key );
+                if ( value != null )
+                {
+                    returnList.add( value );
+                }
+            }
+            return returnList;
         }
 
         void debugOutput( final String input )
@@ -39,6 +39,7 @@ import password.pwm.util.java.StringUtil;
 import password.pwm.util.java.TimeDuration;
 import password.pwm.util.logging.PwmLogger;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -49,12 +50,15 @@ import java.io.PrintStream;
 import java.io.Reader;
 import java.math.RoundingMode;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
@@ -92,8 +96,27 @@ public class LocalDBUtility
         return counter;
     }
 
+    public enum ExportFormat
+    {
+        /**
+         * Chunked binary format, exported and imported in parallel.  See {@link LocalDBBinaryArchive}.
+         */
+        BINARY,
+
+        /**
+         * Gzip compressed CSV, readable by older versions.
+         */
+        CSV,
+    }
+
     public void exportLocalDB( final OutputStream outputStream, final Appendable debugOutput )
             throws PwmOperationalException
+    {
+        exportLocalDB( outputStream, debugOutput, ExportFormat.BINARY );
+    }
+
+    public void exportLocalDB( final OutputStream outputStream, final Appendable debugOutput, final ExportFormat exportFormat )
+            throws PwmOperationalException
     {
         Objects.requireNonNull( outputStream );
         final LongAdder exportLineCounter = new LongAdder();
@@ -109,6 +132,62 @@ public class LocalDBUtility
                         outputExportDebugStats( totalLines, exportLineCounter.sum(), eventRateMeter, startTime, debugOutput ),
                 TimeDuration.MINUTE );
 
+        try
+        {
+            if ( exportFormat == ExportFormat.CSV )
+            {
+                exportLocalDBCsv( outputStream, exportLineCounter, eventRateMeter, debugOutputter );
+            }
+            else
+            {
+                exportLocalDBBinary( outputStream, exportLineCounter, eventRateMeter, debugOutputter );
+            }
+        }
+        catch ( final IOException e )
+        {
+            writeStringToOut( debugOutput, "IO error during localDB export: " + e.getMessage() );
+        }
+
+        writeStringToOut( debugOutput, "export complete, exported " + exportLineCounter + " records in " + TimeDuration.fromCurrent( startTime ).asLongString() );
+    }
+
+    private void exportLocalDBBinary(
+            final OutputStream outputStream,
+            final LongAdder exportLineCounter,
+            final EventRateMeter eventRateMeter,
+            final ConditionalTaskExecutor debugOutputter
+    )
+            throws IOException, LocalDBException
+    {
+        final List<LocalDB.DB> backupDBs = Arrays.stream( LocalDB.DB.values() )
+                .filter( LocalDB.DB::isBackup )
+                .collect( Collectors.toList() );
+
+        final LocalDBBinaryArchive archive = new LocalDBBinaryArchive( archiveThreads( backupDBs.size() ) );
+        try ( LocalDB.Snapshot snapshot = localDB.snapshot() )
+        {
+            if ( !snapshot.isPointInTime() )
+            {
+                LOGGER.debug( () -> "LocalDB provider does not support snapshots, export will read live data" );
+            }
+
+            archive.export( snapshot, backupDBs, outputStream, recordCount ->
+            {
+                exportLineCounter.add( recordCount );
+                eventRateMeter.markEvents( recordCount );
+                debugOutputter.conditionallyExecuteTask();
+            } );
+        }
+    }
+
+    private void exportLocalDBCsv(
+            final OutputStream outputStream,
+            final LongAdder exportLineCounter,
+            final EventRateMeter eventRateMeter,
+            final ConditionalTaskExecutor debugOutputter
+    )
+            throws IOException, LocalDBException
+    {
         try ( CSVPrinter csvPrinter = JavaHelper.makeCsvPrinter( new GZIPOutputStream( outputStream, GZIP_BUFFER_SIZE ) ) )
         {
             csvPrinter.printComment( PwmConstants.PWM_APP_NAME + " " + PwmConstants.SERVLET_VERSION + " LocalDB export on " + JavaHelper.toIsoDate( Instant.now() ) );
@@ -135,12 +214,11 @@ public class LocalDBUtility
             }
             csvPrinter.printComment( "export completed at " + JavaHelper.toIsoDate( Instant.now() ) );
         }
-        catch ( final IOException e )
-        {
-            writeStringToOut( debugOutput, "IO error during localDB export: " + e.getMessage() );
-        }
+    }
 
-        writeStringToOut( debugOutput, "export complete, exported " + exportLineCounter + " records in " + TimeDuration.fromCurrent( startTime ).asLongString() );
+    private static int archiveThreads( final int dbCount )
+    {
+        return Math.max( 1, Math.min( dbCount, Runtime.getRuntime().availableProcessors() ) );
     }
 
     public void exportWordlist( final OutputStream outputStream, final Appendable debugOutput )
@@ -262,7 +340,15 @@ public class LocalDBUtility
     {
 
         final ImportLocalDBMachine importLocalDBMachine = new ImportLocalDBMachine( localDB, totalBytes, out );
-        importLocalDBMachine.doImport( inputStream );
+        final BufferedInputStream bufferedInputStream = new BufferedInputStream( inputStream, GZIP_BUFFER_SIZE );
+        if ( LocalDBBinaryArchive.isBinaryArchive( bufferedInputStream ) )
+        {
+            importLocalDBMachine.doBinaryImport( bufferedInputStream );
+        }
+        else
+        {
+            importLocalDBMachine.doImport( bufferedInputStream );
+        }
     }
 
     private static class ImportLocalDBMachine
@@ -270,11 +356,11 @@ public class LocalDBUtility
         private static final long MAX_CHAR_PER_TRANSACTIONS = 50_000_000;
 
         private int lineReaderCounter;
-        private long byteReaderCounter;
-        private int recordImportCounter;
+        private volatile long byteReaderCounter;
         private long transactionCharCounter;
 
         private final Instant startTime = Instant.now();
+        private final LongAdder recordImportCounter = new LongAdder();
         final Map<LocalDB.DB, Map<String, String>> transactionMap = new HashMap<>();
         private final EventRateMeter eventRateMeter = new EventRateMeter( TimeDuration.MINUTE );
         private final AverageTracker charsPerTransactionAverageTracker = new AverageTracker( 50 );
@@ -363,6 +449,37 @@ public class LocalDBUtility
             writeStringToOut( debugOutput, completeMsg );
         }
 
+        void doBinaryImport( final InputStream inputStream )
+                throws IOException, LocalDBException
+        {
+            this.prepareForImport();
+
+            if ( totalBytes > 0 )
+            {
+                writeStringToOut( debugOutput, "total bytes in localdb import source: " + totalBytes );
+            }
+
+            writeStringToOut( debugOutput, "beginning binary localdb import..." );
+
+            final LocalDBBinaryArchive archive = new LocalDBBinaryArchive( archiveThreads( LocalDB.DB.values().length ) );
+            try ( CountingInputStream countingInputStream = new CountingInputStream( inputStream ) )
+            {
+                archive.importArchive( countingInputStream, localDB, recordCount ->
+                {
+                    recordImportCounter.add( recordCount );
+                    eventRateMeter.markEvents( recordCount );
+                    byteReaderCounter = countingInputStream.getByteCount();
+                    debugOutputWriter.conditionallyExecuteTask();
+                } );
+            }
+
+            this.markImportComplete();
+
+            final String completeMsg = "import process completed: " + debugStatsString();
+            LOGGER.info( () -> completeMsg );
+            writeStringToOut( debugOutput, completeMsg );
+        }
+
         private void flushCachedTransactions( )
                 throws LocalDBException
         {
@@ -370,7 +487,7 @@ public class LocalDBUtility
             for ( final LocalDB.DB loopDB : LocalDB.DB.values() )
             {
                 localDB.putAll( loopDB, transactionMap.get( loopDB ) );
-                recordImportCounter += transactionMap.get( loopDB ).size();
+                recordImportCounter.add( transactionMap.get( loopDB ).size() );
                 transactionMap.get( loopDB ).clear();
             }
             transactionCalculator.recordLastTransactionDuration( TimeDuration.fromCurrent( startTxnTime ) );
@@ -414,7 +531,7 @@ public class LocalDBUtility
 
             stats.put( "linesRead", Integer.toString( lineReaderCounter ) );
             stats.put( "bytesRead", Long.toString( byteReaderCounter ) );
-            stats.put( "recordsImported", Integer.toString( recordImportCounter ) );
+            stats.put( "recordsImported", Long.toString( recordImportCounter.sum() ) );
             stats.put( "rowsPerTransaction", Integer.toString( transactionCalculator.getTransactionSize() ) );
             stats.put( "charsPerTransaction", charsPerTransactionAverageTracker.avg().toPlainString() );
             stats.put( "rowsPerMinute", eventRateMeter.readEventRate().setScale( 2, RoundingMode.DOWN ).toString() );
@@ -481,6 +598,32 @@ public class LocalDBUtility
                 localDB.get( LocalDB.DB.PWM_META, AppAttribute.LOCALDB_IMPORT_STATUS.getKey() ) );
     }
 
+    static boolean keyInRange( final String key, final String fromKey, final String toKey )
+    {
+        return ( fromKey == null || key.compareTo( fromKey ) >= 0 )
+                && ( toKey == null || key.compareTo( toKey ) < 0 );
+    }
+
+    /**
+     * Returns the smallest key that is greater than every key starting with {@code prefix}, or null if there is
+     * no such key.
+     */
+    static String prefixUpperBound( final String prefix )
+    {
+        int length = prefix.length();
+        while ( length > 0 && prefix.charAt( length - 1 ) == Character.MAX_VALUE )
+        {
+            length--;
+        }
+
+        if ( length == 0 )
+        {
+            return null;
+        }
+
+        return prefix.substring( 0, length - 1 ) + (char) ( prefix.charAt( length - 1 ) + 1 );
+    }
+
     static boolean hasBooleanParameter( final LocalDBProvider.Parameter parameter, final Map<LocalDBProvider.Parameter, String> parameters )
     {
         return parameters != null && parameters.containsKey( parameter ) && Boolean.parseBoolean( parameters.get( parameter ) );
@@ -41,17 +41,28 @@ import password.pwm.util.logging.PwmLogger;
 import java.io.Serializable;
 import java.math.RoundingMode;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
@@ -59,11 +70,24 @@ import java.util.function.Supplier;
 
 /**
  * A work item queue manager.   Items submitted to the queue will eventually be worked on by the client side @code {@link ItemProcessor}.
+ *
+ * <p>A dispatcher thread removes items from the backing queue in batches and hands them to one of
+ * {@link Settings#getWorkerThreads()} worker lanes.  Items with the same {@link ItemProcessor#orderingKey(Serializable)}
+ * are always assigned to the same lane and are processed in submission order.  An item that must be retried waits
+ * for its own retry interval, holding back only later items with the same ordering key.</p>
+ *
+ * <p>Items are leased rather than removed when they are dispatched: they stay in the backing queue until they have been
+ * processed or abandoned, and the head of the queue is only trimmed once every older leased item is also finished.  An
+ * item waiting for a retry is re-appended to the end of the queue before its original entry is released, so delivery is
+ * at-least-once across a crash or an unclean shutdown; items that completed while an older item was still leased may be
+ * delivered again after a restart.</p>
  */
 public final class WorkQueueProcessor<W extends Serializable>
 {
     private static final TimeDuration SUBMIT_QUEUE_FULL_RETRY_CYCLE_INTERVAL = TimeDuration.of( 100, TimeDuration.Unit.MILLISECONDS );
     private static final TimeDuration CLOSE_RETRY_CYCLE_INTERVAL = TimeDuration.of( 5, TimeDuration.Unit.MILLISECONDS );
+    private static final TimeDuration IDLE_WAIT_INTERVAL = TimeDuration.of( 1, TimeDuration.Unit.SECONDS );
+    private static final TimeDuration LANE_FULL_WAIT_INTERVAL = TimeDuration.of( 10, TimeDuration.Unit.MILLISECONDS );
 
     private final Deque<String> queue;
     private final Settings settings;
@@ -71,7 +95,10 @@ public final class WorkQueueProcessor<W extends Serializable>
 
     private final PwmLogger logger;
 
-    private volatile WorkerThread workerThread;
+    private volatile DispatchThread dispatchThread;
+    private final List<LaneThread> laneThreads;
+
+    private final QueueLease queueLease = new QueueLease();
 
     private final AtomicLoopIntIncrementer idGenerator = new AtomicLoopIntIncrementer();
     private final Lock submitLock = new ReentrantLock();
@@ -90,6 +117,8 @@ public final class WorkQueueProcessor<W extends Serializable>
         preQueueBypass,
         preQueueFallback,
         queueProcessItems,
+        queueRetryItems,
+        queueDequeueBatches,
     }
 
     public enum ProcessResult
@@ -117,16 +146,28 @@ public final class WorkQueueProcessor<W extends Serializable>
         {
             logger.debug( () -> "opening with " + queue.size() + " items in work queue" );
         }
-        logger.trace( () -> "initializing worker thread with settings " + JsonUtil.serialize( settings ) );
+        logger.trace( () -> "initializing worker threads with settings " + JsonUtil.serialize( settings ) );
+
+        final String threadName = PwmScheduler.makeThreadName( pwmApplication, sourceClass );
+        final List<LaneThread> lanes = new ArrayList<>();
+        for ( int i = 0; i < Math.max( 1, settings.getWorkerThreads() ); i++ )
+        {
+            final LaneThread laneThread = new LaneThread();
+            laneThread.setDaemon( true );
+            laneThread.setName( threadName + "-worker-" + i );
+            lanes.add( laneThread );
+        }
+        this.laneThreads = Collections.unmodifiableList( lanes );
+        laneThreads.forEach( Thread::start );
 
-        this.workerThread = new WorkerThread();
-        workerThread.setDaemon( true );
-        workerThread.setName( PwmScheduler.makeThreadName( pwmApplication, sourceClass ) + "-worker-" );
-        workerThread.start();
+        this.dispatchThread = new DispatchThread();
+        dispatchThread.setDaemon( true );
+        dispatchThread.setName( threadName + "-dispatcher" );
+        dispatchThread.start();
 
         if ( settings.getPreThreads() > 0 )
         {
-            final ThreadFactory threadFactory = PwmScheduler.makePwmThreadFactory( PwmScheduler.makeThreadName( pwmApplication, sourceClass ), true );
+            final ThreadFactory threadFactory = PwmScheduler.makePwmThreadFactory( threadName, true );
             executorService = new ThreadPoolExecutor(
                     1,
                     settings.getPreThreads(),
@@ -142,7 +183,7 @@ public final class WorkQueueProcessor<W extends Serializable>
 
     public void close( )
     {
-        if ( workerThread == null )
+        if ( dispatchThread == null )
         {
             return;
         }
@@ -152,22 +193,29 @@ public final class WorkQueueProcessor<W extends Serializable>
             executorService.shutdown();
         }
 
-        final WorkerThread localWorkerThread = workerThread;
-        workerThread = null;
+        final DispatchThread localDispatchThread = dispatchThread;
+        dispatchThread = null;
 
         final Instant startTime = Instant.now();
         logger.debug( () -> "attempting to flush queue prior to shutdown, items in queue=" + queueSize() );
 
-        localWorkerThread.flushQueueAndClose();
+        localDispatchThread.flushAndClose();
 
-        if ( localWorkerThread.isRunning() )
+        laneThreads.forEach( LaneThread::beginShutdown );
+        settings.getMaxShutdownWaitTime().pause( CLOSE_RETRY_CYCLE_INTERVAL, ( ) -> laneThreads.stream().noneMatch( LaneThread::isRunning ) );
+        if ( laneThreads.stream().anyMatch( LaneThread::isRunning ) )
         {
-            settings.getMaxShutdownWaitTime().pause( CLOSE_RETRY_CYCLE_INTERVAL, () -> !localWorkerThread.isRunning() );
+            laneThreads.forEach( LaneThread::stopNow );
+            IDLE_WAIT_INTERVAL.pause( CLOSE_RETRY_CYCLE_INTERVAL, ( ) -> laneThreads.stream().noneMatch( LaneThread::isRunning ) );
         }
 
+        // unfinished items are still in the backing queue; stop any lane that is still running from touching it after close
+        queueLease.close();
+
         final TimeDuration timeDuration = TimeDuration.fromCurrent( startTime );
-        final String msg = "shutting down with " + queue.size() + " items remaining in work queue (" + timeDuration.asCompactString() + ")";
-        if ( !queue.isEmpty() )
+        final int remainingItems = queueSize();
+        final String msg = "shutting down with " + remainingItems + " items remaining in work queue (" + timeDuration.asCompactString() + ")";
+        if ( remainingItems > 0 )
         {
             logger.warn( () -> msg );
         }
@@ -245,7 +293,8 @@ public final class WorkQueueProcessor<W extends Serializable>
     private void submitToQueue( final ItemWrapper<W> itemWrapper )
             throws PwmOperationalException
     {
-        if ( workerThread == null )
+        final DispatchThread localDispatchThread = dispatchThread;
+        if ( localDispatchThread == null )
         {
             final String errorMsg = this.getClass().getName() + " has been closed, unable to submit new item";
             throw new PwmOperationalException( new ErrorInformation( PwmError.ERROR_INTERNAL, errorMsg ) );
@@ -274,7 +323,7 @@ public final class WorkQueueProcessor<W extends Serializable>
         }
 
         eldestItem = itemWrapper.getDate();
-        workerThread.notifyWorkPending();
+        localDispatchThread.notifyWorkPending();
 
         if ( attempts > 1 )
         {
@@ -289,9 +338,12 @@ public final class WorkQueueProcessor<W extends Serializable>
         }
     }
 
+    /**
+     * Number of items in the backing queue that have not yet been completed, including items currently leased to a worker lane.
+     */
     public int queueSize( )
     {
-        return queue.size();
+        return Math.max( 0, queue.size() - queueLease.completedCount() );
     }
 
     public Instant eldestItem( )
@@ -299,6 +351,16 @@ public final class WorkQueueProcessor<W extends Serializable>
         return eldestItem;
     }
 
+    public StatisticCounterBundle<WorkQueueStat> getWorkQueueStats( )
+    {
+        return workQueueStats;
+    }
+
+    private int inFlightItems( )
+    {
+        return laneThreads.stream().mapToInt( LaneThread::load ).sum();
+    }
+
     private String makeDebugText( final ItemWrapper<W> itemWrapper )
     {
         final int itemsInQueue = WorkQueueProcessor.this.queueSize();
@@ -321,57 +383,245 @@ public final class WorkQueueProcessor<W extends Serializable>
         return traceMsg;
     }
 
-    private class WorkerThread extends Thread
+    private void notifyDispatcher( )
     {
+        final DispatchThread localDispatchThread = dispatchThread;
+        if ( localDispatchThread != null )
+        {
+            localDispatchThread.notifyWorkPending();
+        }
+    }
 
-        private final AtomicBoolean running = new AtomicBoolean( false );
-        private final AtomicBoolean shutdownFlag = new AtomicBoolean( false );
-        private final AtomicBoolean notifyWorkFlag = new AtomicBoolean( true );
-
-        private Instant retryWakeupTime;
-
-        @Override
-        public void run( )
+    /**
+     * Tracks the items at the head of the backing queue that have been handed to a worker lane.  Each leased item is
+     * identified by a slot number; slot {@code headSlot} is always the item at the head of the backing queue.  Completed
+     * items are only removed from the backing queue once all older slots are complete, so an unfinished item is never
+     * removed.
+     */
+    private class QueueLease
+    {
+        private final Lock lock = new ReentrantLock();
+        private final Set<Long> completedSlots = new HashSet<>();
+        private long headSlot;
+        private long nextSlot;
+        private boolean closed;
+
+        /**
+         * Reads up to {@code count} items following the items already leased, without removing them from the backing queue.
+         *
+         * @return the values read; the first value has slot {@link #nextSlot()} prior to the call.
+         */
+        List<String> leaseNext( final int count )
         {
-            running.set( true );
+            lock.lock();
             try
             {
-                while ( !shutdownFlag.get() )
+                if ( closed )
                 {
-                    processNextItem();
-                    waitForWork();
+                    return Collections.emptyList();
                 }
+
+                final List<String> values = peekQueue( ( int ) ( nextSlot - headSlot ), count );
+                nextSlot += values.size();
+                return values;
             }
-            catch ( final Throwable t )
+            finally
             {
-                logger.error( () -> "unexpected error processing work item queue: " + JavaHelper.readHostileExceptionMessage( t ), t );
+                lock.unlock();
+            }
+        }
+
+        long nextSlot( )
+        {
+            lock.lock();
+            try
+            {
+                return nextSlot;
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        int leasedCount( )
+        {
+            lock.lock();
+            try
+            {
+                return ( int ) ( nextSlot - headSlot );
+            }
+            finally
+            {
+                lock.unlock();
             }
+        }
 
-            logger.trace( () -> "worker thread beginning shutdown..." );
+        int completedCount( )
+        {
+            lock.lock();
+            try
+            {
+                return completedSlots.size();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
 
-            if ( !queue.isEmpty() )
+        /**
+         * Marks the leased item as finished.  It is removed from the backing queue once every older leased item is also finished.
+         */
+        void complete( final long slot )
+        {
+            lock.lock();
+            try
             {
-                logger.trace( () -> "processing remaining " + queue.size() + " items" );
+                if ( closed )
+                {
+                    return;
+                }
 
-                try
+                completedSlots.add( slot );
+                int removeCount = 0;
+                while ( completedSlots.contains( headSlot + removeCount ) )
+                {
+                    removeCount++;
+                }
+
+                if ( removeCount > 0 )
                 {
-                    final Instant shutdownStartTime = Instant.now();
-                    while ( retryWakeupTime == null && !queue.isEmpty() && TimeDuration.fromCurrent( shutdownStartTime ).isLongerThan( settings.getMaxShutdownWaitTime() ) )
+                    removeQueueHead( removeCount );
+                    for ( int i = 0; i < removeCount; i++ )
                     {
-                        processNextItem();
+                        completedSlots.remove( headSlot + i );
                     }
+                    headSlot += removeCount;
+                }
+            }
+            catch ( final Exception e )
+            {
+                logger.error( () -> "unable to remove completed items from work queue: " + e.getMessage() );
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Appends a new copy of the leased item to the end of the backing queue, then releases the original entry.
+         *
+         * @return false if the item could not be appended, in which case the original entry remains leased.
+         */
+        boolean requeue( final long slot, final String value )
+        {
+            lock.lock();
+            try
+            {
+                if ( closed )
+                {
+                    return false;
                 }
-                catch ( final Throwable t )
+
+                if ( !queue.offerLast( value ) )
                 {
-                    logger.error( () -> "unexpected error processing work item queue: " + JavaHelper.readHostileExceptionMessage( t ), t );
+                    return false;
                 }
             }
+            catch ( final Exception e )
+            {
+                logger.error( () -> "unable to return item to end of work queue: " + e.getMessage() );
+                return false;
+            }
+            finally
+            {
+                lock.unlock();
+            }
+
+            complete( slot );
+            return true;
+        }
 
-            logger.trace( () -> "thread exiting..." );
+        void close( )
+        {
+            lock.lock();
+            try
+            {
+                closed = true;
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        private List<String> peekQueue( final int offset, final int count )
+        {
+            if ( queue instanceof LocalDBStoredQueue )
+            {
+                return ( ( LocalDBStoredQueue ) queue ).peekFirst( offset, count );
+            }
+
+            final List<String> values = new ArrayList<>( count );
+            final Iterator<String> iterator = queue.iterator();
+            for ( int i = 0; i < offset + count && iterator.hasNext(); i++ )
+            {
+                final String value = iterator.next();
+                if ( i >= offset )
+                {
+                    values.add( value );
+                }
+            }
+            return values;
+        }
+
+        private void removeQueueHead( final int count )
+        {
+            if ( queue instanceof LocalDBStoredQueue )
+            {
+                ( ( LocalDBStoredQueue ) queue ).removeFirst( count );
+                return;
+            }
+
+            for ( int i = 0; i < count; i++ )
+            {
+                queue.pollFirst();
+            }
+        }
+    }
+
+    private class DispatchThread extends Thread
+    {
+        private final AtomicBoolean running = new AtomicBoolean( false );
+        private final AtomicBoolean shutdownFlag = new AtomicBoolean( false );
+        private final AtomicBoolean notifyWorkFlag = new AtomicBoolean( true );
+
+        @Override
+        public void run( )
+        {
+            running.set( true );
+            try
+            {
+                while ( !shutdownFlag.get() )
+                {
+                    if ( !dispatchBatch() )
+                    {
+                        waitForWork();
+                    }
+                }
+            }
+            catch ( final Throwable t )
+            {
+                logger.error( () -> "unexpected error dispatching work item queue: " + JavaHelper.readHostileExceptionMessage( t ), t );
+            }
+
+            logger.trace( () -> "dispatcher thread exiting..." );
             running.set( false );
         }
 
-        void flushQueueAndClose( )
+        void flushAndClose( )
         {
             shutdownFlag.set( true );
             logger.trace( () -> "shutdown flag set" );
@@ -380,10 +630,8 @@ public final class WorkQueueProcessor<W extends Serializable>
             // rest until not running for up to 10 seconds....
             if ( running.get() )
             {
-                logger.trace( () -> "running = " + running.get() );
-                final TimeDuration maxWaitTime = TimeDuration.of( 10, TimeDuration.Unit.SECONDS );
                 final Instant startTime = Instant.now();
-                maxWaitTime.of( 10, TimeDuration.Unit.SECONDS ).pause( CLOSE_RETRY_CYCLE_INTERVAL, () -> !running.get() );
+                TimeDuration.of( 10, TimeDuration.Unit.SECONDS ).pause( CLOSE_RETRY_CYCLE_INTERVAL, () -> !running.get() );
                 final TimeDuration waitTime = TimeDuration.fromCurrent( startTime );
                 logger.trace( () -> "waited " + waitTime.asCompactString() + " workQueueSize=" + queue.size() + " running=" + running.get() );
             }
@@ -397,125 +645,448 @@ public final class WorkQueueProcessor<W extends Serializable>
 
         private void waitForWork( )
         {
-            if ( !shutdownFlag.get() )
+            if ( !shutdownFlag.get() && !notifyWorkFlag.getAndSet( false ) )
+            {
+                LockSupport.parkNanos( this, TimeUnit.MILLISECONDS.toNanos( IDLE_WAIT_INTERVAL.asMillis() ) );
+            }
+        }
+
+        /**
+         * Leases up to one batch of items from the backing queue to the worker lanes.
+         *
+         * @return true if any items were dispatched.
+         */
+        private boolean dispatchBatch( )
+        {
+            final int heldItems = laneThreads.stream().mapToInt( LaneThread::heldItems ).sum();
+            final int capacity = laneThreads.stream().mapToInt( LaneThread::freeCapacity ).sum();
+            if ( capacity <= 0 || heldItems >= settings.getMaxRetryItems() || queueLease.leasedCount() >= maxLeasedItems() )
+            {
+                return false;
+            }
+
+            final long firstSlot = queueLease.nextSlot();
+            final List<String> values = queueLease.leaseNext( Math.min( capacity, Math.max( 1, settings.getDequeueBatchSize() ) ) );
+            if ( values.isEmpty() )
             {
-                if ( retryWakeupTime != null )
+                if ( inFlightItems() == 0 )
+                {
+                    eldestItem = null;
+                }
+                return false;
+            }
+
+            workQueueStats.increment( WorkQueueStat.queueDequeueBatches );
+
+            for ( int i = 0; i < values.size(); i++ )
+            {
+                final long slot = firstSlot + i;
+                final ItemWrapper<W> itemWrapper = parseItem( values.get( i ) );
+                if ( itemWrapper == null )
+                {
+                    queueLease.complete( slot );
+                }
+                else
                 {
-                    while ( retryWakeupTime.isAfter( Instant.now() ) && !shutdownFlag.get() )
+                    itemWrapper.setLeaseSlot( slot );
+
+                    // if shutdown begins first the item is left in the backing queue for the next start
+                    if ( !assignToLane( itemWrapper ) )
                     {
-                        LockSupport.parkUntil( this, retryWakeupTime.toEpochMilli() );
+                        return false;
                     }
-                    retryWakeupTime = null;
                 }
-                else
+            }
+
+            return true;
+        }
+
+        /**
+         * Completed items behind an unfinished one stay in the backing queue until it finishes, so the lease window is
+         * bounded to keep them from accumulating while an item waits for its retry time.
+         */
+        private int maxLeasedItems( )
+        {
+            return settings.getMaxRetryItems() + laneThreads.size() * Math.max( 1, settings.getDequeueBatchSize() );
+        }
+
+        private ItemWrapper<W> parseItem( final String value )
+        {
+            try
+            {
+                final ItemWrapper<W> itemWrapper = JsonUtil.<ItemWrapper<W>>deserialize( value, ItemWrapper.class );
+                itemWrapper.setOrderingKey( itemProcessor.orderingKey( itemWrapper.getWorkItem() ) );
+                return itemWrapper;
+            }
+            catch ( final Throwable e )
+            {
+                logger.warn( () -> "discarding stored record due to parsing error: " + e.getMessage() + ", record=" + value );
+                return null;
+            }
+        }
+
+        /**
+         * Hands the item to a lane, waiting for capacity if necessary.  Items with an ordering key always go to the
+         * same lane, other items go to the least loaded lane.
+         *
+         * @return false if shutdown began before the item could be assigned.
+         */
+        private boolean assignToLane( final ItemWrapper<W> itemWrapper )
+        {
+            while ( !shutdownFlag.get() )
+            {
+                final LaneThread laneThread = itemWrapper.getOrderingKey() == null
+                        ? laneThreads.stream().max( Comparator.comparingInt( LaneThread::freeCapacity ) ).orElseThrow( IllegalStateException::new )
+                        : laneThreads.get( Math.floorMod( itemWrapper.getOrderingKey().hashCode(), laneThreads.size() ) );
+
+                if ( laneThread.offer( itemWrapper ) )
                 {
-                    if ( queue.isEmpty() && !notifyWorkFlag.get() )
+                    return true;
+                }
+
+                LockSupport.parkNanos( this, TimeUnit.MILLISECONDS.toNanos( LANE_FULL_WAIT_INTERVAL.asMillis() ) );
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Worker lane.  All fields other than the pending queue and counters are confined to the lane thread.
+     *
+     * <p>An item that must be retried is moved to the end of the backing queue along with any items held behind it with
+     * the same ordering key, and later items with that key are moved behind it as they arrive until it comes back around.
+     * Items that come back before their retry time, or that arrive behind such an item, are held by the lane in submission
+     * order without counting against its capacity; the dispatcher instead stops leasing once
+     * {@link Settings#getMaxRetryItems()} items are held across all lanes.</p>
+     */
+    private class LaneThread extends Thread
+    {
+        private final Queue<ItemWrapper<W>> pendingItems = new ConcurrentLinkedQueue<>();
+        private final Map<Object, NavigableSet<ItemWrapper<W>>> retryQueues = new LinkedHashMap<>();
+        private final Map<Object, NavigableSet<ItemWrapper<W>>> requeuedItems = new HashMap<>();
+        private final AtomicInteger load = new AtomicInteger();
+        private final AtomicInteger heldItems = new AtomicInteger();
+
+        private final AtomicBoolean running = new AtomicBoolean( false );
+        private final AtomicBoolean shutdownFlag = new AtomicBoolean( false );
+        private final AtomicBoolean stopFlag = new AtomicBoolean( false );
+        private final AtomicBoolean notifyWorkFlag = new AtomicBoolean( false );
+
+        @Override
+        public void run( )
+        {
+            running.set( true );
+            try
+            {
+                while ( !stopFlag.get() )
+                {
+                    final ItemWrapper<W> itemWrapper = nextReadyItem();
+                    if ( itemWrapper != null )
+                    {
+                        processItem( itemWrapper );
+                    }
+                    else if ( shutdownFlag.get() )
                     {
-                        eldestItem = null;
-                        LockSupport.park( this );
+                        break;
                     }
                 }
             }
+            catch ( final Throwable t )
+            {
+                logger.error( () -> "unexpected error processing work item queue: " + JavaHelper.readHostileExceptionMessage( t ), t );
+            }
+
+            releaseRemainingItems();
+            logger.trace( () -> "worker thread exiting..." );
+            running.set( false );
+        }
+
+        int load( )
+        {
+            return load.get();
+        }
 
-            notifyWorkFlag.set( false );
+        int heldItems( )
+        {
+            return heldItems.get();
+        }
+
+        int freeCapacity( )
+        {
+            return Math.max( 0, laneCapacity() - ( load.get() - heldItems.get() ) );
         }
 
-        public boolean isRunning( )
+        boolean offer( final ItemWrapper<W> itemWrapper )
+        {
+            // only the dispatcher thread adds load, and the lane only ever reduces it, so checking before incrementing is safe
+            if ( freeCapacity() <= 0 )
+            {
+                return false;
+            }
+            load.incrementAndGet();
+            pendingItems.add( itemWrapper );
+            notifyWorkPending();
+            return true;
+        }
+
+        void beginShutdown( )
+        {
+            shutdownFlag.set( true );
+            notifyWorkPending();
+        }
+
+        private void notifyWorkPending( )
+        {
+            notifyWorkFlag.set( true );
+            LockSupport.unpark( this );
+        }
+
+        void stopNow( )
+        {
+            stopFlag.set( true );
+        }
+
+        boolean isRunning( )
         {
             return running.get();
         }
 
-        void processNextItem( )
+        private int laneCapacity( )
         {
-            final Instant processStartTime = Instant.now();
-            final String nextStrValue = queue.peekFirst();
-            if ( nextStrValue == null )
+            return Math.max( 1, settings.getDequeueBatchSize() );
+        }
+
+        private ItemWrapper<W> nextReadyItem( )
+        {
+            final Instant now = Instant.now();
+            Instant nextRetryTime = null;
+            for ( final NavigableSet<ItemWrapper<W>> retryQueue : retryQueues.values() )
             {
-                return;
+                final ItemWrapper<W> head = retryQueue.first();
+                if ( !head.isRetryPending( now ) )
+                {
+                    return head;
+                }
+                if ( nextRetryTime == null || head.getRetryTime().isBefore( nextRetryTime ) )
+                {
+                    nextRetryTime = head.getRetryTime();
+                }
             }
 
-            final ItemWrapper<W> itemWrapper;
-            try
+            while ( true )
             {
-                itemWrapper = JsonUtil.<ItemWrapper<W>>deserialize( nextStrValue, ItemWrapper.class );
-                if ( TimeDuration.fromCurrent( itemWrapper.getDate() ).isLongerThan( settings.getRetryDiscardAge() ) )
+                ItemWrapper<W> itemWrapper = pendingItems.poll();
+                if ( itemWrapper == null && !shutdownFlag.get() )
                 {
-                    removeQueueTop();
-                    logger.warn( () -> "discarding queued item due to age, item=" + makeDebugText( itemWrapper ) );
-                    return;
+                    if ( !notifyWorkFlag.getAndSet( false ) )
+                    {
+                        final long waitMs = nextRetryTime == null
+                                ? IDLE_WAIT_INTERVAL.asMillis()
+                                : Math.max( 1, Math.min( IDLE_WAIT_INTERVAL.asMillis(), nextRetryTime.toEpochMilli() - now.toEpochMilli() ) );
+                        LockSupport.parkNanos( this, TimeUnit.MILLISECONDS.toNanos( waitMs ) );
+                    }
+                    itemWrapper = pendingItems.poll();
+                }
+
+                if ( itemWrapper == null )
+                {
+                    return null;
+                }
+
+                final Object blockingKey = blockingKey( itemWrapper );
+                final NavigableSet<ItemWrapper<W>> requeued = requeuedItems.get( blockingKey );
+                if ( requeued != null )
+                {
+                    // a requeued item coming back around is no longer outstanding
+                    requeued.remove( itemWrapper );
+                    if ( requeued.isEmpty() )
+                    {
+                        requeuedItems.remove( blockingKey );
+                    }
+                    else if ( ItemWrapper.SUBMIT_ORDER.compare( requeued.first(), itemWrapper ) < 0 && requeue( itemWrapper ) )
+                    {
+                        // an earlier item with the same ordering key was moved to the end of the queue, so follow it
+                        requeued.add( itemWrapper );
+                        continue;
+                    }
+                }
+
+                final NavigableSet<ItemWrapper<W>> retryQueue = retryQueues.get( blockingKey );
+                if ( retryQueue != null )
+                {
+                    // an earlier item with the same ordering key is waiting to be retried
+                    retryQueue.add( itemWrapper );
+                    heldItems.incrementAndGet();
+                }
+                else if ( itemWrapper.isRetryPending( now ) )
+                {
+                    // a requeued item came back around before its retry time
+                    final NavigableSet<ItemWrapper<W>> newRetryQueue = new TreeSet<>( ItemWrapper.SUBMIT_ORDER );
+                    newRetryQueue.add( itemWrapper );
+                    retryQueues.put( blockingKey, newRetryQueue );
+                    heldItems.incrementAndGet();
+                }
+                else
+                {
+                    return itemWrapper;
                 }
             }
-            catch ( final Throwable e )
+        }
+
+        private void processItem( final ItemWrapper<W> itemWrapper )
+        {
+            final Instant processStartTime = Instant.now();
+
+            if ( TimeDuration.fromCurrent( itemWrapper.getDate() ).isLongerThan( settings.getRetryDiscardAge() ) )
             {
-                removeQueueTop();
-                logger.warn( () -> "discarding stored record due to parsing error: " + e.getMessage() + ", record=" + nextStrValue );
+                completeItem( itemWrapper );
+                logger.warn( () -> "discarding queued item due to age, item=" + makeDebugText( itemWrapper ) );
                 return;
             }
 
-            final ProcessResult processResult;
             try
             {
                 workQueueStats.increment( WorkQueueStat.queueProcessItems );
-                processResult = itemProcessor.process( itemWrapper.getWorkItem() );
+                final ProcessResult processResult = itemProcessor.process( itemWrapper.getWorkItem() );
                 if ( processResult == null )
                 {
-                    removeQueueTop();
+                    completeItem( itemWrapper );
                     logger.warn( () -> "itemProcessor.process() returned null, removing; item=" + makeDebugText( itemWrapper ) );
+                    return;
                 }
-                else
+
+                switch ( processResult )
                 {
-                    switch ( processResult )
+                    case FAILED:
                     {
-                        case FAILED:
-                        {
-                            removeQueueTop();
-                            logger.error( () -> "discarding item after process failure, item=" + makeDebugText( itemWrapper ) );
-                        }
-                        break;
+                        completeItem( itemWrapper );
+                        logger.error( () -> "discarding item after process failure, item=" + makeDebugText( itemWrapper ) );
+                    }
+                    break;
 
-                        case RETRY:
-                        {
-                            retryWakeupTime = Instant.ofEpochMilli( System.currentTimeMillis() + settings.getRetryInterval().asMillis() );
-                            logger.debug( () -> "will retry item after failure, item=" + makeDebugText( itemWrapper ) );
-                        }
-                        break;
+                    case RETRY:
+                    case NOOP:
+                    {
+                        scheduleRetry( itemWrapper );
+                        logger.debug( () -> "will retry item after failure, item=" + makeDebugText( itemWrapper ) );
+                    }
+                    break;
 
-                        case SUCCESS:
-                        {
-                            removeQueueTop();
-                            logAndStatUpdateForSuccess( itemWrapper, () -> TimeDuration.fromCurrent( processStartTime ) );
-                        }
-                        break;
+                    case SUCCESS:
+                    {
+                        logAndStatUpdateForSuccess( itemWrapper, () -> TimeDuration.fromCurrent( processStartTime ) );
+                        completeItem( itemWrapper );
+                    }
+                    break;
+
+                    default:
+                        throw new IllegalStateException( "unexpected processResult type " + processResult );
+                }
+            }
+            catch ( final Throwable e )
+            {
+                completeItem( itemWrapper );
+                logger.error( () -> "unexpected error while processing work queue: " + e.getMessage() );
+            }
+        }
 
-                        case NOOP:
-                            break;
+        /**
+         * Moves the item, and any items held behind it, to the end of the backing queue so that it does not keep completed
+         * items ahead of it from being removed while it waits.  If the backing queue can not be written the items are held
+         * by the lane instead and remain leased in their original position.
+         */
+        private void scheduleRetry( final ItemWrapper<W> itemWrapper )
+        {
+            workQueueStats.increment( WorkQueueStat.queueRetryItems );
+            itemWrapper.markRetry( Instant.now().plusMillis( settings.getRetryInterval().asMillis() ) );
 
+            final Object blockingKey = blockingKey( itemWrapper );
+            final NavigableSet<ItemWrapper<W>> waitingItems = new TreeSet<>( ItemWrapper.SUBMIT_ORDER );
+            final NavigableSet<ItemWrapper<W>> retryQueue = retryQueues.remove( blockingKey );
+            if ( retryQueue != null )
+            {
+                heldItems.addAndGet( -retryQueue.size() );
+                waitingItems.addAll( retryQueue );
+            }
+            waitingItems.add( itemWrapper );
 
-                        default:
-                            throw new IllegalStateException( "unexpected processResult type " + processResult );
-                    }
+            while ( !waitingItems.isEmpty() && requeue( waitingItems.first() ) )
+            {
+                final ItemWrapper<W> requeuedItem = waitingItems.pollFirst();
+                if ( requeuedItem.getOrderingKey() != null )
+                {
+                    requeuedItems.computeIfAbsent( blockingKey, k -> new TreeSet<>( ItemWrapper.SUBMIT_ORDER ) ).add( requeuedItem );
                 }
             }
-            catch ( final Throwable e )
+
+            if ( !waitingItems.isEmpty() )
+            {
+                retryQueues.put( blockingKey, waitingItems );
+                heldItems.addAndGet( waitingItems.size() );
+            }
+        }
+
+        private void completeItem( final ItemWrapper<W> itemWrapper )
+        {
+            final Object blockingKey = blockingKey( itemWrapper );
+            final NavigableSet<ItemWrapper<W>> retryQueue = retryQueues.get( blockingKey );
+            if ( retryQueue != null && retryQueue.first() == itemWrapper )
             {
-                if ( !shutdownFlag.get() )
+                retryQueue.pollFirst();
+                heldItems.decrementAndGet();
+                if ( retryQueue.isEmpty() )
                 {
-                    removeQueueTop();
-                    logger.error( () -> "unexpected error while processing work queue: " + e.getMessage() );
+                    retryQueues.remove( blockingKey );
                 }
             }
 
+            queueLease.complete( itemWrapper.getLeaseSlot() );
+            load.decrementAndGet();
+            notifyDispatcher();
         }
 
-        private void removeQueueTop( )
+        private boolean requeue( final ItemWrapper<W> itemWrapper )
         {
-            queue.removeFirst();
-            retryWakeupTime = null;
+            if ( !queueLease.requeue( itemWrapper.getLeaseSlot(), JsonUtil.serialize( itemWrapper ) ) )
+            {
+                return false;
+            }
+
+            load.decrementAndGet();
+            notifyDispatcher();
+            return true;
+        }
+
+        /**
+         * Items still held or pending at exit remain leased in the backing queue and are delivered again on the next start.
+         */
+        private void releaseRemainingItems( )
+        {
+            retryQueues.clear();
+            requeuedItems.clear();
+            pendingItems.clear();
+            heldItems.set( 0 );
+            load.set( 0 );
+        }
+
+        /**
+         * Items without an ordering key only ever block themselves.
+         */
+        private Object blockingKey( final ItemWrapper<W> itemWrapper )
+        {
+            return itemWrapper.getOrderingKey() == null ? itemWrapper : itemWrapper.getOrderingKey();
         }
     }
 
     private static class ItemWrapper<W extends Serializable> implements Serializable
     {
+        /**
+         * Submission order.  Ids are assigned in sequence, so equal length ids compare numerically.
+         */
+        static final Comparator<ItemWrapper<?>> SUBMIT_ORDER = Comparator.<ItemWrapper<?>, Instant>comparing( ItemWrapper::getDate )
+                .thenComparingInt( itemWrapper -> itemWrapper.getId().length() )
+                .thenComparing( ItemWrapper::getId );
+
         @SerializedName( "t" )
         private final Instant timestamp;
 
@@ -528,6 +1099,16 @@ public final class WorkQueueProcessor<W extends Serializable>
         @SerializedName( "i" )
         private final String id;
 
+        @SerializedName( "a" )
+        private int attempts;
+
+        @SerializedName( "r" )
+        private Instant retryTime;
+
+        private transient W workItem;
+        private transient String orderingKey;
+        private transient long leaseSlot;
+
         ItemWrapper( final Instant submitDate, final W workItem, final String itemId )
         {
             this.timestamp = submitDate;
@@ -543,11 +1124,17 @@ public final class WorkQueueProcessor<W extends Serializable>
 
         W getWorkItem( ) throws PwmOperationalException
         {
+            if ( workItem != null )
+            {
+                return workItem;
+            }
+
             try
             {
                 final Class clazz = Class.forName( className );
                 final Object o = JsonUtil.deserialize( item, clazz );
-                return ( W ) o;
+                workItem = ( W ) o;
+                return workItem;
             }
             catch ( final Exception e )
             {
@@ -560,11 +1147,51 @@ public final class WorkQueueProcessor<W extends Serializable>
             return id;
         }
 
+        long getLeaseSlot( )
+        {
+            return leaseSlot;
+        }
+
+        void setLeaseSlot( final long leaseSlot )
+        {
+            this.leaseSlot = leaseSlot;
+        }
+
+        String getOrderingKey( )
+        {
+            return orderingKey;
+        }
+
+        void setOrderingKey( final String orderingKey )
+        {
+            this.orderingKey = orderingKey;
+        }
+
+        Instant getRetryTime( )
+        {
+            return retryTime;
+        }
+
+        boolean isRetryPending( final Instant now )
+        {
+            return retryTime != null && retryTime.isAfter( now );
+        }
+
+        void markRetry( final Instant nextRetryTime )
+        {
+            this.attempts++;
+            this.retryTime = nextRetryTime;
+        }
+
         String toDebugString( final ItemProcessor<W> itemProcessor ) throws PwmOperationalException
         {
             final Map<String, String> debugOutput = new LinkedHashMap<>();
             debugOutput.put( "date", getDate().toString() );
             debugOutput.put( "id", getId() );
+            if ( attempts > 0 )
+            {
+                debugOutput.put( "attempts", String.valueOf( attempts ) );
+            }
             debugOutput.put( "item", itemProcessor.convertToDebugString( getWorkItem() ) );
             return StringUtil.mapToString( debugOutput, "=", "," );
         }
@@ -578,6 +1205,15 @@ public final class WorkQueueProcessor<W extends Serializable>
         ProcessResult process( W workItem );
 
         String convertToDebugString( W workItem );
+
+        /**
+         * Items returning the same non-null key are processed one at a time in submission order.  Items returning
+         * null may be processed in any order.
+         */
+        default String orderingKey( final W workItem )
+        {
+            return null;
+        }
     }
 
     @Value
@@ -590,6 +1226,15 @@ public final class WorkQueueProcessor<W extends Serializable>
         @Builder.Default
         private int preThreads = 0;
 
+        @Builder.Default
+        private int workerThreads = 1;
+
+        @Builder.Default
+        private int dequeueBatchSize = 10;
+
+        @Builder.Default
+        private int maxRetryItems = 100;
+
         @Builder.Default
         private TimeDuration maxSubmitWaitTime = TimeDuration.of( 5, TimeDuration.Unit.SECONDS );
 
@@ -622,10 +1267,8 @@ public final class WorkQueueProcessor<W extends Serializable>
         {
             output.put( "preQueueThreads", String.valueOf( executorService.getActiveCount() ) );
         }
-        if ( workerThread != null )
-        {
-            output.put( "postQueueThreads", workerThread.isRunning() ? "1" : "0" );
-        }
+        output.put( "postQueueThreads", String.valueOf( laneThreads.stream().filter( LaneThread::isRunning ).count() ) );
+        output.put( "inFlightItems", String.valueOf( inFlightItems() ) );
         output.putAll( workQueueStats.debugStats() );
         return Collections.unmodifiableMap( output );
     }
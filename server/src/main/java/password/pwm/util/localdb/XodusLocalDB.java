@@ -34,10 +34,13 @@ import jetbrains.exodus.env.StoreConfig;
 import jetbrains.exodus.env.Transaction;
 import jetbrains.exodus.management.Statistics;
 import jetbrains.exodus.management.StatisticsItem;
+import org.apache.commons.lang3.StringUtils;
 import password.pwm.PwmConstants;
 import password.pwm.error.ErrorInformation;
 import password.pwm.error.PwmError;
+import password.pwm.util.PwmScheduler;
 import password.pwm.util.java.ConditionalTaskExecutor;
+import password.pwm.util.java.JavaHelper;
 import password.pwm.util.java.JsonUtil;
 import password.pwm.util.java.StringUtil;
 import password.pwm.util.java.TimeDuration;
@@ -47,17 +50,31 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.Inflater;
@@ -72,6 +89,14 @@ public class XodusLocalDB implements LocalDBProvider
     private static final String FILE_SUB_PATH = "xodus";
     private static final String README_FILENAME = "README.TXT";
 
+    private static final String DICTIONARY_KEY_PREFIX = "xodus.dictionary.";
+    private static final Set<LocalDB.DB> DEFAULT_DICTIONARY_DBS = Collections.unmodifiableSet( EnumSet.of(
+            LocalDB.DB.USER_CACHE, LocalDB.DB.INTRUDER, LocalDB.DB.TOKENS, LocalDB.DB.AUDIT_EVENTS ) );
+    private static final TimeDuration DICTIONARY_TRAINING_INTERVAL = TimeDuration.of( 10, TimeDuration.Unit.MINUTES );
+    private static final int DICTIONARY_SAMPLE_COUNT = 2000;
+    private static final int DICTIONARY_MIN_TRAINING_RECORDS = 100;
+    private static final int DICTIONARY_MIN_SIZE = 64;
+
     private Environment environment;
     private File fileLocation;
     private boolean readOnly;
@@ -79,7 +104,13 @@ public class XodusLocalDB implements LocalDBProvider
     private enum Property
     {
         Compression_Enabled( "xodus.compression.enabled" ),
-        Compression_MinLength( "xodus.compression.minLength" ),;
+        Compression_MinLength( "xodus.compression.minLength" ),
+        /**
+         * Off by default. Values stored with a dictionary can not be read by versions that predate dictionary
+         * compression, so once enabled the LocalDB can no longer be opened by an older version.
+         */
+        Compression_Dictionary_Enabled( "xodus.compression.dictionary.enabled" ),
+        Compression_Dictionary_DBs( "xodus.compression.dictionary.dbs" ),;
 
         private final String keyName;
 
@@ -102,7 +133,9 @@ public class XodusLocalDB implements LocalDBProvider
             ( ) -> outputStats(), new ConditionalTaskExecutor.TimeDurationPredicate( STATS_OUTPUT_INTERVAL ).setNextTimeFromNow( TimeDuration.MINUTE )
     );
 
-    private BindMachine bindMachine = new BindMachine( BindMachine.DEFAULT_ENABLE_COMPRESSION, BindMachine.DEFAULT_MIN_COMPRESSION_LENGTH );
+    private ScheduledExecutorService dictionaryTrainingExecutor;
+
+    private BindMachine bindMachine = new BindMachine( BindMachine.DEFAULT_ENABLE_COMPRESSION, BindMachine.DEFAULT_MIN_COMPRESSION_LENGTH, Collections.emptySet() );
 
 
     @Override
@@ -152,7 +185,13 @@ public class XodusLocalDB implements LocalDBProvider
                     ? Integer.parseInt( initParameters.get( Property.Compression_MinLength.getKeyName() ) )
                     : BindMachine.DEFAULT_MIN_COMPRESSION_LENGTH;
 
-            bindMachine = new BindMachine( compressionEnabled, compressionMinLength );
+            final boolean dictionaryEnabled = Boolean.parseBoolean( initParameters.get( Property.Compression_Dictionary_Enabled.getKeyName() ) );
+
+            final Set<LocalDB.DB> dictionaryDBs = dictionaryEnabled
+                    ? readDictionaryDBs( initParameters.get( Property.Compression_Dictionary_DBs.getKeyName() ) )
+                    : Collections.emptySet();
+
+            bindMachine = new BindMachine( compressionEnabled, compressionMinLength, dictionaryDBs );
         }
 
         readOnly = parameters.containsKey( Parameter.readOnly ) && Boolean.parseBoolean( parameters.get( Parameter.readOnly ) );
@@ -173,6 +212,18 @@ public class XodusLocalDB implements LocalDBProvider
 
         status = LocalDB.Status.OPEN;
 
+        loadDictionaries();
+        if ( !readOnly && bindMachine.hasDictionaryDBs() )
+        {
+            final String threadName = PwmScheduler.makeThreadName( ( String ) null, XodusLocalDB.class ) + "-dictionary-";
+            dictionaryTrainingExecutor = Executors.newSingleThreadScheduledExecutor( PwmScheduler.makePwmThreadFactory( threadName, true ) );
+            dictionaryTrainingExecutor.scheduleWithFixedDelay(
+                    this::trainDictionaries,
+                    0,
+                    DICTIONARY_TRAINING_INTERVAL.asMillis(),
+                    TimeUnit.MILLISECONDS );
+        }
+
         for ( final LocalDB.DB db : LocalDB.DB.values() )
         {
             final long finalSize = this.size( db );
@@ -186,6 +237,11 @@ public class XodusLocalDB implements LocalDBProvider
     public void close( ) throws LocalDBException
     {
         final Instant startTime = Instant.now();
+        if ( dictionaryTrainingExecutor != null )
+        {
+            JavaHelper.closeAndWaitExecutor( dictionaryTrainingExecutor, TimeDuration.SECONDS_10 );
+        }
+
         if ( environment != null && environment.isOpen() )
         {
             environment.close();
@@ -259,7 +315,7 @@ public class XodusLocalDB implements LocalDBProvider
             final ByteIterable returnValue = store.get( transaction, bindMachine.keyToEntry( key ) );
             if ( returnValue != null )
             {
-                return bindMachine.entryToValue( returnValue );
+                return bindMachine.entryToValue( db, returnValue );
             }
             return null;
         } );
@@ -268,24 +324,116 @@ public class XodusLocalDB implements LocalDBProvider
     @Override
     public LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator( final LocalDB.DB db )  throws LocalDBException
     {
-        return new InnerIterator( db );
+        return new InnerIterator( db, environment.beginReadonlyTransaction(), null, null );
+    }
+
+    @Override
+    public LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator( final LocalDB.DB db, final String fromKey, final String toKey ) throws LocalDBException
+    {
+        checkStatus( false );
+        return new InnerIterator( db, environment.beginReadonlyTransaction(), fromKey, toKey );
+    }
+
+    @Override
+    public Map<String, String> getAll( final LocalDB.DB db, final Collection<String> keys ) throws LocalDBException
+    {
+        checkStatus( false );
+        return environment.computeInReadonlyTransaction( transaction ->
+        {
+            final Store store = getStore( db );
+            final Map<String, String> returnMap = new LinkedHashMap<>();
+            for ( final String key : keys )
+            {
+                final ByteIterable value = store.get( transaction, bindMachine.keyToEntry( key ) );
+                if ( value != null )
+                {
+                    returnMap.put( key, bindMachine.entryToValue( db, value ) );
+                }
+            }
+            return Collections.unmodifiableMap( returnMap );
+        } );
+    }
+
+    @Override
+    public LocalDB.Snapshot snapshot( ) throws LocalDBException
+    {
+        checkStatus( false );
+        return new XodusSnapshot( environment.beginReadonlyTransaction() );
+    }
+
+    /**
+     * Pins a read-only transaction; each iterator reads through its own copy of that transaction's snapshot, so
+     * iterators can be consumed concurrently and all observe the same point in time.
+     */
+    private class XodusSnapshot implements LocalDB.Snapshot
+    {
+        private final Transaction snapshotTransaction;
+
+        XodusSnapshot( final Transaction snapshotTransaction )
+        {
+            this.snapshotTransaction = snapshotTransaction;
+        }
+
+        @Override
+        public synchronized LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator( final LocalDB.DB db ) throws LocalDBException
+        {
+            checkStatus( false );
+            if ( snapshotTransaction.isFinished() )
+            {
+                throw new LocalDBException( new ErrorInformation( PwmError.ERROR_INTERNAL, "snapshot has been closed" ) );
+            }
+            return new InnerIterator( db, snapshotTransaction.getReadonlySnapshot(), null, null );
+        }
+
+        @Override
+        public boolean isPointInTime( )
+        {
+            return true;
+        }
+
+        @Override
+        public synchronized void close( )
+        {
+            if ( !snapshotTransaction.isFinished() )
+            {
+                snapshotTransaction.abort();
+            }
+        }
     }
 
     public class InnerIterator implements LocalDB.LocalDBIterator<Map.Entry<String, String>>
     {
+        private final LocalDB.DB db;
         private final Transaction transaction;
         private final Cursor cursor;
+        private final ByteIterable fromEntry;
+        private final ByteIterable toEntry;
 
         private boolean closed;
+        private boolean positioned;
         private Map.Entry<String, String> nextValue = null;
 
-        InnerIterator( final LocalDB.DB db )
+        InnerIterator( final LocalDB.DB db, final Transaction transaction, final String fromKey, final String toKey )
         {
-            this.transaction = environment.beginReadonlyTransaction();
+            this.db = db;
+            this.transaction = transaction;
             this.cursor = getStore( db ).openCursor( transaction );
+            this.fromEntry = fromKey == null ? null : bindMachine.keyToEntry( fromKey );
+            this.toEntry = toKey == null ? null : bindMachine.keyToEntry( toKey );
             doNext();
         }
 
+        private boolean advanceCursor( )
+        {
+            if ( !positioned && fromEntry != null )
+            {
+                positioned = true;
+                return cursor.getSearchKeyRange( fromEntry ) != null;
+            }
+            positioned = true;
+            return cursor.getNext();
+        }
+
         private void doNext( )
         {
             try
@@ -303,7 +451,7 @@ public class XodusLocalDB implements LocalDBProvider
                     return;
                 }
 
-                if ( !cursor.getNext() )
+                if ( !advanceCursor() )
                 {
                     close();
                     return;
@@ -314,6 +462,11 @@ public class XodusLocalDB implements LocalDBProvider
                     close();
                     return;
                 }
+                if ( toEntry != null && nextCursor.compareTo( toEntry ) >= 0 )
+                {
+                    close();
+                    return;
+                }
                 final String decodedKey = bindMachine.entryToKey( nextCursor );
                 if ( decodedKey == null )
                 {
@@ -321,7 +474,7 @@ public class XodusLocalDB implements LocalDBProvider
                     return;
                 }
                 final ByteIterable nextValueIterable = cursor.getValue();
-                final String nextStringValue = nextValueIterable == null ? null : bindMachine.entryToValue( nextValueIterable );
+                final String nextStringValue = nextValueIterable == null ? null : bindMachine.entryToValue( db, nextValueIterable );
 
                 nextValue = new AbstractMap.SimpleImmutableEntry<>( decodedKey, nextStringValue );
             }
@@ -379,8 +532,12 @@ public class XodusLocalDB implements LocalDBProvider
             final Store store = getStore( db );
             for ( final Map.Entry<String, String> entry : keyValueMap.entrySet() )
             {
+                if ( isReservedKey( db, entry.getKey() ) )
+                {
+                    continue;
+                }
                 final ByteIterable k = bindMachine.keyToEntry( entry.getKey() );
-                final ByteIterable v = bindMachine.valueToEntry( entry.getValue() );
+                final ByteIterable v = bindMachine.valueToEntry( db, entry.getValue() );
                 store.put( transaction, k, v );
             }
         } );
@@ -392,10 +549,14 @@ public class XodusLocalDB implements LocalDBProvider
     public boolean put( final LocalDB.DB db, final String key, final String value ) throws LocalDBException
     {
         checkStatus( true );
+        if ( isReservedKey( db, key ) )
+        {
+            return false;
+        }
         return environment.computeInTransaction( transaction ->
         {
             final ByteIterable k = bindMachine.keyToEntry( key );
-            final ByteIterable v = bindMachine.valueToEntry( value );
+            final ByteIterable v = bindMachine.valueToEntry( db, value );
             final Store store = getStore( db );
             return store.put( transaction, k, v );
         } );
@@ -406,10 +567,14 @@ public class XodusLocalDB implements LocalDBProvider
     public boolean putIfAbsent( final LocalDB.DB db, final String key, final String value ) throws LocalDBException
     {
         checkStatus( true );
+        if ( isReservedKey( db, key ) )
+        {
+            return false;
+        }
         return environment.computeInTransaction( transaction ->
         {
             final ByteIterable k = bindMachine.keyToEntry( key );
-            final ByteIterable v = bindMachine.valueToEntry( value );
+            final ByteIterable v = bindMachine.valueToEntry( db, value );
             final Store store = getStore( db );
             final ByteIterable existingValue = store.get( transaction, k );
             if ( existingValue != null )
@@ -424,6 +589,10 @@ public class XodusLocalDB implements LocalDBProvider
     public boolean remove( final LocalDB.DB db, final String key ) throws LocalDBException
     {
         checkStatus( true );
+        if ( isReservedKey( db, key ) )
+        {
+            return false;
+        }
         return environment.computeInTransaction( transaction ->
         {
             final Store store = getStore( db );
@@ -440,7 +609,10 @@ public class XodusLocalDB implements LocalDBProvider
             final Store store = getStore( db );
             for ( final String key : keys )
             {
-                store.delete( transaction, bindMachine.keyToEntry( key ) );
+                if ( !isReservedKey( db, key ) )
+                {
+                    store.delete( transaction, bindMachine.keyToEntry( key ) );
+                }
             }
         } );
     }
@@ -461,8 +633,18 @@ public class XodusLocalDB implements LocalDBProvider
             environment.truncateStore( db.toString(), transaction );
             final Store newStoreReference = environment.openStore( db.toString(), StoreConfig.USE_EXISTING, transaction );
             cachedStoreObjects.put( db, newStoreReference );
+            if ( db == LocalDB.DB.PWM_META )
+            {
+                // dictionaries are still referenced by values in other DBs
+                for ( final XodusValueDictionary dictionary : bindMachine.allDictionaries() )
+                {
+                    writeDictionary( transaction, dictionary );
+                }
+            }
         } );
 
+        bindMachine.markForTraining( db );
+
         {
             final long finalSize = this.size( db );
             LOGGER.trace( () -> "completed truncate of " + db.toString()
@@ -543,24 +725,178 @@ public class XodusLocalDB implements LocalDBProvider
             LOGGER.debug( () -> "error while calculating sizes for localDB debug output: "  + e.getMessage() );
         }
 
+        outputStats.putAll( bindMachine.debugInfo() );
+
         return outputStats;
     }
 
+    private static Set<LocalDB.DB> readDictionaryDBs( final String value )
+    {
+        if ( StringUtil.isEmpty( value ) )
+        {
+            return DEFAULT_DICTIONARY_DBS;
+        }
+
+        final Set<LocalDB.DB> returnSet = EnumSet.noneOf( LocalDB.DB.class );
+        for ( final String dbName : value.split( "," ) )
+        {
+            final LocalDB.DB db = JavaHelper.readEnumFromString( LocalDB.DB.class, null, dbName.trim() );
+            if ( db == null || db == LocalDB.DB.PWM_META )
+            {
+                LOGGER.warn( () -> "ignoring invalid dictionary compression DB name '" + dbName + "'" );
+            }
+            else
+            {
+                returnSet.add( db );
+            }
+        }
+        return Collections.unmodifiableSet( returnSet );
+    }
+
+    private static boolean isReservedKey( final LocalDB.DB db, final String key )
+    {
+        return db == LocalDB.DB.PWM_META && key.startsWith( DICTIONARY_KEY_PREFIX );
+    }
+
+    private void loadDictionaries( ) throws LocalDBException
+    {
+        final String upperBound = LocalDBUtility.prefixUpperBound( DICTIONARY_KEY_PREFIX );
+        try ( LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator = iterator( LocalDB.DB.PWM_META, DICTIONARY_KEY_PREFIX, upperBound ) )
+        {
+            while ( iterator.hasNext() )
+            {
+                final Map.Entry<String, String> entry = iterator.next();
+                final String[] keyParts = entry.getKey().substring( DICTIONARY_KEY_PREFIX.length() ).split( "\\." );
+                final LocalDB.DB db = keyParts.length == 2 ? JavaHelper.readEnumFromString( LocalDB.DB.class, null, keyParts[0] ) : null;
+                if ( db == null || !StringUtils.isNumeric( keyParts[1] ) )
+                {
+                    LOGGER.warn( () -> "ignoring unrecognized compression dictionary key '" + entry.getKey() + "'" );
+                    continue;
+                }
+
+                final int version = Integer.parseInt( keyParts[1] );
+                bindMachine.addDictionary( db, new XodusValueDictionary( version, StringUtil.base64Decode( entry.getValue() ) ) );
+                LOGGER.trace( () -> "loaded " + db + " compression dictionary version " + version );
+            }
+        }
+        catch ( final IOException e )
+        {
+            throw new LocalDBException( new ErrorInformation( PwmError.ERROR_LOCALDB_UNAVAILABLE, "unable to decode compression dictionary: " + e.getMessage() ) );
+        }
+    }
+
+    /**
+     * Trains a new dictionary version for each dictionary DB that has none, or that has been truncated since its
+     * dictionary was trained, once the DB holds enough records to sample.  Runs on the dictionary training thread.
+     */
+    private void trainDictionaries( )
+    {
+        for ( final LocalDB.DB db : bindMachine.pendingTraining() )
+        {
+            if ( status != LocalDB.Status.OPEN )
+            {
+                return;
+            }
+
+            try
+            {
+                if ( size( db ) < DICTIONARY_MIN_TRAINING_RECORDS )
+                {
+                    continue;
+                }
+
+                final Instant startTime = Instant.now();
+                final List<byte[]> samples = sampleValues( db );
+                final byte[] dictionaryBytes = XodusValueDictionary.train( samples, XodusValueDictionary.MAX_DICTIONARY_SIZE );
+                if ( dictionaryBytes.length < DICTIONARY_MIN_SIZE )
+                {
+                    LOGGER.trace( () -> "values of " + db + " have too little common content for a compression dictionary" );
+                    bindMachine.clearTraining( db );
+                    continue;
+                }
+
+                final XodusValueDictionary dictionary = new XodusValueDictionary( bindMachine.nextDictionaryVersion( db ), dictionaryBytes );
+                environment.executeInTransaction( transaction -> writeDictionary( transaction, dictionary ) );
+                bindMachine.addDictionary( db, dictionary );
+                bindMachine.clearTraining( db );
+                LOGGER.debug( () -> "trained " + db + " compression dictionary version " + dictionary.getVersion()
+                        + " of " + dictionary.size() + " bytes from " + samples.size() + " values", () -> TimeDuration.fromCurrent( startTime ) );
+            }
+            catch ( final LocalDBException | RuntimeException e )
+            {
+                LOGGER.warn( () -> "error training compression dictionary for " + db + ": " + e.getMessage() );
+            }
+        }
+    }
+
+    private List<byte[]> sampleValues( final LocalDB.DB db ) throws LocalDBException
+    {
+        final long stride = Math.max( 1, size( db ) / DICTIONARY_SAMPLE_COUNT );
+        return environment.computeInReadonlyTransaction( transaction ->
+        {
+            final List<byte[]> samples = new ArrayList<>();
+            final Cursor cursor = getStore( db ).openCursor( transaction );
+            try
+            {
+                long position = 0;
+                while ( cursor.getNext() && samples.size() < DICTIONARY_SAMPLE_COUNT )
+                {
+                    if ( position++ % stride == 0 )
+                    {
+                        samples.add( bindMachine.entryToValue( db, cursor.getValue() ).getBytes( StandardCharsets.UTF_8 ) );
+                    }
+                }
+            }
+            finally
+            {
+                cursor.close();
+            }
+            return samples;
+        } );
+    }
+
+    private void writeDictionary( final Transaction transaction, final XodusValueDictionary dictionary )
+    {
+        final String key = DICTIONARY_KEY_PREFIX + bindMachine.dictionaryDB( dictionary ) + "." + dictionary.getVersion();
+        final String value = StringUtil.base64Encode( dictionary.getDictionary() );
+        getStore( LocalDB.DB.PWM_META ).put( transaction, bindMachine.keyToEntry( key ), bindMachine.valueToEntry( LocalDB.DB.PWM_META, value ) );
+    }
+
     private static class BindMachine
     {
+        private static final byte DICTIONARY_PREFIX = 97;
         private static final byte COMPRESSED_PREFIX = 98;
         private static final byte UNCOMPRESSED_PREFIX = 99;
 
+        private static final int DICTIONARY_HEADER_LENGTH = 3;
+        private static final int MAX_DICTIONARY_VERSION = 0xFFFF;
+
         private static final int DEFAULT_MIN_COMPRESSION_LENGTH = 16;
         private static final boolean DEFAULT_ENABLE_COMPRESSION = false;
 
         private final int minCompressionLength;
         private final boolean enableCompression;
+        private final Set<LocalDB.DB> dictionaryDBs;
 
-        BindMachine( final boolean enableCompression, final int minCompressionLength )
+        private final Map<LocalDB.DB, Map<Integer, XodusValueDictionary>> dictionaries = new ConcurrentHashMap<>();
+        private final Map<LocalDB.DB, XodusValueDictionary> activeDictionaries = new ConcurrentHashMap<>();
+        private final Map<XodusValueDictionary, LocalDB.DB> dictionaryOwners = new ConcurrentHashMap<>();
+        private final Map<LocalDB.DB, DictionaryStats> dictionaryStats = new ConcurrentHashMap<>();
+        private final Set<LocalDB.DB> pendingTraining = ConcurrentHashMap.newKeySet();
+
+        private final Queue<Deflater> deflaterPool = new ConcurrentLinkedQueue<>();
+        private final Queue<Inflater> inflaterPool = new ConcurrentLinkedQueue<>();
+
+        BindMachine( final boolean enableCompression, final int minCompressionLength, final Set<LocalDB.DB> dictionaryDBs )
         {
             this.enableCompression = enableCompression;
             this.minCompressionLength = minCompressionLength;
+            this.dictionaryDBs = dictionaryDBs;
+            this.pendingTraining.addAll( dictionaryDBs );
+            for ( final LocalDB.DB db : dictionaryDBs )
+            {
+                dictionaryStats.put( db, new DictionaryStats() );
+            }
         }
 
         ByteIterable keyToEntry( final String key )
@@ -573,15 +909,40 @@ public class XodusLocalDB implements LocalDBProvider
             return StringBinding.entryToString( entry );
         }
 
-        ByteIterable valueToEntry( final String value )
+        ByteIterable valueToEntry( final LocalDB.DB db, final String value )
         {
-            if ( !enableCompression || value.length() < minCompressionLength )
+            final ByteIterable byteIterable = StringBinding.stringToEntry( value );
+            if ( value.length() < minCompressionLength )
+            {
+                return new ArrayByteIterable( UNCOMPRESSED_PREFIX, byteIterable );
+            }
+
+            final XodusValueDictionary dictionary = activeDictionaries.get( db );
+            if ( dictionary != null )
+            {
+                final byte[] rawArray = Arrays.copyOf( byteIterable.getBytesUnsafe(), byteIterable.getLength() );
+                final byte[] compressedArray = dictionary.compress( rawArray, rawArray.length - DICTIONARY_HEADER_LENGTH );
+                final DictionaryStats stats = dictionaryStats.get( db );
+                stats.rawBytes.add( rawArray.length + 1 );
+                if ( compressedArray != null )
+                {
+                    stats.storedBytes.add( compressedArray.length + DICTIONARY_HEADER_LENGTH );
+                    final byte[] entryArray = new byte[ compressedArray.length + DICTIONARY_HEADER_LENGTH ];
+                    entryArray[ 0 ] = DICTIONARY_PREFIX;
+                    entryArray[ 1 ] = (byte) ( dictionary.getVersion() >>> 8 );
+                    entryArray[ 2 ] = (byte) dictionary.getVersion();
+                    System.arraycopy( compressedArray, 0, entryArray, DICTIONARY_HEADER_LENGTH, compressedArray.length );
+                    return new ArrayByteIterable( entryArray );
+                }
+                stats.storedBytes.add( rawArray.length + 1 );
+                return new ArrayByteIterable( UNCOMPRESSED_PREFIX, byteIterable );
+            }
+
+            if ( !enableCompression )
             {
-                final ByteIterable byteIterable = StringBinding.stringToEntry( value );
                 return new ArrayByteIterable( UNCOMPRESSED_PREFIX, byteIterable );
             }
 
-            final ByteIterable byteIterable = StringBinding.stringToEntry( value );
             final byte[] rawArray = byteIterable.getBytesUnsafe();
             final byte[] compressedArray = compressData( rawArray );
 
@@ -595,9 +956,21 @@ public class XodusLocalDB implements LocalDBProvider
             }
         }
 
-        String entryToValue( final ByteIterable value )
+        String entryToValue( final LocalDB.DB db, final ByteIterable value )
         {
             final byte[] rawValue = value.getBytesUnsafe();
+            if ( rawValue[ 0 ] == DICTIONARY_PREFIX )
+            {
+                final int version = ( ( rawValue[ 1 ] & 0xFF ) << 8 ) | ( rawValue[ 2 ] & 0xFF );
+                final XodusValueDictionary dictionary = dictionaries.getOrDefault( db, Collections.emptyMap() ).get( version );
+                if ( dictionary == null )
+                {
+                    throw new IllegalStateException( "missing " + db + " compression dictionary version " + version );
+                }
+                final byte[] decompressedValue = dictionary.decompress( rawValue, DICTIONARY_HEADER_LENGTH, value.getLength() - DICTIONARY_HEADER_LENGTH );
+                return StringBinding.entryToString( new ArrayByteIterable( decompressedValue ) );
+            }
+
             final byte[] strippedArray = new byte[ rawValue.length - 1 ];
             System.arraycopy( rawValue, 1, strippedArray, 0, rawValue.length - 1 );
             if ( rawValue[ 0 ] == UNCOMPRESSED_PREFIX )
@@ -612,39 +985,133 @@ public class XodusLocalDB implements LocalDBProvider
             throw new IllegalStateException( "unknown value prefix " + Byte.toString( rawValue[ 0 ] ) );
         }
 
-        static byte[] compressData( final byte[] data )
+        void addDictionary( final LocalDB.DB db, final XodusValueDictionary dictionary )
+        {
+            dictionaries.computeIfAbsent( db, k -> new ConcurrentHashMap<>() ).put( dictionary.getVersion(), dictionary );
+            dictionaryOwners.put( dictionary, db );
+            if ( dictionaryDBs.contains( db ) )
+            {
+                activeDictionaries.merge( db, dictionary, ( existing, added ) -> added.getVersion() > existing.getVersion() ? added : existing );
+                pendingTraining.remove( db );
+            }
+        }
+
+        Collection<XodusValueDictionary> allDictionaries()
         {
+            return Collections.unmodifiableCollection( dictionaryOwners.keySet() );
+        }
+
+        LocalDB.DB dictionaryDB( final XodusValueDictionary dictionary )
+        {
+            return dictionaryOwners.get( dictionary );
+        }
+
+        int nextDictionaryVersion( final LocalDB.DB db )
+        {
+            final int nextVersion = dictionaries.getOrDefault( db, Collections.emptyMap() ).keySet().stream()
+                    .mapToInt( Integer::intValue )
+                    .max()
+                    .orElse( 0 ) + 1;
+            if ( nextVersion > MAX_DICTIONARY_VERSION )
+            {
+                throw new IllegalStateException( "no compression dictionary versions remain for " + db );
+            }
+            return nextVersion;
+        }
+
+        void markForTraining( final LocalDB.DB db )
+        {
+            if ( dictionaryDBs.contains( db ) )
+            {
+                pendingTraining.add( db );
+            }
+        }
+
+        void clearTraining( final LocalDB.DB db )
+        {
+            pendingTraining.remove( db );
+        }
+
+        boolean hasDictionaryDBs()
+        {
+            return !dictionaryDBs.isEmpty();
+        }
+
+        Set<LocalDB.DB> pendingTraining()
+        {
+            final Set<LocalDB.DB> returnSet = EnumSet.noneOf( LocalDB.DB.class );
+            returnSet.addAll( pendingTraining );
+            return returnSet;
+        }
+
+        Map<String, Serializable> debugInfo()
+        {
+            final Map<String, Serializable> debugInfo = new LinkedHashMap<>();
+            for ( final LocalDB.DB db : dictionaryDBs )
+            {
+                final XodusValueDictionary dictionary = activeDictionaries.get( db );
+                final DictionaryStats stats = dictionaryStats.get( db );
+                final long rawBytes = stats.rawBytes.sum();
+                final long storedBytes = stats.storedBytes.sum();
+                debugInfo.put( "dictionary." + db + ".version", dictionary == null ? 0 : dictionary.getVersion() );
+                debugInfo.put( "dictionary." + db + ".size", dictionary == null ? 0 : dictionary.size() );
+                debugInfo.put( "dictionary." + db + ".ratio", rawBytes == 0
+                        ? "n/a"
+                        : new BigDecimal( storedBytes ).divide( new BigDecimal( rawBytes ), 3, RoundingMode.HALF_UP ).toPlainString() );
+                debugInfo.put( "dictionary." + db + ".bytesSaved", rawBytes - storedBytes );
+            }
+            return debugInfo;
+        }
+
+        private byte[] compressData( final byte[] data )
+        {
+            final Deflater pooled = deflaterPool.poll();
+            final Deflater deflater = pooled == null ? new Deflater() : pooled;
             final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-            final DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream( byteArrayOutputStream, new Deflater() );
-            try
+            try ( DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream( byteArrayOutputStream, deflater ) )
             {
                 deflaterOutputStream.write( data );
-                deflaterOutputStream.close();
             }
             catch ( final IOException e )
             {
                 throw new IllegalStateException( "unexpected exception compressing data stream: " + e.getMessage(), e );
             }
+            finally
+            {
+                deflater.reset();
+                deflaterPool.offer( deflater );
+            }
             return byteArrayOutputStream.toByteArray();
         }
 
-        static byte[] decompressData( final byte[] data )
+        private byte[] decompressData( final byte[] data )
         {
+            final Inflater pooled = inflaterPool.poll();
+            final Inflater inflater = pooled == null ? new Inflater() : pooled;
             final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-            final InflaterOutputStream inflaterOutputStream = new InflaterOutputStream( byteArrayOutputStream, new Inflater() );
-            try
+            try ( InflaterOutputStream inflaterOutputStream = new InflaterOutputStream( byteArrayOutputStream, inflater ) )
             {
                 inflaterOutputStream.write( data );
-                inflaterOutputStream.close();
             }
             catch ( final IOException e )
             {
                 throw new IllegalStateException( "unexpected exception decompressing data stream: " + e.getMessage(), e );
             }
+            finally
+            {
+                inflater.reset();
+                inflaterPool.offer( inflater );
+            }
             return byteArrayOutputStream.toByteArray();
         }
     }
 
+    private static class DictionaryStats
+    {
+        private final LongAdder rawBytes = new LongAdder();
+        private final LongAdder storedBytes = new LongAdder();
+    }
+
     @Override
     public Set<Flag> flags( )
     {
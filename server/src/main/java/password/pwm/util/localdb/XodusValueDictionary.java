@@ -0,0 +1,269 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.util.localdb;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Preset deflate dictionary for the values of a single LocalDB DB, along with pooled {@link Deflater} and
+ * {@link Inflater} instances primed with it.  Values are compressed as raw deflate streams, without the zlib
+ * header and checksum, since the stored values are small.
+ */
+class XodusValueDictionary
+{
+    static final int MAX_DICTIONARY_SIZE = 16 * 1024;
+
+    private static final int GRAM_LENGTH = Long.BYTES;
+    private static final int MAX_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final int version;
+    private final byte[] dictionary;
+    private final Queue<Deflater> deflaterPool = new ConcurrentLinkedQueue<>();
+    private final Queue<Inflater> inflaterPool = new ConcurrentLinkedQueue<>();
+
+    XodusValueDictionary( final int version, final byte[] dictionary )
+    {
+        this.version = version;
+        this.dictionary = Arrays.copyOf( dictionary, dictionary.length );
+    }
+
+    int getVersion()
+    {
+        return version;
+    }
+
+    byte[] getDictionary()
+    {
+        return Arrays.copyOf( dictionary, dictionary.length );
+    }
+
+    int size()
+    {
+        return dictionary.length;
+    }
+
+    /**
+     * Compresses {@code data}, returning null if the compressed form would not be smaller than {@code maxLength}.
+     */
+    byte[] compress( final byte[] data, final int maxLength )
+    {
+        final Deflater deflater = borrowDeflater();
+        try
+        {
+            deflater.setInput( data );
+            deflater.finish();
+            final byte[] buffer = new byte[ maxLength ];
+            int length = 0;
+            while ( !deflater.finished() && length < buffer.length )
+            {
+                length += deflater.deflate( buffer, length, buffer.length - length );
+            }
+            return deflater.finished() ? Arrays.copyOf( buffer, length ) : null;
+        }
+        finally
+        {
+            returnDeflater( deflater );
+        }
+    }
+
+    byte[] decompress( final byte[] data, final int offset, final int length )
+    {
+        final Inflater inflater = borrowInflater();
+        try
+        {
+            inflater.setInput( data, offset, length );
+            byte[] buffer = new byte[ Math.max( 64, length * 4 ) ];
+            int outputLength = 0;
+            boolean paddingSupplied = false;
+            while ( !inflater.finished() )
+            {
+                if ( outputLength == buffer.length )
+                {
+                    buffer = Arrays.copyOf( buffer, buffer.length * 2 );
+                }
+                final int inflated = inflater.inflate( buffer, outputLength, buffer.length - outputLength );
+                if ( inflated == 0 && inflater.needsInput() )
+                {
+                    // raw inflate may require an extra dummy input byte to detect the end of the stream
+                    if ( paddingSupplied )
+                    {
+                        throw new IllegalStateException( "truncated dictionary compressed value" );
+                    }
+                    inflater.setInput( new byte[ 1 ] );
+                    paddingSupplied = true;
+                }
+                outputLength += inflated;
+            }
+            return Arrays.copyOf( buffer, outputLength );
+        }
+        catch ( final DataFormatException e )
+        {
+            throw new IllegalStateException( "unexpected exception decompressing dictionary value: " + e.getMessage(), e );
+        }
+        finally
+        {
+            returnInflater( inflater );
+        }
+    }
+
+    private Deflater borrowDeflater()
+    {
+        final Deflater pooled = deflaterPool.poll();
+        final Deflater deflater = pooled == null ? new Deflater( Deflater.DEFAULT_COMPRESSION, true ) : pooled;
+        deflater.setDictionary( dictionary );
+        return deflater;
+    }
+
+    private void returnDeflater( final Deflater deflater )
+    {
+        deflater.reset();
+        if ( deflaterPool.size() < MAX_POOL_SIZE )
+        {
+            deflaterPool.offer( deflater );
+        }
+        else
+        {
+            deflater.end();
+        }
+    }
+
+    private Inflater borrowInflater()
+    {
+        final Inflater pooled = inflaterPool.poll();
+        final Inflater inflater = pooled == null ? new Inflater( true ) : pooled;
+        inflater.setDictionary( dictionary );
+        return inflater;
+    }
+
+    private void returnInflater( final Inflater inflater )
+    {
+        inflater.reset();
+        if ( inflaterPool.size() < MAX_POOL_SIZE )
+        {
+            inflaterPool.offer( inflater );
+        }
+        else
+        {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Builds a dictionary from the byte sequences that recur across many samples.  Runs of bytes whose every
+     * {@value #GRAM_LENGTH}-byte substring appears in at least a tenth of the samples are collected, and the runs
+     * that cover the most sample bytes are placed at the end of the dictionary, where deflate can reference them
+     * with the shortest distances.
+     *
+     * @return the trained dictionary, empty if the samples share no common content
+     */
+    static byte[] train( final Collection<byte[]> samples, final int maxSize )
+    {
+        final int minFrequency = Math.max( 2, samples.size() / 10 );
+
+        final Map<Long, Integer> gramFrequencies = new HashMap<>();
+        for ( final byte[] sample : samples )
+        {
+            final Set<Long> sampleGrams = new HashSet<>();
+            for ( int i = 0; i + GRAM_LENGTH <= sample.length; i++ )
+            {
+                sampleGrams.add( gramAt( sample, i ) );
+            }
+            for ( final Long gram : sampleGrams )
+            {
+                gramFrequencies.merge( gram, 1, Integer::sum );
+            }
+        }
+
+        final Map<String, Integer> runScores = new HashMap<>();
+        for ( final byte[] sample : samples )
+        {
+            int runStart = -1;
+            for ( int i = 0; i <= sample.length - GRAM_LENGTH + 1; i++ )
+            {
+                final boolean frequent = i + GRAM_LENGTH <= sample.length
+                        && gramFrequencies.getOrDefault( gramAt( sample, i ), 0 ) >= minFrequency;
+                if ( frequent && runStart < 0 )
+                {
+                    runStart = i;
+                }
+                else if ( !frequent && runStart >= 0 )
+                {
+                    final int runEnd = i - 1 + GRAM_LENGTH;
+                    final String run = new String( sample, runStart, runEnd - runStart, StandardCharsets.ISO_8859_1 );
+                    runScores.merge( run, run.length(), Integer::sum );
+                    runStart = -1;
+                }
+            }
+        }
+
+        final List<Map.Entry<String, Integer>> rankedRuns = new ArrayList<>( runScores.entrySet() );
+        rankedRuns.sort( Map.Entry.<String, Integer>comparingByValue().reversed() );
+
+        final List<String> selectedRuns = new ArrayList<>();
+        final StringBuilder selectedContent = new StringBuilder();
+        for ( final Map.Entry<String, Integer> entry : rankedRuns )
+        {
+            final String run = entry.getKey();
+            if ( entry.getValue() <= run.length() || selectedContent.indexOf( run ) >= 0 )
+            {
+                continue;
+            }
+            if ( selectedContent.length() + run.length() > maxSize )
+            {
+                continue;
+            }
+            selectedRuns.add( run );
+            selectedContent.append( run );
+        }
+
+        final ByteBuffer dictionary = ByteBuffer.allocate( selectedContent.length() );
+        for ( int i = selectedRuns.size() - 1; i >= 0; i-- )
+        {
+            dictionary.put( selectedRuns.get( i ).getBytes( StandardCharsets.ISO_8859_1 ) );
+        }
+        return dictionary.array();
+    }
+
+    private static long gramAt( final byte[] data, final int offset )
+    {
+        long gram = 0;
+        for ( int i = 0; i < GRAM_LENGTH; i++ )
+        {
+            gram = ( gram << 8 ) | ( data[ offset + i ] & 0xFF );
+        }
+        return gram;
+    }
+}
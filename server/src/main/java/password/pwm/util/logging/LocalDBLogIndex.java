@@ -0,0 +1,371 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.util.logging;
+
+import lombok.Value;
+import password.pwm.util.java.TimeDuration;
+import password.pwm.util.localdb.LocalDBStoredQueue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * In-memory secondary index of the {@link LocalDBLogger} event queue.  The queue is divided into segments of
+ * contiguous positions; each segment records its time range, the levels present, the user names present and
+ * whether it holds user and/or system events.  Searches use the segments to skip over ranges of the queue
+ * that can not contain a match and read only the remaining ranges.
+ *
+ * <p>The index is maintained by the logger writer and cleaner threads.  Events stored before startup are
+ * indexed by {@link #build(LocalDBStoredQueue, Function)} in the background; until it completes the
+ * index is not used for searching.</p>
+ */
+class LocalDBLogIndex
+{
+    private static final PwmLogger LOGGER = PwmLogger.forClass( LocalDBLogIndex.class );
+
+    static final int MAX_SEGMENT_EVENTS = 1000;
+    static final long SEGMENT_DURATION_MS = TimeDuration.MINUTE.asMillis();
+    static final int MAX_SEGMENT_USERNAMES = 100;
+
+    // keyed by sequence, newer segments have higher sequence values
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private final String buildStartKey;
+    private final long buildCount;
+
+    private volatile boolean complete;
+    private long pendingTrim;
+    private long nextSequence;
+    private SegmentBuilder openSegment;
+
+    LocalDBLogIndex( final String headKey, final long size )
+    {
+        this.buildStartKey = headKey;
+        this.buildCount = headKey == null ? 0 : size;
+        this.complete = buildCount == 0;
+    }
+
+    boolean isComplete( )
+    {
+        return complete;
+    }
+
+    int segmentCount( )
+    {
+        return segments.size();
+    }
+
+    /**
+     * Index events just added to the queue.
+     *
+     * @param events events in the order they were added, oldest first
+     * @param headKey queue key of the last (newest) event
+     */
+    synchronized void append( final List<PwmLogEvent> events, final String headKey )
+    {
+        final int size = events.size();
+        for ( int i = 0; i < size; i++ )
+        {
+            final PwmLogEvent event = events.get( i );
+            final String eventKey = LocalDBStoredQueue.offsetKey( headKey, size - 1 - i );
+
+            if ( openSegment == null
+                    || !openSegment.accepts( event )
+                    || !LocalDBStoredQueue.offsetKey( eventKey, 1 ).equals( openSegment.newestKey ) )
+            {
+                if ( openSegment != null )
+                {
+                    segments.put( openSegment.sequence, openSegment.build() );
+                }
+                openSegment = new SegmentBuilder( nextSequence++ );
+            }
+
+            openSegment.newestKey = eventKey;
+            openSegment.add( event );
+        }
+
+        if ( openSegment != null )
+        {
+            segments.put( openSegment.sequence, openSegment.build() );
+        }
+    }
+
+    /**
+     * Remove the given number of oldest events from the index, matching a removal from the queue tail.
+     */
+    synchronized void trim( final long count )
+    {
+        if ( !complete )
+        {
+            pendingTrim += count;
+            return;
+        }
+
+        long remaining = count;
+        while ( remaining > 0 && !segments.isEmpty() )
+        {
+            final Map.Entry<Long, Segment> oldest = segments.firstEntry();
+            final Segment segment = oldest.getValue();
+            final boolean isOpenSegment = openSegment != null && openSegment.sequence == oldest.getKey();
+            if ( segment.getCount() <= remaining )
+            {
+                segments.remove( oldest.getKey() );
+                remaining -= segment.getCount();
+                if ( isOpenSegment )
+                {
+                    openSegment = null;
+                }
+            }
+            else
+            {
+                final long newCount = segment.getCount() - remaining;
+                segments.put( oldest.getKey(), segment.withCount( newCount ) );
+                if ( isOpenSegment )
+                {
+                    openSegment.count = newCount;
+                }
+                remaining = 0;
+            }
+        }
+    }
+
+    synchronized void clear( )
+    {
+        segments.clear();
+        openSegment = null;
+    }
+
+    /**
+     * Index the events that were present in the queue when this index was created.
+     */
+    void build( final LocalDBStoredQueue queue, final Function<String, PwmLogEvent> eventDecoder )
+    {
+        if ( complete )
+        {
+            return;
+        }
+
+        final Instant startTime = Instant.now();
+        final List<Segment> builtSegments = new ArrayList<>();
+        SegmentBuilder builder = null;
+        long position = 0;
+
+        // events are read newest first, so segments are built from their newest event backwards
+        final Iterator<String> iterator = queue.iterator( buildStartKey, buildCount );
+        while ( iterator.hasNext() )
+        {
+            final String value = iterator.next();
+            final PwmLogEvent event = value == null ? null : eventDecoder.apply( value );
+
+            if ( builder == null || builder.count >= MAX_SEGMENT_EVENTS || ( event != null && !builder.accepts( event ) ) )
+            {
+                if ( builder != null )
+                {
+                    builtSegments.add( builder.build() );
+                }
+                builder = new SegmentBuilder( 0 );
+                builder.newestKey = LocalDBStoredQueue.offsetKey( buildStartKey, position );
+            }
+
+            if ( event == null )
+            {
+                builder.count++;
+            }
+            else
+            {
+                builder.add( event );
+            }
+            position++;
+        }
+
+        if ( builder != null )
+        {
+            builtSegments.add( builder.build() );
+        }
+
+        synchronized ( this )
+        {
+            long sequence = -1;
+            for ( final Segment segment : builtSegments )
+            {
+                segments.put( sequence--, segment );
+            }
+            complete = true;
+            final long trimCount = pendingTrim;
+            pendingTrim = 0;
+            trim( trimCount );
+        }
+
+        LOGGER.debug( () -> "indexed " + buildCount + " stored events into " + builtSegments.size() + " segments",
+                () -> TimeDuration.fromCurrent( startTime ) );
+    }
+
+    /**
+     * Stream the stored values of all segments that may match the query, newest first.
+     */
+    Iterator<String> search( final LocalDBStoredQueue queue, final LocalDBLogQuery query )
+    {
+        final Iterator<Segment> segmentIterator = segments.descendingMap().values().iterator();
+        return new Iterator<String>()
+        {
+            private Iterator<String> valueIterator = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext( )
+            {
+                while ( !valueIterator.hasNext() )
+                {
+                    if ( !segmentIterator.hasNext() )
+                    {
+                        return false;
+                    }
+
+                    final Segment segment = segmentIterator.next();
+                    if ( query.mayMatch( segment ) )
+                    {
+                        valueIterator = queue.iterator( segment.getNewestKey(), segment.getCount() );
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public String next( )
+            {
+                if ( !hasNext() )
+                {
+                    throw new NoSuchElementException();
+                }
+                return valueIterator.next();
+            }
+        };
+    }
+
+    @Value
+    static class Segment
+    {
+        private final String newestKey;
+        private final long count;
+        private final long minTimestamp;
+        private final long maxTimestamp;
+        private final int levelMask;
+
+        // null if the segment has too many distinct user names to track
+        private final Set<String> usernames;
+        private final boolean hasUserEvents;
+        private final boolean hasSystemEvents;
+
+        Segment withCount( final long newCount )
+        {
+            return new Segment( newestKey, newCount, minTimestamp, maxTimestamp, levelMask, usernames, hasUserEvents, hasSystemEvents );
+        }
+    }
+
+    private static class SegmentBuilder
+    {
+        private final long sequence;
+        private String newestKey;
+        private long count;
+        private long minTimestamp = Long.MAX_VALUE;
+        private long maxTimestamp = Long.MIN_VALUE;
+        private long segmentStart = -1;
+        private int levelMask;
+        private Set<String> usernames = new HashSet<>();
+        private boolean hasUserEvents;
+        private boolean hasSystemEvents;
+
+        SegmentBuilder( final long sequence )
+        {
+            this.sequence = sequence;
+        }
+
+        boolean accepts( final PwmLogEvent event )
+        {
+            return count < MAX_SEGMENT_EVENTS
+                    && ( segmentStart < 0 || Math.abs( timestampOf( event ) - segmentStart ) < SEGMENT_DURATION_MS );
+        }
+
+        void add( final PwmLogEvent event )
+        {
+            final long timestamp = timestampOf( event );
+            if ( segmentStart < 0 )
+            {
+                segmentStart = timestamp;
+            }
+            minTimestamp = Math.min( minTimestamp, timestamp );
+            maxTimestamp = Math.max( maxTimestamp, timestamp );
+            if ( event.getLevel() != null )
+            {
+                levelMask |= 1 << event.getLevel().ordinal();
+            }
+
+            final String username = event.getUsername();
+            if ( username == null || username.isEmpty() )
+            {
+                hasSystemEvents = true;
+            }
+            else
+            {
+                hasUserEvents = true;
+            }
+
+            if ( usernames != null )
+            {
+                usernames.add( username == null ? "" : username );
+                if ( usernames.size() > MAX_SEGMENT_USERNAMES )
+                {
+                    usernames = null;
+                }
+            }
+            count++;
+        }
+
+        Segment build( )
+        {
+            // a segment with no decodable events can not be excluded by any criteria
+            final boolean empty = minTimestamp > maxTimestamp;
+            return new Segment(
+                    newestKey,
+                    count,
+                    empty ? Long.MIN_VALUE : minTimestamp,
+                    empty ? Long.MAX_VALUE : maxTimestamp,
+                    empty ? -1 : levelMask,
+                    empty || usernames == null ? null : Collections.unmodifiableSet( new HashSet<>( usernames ) ),
+                    empty || hasUserEvents,
+                    empty || hasSystemEvents );
+        }
+
+        private static long timestampOf( final PwmLogEvent event )
+        {
+            return event.getTimestamp() == null ? 0 : event.getTimestamp().toEpochMilli();
+        }
+    }
+}
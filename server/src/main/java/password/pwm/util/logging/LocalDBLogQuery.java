@@ -0,0 +1,195 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.util.logging;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Compiled form of a {@link LocalDBSearchQuery}.  The username pattern and lowercase search text are prepared
+ * once per search rather than once per examined event.
+ */
+class LocalDBLogQuery
+{
+    private static final PwmLogger LOGGER = PwmLogger.forClass( LocalDBLogQuery.class );
+
+    private final PwmLogLevel minimumLevel;
+    private final LocalDBLogger.EventType eventType;
+    private final Pattern usernamePattern;
+    private final String usernameLiteral;
+    private final String text;
+    private final Instant startTime;
+    private final Instant endTime;
+
+    LocalDBLogQuery( final LocalDBSearchQuery searchQuery )
+    {
+        this.minimumLevel = searchQuery.getMinimumLevel();
+        this.eventType = searchQuery.getEventType();
+        this.startTime = searchQuery.getStartTime();
+        this.endTime = searchQuery.getEndTime();
+        this.text = searchQuery.getText() != null && searchQuery.getText().length() > 0
+                ? searchQuery.getText().toLowerCase()
+                : null;
+
+        final String username = searchQuery.getUsername();
+        Pattern pattern = null;
+        try
+        {
+            if ( username != null && username.length() > 0 )
+            {
+                pattern = Pattern.compile( username );
+            }
+        }
+        catch ( final PatternSyntaxException e )
+        {
+            LOGGER.trace( () -> "invalid regex syntax for " + username + ", reverting to plaintext search" );
+        }
+        this.usernamePattern = pattern;
+        this.usernameLiteral = pattern == null && username != null && username.length() > 1
+                ? username
+                : null;
+    }
+
+    boolean matches( final PwmLogEvent event )
+    {
+        if ( event == null )
+        {
+            return false;
+        }
+
+        if ( minimumLevel != null && event.getLevel().compareTo( minimumLevel ) < 0 )
+        {
+            return false;
+        }
+
+        if ( event.getTimestamp() != null )
+        {
+            if ( ( startTime != null && event.getTimestamp().isBefore( startTime ) )
+                    || ( endTime != null && event.getTimestamp().isAfter( endTime ) ) )
+            {
+                return false;
+            }
+        }
+
+        if ( !matchesEventType( event.getUsername() != null && event.getUsername().length() > 0 ) )
+        {
+            return false;
+        }
+
+        if ( !matchesUsername( event.getUsername() ) )
+        {
+            return false;
+        }
+
+        if ( text != null )
+        {
+            final String eventMessage = event.getMessage();
+            if ( eventMessage != null && eventMessage.length() > 0 )
+            {
+                return containsIgnoreCase( eventMessage, text )
+                        || ( event.getTopic() != null && containsIgnoreCase( event.getTopic(), text ) );
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Indicates if any event summarized by the segment could match this query.
+     */
+    boolean mayMatch( final LocalDBLogIndex.Segment segment )
+    {
+        if ( ( startTime != null && segment.getMaxTimestamp() < startTime.toEpochMilli() )
+                || ( endTime != null && segment.getMinTimestamp() > endTime.toEpochMilli() ) )
+        {
+            return false;
+        }
+
+        if ( minimumLevel != null && ( segment.getLevelMask() >>> minimumLevel.ordinal() ) == 0 )
+        {
+            return false;
+        }
+
+        if ( eventType == LocalDBLogger.EventType.System && !segment.isHasSystemEvents()
+                || eventType == LocalDBLogger.EventType.User && !segment.isHasUserEvents() )
+        {
+            return false;
+        }
+
+        final Set<String> usernames = segment.getUsernames();
+        if ( usernames != null && ( usernamePattern != null || usernameLiteral != null ) )
+        {
+            for ( final String username : usernames )
+            {
+                if ( matchesUsername( username ) )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        return true;
+    }
+
+    private boolean matchesEventType( final boolean userEvent )
+    {
+        if ( eventType == LocalDBLogger.EventType.System )
+        {
+            return !userEvent;
+        }
+        if ( eventType == LocalDBLogger.EventType.User )
+        {
+            return userEvent;
+        }
+        return true;
+    }
+
+    private boolean matchesUsername( final String username )
+    {
+        if ( usernamePattern != null )
+        {
+            return usernamePattern.matcher( username == null ? "" : username ).find();
+        }
+        if ( usernameLiteral != null )
+        {
+            return username != null && username.equalsIgnoreCase( usernameLiteral );
+        }
+        return true;
+    }
+
+    private static boolean containsIgnoreCase( final String value, final String lowercaseSearch )
+    {
+        final int searchLength = lowercaseSearch.length();
+        final int maxStart = value.length() - searchLength;
+        for ( int start = 0; start <= maxStart; start++ )
+        {
+            if ( value.regionMatches( true, start, lowercaseSearch, 0, searchLength ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -41,6 +41,7 @@ import java.io.IOException;
 import java.text.NumberFormat;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
@@ -49,9 +50,6 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
 
 /**
  * Saves a recent copy of PWM events in the pwmDB.
@@ -65,6 +63,7 @@ public class LocalDBLogger implements PwmService
     private final LocalDB localDB;
     private final LocalDBLoggerSettings settings;
     private final LocalDBStoredQueue localDBListQueue;
+    private final LocalDBLogIndex logIndex;
     private final Queue<PwmLogEvent> eventQueue;
     private final ScheduledExecutorService cleanerService;
     private final ScheduledExecutorService writerService;
@@ -122,6 +121,8 @@ public class LocalDBLogger implements PwmService
                     } );
         }
 
+        logIndex = new LocalDBLogIndex( localDBListQueue.headKey(), localDBListQueue.size() );
+
         status = STATUS.OPEN;
 
         cleanerService = Executors.newSingleThreadScheduledExecutor(
@@ -136,6 +137,7 @@ public class LocalDBLogger implements PwmService
                         true
                 ) );
 
+        cleanerService.execute( () -> logIndex.build( localDBListQueue, this::readEvent ) );
         cleanerService.scheduleAtFixedRate( new CleanupTask(), 0, 1, TimeUnit.MINUTES );
         writerService.scheduleWithFixedDelay( new FlushTask(), 0, 103, TimeUnit.MILLISECONDS );
 
@@ -182,6 +184,7 @@ public class LocalDBLogger implements PwmService
         sb.append( ", tailAge=" ).append( tailAge == null ? "n/a" : TimeDuration.fromCurrent( tailAge ).asCompactString() );
         sb.append( ", maxEvents=" ).append( settings.getMaxEvents() );
         sb.append( ", maxAge=" ).append( settings.getMaxAge().asCompactString() );
+        sb.append( ", indexSegments=" ).append( logIndex.segmentCount() );
         sb.append( ", localDBSize=" ).append( StringUtil.formatDiskSize( FileSystemUtility.getFileDirectorySize( localDB.getFileLocation() ) ) );
         return sb.toString();
     }
@@ -257,11 +260,23 @@ public class LocalDBLogger implements PwmService
         User, System, Both
     }
 
+    /**
+     * Oldest timestamp within the configured retention window, used as the default start of a search time range.
+     */
+    public Instant retentionWindowStart( )
+    {
+        return Instant.now().minus( settings.getMaxAge().asDuration() );
+    }
+
     public LocalDBSearchResults readStoredEvents(
             final LocalDBSearchQuery searchParameters
     )
     {
-        return new LocalDBSearchResults( this, localDBListQueue.iterator(), searchParameters );
+        final LocalDBLogQuery logQuery = new LocalDBLogQuery( searchParameters );
+        final Iterator<String> valueIterator = logIndex.isComplete()
+                ? logIndex.search( localDBListQueue, logQuery )
+                : localDBListQueue.iterator();
+        return new LocalDBSearchResults( this, valueIterator, searchParameters, logQuery );
     }
 
     PwmLogEvent readEvent( final String value )
@@ -281,101 +296,6 @@ public class LocalDBLogger implements PwmService
         return null;
     }
 
-    boolean checkEventForParams(
-            final PwmLogEvent event,
-            final LocalDBSearchQuery searchParameters
-    )
-    {
-        if ( event == null )
-        {
-            return false;
-        }
-
-        boolean eventMatchesParams = true;
-
-        if ( searchParameters.getMinimumLevel() != null )
-        {
-            if ( event.getLevel().compareTo( searchParameters.getMinimumLevel() ) <= -1 )
-            {
-                eventMatchesParams = false;
-            }
-        }
-
-        Pattern pattern = null;
-        try
-        {
-            if ( searchParameters.getUsername() != null && searchParameters.getUsername().length() > 0 )
-            {
-                pattern = Pattern.compile( searchParameters.getUsername() );
-            }
-        }
-        catch ( final PatternSyntaxException e )
-        {
-            LOGGER.trace( () -> "invalid regex syntax for " + searchParameters.getUsername() + ", reverting to plaintext search" );
-        }
-        if ( pattern != null )
-        {
-            final Matcher matcher = pattern.matcher( event.getUsername() == null ? "" : event.getUsername() );
-            if ( !matcher.find() )
-            {
-                eventMatchesParams = false;
-            }
-        }
-        else if ( eventMatchesParams && ( searchParameters.getUsername() != null && searchParameters.getUsername().length() > 1 ) )
-        {
-            final String eventUsername = event.getUsername();
-            if ( eventUsername == null || !eventUsername.equalsIgnoreCase( searchParameters.getUsername() ) )
-            {
-                eventMatchesParams = false;
-            }
-        }
-
-        if ( eventMatchesParams && ( searchParameters.getText() != null && searchParameters.getText().length() > 0 ) )
-        {
-            final String eventMessage = event.getMessage();
-            final String textLowercase = searchParameters.getText().toLowerCase();
-            boolean isAMatch = false;
-            if ( eventMessage != null && eventMessage.length() > 0 )
-            {
-                if ( eventMessage.toLowerCase().contains( textLowercase ) )
-                {
-                    isAMatch = true;
-                }
-                else if ( event.getTopic() != null && event.getTopic().length() > 0 )
-                {
-                    if ( event.getTopic().toLowerCase().contains( textLowercase ) )
-                    {
-                        isAMatch = true;
-                    }
-                }
-                if ( !isAMatch )
-                {
-                    eventMatchesParams = false;
-                }
-            }
-        }
-
-        if ( searchParameters.getEventType() != null )
-        {
-            if ( searchParameters.getEventType() == EventType.System )
-            {
-                if ( event.getUsername() != null && event.getUsername().length() > 0 )
-                {
-                    eventMatchesParams = false;
-                }
-            }
-            else if ( searchParameters.getEventType() == EventType.User )
-            {
-                if ( event.getUsername() == null || event.getUsername().length() < 1 )
-                {
-                    eventMatchesParams = false;
-                }
-            }
-        }
-
-        return eventMatchesParams;
-    }
-
     public void writeEvent( final PwmLogEvent event )
     {
         if ( status == STATUS.OPEN )
@@ -399,12 +319,14 @@ public class LocalDBLogger implements PwmService
     private void flushEvents( )
     {
         final List<String> localBuffer = new ArrayList<>();
+        final List<PwmLogEvent> bufferedEvents = new ArrayList<>();
         while ( localBuffer.size() < ( settings.getMaxBufferSize() ) - 1 && !eventQueue.isEmpty() )
         {
             final PwmLogEvent pwmLogEvent = eventQueue.poll();
             try
             {
                 localBuffer.add( pwmLogEvent.toEncodedString() );
+                bufferedEvents.add( pwmLogEvent );
             }
             catch ( final IOException e )
             {
@@ -417,8 +339,13 @@ public class LocalDBLogger implements PwmService
             if ( cleanOnWriteFlag.get() )
             {
                 localDBListQueue.removeLast( localBuffer.size() );
+                logIndex.trim( localBuffer.size() );
             }
             localDBListQueue.addAll( localBuffer );
+            if ( !bufferedEvents.isEmpty() )
+            {
+                logIndex.append( bufferedEvents, localDBListQueue.headKey() );
+            }
         }
         catch ( final Exception e )
         {
@@ -461,6 +388,7 @@ public class LocalDBLogger implements PwmService
                         cleanOnWriteFlag.set( true );
                         final Instant startTime = Instant.now();
                         localDBListQueue.removeLast( cleanupCount );
+                        logIndex.trim( cleanupCount );
                         final TimeDuration purgeTime = TimeDuration.fromCurrent( startTime );
                         final TimeDuration pauseTime = TimeDuration.of( JavaHelper.rangeCheck( 20, 2000, ( int ) purgeTime.asMillis() ), TimeDuration.Unit.MILLISECONDS );
                         pauseTime.pause();
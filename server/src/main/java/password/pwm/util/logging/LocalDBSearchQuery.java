@@ -24,6 +24,8 @@ import lombok.Builder;
 import lombok.Value;
 import password.pwm.util.java.TimeDuration;
 
+import java.time.Instant;
+
 @Value
 @Builder
 public class LocalDBSearchQuery
@@ -34,4 +36,6 @@ public class LocalDBSearchQuery
     private String text;
     private TimeDuration maxQueryTime;
     private LocalDBLogger.EventType eventType;
+    private Instant startTime;
+    private Instant endTime;
 }
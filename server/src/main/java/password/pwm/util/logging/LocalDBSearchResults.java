@@ -31,6 +31,7 @@ public class LocalDBSearchResults implements Iterator<PwmLogEvent>
     private transient LocalDBLogger localDBLogger;
     private final Iterator<String> localDBIterator;
     private final LocalDBSearchQuery searchParameters;
+    private final LocalDBLogQuery logQuery;
 
     private final Instant startTime;
 
@@ -40,13 +41,15 @@ public class LocalDBSearchResults implements Iterator<PwmLogEvent>
 
     LocalDBSearchResults( final LocalDBLogger localDBLogger,
                           final Iterator<String> localDBIterator,
-                          final LocalDBSearchQuery searchParameters
+                          final LocalDBSearchQuery searchParameters,
+                          final LocalDBLogQuery logQuery
     )
     {
         this.localDBLogger = localDBLogger;
         startTime = Instant.now();
         this.localDBIterator = localDBIterator;
         this.searchParameters = searchParameters;
+        this.logQuery = logQuery;
         nextEvent = readNextEvent();
     }
 
@@ -100,12 +103,12 @@ public class LocalDBSearchResults implements Iterator<PwmLogEvent>
             final String nextDbValue = localDBIterator.next();
             if ( nextDbValue == null )
             {
-                finishTime = Instant.now();
-                return null;
+                // value removed by the cleaner after the search started
+                continue;
             }
 
             final PwmLogEvent logEvent = localDBLogger.readEvent( nextDbValue );
-            if ( logEvent != null && localDBLogger.checkEventForParams( logEvent, searchParameters ) )
+            if ( logEvent != null && logQuery.matches( logEvent ) )
             {
                 eventCount++;
                 return logEvent;
@@ -20,8 +20,9 @@
 
 package password.pwm.util.macro;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Value;
 import password.pwm.PwmApplication;
 import password.pwm.PwmApplicationMode;
 import password.pwm.PwmConstants;
@@ -36,19 +37,23 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumSet;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class MacroMachine
 {
     private static final PwmLogger LOGGER = PwmLogger.forClass( MacroMachine.class );
 
-    private static final Map<Pattern, Macro> BUILTIN_MACROS = makeImplementations();
+    private static final List<Macro> BUILTIN_MACROS = makeImplementations();
+
+    /**
+     * Upper bound on the total length of input strings held in the compiled template cache.
+     */
+    private static final long TEMPLATE_CACHE_MAX_CHARS = 4_000_000;
+
+    private static final AtomicReference<MacroSet> MACRO_SET = new AtomicReference<>( new MacroSet( Collections.emptyList() ) );
 
     private static final StatisticCounterBundle<DebugItem> STATISTIC_COUNTER_BUNDLE = new StatisticCounterBundle<>( DebugItem.class );
 
@@ -57,54 +62,75 @@ public class MacroMachine
         Matches,
         Replacements,
         ExternalInvokes,
+        TemplateCompiles,
+    }
+
+    private static List<Macro> makeImplementations( )
+    {
+        final List<Macro> list = new ArrayList<>();
+        list.addAll( SystemMacros.SYSTEM_MACROS );
+        list.addAll( StaticMacros.STATIC_MACROS );
+        list.addAll( UserMacros.USER_MACROS );
+        list.sort( Comparator.comparing( Macro::getSequence ) );
+        return Collections.unmodifiableList( list );
     }
 
-    private static Map<Pattern, Macro> makeImplementations( )
+    /**
+     * Built-in and external macros for a given set of external macro URLs, together with the templates
+     * compiled against them.  Replaced as a whole when the configured external macros change.
+     */
+    @Value
+    private static class MacroSet
     {
-        final List<Macro> implementations;
+        private final List<String> externalUrls;
+        private final List<Macro> macros;
+        private final Cache<String, MacroTemplate> templates;
+
+        MacroSet( final List<String> externalUrls )
         {
-            final List<Macro> list = new ArrayList<>();
-            list.addAll( SystemMacros.SYSTEM_MACROS );
-            list.addAll( StaticMacros.STATIC_MACROS );
-            list.addAll( UserMacros.USER_MACROS );
-            implementations = Collections.unmodifiableList( list );
-        }
+            this.externalUrls = externalUrls;
 
-        return implementations
-                .stream()
-                .sorted( Comparator.comparing( Macro::getSequence ) )
-                .collect(
-                        Collectors.toMap(
-                                Macro::getRegExPattern,
-                                macroImplementation -> macroImplementation,
-                                ( k, v ) ->
-                                {
-                                    throw new IllegalStateException();
-                                },
-                                LinkedHashMap::new
-                        )
-                );
+            final List<Macro> macroList = new ArrayList<>( BUILTIN_MACROS );
+            int iteration = 0;
+            for ( final String url : externalUrls )
+            {
+                iteration++;
+                macroList.add( new ExternalRestMacro( iteration, url ) );
+            }
+            this.macros = Collections.unmodifiableList( macroList );
 
+            this.templates = Caffeine.newBuilder()
+                    .maximumWeight( TEMPLATE_CACHE_MAX_CHARS )
+                    .weigher( ( String key, MacroTemplate value ) -> key.length() )
+                    .build();
+        }
+
+        MacroTemplate template( final String input )
+        {
+            return templates.get( input, key ->
+            {
+                STATISTIC_COUNTER_BUNDLE.increment( DebugItem.TemplateCompiles );
+                return MacroTemplate.compile( key, macros );
+            } );
+        }
     }
 
-    private static Map<Pattern, Macro> makeExternalImplementations( final PwmApplication pwmApplication )
+    private static MacroSet macroSetForApplication( final PwmApplication pwmApplication )
     {
-        final LinkedHashMap<Pattern, Macro> map = new LinkedHashMap<>();
-        final List<String> externalMethods = ( pwmApplication == null )
+        final List<String> externalUrls = ( pwmApplication == null )
                 ? Collections.emptyList()
                 : pwmApplication.getConfig().readSettingAsStringArray( PwmSetting.EXTERNAL_MACROS_REST_URLS );
 
-        int iteration = 0;
-        for ( final String url : externalMethods )
+        final MacroSet currentSet = MACRO_SET.get();
+        if ( Objects.equals( currentSet.getExternalUrls(), externalUrls ) )
         {
-            iteration++;
-            final Macro macroImplementation = new ExternalRestMacro( iteration, url );
-            final Pattern pattern = macroImplementation.getRegExPattern();
-            map.put( pattern, macroImplementation );
+            return currentSet;
         }
-        return map;
-    }
 
+        final MacroSet newSet = new MacroSet( List.copyOf( externalUrls ) );
+        MACRO_SET.set( newSet );
+        return newSet;
+    }
 
     public static String expandMacros(
             final MacroRequest macroRequest,
@@ -116,82 +142,66 @@ public class MacroMachine
             return null;
         }
 
-        if ( input.length() < 1 )
+        // every macro is delimited by '@', so strings without one need no further work
+        if ( input.indexOf( '@' ) < 0 )
         {
             return input;
         }
 
-        final Set<Macro.Scope> scopes = effectiveScopesForRequest( macroRequest );
-
-        final Map<Pattern, Macro> macroImplementations = new LinkedHashMap<>( BUILTIN_MACROS );
-
-        //First the User macros
-        if ( scopes.contains( Macro.Scope.User ) )
+        final MacroSet macroSet = macroSetForApplication( macroRequest.getPwmApplication() );
+        final MacroTemplate template = macroSet.template( input );
+        if ( template.isLiteral() )
         {
-            macroImplementations.putAll( makeExternalImplementations( macroRequest.getPwmApplication() ) );
+            return input;
         }
 
-        final ReplaceWorkData workData = new ReplaceWorkData( input, input, macroRequest );
-
-        macroImplementations.entrySet().stream()
-                .filter( entry -> scopes.contains( entry.getValue().getScope() ) )
-                .forEachOrdered( entry -> doRequest( workData,  entry.getKey(), entry.getValue() ) );
-
-        return workData.getWorkingString();
-    }
-
-    @Data
-    @AllArgsConstructor
-    private static class ReplaceWorkData
-    {
-        private String originalString;
-        private String workingString;
-        private MacroRequest macroRequestInfo;
+        final Set<Macro.Scope> scopes = effectiveScopesForRequest( macroRequest );
+        return expandTemplate( template, scopes, macroRequest );
     }
 
-    private static void doRequest(
-            final ReplaceWorkData replaceWorkData,
-            final Pattern pattern,
-            final Macro pwmMacro
+    private static String expandTemplate(
+            final MacroTemplate template,
+            final Set<Macro.Scope> scopes,
+            final MacroRequest macroRequest
     )
     {
-        boolean matched;
-        int safetyCounter = 0;
-        do
+        final StringBuilder output = new StringBuilder();
+        for ( final MacroTemplate.Segment segment : template.getSegments() )
         {
-            safetyCounter++;
-            final Matcher matcher = pattern.matcher( replaceWorkData.getWorkingString() );
-            matched = matcher.find();
-            if ( matched )
+            if ( segment instanceof MacroTemplate.LiteralSegment )
+            {
+                output.append( ( ( MacroTemplate.LiteralSegment ) segment ).getText() );
+                continue;
+            }
+
+            final MacroTemplate.MacroSegment macroSegment = ( MacroTemplate.MacroSegment ) segment;
+            final String matchText = macroSegment.getNestedTemplate() == null
+                    ? macroSegment.getMatchText()
+                    : "@" + expandTemplate( macroSegment.getNestedTemplate(), scopes, macroRequest ) + "@";
+
+            final Macro macro = macroSegment.getMacro();
+            if ( !scopes.contains( macro.getScope() ) )
             {
-                STATISTIC_COUNTER_BUNDLE.increment( DebugItem.Matches );
-                replaceWorkData.setWorkingString( doReplace( replaceWorkData.getWorkingString(), pwmMacro, matcher, replaceWorkData.getMacroRequestInfo() ) );
-                if ( replaceWorkData.getWorkingString().equals( replaceWorkData.getOriginalString() ) )
-                {
-                    LOGGER.warn(
-                            replaceWorkData.getMacroRequestInfo().getSessionLabel(),
-                            () -> "macro replace was called but input string was not modified.  " + " macro="
-                                    + pwmMacro.getClass().getName() + ", pattern=" + pwmMacro.getRegExPattern().toString() );
-                    break;
-                }
+                output.append( matchText );
+                continue;
             }
+
+            STATISTIC_COUNTER_BUNDLE.increment( DebugItem.Matches );
+            final String replaceStr = doReplace( matchText, macro, macroRequest );
+            output.append( replaceStr == null ? matchText : replaceStr );
         }
-        while ( matched && safetyCounter < 1000 );
+        return output.toString();
     }
 
     private static String doReplace(
-            final String input,
+            final String matchedStr,
             final Macro macroImplementation,
-            final Matcher matcher,
             final MacroRequest macroRequestInfo
     )
     {
         final SessionLabel sessionLabel = macroRequestInfo.getSessionLabel();
         final PwmApplication pwmApplication = macroRequestInfo.getPwmApplication();
         final Instant startTime = Instant.now();
-        final String matchedStr = matcher.group();
-        final int startPos = matcher.start();
-        final int endPos = matcher.end();
 
         String replaceStr = "";
         try
@@ -217,7 +227,7 @@ public class MacroMachine
 
         if ( replaceStr == null )
         {
-            return input;
+            return null;
         }
 
         final MacroReplacer macroReplacer = macroRequestInfo.getMacroReplacer();
@@ -246,7 +256,7 @@ public class MacroMachine
                         () -> TimeDuration.fromCurrent( startTime ) );
             }
         }
-        return new StringBuilder( input ).replace( startPos, endPos, replaceStr ).toString();
+        return replaceStr;
     }
 
     private static Set<Macro.Scope> effectiveScopesForRequest( final MacroRequest macroRequestInfo )
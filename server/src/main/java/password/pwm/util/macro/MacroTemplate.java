@@ -0,0 +1,144 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.util.macro;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+
+/**
+ * An input string compiled once into literal and macro segments.  Compiling scans the input a single
+ * time, trying the known macro patterns only at {@code @} characters; expanding a compiled template
+ * then costs one pass over the segments plus the macro lookups themselves.
+ *
+ * <p>The body of a {@link Macro.Sequence#post} macro (such as {@code @Encode:base64:[[...]]@}) may
+ * itself contain macros, so it is compiled as a nested template that is expanded before the post
+ * macro is applied.</p>
+ */
+@Value
+class MacroTemplate
+{
+    private final List<Segment> segments;
+
+    interface Segment
+    {
+    }
+
+    @Value
+    static class LiteralSegment implements Segment
+    {
+        private final String text;
+    }
+
+    @Value
+    static class MacroSegment implements Segment
+    {
+        private final Macro macro;
+        private final String matchText;
+
+        /**
+         * Template of the text between the outer {@code @} delimiters, or null if the match contains no nested macros.
+         */
+        private final MacroTemplate nestedTemplate;
+    }
+
+    boolean isLiteral()
+    {
+        return segments.stream().allMatch( segment -> segment instanceof LiteralSegment );
+    }
+
+    static MacroTemplate compile( final String input, final List<Macro> macros )
+    {
+        final List<Segment> segments = new ArrayList<>();
+        final List<Matcher> matchers = new ArrayList<>( macros.size() );
+        for ( final Macro macro : macros )
+        {
+            matchers.add( macro.getRegExPattern().matcher( input ) );
+        }
+
+        int literalStart = 0;
+        int position = input.indexOf( '@' );
+        while ( position >= 0 )
+        {
+            final int matchIndex = matchAt( matchers, position, input.length() );
+            if ( matchIndex < 0 )
+            {
+                position = input.indexOf( '@', position + 1 );
+                continue;
+            }
+
+            final Matcher matcher = matchers.get( matchIndex );
+            final Macro macro = macros.get( matchIndex );
+            final String matchText = matcher.group();
+
+            if ( position > literalStart )
+            {
+                segments.add( new LiteralSegment( input.substring( literalStart, position ) ) );
+            }
+            segments.add( new MacroSegment( macro, matchText, compileNested( macro, matchText, macros ) ) );
+
+            literalStart = matcher.end();
+            position = input.indexOf( '@', literalStart );
+        }
+
+        if ( literalStart < input.length() )
+        {
+            segments.add( new LiteralSegment( input.substring( literalStart ) ) );
+        }
+
+        return new MacroTemplate( Collections.unmodifiableList( segments ) );
+    }
+
+    private static int matchAt( final List<Matcher> matchers, final int position, final int length )
+    {
+        for ( int i = 0; i < matchers.size(); i++ )
+        {
+            final Matcher matcher = matchers.get( i );
+            matcher.region( position, length );
+            if ( matcher.lookingAt() )
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static MacroTemplate compileNested( final Macro macro, final String matchText, final List<Macro> macros )
+    {
+        if ( macro.getSequence() != Macro.Sequence.post || matchText.length() < 3 )
+        {
+            return null;
+        }
+
+        final String body = matchText.substring( 1, matchText.length() - 1 );
+        if ( body.indexOf( '@' ) < 0 )
+        {
+            return null;
+        }
+
+        final MacroTemplate nestedTemplate = compile( body, macros );
+        return nestedTemplate.isLiteral() ? null : nestedTemplate;
+    }
+}
@@ -0,0 +1,471 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.util.password;
+
+import password.pwm.config.profile.PwmPasswordPolicy;
+import password.pwm.config.profile.PwmPasswordRule;
+import password.pwm.util.secure.PwmRandom;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Builds random passwords directly from a {@link PwmPasswordPolicy}.  The policy's length, character class,
+ * first/last character and repetition rules are compiled once into per-class quotas and placement constraints,
+ * after which each password is assembled in a single pass instead of by trial and error.
+ *
+ * <p>Rules that can not be expressed as quotas or placement constraints (strength, regular expressions, character
+ * groups, wordlist and disallowed values) are not modeled here, so callers must still validate the result.</p>
+ */
+final class ConstructivePasswordGenerator
+{
+    private static final int UPPER = 0;
+    private static final int LOWER = 1;
+    private static final int NUMERIC = 2;
+    private static final int SPECIAL = 3;
+    private static final int CLASS_COUNT = 4;
+
+    // placement can occasionally paint itself into a corner; a fresh draw is far cheaper than falling back
+    private static final int MAX_ARRANGE_ATTEMPTS = 5;
+
+    private final char[][] alphabets;
+    private final int[] minimums = new int[ CLASS_COUNT ];
+    private final int[] maximums = new int[ CLASS_COUNT ];
+    private final boolean[] allowedFirst = new boolean[ CLASS_COUNT ];
+    private final boolean[] allowedLast = new boolean[ CLASS_COUNT ];
+    private final int minimumAlpha;
+    private final int maximumAlpha;
+    private final int minimumNonAlpha;
+    private final int maximumNonAlpha;
+    private final int minimumLength;
+    private final int maximumLength;
+    private final int maximumRepeat;
+    private final int maximumSequentialRepeat;
+    private final int maximumConsecutive;
+    private final int minimumUnique;
+
+    private ConstructivePasswordGenerator(
+            final PasswordRuleReaderHelper ruleHelper,
+            final RandomPasswordGenerator.SeedMachine seedMachine,
+            final int minimumLength,
+            final int maximumLength
+    )
+    {
+        this.alphabets = new char[][] {
+                seedMachine.getUpperChars().toCharArray(),
+                seedMachine.getLowerChars().toCharArray(),
+                seedMachine.getNumChars().toCharArray(),
+                seedMachine.getSpecialChars().toCharArray(),
+        };
+
+        final boolean allowNonAlpha = ruleHelper.readBooleanValue( PwmPasswordRule.AllowNonAlpha );
+        final boolean allowNumeric = ruleHelper.readBooleanValue( PwmPasswordRule.AllowNumeric );
+        final boolean allowSpecial = ruleHelper.readBooleanValue( PwmPasswordRule.AllowSpecial );
+
+        minimums[ UPPER ] = ruleHelper.readIntValue( PwmPasswordRule.MinimumUpperCase );
+        maximums[ UPPER ] = limit( ruleHelper.readIntValue( PwmPasswordRule.MaximumUpperCase ) );
+        minimums[ LOWER ] = ruleHelper.readIntValue( PwmPasswordRule.MinimumLowerCase );
+        maximums[ LOWER ] = limit( ruleHelper.readIntValue( PwmPasswordRule.MaximumLowerCase ) );
+        minimums[ NUMERIC ] = allowNumeric ? ruleHelper.readIntValue( PwmPasswordRule.MinimumNumeric ) : 0;
+        maximums[ NUMERIC ] = allowNumeric && allowNonAlpha ? limit( ruleHelper.readIntValue( PwmPasswordRule.MaximumNumeric ) ) : 0;
+        minimums[ SPECIAL ] = allowSpecial ? ruleHelper.readIntValue( PwmPasswordRule.MinimumSpecial ) : 0;
+        maximums[ SPECIAL ] = allowSpecial && allowNonAlpha ? limit( ruleHelper.readIntValue( PwmPasswordRule.MaximumSpecial ) ) : 0;
+
+        for ( int charClass = 0; charClass < CLASS_COUNT; charClass++ )
+        {
+            allowedFirst[ charClass ] = true;
+            allowedLast[ charClass ] = true;
+        }
+        allowedFirst[ NUMERIC ] = ruleHelper.readBooleanValue( PwmPasswordRule.AllowFirstCharNumeric );
+        allowedLast[ NUMERIC ] = ruleHelper.readBooleanValue( PwmPasswordRule.AllowLastCharNumeric );
+        allowedFirst[ SPECIAL ] = ruleHelper.readBooleanValue( PwmPasswordRule.AllowFirstCharSpecial );
+        allowedLast[ SPECIAL ] = ruleHelper.readBooleanValue( PwmPasswordRule.AllowLastCharSpecial );
+
+        this.minimumAlpha = ruleHelper.readIntValue( PwmPasswordRule.MinimumAlpha );
+        this.maximumAlpha = limit( ruleHelper.readIntValue( PwmPasswordRule.MaximumAlpha ) );
+        this.minimumNonAlpha = allowNonAlpha ? ruleHelper.readIntValue( PwmPasswordRule.MinimumNonAlpha ) : 0;
+        this.maximumNonAlpha = allowNonAlpha ? limit( ruleHelper.readIntValue( PwmPasswordRule.MaximumNonAlpha ) ) : 0;
+
+        this.minimumLength = Math.max( minimumLength, ruleHelper.readIntValue( PwmPasswordRule.MinimumLength ) );
+        this.maximumLength = Math.min( maximumLength, limit( ruleHelper.readIntValue( PwmPasswordRule.MaximumLength ) ) );
+
+        this.maximumRepeat = limit( ruleHelper.readIntValue( PwmPasswordRule.MaximumRepeat ) );
+        this.maximumSequentialRepeat = limit( ruleHelper.readIntValue( PwmPasswordRule.MaximumSequentialRepeat ) );
+        final int consecutive = ruleHelper.readIntValue( PwmPasswordRule.MaximumConsecutive );
+        this.maximumConsecutive = consecutive > 1 ? consecutive : Integer.MAX_VALUE;
+        this.minimumUnique = ruleHelper.readIntValue( PwmPasswordRule.MinimumUnique );
+    }
+
+    static ConstructivePasswordGenerator compile(
+            final PwmPasswordPolicy passwordPolicy,
+            final RandomPasswordGenerator.SeedMachine seedMachine,
+            final int minimumLength,
+            final int maximumLength
+    )
+    {
+        return new ConstructivePasswordGenerator( passwordPolicy.getRuleHelper(), seedMachine, minimumLength, maximumLength );
+    }
+
+    /**
+     * Build a new password.
+     *
+     * @param pwmRandom random source
+     * @return a password satisfying the compiled quotas and constraints, or empty if the policy can not be satisfied
+     *     constructively (in which case the caller should fall back to another strategy).
+     */
+    Optional<String> generate( final PwmRandom pwmRandom )
+    {
+        for ( int attempt = 0; attempt < MAX_ARRANGE_ATTEMPTS; attempt++ )
+        {
+            final Optional<int[]> counts = planCounts( pwmRandom );
+            if ( counts.isEmpty() )
+            {
+                return Optional.empty();
+            }
+
+            final Optional<String> password = drawCharacters( pwmRandom, counts.get() )
+                    .flatMap( chars -> arrange( pwmRandom, chars ) );
+            if ( password.isPresent() )
+            {
+                return password;
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Decide how many characters of each class the password will contain.
+     */
+    private Optional<int[]> planCounts( final PwmRandom pwmRandom )
+    {
+        final int[] counts = minimums.clone();
+        for ( int charClass = 0; charClass < CLASS_COUNT; charClass++ )
+        {
+            if ( counts[ charClass ] > maximums[ charClass ] || ( counts[ charClass ] > 0 && alphabets[ charClass ].length == 0 ) )
+            {
+                return Optional.empty();
+            }
+        }
+
+        if ( !raiseGroup( pwmRandom, counts, UPPER, LOWER, minimumAlpha )
+                || !raiseGroup( pwmRandom, counts, NUMERIC, SPECIAL, minimumNonAlpha ) )
+        {
+            return Optional.empty();
+        }
+
+        if ( counts[ UPPER ] + counts[ LOWER ] > maximumAlpha || counts[ NUMERIC ] + counts[ SPECIAL ] > maximumNonAlpha )
+        {
+            return Optional.empty();
+        }
+
+        final int requiredCount = counts[ UPPER ] + counts[ LOWER ] + counts[ NUMERIC ] + counts[ SPECIAL ];
+        final long capacity = Math.min( (long) maximums[ UPPER ] + maximums[ LOWER ], maximumAlpha )
+                + Math.min( (long) maximums[ NUMERIC ] + maximums[ SPECIAL ], maximumNonAlpha );
+        final int lowLength = Math.max( Math.max( minimumLength, requiredCount ), minimumUnique );
+        final int highLength = (int) Math.min( maximumLength, capacity );
+        if ( lowLength > highLength )
+        {
+            return Optional.empty();
+        }
+
+        final int length = lowLength + pwmRandom.nextInt( highLength - lowLength + 1 );
+        for ( int filled = requiredCount; filled < length; filled++ )
+        {
+            final int charClass = pickClassWithRoom( pwmRandom, counts, 0, CLASS_COUNT );
+            if ( charClass < 0 )
+            {
+                return Optional.empty();
+            }
+            counts[ charClass ]++;
+        }
+
+        return Optional.of( counts );
+    }
+
+    private boolean raiseGroup( final PwmRandom pwmRandom, final int[] counts, final int firstClass, final int secondClass, final int groupMinimum )
+    {
+        while ( counts[ firstClass ] + counts[ secondClass ] < groupMinimum )
+        {
+            final int charClass = pickClassWithRoom( pwmRandom, counts, firstClass, secondClass + 1 );
+            if ( charClass < 0 )
+            {
+                return false;
+            }
+            counts[ charClass ]++;
+        }
+        return true;
+    }
+
+    /**
+     * Pick a class that can still take another character, weighted by alphabet size so that the resulting
+     * distribution resembles drawing uniformly from all seed characters.
+     */
+    private int pickClassWithRoom( final PwmRandom pwmRandom, final int[] counts, final int fromClass, final int toClass )
+    {
+        final int[] weights = new int[ CLASS_COUNT ];
+        int totalWeight = 0;
+        for ( int charClass = fromClass; charClass < toClass; charClass++ )
+        {
+            if ( hasRoom( counts, charClass ) )
+            {
+                weights[ charClass ] = alphabets[ charClass ].length;
+                totalWeight += weights[ charClass ];
+            }
+        }
+
+        if ( totalWeight == 0 )
+        {
+            return -1;
+        }
+
+        int selection = pwmRandom.nextInt( totalWeight );
+        for ( int charClass = fromClass; charClass < toClass; charClass++ )
+        {
+            if ( selection < weights[ charClass ] )
+            {
+                return charClass;
+            }
+            selection -= weights[ charClass ];
+        }
+        return -1;
+    }
+
+    private boolean hasRoom( final int[] counts, final int charClass )
+    {
+        if ( alphabets[ charClass ].length == 0 || counts[ charClass ] >= maximums[ charClass ] )
+        {
+            return false;
+        }
+
+        return charClass == UPPER || charClass == LOWER
+                ? counts[ UPPER ] + counts[ LOWER ] < maximumAlpha
+                : counts[ NUMERIC ] + counts[ SPECIAL ] < maximumNonAlpha;
+    }
+
+    /**
+     * Draw the planned number of characters from each class, honoring the overall repeat limit and preferring
+     * unused characters until the unique character minimum is met.
+     */
+    private Optional<char[]> drawCharacters( final PwmRandom pwmRandom, final int[] counts )
+    {
+        final int length = counts[ UPPER ] + counts[ LOWER ] + counts[ NUMERIC ] + counts[ SPECIAL ];
+        final char[] chars = new char[ length ];
+        final Map<Character, Integer> occurrences = new HashMap<>();
+        final char[] candidates = new char[ maxAlphabetLength() ];
+
+        int index = 0;
+        for ( int charClass = 0; charClass < CLASS_COUNT; charClass++ )
+        {
+            for ( int i = 0; i < counts[ charClass ]; i++ )
+            {
+                final boolean needUnique = occurrences.size() < minimumUnique;
+                int candidateCount = collectCandidates( charClass, occurrences, needUnique, candidates );
+                if ( candidateCount == 0 && needUnique )
+                {
+                    candidateCount = collectCandidates( charClass, occurrences, false, candidates );
+                }
+                if ( candidateCount == 0 )
+                {
+                    return Optional.empty();
+                }
+
+                final char selected = candidates[ pwmRandom.nextInt( candidateCount ) ];
+                occurrences.merge( Character.toLowerCase( selected ), 1, Integer::sum );
+                chars[ index++ ] = selected;
+            }
+        }
+
+        return Optional.of( chars );
+    }
+
+    private int collectCandidates( final int charClass, final Map<Character, Integer> occurrences, final boolean unusedOnly, final char[] candidates )
+    {
+        int candidateCount = 0;
+        for ( final char loopChar : alphabets[ charClass ] )
+        {
+            final int used = occurrences.getOrDefault( Character.toLowerCase( loopChar ), 0 );
+            if ( used < maximumRepeat && ( !unusedOnly || used == 0 ) )
+            {
+                candidates[ candidateCount++ ] = loopChar;
+            }
+        }
+        return candidateCount;
+    }
+
+    private int maxAlphabetLength()
+    {
+        int max = 0;
+        for ( final char[] alphabet : alphabets )
+        {
+            max = Math.max( max, alphabet.length );
+        }
+        return max;
+    }
+
+    /**
+     * Order the drawn characters.  The last character is placed first so that the first/last character rules can
+     * both be honored, then the remaining positions are filled left to right choosing uniformly among the
+     * characters that do not create a sequential repeat or consecutive run violation.
+     */
+    private Optional<String> arrange( final PwmRandom pwmRandom, final char[] chars )
+    {
+        final int length = chars.length;
+        final char[] password = new char[ length ];
+        int remaining = length;
+
+        if ( length == 0 )
+        {
+            return Optional.of( "" );
+        }
+
+        if ( length > 1 )
+        {
+            final int selected = selectCandidate( pwmRandom, chars, remaining, password, length - 1, false );
+            if ( selected < 0 )
+            {
+                return Optional.empty();
+            }
+            password[ length - 1 ] = chars[ selected ];
+            chars[ selected ] = chars[ --remaining ];
+        }
+
+        final int fillCount = length == 1 ? 1 : length - 1;
+        for ( int position = 0; position < fillCount; position++ )
+        {
+            final int selected = selectCandidate( pwmRandom, chars, remaining, password, position, length > 1 && position == length - 2 );
+            if ( selected < 0 )
+            {
+                return Optional.empty();
+            }
+            password[ position ] = chars[ selected ];
+            chars[ selected ] = chars[ --remaining ];
+        }
+
+        return Optional.of( new String( password ) );
+    }
+
+    private int selectCandidate(
+            final PwmRandom pwmRandom,
+            final char[] chars,
+            final int remaining,
+            final char[] password,
+            final int position,
+            final boolean beforeLast
+    )
+    {
+        int candidateCount = 0;
+        for ( int i = 0; i < remaining; i++ )
+        {
+            if ( fitsAt( password, position, chars[ i ], beforeLast ) )
+            {
+                candidateCount++;
+            }
+        }
+
+        if ( candidateCount == 0 )
+        {
+            return -1;
+        }
+
+        int selection = pwmRandom.nextInt( candidateCount );
+        for ( int i = 0; i < remaining; i++ )
+        {
+            if ( fitsAt( password, position, chars[ i ], beforeLast ) )
+            {
+                if ( selection == 0 )
+                {
+                    return i;
+                }
+                selection--;
+            }
+        }
+        return -1;
+    }
+
+    private boolean fitsAt( final char[] password, final int position, final char candidate, final boolean beforeLast )
+    {
+        final int length = password.length;
+        final int charClass = classOf( candidate );
+        if ( position == 0 && !allowedFirst[ charClass ] )
+        {
+            return false;
+        }
+        if ( position == length - 1 && !allowedLast[ charClass ] )
+        {
+            return false;
+        }
+
+        final char lowerCandidate = Character.toLowerCase( candidate );
+        final char lowerLast = Character.toLowerCase( password[ length - 1 ] );
+
+        int repeatRun = 1;
+        for ( int i = position - 1; i >= 0 && Character.toLowerCase( password[ i ] ) == lowerCandidate; i-- )
+        {
+            repeatRun++;
+        }
+        if ( beforeLast && lowerLast == lowerCandidate )
+        {
+            repeatRun++;
+        }
+        if ( repeatRun > maximumSequentialRepeat )
+        {
+            return false;
+        }
+
+        int consecutiveRun = 1;
+        char expected = (char) ( lowerCandidate - 1 );
+        for ( int i = position - 1; i >= 0 && Character.toLowerCase( password[ i ] ) == expected; i-- )
+        {
+            consecutiveRun++;
+            expected--;
+        }
+        if ( beforeLast && lowerLast == lowerCandidate + 1 )
+        {
+            consecutiveRun++;
+        }
+        return consecutiveRun < maximumConsecutive;
+    }
+
+    private static int classOf( final char character )
+    {
+        if ( Character.isDigit( character ) )
+        {
+            return NUMERIC;
+        }
+        if ( Character.isUpperCase( character ) )
+        {
+            return UPPER;
+        }
+        if ( Character.isLowerCase( character ) )
+        {
+            return LOWER;
+        }
+        return SPECIAL;
+    }
+
+    private static int limit( final int maximum )
+    {
+        return maximum > 0 ? maximum : Integer.MAX_VALUE;
+    }
+}
@@ -39,6 +39,7 @@ import password.pwm.svc.stats.Statistic;
 import password.pwm.svc.stats.StatisticsManager;
 import password.pwm.svc.wordlist.SeedlistService;
 import password.pwm.util.PasswordData;
+import password.pwm.util.java.JavaHelper;
 import password.pwm.util.java.StringUtil;
 import password.pwm.util.java.TimeDuration;
 import password.pwm.util.logging.PwmLogger;
@@ -54,6 +55,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.function.Supplier;
@@ -143,6 +145,22 @@ public class RandomPasswordGenerator
             final PwmApplication pwmApplication
     )
             throws PwmUnrecoverableException
+    {
+        final GeneratorMode generatorMode = JavaHelper.readEnumFromString(
+                GeneratorMode.class,
+                GeneratorMode.ITERATIVE,
+                pwmApplication.getConfig().readAppProperty( AppProperty.PASSWORD_RANDOMGEN_MODE ) );
+
+        return createRandomPassword( sessionLabel, randomGeneratorConfig, pwmApplication, generatorMode );
+    }
+
+    static PasswordData createRandomPassword(
+            final SessionLabel sessionLabel,
+            final RandomGeneratorConfig randomGeneratorConfig,
+            final PwmApplication pwmApplication,
+            final GeneratorMode generatorMode
+    )
+            throws PwmUnrecoverableException
     {
         final Instant startTime = Instant.now();
         final PwmRandom pwmRandom = pwmApplication.getSecureService().pwmRandom();
@@ -166,7 +184,8 @@ public class RandomPasswordGenerator
             }
         }
 
-        final SeedMachine seedMachine = new SeedMachine( pwmRandom, normalizeSeeds( effectiveConfig.getSeedlistPhrases() ) );
+        final Collection<String> normalizedSeeds = normalizeSeeds( effectiveConfig.getSeedlistPhrases() );
+        final SeedMachine seedMachine = new SeedMachine( pwmRandom, normalizedSeeds );
 
         int tryCount = 0;
         final StringBuilder password = new StringBuilder();
@@ -193,61 +212,79 @@ public class RandomPasswordGenerator
             randomGenPolicy = PwmPasswordPolicy.createPwmPasswordPolicy( newPolicyMap );
         }
 
-        // initial creation
-        password.append( generateNewPassword( pwmRandom, seedMachine, effectiveConfig ) );
-
         // read a rule validator
+        final PwmPasswordRuleValidator pwmPasswordRuleValidator = new PwmPasswordRuleValidator( pwmApplication, randomGenPolicy, PwmPasswordRuleValidator.Flag.FailFast );
+
+        boolean validPassword = false;
+        List<ErrorInformation> errors = null;
 
+        // initial creation, either built directly from the policy or seeded for the modify loop
+        final Optional<String> constructedPassword = useConstructiveGeneration( generatorMode, normalizedSeeds )
+                ? ConstructivePasswordGenerator.compile( randomGenPolicy, seedMachine, effectiveConfig.getMinimumLength(), effectiveConfig.getMaximumLength() )
+                        .generate( pwmRandom )
+                : Optional.empty();
+        if ( constructedPassword.isPresent() )
+        {
+            tryCount++;
+            password.append( constructedPassword.get() );
+            errors = pwmPasswordRuleValidator.internalPwmPolicyValidator( password.toString(), null, null );
+            validPassword = ( errors == null || errors.isEmpty() )
+                    && !checkPasswordAgainstDisallowedHttpValues( pwmApplication.getConfig(), password.toString() );
+        }
+        else
+        {
+            password.append( generateNewPassword( pwmRandom, seedMachine, effectiveConfig ) );
+        }
 
         // modify until it passes all the rules
         final int maxTryCount = Integer.parseInt( pwmApplication.getConfig().readAppProperty( AppProperty.PASSWORD_RANDOMGEN_MAX_ATTEMPTS ) );
         final int jitterCount = Integer.parseInt( pwmApplication.getConfig().readAppProperty( AppProperty.PASSWORD_RANDOMGEN_JITTER_COUNT ) );
 
-        boolean validPassword = false;
         while ( !validPassword && tryCount < maxTryCount )
         {
-            tryCount++;
-            validPassword = true;
-
-            if ( tryCount % jitterCount == 0 )
+            if ( errors != null && !errors.isEmpty() )
+            {
+                modifyPasswordBasedOnErrors( pwmRandom, password, errors, seedMachine );
+            }
+            else if ( tryCount > 0 )
             {
                 password.delete( 0, password.length() );
                 password.append( generateNewPassword( pwmRandom, seedMachine, effectiveConfig ) );
             }
 
-            final PwmPasswordRuleValidator pwmPasswordRuleValidator = new PwmPasswordRuleValidator( pwmApplication, randomGenPolicy, PwmPasswordRuleValidator.Flag.FailFast );
-            final List<ErrorInformation> errors = pwmPasswordRuleValidator.internalPwmPolicyValidator(
-                    password.toString(), null, null );
-            if ( errors != null && !errors.isEmpty() )
-            {
-                validPassword = false;
-                modifyPasswordBasedOnErrors( pwmRandom, password, errors, seedMachine );
-            }
-            else if ( checkPasswordAgainstDisallowedHttpValues( pwmApplication.getConfig(), password.toString() ) )
+            tryCount++;
+
+            if ( tryCount % jitterCount == 0 )
             {
-                validPassword = false;
                 password.delete( 0, password.length() );
                 password.append( generateNewPassword( pwmRandom, seedMachine, effectiveConfig ) );
             }
+
+            errors = pwmPasswordRuleValidator.internalPwmPolicyValidator( password.toString(), null, null );
+            validPassword = ( errors == null || errors.isEmpty() )
+                    && !checkPasswordAgainstDisallowedHttpValues( pwmApplication.getConfig(), password.toString() );
         }
 
         // report outcome
         {
             final TimeDuration td = TimeDuration.fromCurrent( startTime );
-            final PwmPasswordRuleValidator pwmPasswordRuleValidator = new PwmPasswordRuleValidator( pwmApplication, randomGenPolicy );
+            final PwmPasswordRuleValidator fullRuleValidator = new PwmPasswordRuleValidator( pwmApplication, randomGenPolicy );
             final int finalTryCount = tryCount;
+            final boolean constructed = constructedPassword.isPresent();
             if ( validPassword )
             {
                 final Supplier<CharSequence> logMsg = () -> "finished random password generation in "
-                        + td.asCompactString() + " after " + finalTryCount + " tries.";
+                        + td.asCompactString() + " after " + finalTryCount + " tries (mode=" + generatorMode
+                        + ", constructed=" + constructed + ").";
                 LOGGER.trace( sessionLabel, logMsg );
             }
             else
             {
-                final List<ErrorInformation> errors = pwmPasswordRuleValidator.internalPwmPolicyValidator( password.toString(), null, null );
+                final List<ErrorInformation> finalErrors = fullRuleValidator.internalPwmPolicyValidator( password.toString(), null, null );
                 final int judgeLevel = PasswordUtility.judgePasswordStrength( pwmApplication.getConfig(), password.toString() );
                 final Supplier<CharSequence> logMsg = () -> "failed random password generation after " + td.asCompactString() + " after "
-                        + finalTryCount + " tries. " + "(errors=" + errors.size() + ", judgeLevel=" + judgeLevel;
+                        + finalTryCount + " tries. " + "(errors=" + finalErrors.size() + ", judgeLevel=" + judgeLevel
+                        + ", mode=" + generatorMode + ", constructed=" + constructed + ")";
                 LOGGER.error( sessionLabel, logMsg );
             }
         }
@@ -479,6 +516,26 @@ public class RandomPasswordGenerator
     {
     }
 
+    /**
+     * Strategy used to produce the initial password candidate.
+     */
+    public enum GeneratorMode
+    {
+        /**
+         * Build the candidate directly from the policy's character class quotas and placement constraints, falling
+         * back to {@link #ITERATIVE} modification only if the result fails validation.  Seed words and seedlist
+         * phrases longer than one character can not be placed by construction, so when any are configured the
+         * {@link #ITERATIVE} strategy is used instead.
+         */
+        CONSTRUCTIVE,
+
+        /**
+         * Build the candidate from random seeds and repeatedly modify it until it passes validation.  This is the
+         * default.
+         */
+        ITERATIVE,
+    }
+
     protected static class SeedMachine
     {
         private final Collection<String> seeds;
@@ -617,6 +674,27 @@ public class RandomPasswordGenerator
         return password.toString();
     }
 
+    /**
+     * Constructive generation only draws single characters from the seed alphabets, so seed words and seedlist
+     * phrases would be lost.  When any are present the seeded iterative path is used instead.
+     */
+    static boolean useConstructiveGeneration( final GeneratorMode generatorMode, final Collection<String> seeds )
+    {
+        if ( generatorMode != GeneratorMode.CONSTRUCTIVE )
+        {
+            return false;
+        }
+
+        for ( final String seed : seeds )
+        {
+            if ( seed.length() > 1 )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static Collection<String> normalizeSeeds( final Collection<String> inputSeeds )
     {
         if ( inputSeeds == null )
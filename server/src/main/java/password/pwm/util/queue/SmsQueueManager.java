@@ -47,6 +47,7 @@ import password.pwm.util.BasicAuthInfo;
 import password.pwm.util.PasswordData;
 import password.pwm.util.java.JavaHelper;
 import password.pwm.util.java.JsonUtil;
+import password.pwm.util.java.StatisticCounterBundle;
 import password.pwm.util.java.StringUtil;
 import password.pwm.util.java.TimeDuration;
 import password.pwm.util.localdb.LocalDB;
@@ -63,6 +64,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.function.BiConsumer;
 
 /**
  * @author Menno Pieters, Jason D. Rivard
@@ -125,6 +127,7 @@ public class SmsQueueManager implements PwmService
 
         final WorkQueueProcessor.Settings settings = WorkQueueProcessor.Settings.builder()
                 .maxEvents( Integer.parseInt( pwmApplication.getConfig().readAppProperty( AppProperty.QUEUE_SMS_MAX_COUNT ) ) )
+                .workerThreads( Integer.parseInt( pwmApplication.getConfig().readAppProperty( AppProperty.QUEUE_SMS_WORKER_THREADS ) ) )
                 .retryDiscardAge( TimeDuration.of( pwmApplication.getConfig().readSettingAsLong( PwmSetting.SMS_MAX_QUEUE_AGE ), TimeDuration.Unit.SECONDS ) )
                 .retryInterval( TimeDuration.of(
                         Long.parseLong( pwmApplication.getConfig().readAppProperty( AppProperty.QUEUE_SMS_RETRY_TIMEOUT_MS ) ),
@@ -182,6 +185,12 @@ public class SmsQueueManager implements PwmService
 
             return JsonUtil.serializeMap( debugOutputMap );
         }
+
+        @Override
+        public String orderingKey( final SmsItemBean workItem )
+        {
+            return workItem.getTo();
+        }
     }
 
     public void addSmsToQueue( final SmsItemBean smsItem )
@@ -308,6 +317,15 @@ public class SmsQueueManager implements PwmService
         return ServiceInfoBean.builder().debugProperties( debugItems ).build();
     }
 
+    @Override
+    public void collectStatisticCounters( final BiConsumer<String, StatisticCounterBundle<?>> collector )
+    {
+        if ( workQueueProcessor != null )
+        {
+            collector.accept( "queue", workQueueProcessor.getWorkQueueStats() );
+        }
+    }
+
     private List<String> splitMessage( final String input )
     {
         final int size = ( int ) pwmApplication.getConfig().readSettingAsLong( PwmSetting.SMS_MAX_TEXT_LENGTH );
@@ -393,8 +393,9 @@ public abstract class RestServlet extends HttpServlet
                 break;
 
                 case plain:
+                case openmetrics:
                 {
-                    resp.setHeader( HttpHeader.ContentType.getHttpName(), HttpContentType.plain.getHeaderValueWithEncoding() );
+                    resp.setHeader( HttpHeader.ContentType.getHttpName(), acceptType.getHeaderValueWithEncoding() );
                     if ( restResultBean.isError() )
                     {
                         resp.sendError( HttpServletResponse.SC_INTERNAL_SERVER_ERROR, restResultBean.getErrorMessage() );
@@ -0,0 +1,71 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package password.pwm.ws.server.rest;
+
+import password.pwm.PwmConstants;
+import password.pwm.config.option.WebServiceUsage;
+import password.pwm.error.ErrorInformation;
+import password.pwm.error.PwmError;
+import password.pwm.error.PwmUnrecoverableException;
+import password.pwm.http.HttpContentType;
+import password.pwm.http.HttpMethod;
+import password.pwm.svc.PwmService;
+import password.pwm.svc.stats.Statistic;
+import password.pwm.svc.stats.StatisticsManager;
+import password.pwm.ws.server.RestMethodHandler;
+import password.pwm.ws.server.RestRequest;
+import password.pwm.ws.server.RestResultBean;
+import password.pwm.ws.server.RestServlet;
+import password.pwm.ws.server.RestWebServer;
+
+import javax.servlet.annotation.WebServlet;
+
+/**
+ * Exposes statistics in the OpenMetrics text format for scraping by metrics collectors.  Access is governed by the
+ * same web service permission as {@link RestStatisticsServer}.
+ */
+@WebServlet(
+        urlPatterns = {
+                PwmConstants.URL_PREFIX_PUBLIC + PwmConstants.URL_PREFIX_REST + "/metrics"
+        }
+)
+@RestWebServer( webService = WebServiceUsage.Statistics )
+public class RestMetricsServer extends RestServlet
+{
+    @Override
+    public void preCheckRequest( final RestRequest restRequest ) throws PwmUnrecoverableException
+    {
+    }
+
+    @RestMethodHandler( method = HttpMethod.GET, produces = { HttpContentType.openmetrics, HttpContentType.plain } )
+    private RestResultBean doGetMetrics( final RestRequest restRequest )
+    {
+        final StatisticsManager statisticsManager = restRequest.getPwmApplication().getStatisticsManager();
+        if ( statisticsManager == null || statisticsManager.status() != PwmService.STATUS.OPEN )
+        {
+            final ErrorInformation errorInformation = new ErrorInformation( PwmError.ERROR_SERVICE_NOT_AVAILABLE, "statistics service is not available" );
+            return RestResultBean.fromError( restRequest, errorInformation );
+        }
+
+        StatisticsManager.incrementStat( restRequest.getPwmApplication(), Statistic.REST_STATISTICS );
+        return RestResultBean.withData( statisticsManager.outputOpenMetrics() );
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.http.servlet.resource;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+public class PrecompressedResourceIndexTest
+{
+    private static final String CSS_CONTENT = String.join( "\n", Collections.nCopies( 200, "body { color: black; }" ) );
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testIndexAndCompress()
+            throws Exception
+    {
+        final File resourceDir = temporaryFolder.newFolder( "resources" );
+        writeFile( new File( resourceDir, "themes/pwm/style.css" ), CSS_CONTENT );
+        writeFile( new File( resourceDir, "logo.png" ), "not really a png" );
+        writeFile( new File( resourceDir, "zip/inside.css" ), CSS_CONTENT );
+
+        final PrecompressedResourceIndex index = PrecompressedResourceIndex.build(
+                resourceDir,
+                temporaryFolder.newFolder( "output" ),
+                List.of( ResourceFileServlet.RESOURCE_PATH + "/zip" ) );
+
+        Assert.assertEquals( 2, index.size() );
+        Assert.assertFalse( index.lookup( ResourceFileServlet.RESOURCE_PATH + "/zip/inside.css" ).isPresent() );
+        Assert.assertFalse( index.lookup( ResourceFileServlet.RESOURCE_PATH + "/themes/../logo.png" ).isPresent() );
+
+        final PrecompressedResourceIndex.Entry pngEntry = index.lookup( ResourceFileServlet.RESOURCE_PATH + "/logo.png" ).orElseThrow();
+        Assert.assertEquals( 1, pngEntry.getFiles().size() );
+
+        final PrecompressedResourceIndex.Entry cssEntry = index.lookup( ResourceFileServlet.RESOURCE_PATH + "/themes/pwm/style.css;jsessionid=abc" ).orElseThrow();
+        final File gzipFile = cssEntry.getFiles().get( PrecompressedResourceIndex.Encoding.GZIP );
+        Assert.assertNotNull( gzipFile );
+        try ( InputStream inputStream = new GZIPInputStream( Files.newInputStream( gzipFile.toPath() ) ) )
+        {
+            Assert.assertEquals( CSS_CONTENT, new String( inputStream.readAllBytes(), StandardCharsets.UTF_8 ) );
+        }
+    }
+
+    @Test
+    public void testBuildSuppliedVariants()
+            throws Exception
+    {
+        final File resourceDir = temporaryFolder.newFolder( "resources" );
+        final File jsFile = new File( resourceDir, "main.js" );
+        writeFile( jsFile, CSS_CONTENT );
+        final File brotliFile = new File( resourceDir, "main.js.br" );
+        writeFile( brotliFile, "brotli bytes" );
+        brotliFile.setLastModified( jsFile.lastModified() + 1000 );
+
+        final PrecompressedResourceIndex index = PrecompressedResourceIndex.build( resourceDir, temporaryFolder.newFolder( "output" ), List.of() );
+
+        Assert.assertEquals( 1, index.size() );
+        final PrecompressedResourceIndex.Entry entry = index.lookup( ResourceFileServlet.RESOURCE_PATH + "/main.js" ).orElseThrow();
+        Assert.assertEquals( brotliFile, entry.getFiles().get( PrecompressedResourceIndex.Encoding.BROTLI ) );
+        Assert.assertNotNull( entry.getFiles().get( PrecompressedResourceIndex.Encoding.GZIP ) );
+    }
+
+    @Test
+    public void testEtagMatching()
+            throws Exception
+    {
+        final File resourceDir = temporaryFolder.newFolder( "resources" );
+        writeFile( new File( resourceDir, "main.css" ), CSS_CONTENT );
+        final PrecompressedResourceIndex index = PrecompressedResourceIndex.build( resourceDir, temporaryFolder.newFolder( "output" ), List.of() );
+        final PrecompressedResourceIndex.Entry entry = index.lookup( ResourceFileServlet.RESOURCE_PATH + "/main.css" ).orElseThrow();
+
+        final String identityTag = entry.etag( PrecompressedResourceIndex.Encoding.IDENTITY );
+        final String gzipTag = entry.etag( PrecompressedResourceIndex.Encoding.GZIP );
+        Assert.assertTrue( identityTag.startsWith( "\"" ) && identityTag.endsWith( "\"" ) );
+        Assert.assertNotEquals( identityTag, gzipTag );
+
+        Assert.assertEquals( gzipTag, entry.matchingEtag( "\"other\", W/" + gzipTag ).orElseThrow() );
+        Assert.assertEquals( identityTag, entry.matchingEtag( identityTag ).orElseThrow() );
+        Assert.assertFalse( entry.matchingEtag( "\"other\"" ).isPresent() );
+        Assert.assertFalse( entry.matchingEtag( null ).isPresent() );
+    }
+
+    private static void writeFile( final File file, final String content )
+            throws IOException
+    {
+        Files.createDirectories( file.getParentFile().toPath() );
+        Files.writeString( file.toPath(), content );
+    }
+}
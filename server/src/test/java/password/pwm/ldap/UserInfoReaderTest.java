@@ -0,0 +1,199 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package password.pwm.ldap;
+
+import com.novell.ldapchai.ChaiEntryFactory;
+import com.novell.ldapchai.ChaiUser;
+import com.novell.ldapchai.provider.ChaiProvider;
+import com.novell.ldapchai.provider.SearchScope;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import password.pwm.AppProperty;
+import password.pwm.PwmApplication;
+import password.pwm.PwmConstants;
+import password.pwm.bean.SessionLabel;
+import password.pwm.bean.UserIdentity;
+import password.pwm.config.Configuration;
+import password.pwm.config.PwmSetting;
+import password.pwm.config.profile.LdapProfile;
+import password.pwm.svc.cache.CacheKey;
+import password.pwm.svc.cache.CacheService;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+public class UserInfoReaderTest
+{
+    private static final String USER_DN = "cn=fred,o=bedrock";
+    private static final String PROFILE_ID = "default";
+
+    private final UserIdentity userIdentity = new UserIdentity( USER_DN, PROFILE_ID, PwmConstants.DOMAIN_ID_PLACEHOLDER, true );
+
+    private PwmApplication pwmApplication;
+    private Configuration configuration;
+    private LdapProfile ldapProfile;
+    private ChaiProvider chaiProvider;
+    private CacheService cacheService;
+    private final Map<String, List<String>> entryValues = new HashMap<>();
+
+    @Before
+    public void setUp() throws Exception
+    {
+        ldapProfile = Mockito.mock( LdapProfile.class );
+        Mockito.when( ldapProfile.getUsernameAttribute() ).thenReturn( "cn" );
+        Mockito.when( ldapProfile.readSettingAsString( PwmSetting.EMAIL_USER_MAIL_ATTRIBUTE ) ).thenReturn( "mail" );
+        Mockito.when( ldapProfile.readSettingAsString( PwmSetting.SMS_USER_PHONE_ATTRIBUTE ) ).thenReturn( "mobile" );
+        Mockito.when( ldapProfile.readSettingAsString( PwmSetting.LDAP_GUID_ATTRIBUTE ) ).thenReturn( "guid" );
+        Mockito.when( ldapProfile.readSettingAsStringArray( PwmSetting.CACHED_USER_ATTRIBUTES ) ).thenReturn( List.of( "title" ) );
+
+        configuration = Mockito.mock( Configuration.class );
+        Mockito.when( configuration.getLdapProfiles() ).thenReturn( Collections.singletonMap( PROFILE_ID, ldapProfile ) );
+        Mockito.when( configuration.readAppProperty( AppProperty.LDAP_USERINFO_PREFETCH_ENABLE ) ).thenReturn( "true" );
+        Mockito.when( configuration.readAppProperty( AppProperty.LDAP_CACHE_USER_GUID_ENABLE ) ).thenReturn( "true" );
+        Mockito.when( configuration.readAppProperty( AppProperty.LDAP_CACHE_USER_GUID_SECONDS ) ).thenReturn( "300" );
+
+        cacheService = Mockito.mock( CacheService.class );
+
+        pwmApplication = Mockito.mock( PwmApplication.class );
+        Mockito.when( pwmApplication.getConfig() ).thenReturn( configuration );
+        Mockito.when( pwmApplication.getCacheService() ).thenReturn( cacheService );
+        Mockito.when( pwmApplication.getLdapConnectionService() ).thenReturn( Mockito.mock( LdapConnectionService.class ) );
+
+        entryValues.put( "mail", List.of( "fred@bedrock.example" ) );
+        entryValues.put( "mobile", List.of( "555-1212" ) );
+        entryValues.put( "guid", List.of( "guid-value" ) );
+        entryValues.put( "cn", List.of( "fred" ) );
+        entryValues.put( "description", List.of( "quarry worker" ) );
+
+        chaiProvider = Mockito.mock( ChaiProvider.class );
+        final ChaiUser chaiUser = Mockito.mock( ChaiUser.class );
+        final ChaiEntryFactory entryFactory = Mockito.mock( ChaiEntryFactory.class );
+        Mockito.when( chaiProvider.getEntryFactory() ).thenReturn( entryFactory );
+        Mockito.when( entryFactory.newChaiUser( USER_DN ) ).thenReturn( chaiUser );
+        Mockito.when( chaiUser.getChaiProvider() ).thenReturn( chaiProvider );
+        Mockito.when( chaiUser.getEntryDN() ).thenReturn( USER_DN );
+        Mockito.when( chaiProvider.searchMultiValues(
+                ArgumentMatchers.eq( USER_DN ),
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.anySet(),
+                ArgumentMatchers.eq( SearchScope.BASE ) ) )
+                .thenAnswer( invocation ->
+                {
+                    final Set<String> requested = invocation.getArgument( 2 );
+                    final Map<String, List<String>> values = new HashMap<>();
+                    for ( final String attribute : requested )
+                    {
+                        if ( entryValues.containsKey( attribute ) )
+                        {
+                            values.put( attribute, entryValues.get( attribute ) );
+                        }
+                    }
+                    return Collections.singletonMap( USER_DN, values );
+                } );
+    }
+
+    @Test
+    public void testPrefetchAttributes()
+    {
+        final Set<String> attributes = UserInfoFactory.figurePrefetchAttributes( pwmApplication, userIdentity );
+        Assert.assertEquals( Set.of( "cn", "mail", "mobile", "guid", "title" ), attributes );
+
+        Mockito.when( ldapProfile.readSettingAsString( PwmSetting.LDAP_GUID_ATTRIBUTE ) ).thenReturn( "VENDORGUID" );
+        Assert.assertFalse( UserInfoFactory.figurePrefetchAttributes( pwmApplication, userIdentity ).contains( "VENDORGUID" ) );
+
+        Mockito.when( configuration.readAppProperty( AppProperty.LDAP_USERINFO_PREFETCH_ENABLE ) ).thenReturn( "false" );
+        Assert.assertTrue( UserInfoFactory.figurePrefetchAttributes( pwmApplication, userIdentity ).isEmpty() );
+    }
+
+    @Test
+    public void testPrefetchedAttributesAreReadOnce() throws Exception
+    {
+        final UserInfo userInfo = makeUserInfo();
+
+        Assert.assertEquals( "fred@bedrock.example", userInfo.getUserEmailAddress() );
+        Assert.assertEquals( "555-1212", userInfo.getUserSmsNumber() );
+        Assert.assertEquals( "fred", userInfo.readStringAttribute( "cn" ) );
+
+        final Set<String> firstRead = Set.of( "cn", "mail", "mobile", "guid", "title" );
+        Mockito.verify( chaiProvider, Mockito.times( 1 ) ).searchMultiValues(
+                ArgumentMatchers.eq( USER_DN ),
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.anySet(),
+                ArgumentMatchers.any() );
+        Mockito.verify( chaiProvider ).searchMultiValues( USER_DN, "(objectclass=*)", firstRead, SearchScope.BASE );
+    }
+
+    @Test
+    public void testAttributesNotPrefetchedAreReadOnDemand() throws Exception
+    {
+        final UserInfo userInfo = makeUserInfo();
+
+        Assert.assertEquals( "fred@bedrock.example", userInfo.getUserEmailAddress() );
+        Assert.assertEquals( "quarry worker", userInfo.readStringAttribute( "description" ) );
+
+        Mockito.verify( chaiProvider, Mockito.times( 2 ) ).searchMultiValues(
+                ArgumentMatchers.eq( USER_DN ),
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.anySet(),
+                ArgumentMatchers.any() );
+        Mockito.verify( chaiProvider ).searchMultiValues( USER_DN, "(objectclass=*)", Set.of( "description" ), SearchScope.BASE );
+    }
+
+    @Test
+    public void testPrefetchedGuidIsCached() throws Exception
+    {
+        final UserInfo userInfo = makeUserInfo();
+        userInfo.getUserEmailAddress();
+
+        Assert.assertEquals( "guid-value", userInfo.getUserGuid() );
+
+        final CacheKey cacheKey = CacheKey.newKey( LdapOperationsHelper.class, userIdentity, "guidValue" );
+        Mockito.verify( cacheService ).get( cacheKey, String.class );
+        Mockito.verify( cacheService ).put( ArgumentMatchers.eq( cacheKey ), ArgumentMatchers.any(), ArgumentMatchers.eq( "guid-value" ) );
+        Mockito.verify( pwmApplication, Mockito.never() ).getProxiedChaiUser( ArgumentMatchers.any() );
+    }
+
+    @Test
+    public void testCachedGuidIsPreferred() throws Exception
+    {
+        final CacheKey cacheKey = CacheKey.newKey( LdapOperationsHelper.class, userIdentity, "guidValue" );
+        Mockito.when( cacheService.get( cacheKey, String.class ) ).thenReturn( "cached-guid" );
+
+        final UserInfo userInfo = makeUserInfo();
+        userInfo.getUserEmailAddress();
+
+        Assert.assertEquals( "cached-guid", userInfo.getUserGuid() );
+        Mockito.verify( cacheService, Mockito.never() ).put( ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any() );
+    }
+
+    private UserInfo makeUserInfo() throws Exception
+    {
+        final Set<String> prefetchAttributes = UserInfoFactory.figurePrefetchAttributes( pwmApplication, userIdentity );
+        return UserInfoReader.create( userIdentity, null, SessionLabel.SYSTEM_LABEL, Locale.ENGLISH, pwmApplication, chaiProvider, prefetchAttributes );
+    }
+}
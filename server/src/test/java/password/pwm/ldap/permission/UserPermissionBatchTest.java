@@ -0,0 +1,165 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.ldap.permission;
+
+import com.novell.ldapchai.exception.ChaiError;
+import com.novell.ldapchai.exception.ChaiOperationException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class UserPermissionBatchTest
+{
+    @Test
+    public void testOrFilterAttribution()
+            throws Exception
+    {
+        final FakeDirectory directory = new FakeDirectory( Set.of( "(b=1)" ), Set.of() );
+        final UserPermissionBatch batch = new UserPermissionBatch( null, null, null, directory );
+        batch.queueFilter( 0, "(a=1)" );
+        batch.queueFilter( 1, "b=1" );
+        batch.queueFilter( 2, "(c=1)" );
+
+        final BitSet result = batch.resolveQueuedFilters();
+        Assert.assertEquals( bits( 1 ), result );
+        Assert.assertEquals( "(|(a=1)(b=1)(c=1))", directory.searches.get( 0 ) );
+    }
+
+    @Test
+    public void testNoMatchUsesSingleSearch()
+            throws Exception
+    {
+        final FakeDirectory directory = new FakeDirectory( Set.of(), Set.of() );
+        final UserPermissionBatch batch = new UserPermissionBatch( null, null, null, directory );
+        for ( int i = 0; i < 16; i++ )
+        {
+            batch.queueFilter( i, "(attr=" + i + ")" );
+        }
+
+        Assert.assertTrue( batch.resolveQueuedFilters().isEmpty() );
+        Assert.assertEquals( 1, batch.getSearchCount() );
+    }
+
+    @Test
+    public void testBinarySplitting()
+            throws Exception
+    {
+        final FakeDirectory directory = new FakeDirectory( Set.of( "(attr=5)", "(attr=12)" ), Set.of() );
+        final UserPermissionBatch batch = new UserPermissionBatch( null, null, null, directory );
+        for ( int i = 0; i < 16; i++ )
+        {
+            batch.queueFilter( i, "(attr=" + i + ")" );
+        }
+
+        Assert.assertEquals( bits( 5, 12 ), batch.resolveQueuedFilters() );
+
+        // each match is attributed with a logarithmic number of searches rather than one search per list
+        Assert.assertTrue( "searches: " + batch.getSearchCount(), batch.getSearchCount() < 16 );
+    }
+
+    @Test
+    public void testFailingFilterIsIsolated()
+            throws Exception
+    {
+        final FakeDirectory directory = new FakeDirectory( Set.of( "(attr=1)", "(attr=3)" ), Set.of( "(bad=2)" ) );
+        final UserPermissionBatch batch = new UserPermissionBatch( null, null, null, directory );
+        batch.queueFilter( 0, "(attr=0)" );
+        batch.queueFilter( 1, "(attr=1)" );
+        batch.queueFilter( 2, "(bad=2)" );
+        batch.queueFilter( 3, "(attr=3)" );
+
+        Assert.assertEquals( bits( 1, 3 ), batch.resolveQueuedFilters() );
+    }
+
+    @Test
+    public void testPerPermissionFallback()
+            throws Exception
+    {
+        // a list with a failing permission still matches through its other permissions
+        final FakeDirectory directory = new FakeDirectory( Set.of( "(member=cn=admins)" ), Set.of( "(bad=1)" ) );
+        final UserPermissionBatch batch = new UserPermissionBatch( null, null, null, directory );
+        batch.queueFilter( 0, "(bad=1)" );
+        batch.queueFilter( 0, "(member=cn=admins)" );
+        batch.queueFilter( 1, "(bad=1)" );
+
+        Assert.assertEquals( bits( 0 ), batch.resolveQueuedFilters() );
+        Assert.assertTrue( directory.searches.contains( "(member=cn=admins)" ) );
+    }
+
+    private static BitSet bits( final int... indexes )
+    {
+        final BitSet bitSet = new BitSet();
+        for ( final int index : indexes )
+        {
+            bitSet.set( index );
+        }
+        return bitSet;
+    }
+
+    /**
+     * Evaluates single filters and flat OR filters against a fixed set of matching and failing filters.
+     */
+    private static class FakeDirectory implements UserPermissionBatch.FilterSearcher
+    {
+        private final Set<String> matchingFilters;
+        private final Set<String> failingFilters;
+        private final List<String> searches = new ArrayList<>();
+
+        FakeDirectory( final Set<String> matchingFilters, final Set<String> failingFilters )
+        {
+            this.matchingFilters = matchingFilters;
+            this.failingFilters = failingFilters;
+        }
+
+        @Override
+        public boolean matches( final String searchFilter )
+                throws ChaiOperationException
+        {
+            searches.add( searchFilter );
+            final Set<String> components = new HashSet<>();
+            if ( searchFilter.startsWith( "(|" ) )
+            {
+                final String inner = searchFilter.substring( 2, searchFilter.length() - 1 );
+                components.addAll( Arrays.asList( inner.replace( ")(", ")\n(" ).split( "\n" ) ) );
+            }
+            else
+            {
+                components.add( searchFilter );
+            }
+
+            for ( final String component : components )
+            {
+                if ( failingFilters.contains( component ) )
+                {
+                    throw new ChaiOperationException( "bad filter " + component, ChaiError.UNKNOWN );
+                }
+            }
+            return components.stream().anyMatch( matchingFilters::contains );
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.svc.cache;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import password.pwm.PwmConstants;
+import password.pwm.config.profile.LdapProfile;
+import password.pwm.util.java.JsonUtil;
+import password.pwm.util.java.StringUtil;
+import password.pwm.util.localdb.LocalDB;
+import password.pwm.util.localdb.LocalDBFactory;
+import password.pwm.util.password.PasswordUtility;
+import password.pwm.util.secure.PwmSecurityKey;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class LocalDBCacheStoreTest
+{
+    private static final String SECRET_VALUE_ID = "cn=secret-user,ou=people";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private LocalDB localDB;
+
+    @After
+    public void tearDown()
+            throws Exception
+    {
+        if ( localDB != null )
+        {
+            localDB.close();
+        }
+    }
+
+    @Test
+    public void testAllowedKeysAreStoredHashed()
+            throws Exception
+    {
+        final LocalDB localDB = makeLocalDB();
+        final LocalDBCacheStore store = makeStore( localDB, Set.of( LdapProfile.class.getName() ) );
+        final CacheKey cacheKey = CacheKey.newKey( LdapProfile.class, null, SECRET_VALUE_ID );
+
+        store.store( cacheKey, Instant.now().plus( 1, ChronoUnit.HOURS ), "value1" );
+        Assert.assertEquals( "value1", store.read( cacheKey, String.class ) );
+        Assert.assertEquals( 1, localDB.size( LocalDB.DB.CACHE ) );
+
+        try ( LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator = localDB.iterator( LocalDB.DB.CACHE ) )
+        {
+            final Map.Entry<String, String> entry = iterator.next();
+            Assert.assertFalse( entry.getKey().contains( SECRET_VALUE_ID ) );
+            Assert.assertFalse( entry.getValue().contains( SECRET_VALUE_ID ) );
+        }
+
+        // a store opened with a different key can not locate the entry
+        final LocalDBCacheStore otherKeyStore = new LocalDBCacheStore(
+                localDB,
+                1_000_000,
+                new PwmSecurityKey( "other-test-security-key-value-000000" ),
+                Set.of( LdapProfile.class.getName() ) );
+        Assert.assertNull( otherKeyStore.read( cacheKey, String.class ) );
+    }
+
+    @Test
+    public void testDisallowedKeysAreNotStored()
+            throws Exception
+    {
+        final LocalDB localDB = makeLocalDB();
+        final LocalDBCacheStore store = makeStore( localDB, Set.of( LdapProfile.class.getName(), PasswordUtility.class.getName() ) );
+        final Instant expiration = Instant.now().plus( 1, ChronoUnit.HOURS );
+
+        final CacheKey passwordKey = CacheKey.newKey( PasswordUtility.class, null, SECRET_VALUE_ID );
+        store.store( passwordKey, expiration, "value1" );
+        Assert.assertFalse( store.isPersistable( passwordKey ) );
+        Assert.assertNull( store.read( passwordKey, String.class ) );
+
+        final CacheKey otherKey = CacheKey.newKey( LocalDBCacheStoreTest.class, null, SECRET_VALUE_ID );
+        store.store( otherKey, expiration, "value2" );
+        Assert.assertNull( store.read( otherKey, String.class ) );
+
+        Assert.assertEquals( 0, localDB.size( LocalDB.DB.CACHE ) );
+    }
+
+    @Test
+    public void testDisallowedEntriesDiscardedOnLoad()
+            throws Exception
+    {
+        final LocalDB localDB = makeLocalDB();
+        final LocalDBCacheStore store = makeStore( localDB, Set.of( LdapProfile.class.getName() ) );
+        store.store( CacheKey.newKey( LdapProfile.class, null, "key" ), Instant.now().plus( 1, ChronoUnit.HOURS ), "value1" );
+        Assert.assertEquals( 1, localDB.size( LocalDB.DB.CACHE ) );
+
+        makeStore( localDB, Collections.emptySet() );
+        Assert.assertEquals( 0, localDB.size( LocalDB.DB.CACHE ) );
+    }
+
+    @Test
+    public void testBinaryMemoryEntriesDemoteAsJson()
+            throws Exception
+    {
+        final LocalDB localDB = makeLocalDB();
+        final LocalDBCacheStore store = makeStore( localDB, Set.of( LdapProfile.class.getName() ) );
+        final CacheValueCodec binaryCodec = CacheValueCodecType.BINARY.makeCodec();
+        final MemoryCacheStore.EvictionListener evictionListener = CacheService.makeEvictionListener( CacheValueCodecType.BINARY, binaryCodec, store );
+
+        final CacheKey cacheKey = CacheKey.newKey( LdapProfile.class, null, "key" );
+        final ArrayList<String> value = new ArrayList<>( List.of( "value1", "value2" ) );
+        evictionListener.evicted( cacheKey, Instant.now().plus( 1, ChronoUnit.HOURS ), binaryCodec.encode( value ) );
+
+        Assert.assertEquals( value, store.read( cacheKey, ArrayList.class ) );
+        try ( LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator = localDB.iterator( LocalDB.DB.CACHE ) )
+        {
+            final String payload = JsonUtil.deserialize( iterator.next().getValue(), Map.class ).get( "payload" ).toString();
+            Assert.assertEquals( "[\"value1\",\"value2\"]", new String( StringUtil.base64Decode( payload ), PwmConstants.DEFAULT_CHARSET ) );
+        }
+    }
+
+    private static LocalDBCacheStore makeStore( final LocalDB localDB, final Set<String> allowedClasses )
+            throws Exception
+    {
+        return new LocalDBCacheStore(
+                localDB,
+                1_000_000,
+                new PwmSecurityKey( "test-security-key-value-0000000000000" ),
+                allowedClasses );
+    }
+
+    private LocalDB makeLocalDB()
+            throws Exception
+    {
+        localDB = LocalDBFactory.getInstance( temporaryFolder.newFolder(), false, null, null );
+        return localDB;
+    }
+}
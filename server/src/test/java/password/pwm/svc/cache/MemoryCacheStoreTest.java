@@ -0,0 +1,127 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.svc.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+import password.pwm.error.PwmUnrecoverableException;
+
+import java.net.URI;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MemoryCacheStoreTest
+{
+    @Test
+    public void testCodecRoundTrip()
+            throws Exception
+    {
+        for ( final CacheValueCodecType codecType : CacheValueCodecType.values() )
+        {
+            final CacheValueCodec codec = codecType.makeCodec();
+            final ArrayList<String> value = new ArrayList<>();
+            value.add( "value1" );
+            value.add( "value2" );
+            final byte[] encoded = codec.encode( value );
+            Assert.assertEquals( codecType.name(), value, codec.decode( encoded, ArrayList.class ) );
+        }
+    }
+
+    @Test( expected = PwmUnrecoverableException.class )
+    public void testBinaryCodecRejectsUnexpectedClasses()
+            throws Exception
+    {
+        final CacheValueCodec codec = CacheValueCodecType.BINARY.makeCodec();
+        final byte[] encoded = codec.encode( URI.create( "https://www.example.com/" ) );
+        codec.decode( encoded, URI.class );
+    }
+
+    @Test
+    public void testMutableValuesAreCopied()
+            throws Exception
+    {
+        final MemoryCacheStore store = new MemoryCacheStore( 1_000_000, CacheValueCodecType.BINARY.makeCodec(), null );
+        final CacheKey cacheKey = CacheKey.newKey( MemoryCacheStoreTest.class, null, "list" );
+        final ArrayList<String> value = new ArrayList<>();
+        value.add( "value1" );
+        store.store( cacheKey, Instant.now().plus( 1, ChronoUnit.HOURS ), value );
+        value.add( "value2" );
+
+        final ArrayList<?> readValue = store.read( cacheKey, ArrayList.class );
+        Assert.assertEquals( 1, readValue.size() );
+        Assert.assertNotSame( readValue, store.read( cacheKey, ArrayList.class ) );
+    }
+
+    @Test
+    public void testImmutableValuesAreShared()
+            throws Exception
+    {
+        final MemoryCacheStore store = new MemoryCacheStore( 1_000_000, CacheValueCodecType.BINARY.makeCodec(), null );
+        final CacheKey cacheKey = CacheKey.newKey( MemoryCacheStoreTest.class, null, "string" );
+        final String value = new String( "immutable" );
+        store.store( cacheKey, Instant.now().plus( 1, ChronoUnit.HOURS ), value );
+        Assert.assertSame( value, store.read( cacheKey, String.class ) );
+    }
+
+    @Test
+    public void testByteCountTracksReplaceAndRemove()
+            throws Exception
+    {
+        final MemoryCacheStore store = new MemoryCacheStore( 1_000_000, CacheValueCodecType.BINARY.makeCodec(), null );
+        final Instant expiration = Instant.now().plus( 1, ChronoUnit.HOURS );
+        final CacheKey cacheKey = CacheKey.newKey( MemoryCacheStoreTest.class, null, "key" );
+
+        store.store( cacheKey, expiration, "12345" );
+        final long firstCount = store.byteCount();
+        Assert.assertTrue( firstCount > 0 );
+
+        store.store( cacheKey, expiration, "1234567890" );
+        Assert.assertEquals( firstCount + 5, store.byteCount() );
+
+        store.store( cacheKey, Instant.now().minus( 1, ChronoUnit.HOURS ), "expired" );
+        Assert.assertNull( store.read( cacheKey, String.class ) );
+        Assert.assertEquals( 0, store.byteCount() );
+    }
+
+    @Test
+    public void testEvictedEntriesAreDemoted()
+            throws Exception
+    {
+        final List<CacheKey> demotedKeys = new ArrayList<>();
+        final MemoryCacheStore store = new MemoryCacheStore(
+                500,
+                CacheValueCodecType.BINARY.makeCodec(),
+                ( cacheKey, expirationDate, encodedValue ) -> demotedKeys.add( cacheKey ) );
+        final Instant expiration = Instant.now().plus( 1, ChronoUnit.HOURS );
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            store.store( CacheKey.newKey( MemoryCacheStoreTest.class, null, "key" + i ), expiration, "value-value-value-" + i );
+        }
+
+        Assert.assertFalse( demotedKeys.isEmpty() );
+        Assert.assertTrue( store.byteCount() <= 500 );
+        Assert.assertEquals( 100, store.itemCount() + demotedKeys.size() );
+    }
+}
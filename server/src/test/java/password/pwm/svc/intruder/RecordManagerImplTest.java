@@ -0,0 +1,250 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.svc.intruder;
+
+import org.junit.Assert;
+import org.junit.Test;
+import password.pwm.util.java.ClosableIterator;
+import password.pwm.util.java.TimeDuration;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class RecordManagerImplTest
+{
+    @Test
+    public void testConcurrentMarks()
+            throws Exception
+    {
+        final MapRecordStore recordStore = new MapRecordStore();
+        final RecordManagerImpl recordManager = new RecordManagerImpl( RecordType.USERNAME, recordStore, makeSettings( 1000 ), TimeDuration.MINUTE, true );
+
+        final int threads = 8;
+        final int marksPerThread = 500;
+        final ExecutorService executorService = Executors.newFixedThreadPool( threads );
+        for ( int t = 0; t < threads; t++ )
+        {
+            executorService.submit( () ->
+            {
+                for ( int i = 0; i < marksPerThread; i++ )
+                {
+                    recordManager.markSubject( "user1" );
+                }
+            } );
+        }
+        executorService.shutdown();
+        Assert.assertTrue( executorService.awaitTermination( 1, TimeUnit.MINUTES ) );
+
+        Assert.assertEquals( threads * marksPerThread, recordManager.readIntruderRecord( "user1" ).getAttemptCount() );
+        Assert.assertTrue( recordManager.checkSubject( "user1" ) );
+
+        // write-behind: nothing is persisted until flushed
+        Assert.assertTrue( recordStore.records.isEmpty() );
+        recordManager.flush();
+        Assert.assertEquals( 1, recordStore.records.size() );
+        Assert.assertEquals( threads * marksPerThread, recordStore.records.values().iterator().next().getAttemptCount() );
+    }
+
+    @Test
+    public void testConcurrentMarksWriteThrough()
+            throws Exception
+    {
+        final MapRecordStore recordStore = new MapRecordStore();
+        final RecordManagerImpl recordManager = new RecordManagerImpl( RecordType.USERNAME, recordStore, makeSettings( 1000 ), TimeDuration.MINUTE, false );
+
+        final int threads = 8;
+        final int marksPerThread = 200;
+        final ExecutorService executorService = Executors.newFixedThreadPool( threads );
+        for ( int t = 0; t < threads; t++ )
+        {
+            executorService.submit( () ->
+            {
+                for ( int i = 0; i < marksPerThread; i++ )
+                {
+                    recordManager.markSubject( "user1" );
+                }
+            } );
+        }
+        executorService.shutdown();
+        Assert.assertTrue( executorService.awaitTermination( 1, TimeUnit.MINUTES ) );
+
+        Assert.assertEquals( 1, recordStore.records.size() );
+        Assert.assertEquals( threads * marksPerThread, recordStore.records.values().iterator().next().getAttemptCount() );
+    }
+
+    @Test
+    public void testCheckAndClear()
+    {
+        final MapRecordStore recordStore = new MapRecordStore();
+        final RecordManagerImpl recordManager = new RecordManagerImpl( RecordType.ADDRESS, recordStore, makeSettings( 3 ), TimeDuration.MINUTE, true );
+
+        recordManager.markSubject( "10.0.0.1" );
+        recordManager.markSubject( "10.0.0.1" );
+        Assert.assertFalse( recordManager.checkSubject( "10.0.0.1" ) );
+        recordManager.markSubject( "10.0.0.1" );
+        Assert.assertTrue( recordManager.checkSubject( "10.0.0.1" ) );
+        Assert.assertFalse( recordManager.checkSubject( "10.0.0.2" ) );
+
+        recordManager.clearSubject( "10.0.0.1" );
+        Assert.assertFalse( recordManager.checkSubject( "10.0.0.1" ) );
+    }
+
+    @Test
+    public void testLoadFromStore()
+            throws Exception
+    {
+        final MapRecordStore recordStore = new MapRecordStore();
+        {
+            final RecordManagerImpl recordManager = new RecordManagerImpl( RecordType.USERNAME, recordStore, makeSettings( 3 ), TimeDuration.MINUTE, true );
+            recordManager.markSubject( "user1" );
+            recordManager.markSubject( "user1" );
+            recordManager.markSubject( "user1" );
+            recordManager.markAlerted( "user1" );
+            recordManager.flush();
+        }
+
+        final RecordManagerImpl recordManager = new RecordManagerImpl( RecordType.USERNAME, recordStore, makeSettings( 3 ), TimeDuration.MINUTE, true );
+        Assert.assertTrue( recordManager.checkSubject( "user1" ) );
+        Assert.assertTrue( recordManager.isAlerted( "user1" ) );
+    }
+
+    @Test
+    public void testSlidingWindowExpiry()
+    {
+        final long windowMs = 10_000;
+        final SlidingWindowCounter counter = new SlidingWindowCounter( windowMs );
+        final Instant start = Instant.now();
+        counter.increment( start );
+        counter.increment( start.plusMillis( windowMs / 2 ) );
+        Assert.assertEquals( 2, counter.count( start.plusMillis( windowMs / 2 ) ) );
+        Assert.assertEquals( 1, counter.count( start.plusMillis( windowMs + windowMs / 10 ) ) );
+        Assert.assertEquals( 0, counter.count( start.plusMillis( windowMs * 2 ) ) );
+    }
+
+    @Test
+    public void testLockExpiresAfterLastAttempt()
+    {
+        final long windowMs = 10_000;
+        final SlidingWindowCounter counter = new SlidingWindowCounter( windowMs );
+        final Instant start = Instant.now();
+        counter.increment( start );
+        counter.increment( start.plusMillis( windowMs - 1000 ) );
+        Assert.assertTrue( counter.isLocked( start.plusMillis( windowMs - 1000 ), 2 ) );
+
+        // the first attempt has left the window, but the lock holds until a full window after the last attempt
+        Assert.assertEquals( 1, counter.count( start.plusMillis( windowMs + windowMs / 2 ) ) );
+        Assert.assertTrue( counter.isLocked( start.plusMillis( windowMs + windowMs / 2 ), 2 ) );
+        Assert.assertFalse( counter.isLocked( start.plusMillis( windowMs * 2 ), 2 ) );
+    }
+
+    @Test
+    public void testLockoutAfterExpiredWindowAlertsAgain()
+    {
+        final long windowMs = 10_000;
+        final Instant start = Instant.now();
+        final SlidingWindowCounter counter = new SlidingWindowCounter( windowMs );
+        for ( int i = 0; i < 3; i++ )
+        {
+            counter.increment( start );
+        }
+        Assert.assertTrue( counter.isLocked( start, 3 ) );
+        Assert.assertTrue( counter.markAlerted() );
+        Assert.assertFalse( counter.markAlerted() );
+
+        final Instant later = start.plusMillis( windowMs * 2 );
+        counter.increment( later );
+        Assert.assertFalse( counter.isAlerted() );
+        counter.increment( later );
+        counter.increment( later );
+        Assert.assertTrue( counter.isLocked( later, 3 ) );
+        Assert.assertTrue( counter.markAlerted() );
+
+        // a stored record from a finished attempt window starts a new window when loaded
+        final IntruderRecord storedRecord = counter.toRecord( RecordType.USERNAME, "user1" );
+        final SlidingWindowCounter loadedCounter = SlidingWindowCounter.fromRecord( windowMs, storedRecord, later.plusMillis( windowMs * 2 ) );
+        Assert.assertFalse( loadedCounter.isAlerted() );
+        Assert.assertFalse( loadedCounter.isLocked( later.plusMillis( windowMs * 2 ), 3 ) );
+        Assert.assertTrue( SlidingWindowCounter.fromRecord( windowMs, storedRecord, later ).isAlerted() );
+    }
+
+    @Test
+    public void testSharedStoreWritesThrough()
+    {
+        final MapRecordStore recordStore = new MapRecordStore();
+        final RecordManagerImpl node1 = new RecordManagerImpl( RecordType.USERNAME, recordStore, makeSettings( 3 ), TimeDuration.MINUTE, false );
+        final RecordManagerImpl node2 = new RecordManagerImpl( RecordType.USERNAME, recordStore, makeSettings( 3 ), TimeDuration.MINUTE, false );
+
+        node1.markSubject( "user1" );
+        node2.markSubject( "user1" );
+        node1.markSubject( "user1" );
+        Assert.assertEquals( 1, recordStore.records.size() );
+        Assert.assertEquals( 3, recordStore.records.values().iterator().next().getAttemptCount() );
+        Assert.assertTrue( node2.checkSubject( "user1" ) );
+
+        // a clear on one node is seen by the other and is not undone by a later flush
+        node2.clearSubject( "user1" );
+        node1.flush();
+        Assert.assertFalse( node1.checkSubject( "user1" ) );
+        Assert.assertEquals( 0, recordStore.records.values().iterator().next().getAttemptCount() );
+    }
+
+    private static IntruderSettings makeSettings( final int checkCount )
+    {
+        final IntruderSettings settings = new IntruderSettings();
+        settings.setCheckCount( checkCount );
+        settings.setCheckDuration( TimeDuration.HOUR );
+        settings.setResetDuration( TimeDuration.HOUR );
+        return settings;
+    }
+
+    private static class MapRecordStore implements RecordStore
+    {
+        private final Map<String, IntruderRecord> records = new ConcurrentHashMap<>();
+
+        @Override
+        public IntruderRecord read( final String key )
+        {
+            return records.get( key );
+        }
+
+        @Override
+        public void write( final String key, final IntruderRecord record )
+        {
+            records.put( key, record );
+        }
+
+        @Override
+        public ClosableIterator<IntruderRecord> iterator( )
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void cleanup( final TimeDuration maxRecordAge )
+        {
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.svc.report;
+
+import org.junit.Assert;
+import org.junit.Test;
+import password.pwm.bean.PasswordStatus;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ReportSummaryDataTest
+{
+    @Test
+    public void testReplaceAppliesDelta()
+    {
+        final UserCacheRecord original = UserCacheRecordCodecTest.makeRecord();
+        final UserCacheRecord replacement = original.toBuilder()
+                .hasResponses( false )
+                .passwordStatus( PasswordStatus.builder().expired( true ).build() )
+                .lastLoginTime( original.getCacheTimestamp().minusSeconds( 86400 * 60 ) )
+                .build();
+
+        final ReportSummaryData incremental = ReportSummaryData.newSummaryData( Arrays.asList( -30, 30 ) );
+        incremental.replace( null, original );
+        incremental.replace( original, replacement );
+
+        final ReportSummaryData rebuilt = ReportSummaryData.newSummaryData( Arrays.asList( -30, 30 ) );
+        rebuilt.update( replacement );
+
+        Assert.assertEquals( 1, incremental.getTotalUsers().sum() );
+        Assert.assertEquals( 0, incremental.getHasResponses().sum() );
+        Assert.assertEquals( 1, incremental.getPwExpired().sum() );
+        final Instant reportTime = original.getCacheTimestamp();
+        Assert.assertEquals( 0, incremental.getLoginTimes().countWithinDays( -30, reportTime ) );
+        Assert.assertEquals( 1, incremental.getChangePwTimes().countWithinDays( -30, reportTime ) );
+        Assert.assertEquals( rebuilt.getPwWarnPeriod().sum(), incremental.getPwWarnPeriod().sum() );
+        Assert.assertEquals( rebuilt.getResponseStorage(), incremental.getResponseStorage() );
+    }
+
+    @Test
+    public void testWindowsMeasuredFromReportTime()
+    {
+        final Instant cacheTime = Instant.parse( "2020-01-01T00:00:00Z" );
+        final UserCacheRecord record = UserCacheRecord.builder()
+                .cacheTimestamp( cacheTime )
+                .passwordExpirationTime( cacheTime.plus( 10, ChronoUnit.DAYS ) )
+                .lastLoginTime( cacheTime.minus( 1, ChronoUnit.DAYS ) )
+                .otpSecretSetTime( cacheTime.minus( 40, ChronoUnit.DAYS ) )
+                .build();
+
+        final ReportSummaryData summaryData = ReportSummaryData.newSummaryData( Arrays.asList( -30, 30 ) );
+        summaryData.update( record );
+
+        // at the time the record was cached
+        Assert.assertEquals( 1, summaryData.getPwExpireTimes().countWithinDays( 30, cacheTime ) );
+        Assert.assertEquals( 0, summaryData.getPwExpireTimes().countWithinDays( -30, cacheTime ) );
+        Assert.assertEquals( 1, summaryData.getLoginTimes().countWithinDays( -30, cacheTime ) );
+        Assert.assertEquals( 0, summaryData.getOtpSetTimes().countWithinDays( -30, cacheTime ) );
+
+        // the same record reported 20 days later, without being refreshed
+        final Instant laterReportTime = cacheTime.plus( 20, ChronoUnit.DAYS );
+        Assert.assertEquals( 0, summaryData.getPwExpireTimes().countWithinDays( 30, laterReportTime ) );
+        Assert.assertEquals( 1, summaryData.getPwExpireTimes().countWithinDays( -30, laterReportTime ) );
+        Assert.assertEquals( 1, summaryData.getLoginTimes().countWithinDays( -30, laterReportTime ) );
+        Assert.assertEquals( 0, summaryData.getLoginTimes().countWithinDays( -10, laterReportTime ) );
+    }
+
+    @Test
+    public void testWindowBoundaries()
+    {
+        final Instant reportTime = Instant.parse( "2020-06-15T12:30:00Z" );
+        final ReportSummaryData.EventTimeHistogram histogram = new ReportSummaryData.EventTimeHistogram();
+
+        // the report hour is counted in both directions
+        histogram.add( reportTime.minus( 29, ChronoUnit.MINUTES ), 1 );
+        Assert.assertEquals( 1, histogram.countWithinDays( 1, reportTime ) );
+        Assert.assertEquals( 1, histogram.countWithinDays( -1, reportTime ) );
+
+        // last hour inside the window and first hour outside it, following the report time
+        final Instant reportHour = reportTime.truncatedTo( ChronoUnit.HOURS );
+        histogram.add( reportHour.plus( 1, ChronoUnit.DAYS ).minus( 1, ChronoUnit.MINUTES ), 1 );
+        histogram.add( reportHour.plus( 1, ChronoUnit.DAYS ), 1 );
+        Assert.assertEquals( 2, histogram.countWithinDays( 1, reportTime ) );
+        Assert.assertEquals( 3, histogram.countWithinDays( 2, reportTime ) );
+
+        // last hour inside the window and first hour outside it, preceding the report time
+        histogram.add( reportHour.minus( 1, ChronoUnit.DAYS ).plus( 1, ChronoUnit.HOURS ), 1 );
+        histogram.add( reportHour.minus( 1, ChronoUnit.DAYS ).plus( 59, ChronoUnit.MINUTES ), 1 );
+        histogram.add( reportHour.minus( 1, ChronoUnit.DAYS ), 1 );
+        Assert.assertEquals( 2, histogram.countWithinDays( -1, reportTime ) );
+        Assert.assertEquals( 4, histogram.countWithinDays( -2, reportTime ) );
+
+        // removing an event reverses it exactly, whenever it happens
+        histogram.add( reportHour.minus( 1, ChronoUnit.DAYS ), -1 );
+        Assert.assertEquals( 3, histogram.countWithinDays( -2, reportTime ) );
+        Assert.assertEquals( 0, histogram.countWithinDays( 0, reportTime ) );
+    }
+
+    @Test
+    public void testUntrackedSummary()
+    {
+        final ReportSummaryData summaryData = ReportSummaryData.newSummaryData( null );
+        summaryData.update( UserCacheRecordCodecTest.makeRecord() );
+        Assert.assertEquals( Collections.emptyList(), summaryData.getTrackedDays() );
+        Assert.assertEquals( 1, summaryData.getTotalUsers().sum() );
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.svc.report;
+
+import com.novell.ldapchai.cr.Answer;
+import org.junit.Assert;
+import org.junit.Test;
+import password.pwm.bean.PasswordStatus;
+import password.pwm.config.option.DataStorageMethod;
+import password.pwm.util.java.JsonUtil;
+
+import java.time.Instant;
+
+public class UserCacheRecordCodecTest
+{
+    @Test
+    public void testRoundTrip()
+            throws Exception
+    {
+        final UserCacheRecord record = makeRecord();
+        final String encoded = UserCacheRecordCodec.encode( record );
+
+        Assert.assertEquals( record, UserCacheRecordCodec.decode( encoded ) );
+        Assert.assertTrue( encoded.length() < JsonUtil.serialize( record ).length() );
+    }
+
+    @Test
+    public void testRoundTripEmptyRecord()
+            throws Exception
+    {
+        final UserCacheRecord record = UserCacheRecord.builder().build();
+        Assert.assertEquals( record, UserCacheRecordCodec.decode( UserCacheRecordCodec.encode( record ) ) );
+    }
+
+    @Test
+    public void testDecodeLegacyJson()
+            throws Exception
+    {
+        final UserCacheRecord record = makeRecord();
+        Assert.assertEquals( record, UserCacheRecordCodec.decode( JsonUtil.serialize( record ) ) );
+    }
+
+    static UserCacheRecord makeRecord()
+    {
+        final Instant now = Instant.ofEpochMilli( 1_600_000_000_000L );
+        return UserCacheRecord.builder()
+                .userDN( "cn=user1,ou=people,o=example" )
+                .ldapProfile( "default" )
+                .userGUID( "a1b2c3d4" )
+                .username( "user1" )
+                .email( "user1@example.com" )
+                .passwordStatus( PasswordStatus.builder().expired( false ).preExpired( true ).warnPeriod( true ).build() )
+                .passwordExpirationTime( now.plusSeconds( 86400 * 3 ) )
+                .passwordChangeTime( now.minusSeconds( 86400 * 20 ) )
+                .lastLoginTime( now.minusSeconds( 3600 ) )
+                .hasResponses( true )
+                .responseSetTime( now.minusSeconds( 86400 * 100 ) )
+                .responseStorageMethod( DataStorageMethod.LDAP )
+                .responseFormatType( Answer.FormatType.SHA1 )
+                .requiresProfileUpdate( true )
+                .cacheTimestamp( now )
+                .build();
+    }
+}
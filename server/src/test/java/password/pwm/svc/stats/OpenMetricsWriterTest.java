@@ -0,0 +1,74 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package password.pwm.svc.stats;
+
+import org.junit.Assert;
+import org.junit.Test;
+import password.pwm.util.java.StatisticCounterBundle;
+
+public class OpenMetricsWriterTest
+{
+    enum TestCounter
+    {
+        hits,
+        misses,
+    }
+
+    @Test
+    public void testStatisticsAndAverages()
+    {
+        final StatisticsBundle bundle = new StatisticsBundle();
+        bundle.incrementValue( Statistic.AUTHENTICATIONS );
+        bundle.incrementValue( Statistic.AUTHENTICATIONS );
+        bundle.updateAverageValue( AvgStatistic.AVG_LDAP_SEARCH_TIME, 10 );
+        bundle.updateAverageValue( AvgStatistic.AVG_LDAP_SEARCH_TIME, 30 );
+
+        final StringBuilder output = new StringBuilder();
+        final OpenMetricsWriter openMetricsWriter = new OpenMetricsWriter( output );
+        openMetricsWriter.writeStatistics( bundle );
+        openMetricsWriter.writeAverages( bundle );
+        openMetricsWriter.finish();
+
+        final String text = output.toString();
+        Assert.assertTrue( text.contains( "# TYPE pwm_statistic counter\n" ) );
+        Assert.assertTrue( text.contains( "\npwm_statistic_total{statistic=\"AUTHENTICATIONS\"} 2\n" ) );
+        Assert.assertTrue( text.contains( "\npwm_average{statistic=\"AVG_LDAP_SEARCH_TIME\",quantile=\"0.99\"} 30\n" ) );
+        Assert.assertTrue( text.contains( "\npwm_average_sum{statistic=\"AVG_LDAP_SEARCH_TIME\"} 40\n" ) );
+        Assert.assertTrue( text.contains( "\npwm_average_count{statistic=\"AVG_LDAP_SEARCH_TIME\"} 2\n" ) );
+        Assert.assertTrue( text.contains( "\npwm_average_max{statistic=\"AVG_LDAP_SEARCH_TIME\"} 30\n" ) );
+        Assert.assertTrue( text.endsWith( "\n# EOF\n" ) );
+    }
+
+    @Test
+    public void testCounterBundleLabelEscaping()
+    {
+        final StatisticCounterBundle<TestCounter> counters = new StatisticCounterBundle<>( TestCounter.class );
+        counters.increment( TestCounter.hits, 5 );
+
+        final StringBuilder output = new StringBuilder();
+        new OpenMetricsWriter( output ).writeCounterBundle( "TestService", "server.\"a\\b\"", counters );
+
+        Assert.assertEquals(
+                "pwm_service_counter_total{service=\"TestService\",bundle=\"server.\\\"a\\\\b\\\"\",counter=\"hits\"} 5\n"
+                        + "pwm_service_counter_total{service=\"TestService\",bundle=\"server.\\\"a\\\\b\\\"\",counter=\"misses\"} 0\n",
+                output.toString() );
+    }
+}
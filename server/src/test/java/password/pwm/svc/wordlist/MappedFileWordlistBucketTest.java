@@ -0,0 +1,118 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package password.pwm.svc.wordlist;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import password.pwm.PwmApplication;
+import password.pwm.util.java.ClosableIterator;
+import password.pwm.util.localdb.LocalDB;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class MappedFileWordlistBucketTest
+{
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private PwmApplication pwmApplication;
+    private WordlistConfiguration wordlistConfiguration;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        final LocalDB localDB = Mockito.mock( LocalDB.class );
+        Mockito.when( localDB.getFileLocation() ).thenReturn( testFolder.newFolder( "localdb" ) );
+
+        pwmApplication = Mockito.mock( PwmApplication.class );
+        Mockito.when( pwmApplication.getLocalDB() ).thenReturn( localDB );
+
+        wordlistConfiguration = Mockito.mock( WordlistConfiguration.class );
+        Mockito.when( wordlistConfiguration.getDb() ).thenReturn( LocalDB.DB.WORDLIST_WORDS );
+    }
+
+    @Test
+    public void testRebuildKeepsServingPreviousWords() throws Exception
+    {
+        final MappedFileWordlistBucket bucket = makeBucket();
+        bucket.putValues( makeValues( "alpha", "beta" ) );
+        bucket.completePopulation();
+        Assert.assertTrue( bucket.containsKey( "alpha" ) );
+        Assert.assertEquals( 2, bucket.size() );
+
+        // previous words answer lookups until the rebuilt file is published, but no longer count as content
+        bucket.clear();
+        Assert.assertTrue( bucket.containsKey( "alpha" ) );
+        Assert.assertEquals( 0, bucket.size() );
+        try ( ClosableIterator<String> iterator = bucket.keyIterator() )
+        {
+            Assert.assertFalse( iterator.hasNext() );
+        }
+
+        bucket.putValues( makeValues( "gamma" ) );
+        Assert.assertTrue( bucket.containsKey( "alpha" ) );
+        Assert.assertEquals( 1, bucket.size() );
+
+        bucket.completePopulation();
+        Assert.assertTrue( bucket.containsKey( "gamma" ) );
+        Assert.assertFalse( bucket.containsKey( "alpha" ) );
+        Assert.assertEquals( 1, bucket.size() );
+        bucket.close();
+    }
+
+    @Test
+    public void testPendingRebuildSurvivesReopen() throws Exception
+    {
+        final MappedFileWordlistBucket bucket = makeBucket();
+        bucket.putValues( makeValues( "alpha", "beta" ) );
+        bucket.completePopulation();
+        bucket.clear();
+        bucket.putValues( makeValues( "gamma" ) );
+        bucket.close();
+
+        final MappedFileWordlistBucket reopenedBucket = makeBucket();
+        Assert.assertEquals( 1, reopenedBucket.size() );
+        reopenedBucket.completePopulation();
+        Assert.assertTrue( reopenedBucket.containsKey( "gamma" ) );
+        Assert.assertFalse( reopenedBucket.containsKey( "beta" ) );
+        reopenedBucket.close();
+    }
+
+    private MappedFileWordlistBucket makeBucket() throws Exception
+    {
+        return new MappedFileWordlistBucket( pwmApplication, wordlistConfiguration, WordlistType.WORDLIST );
+    }
+
+    private static Map<String, String> makeValues( final String... words )
+    {
+        final Map<String, String> values = new LinkedHashMap<>();
+        for ( final String word : words )
+        {
+            values.put( word, "" );
+        }
+        return values;
+    }
+}
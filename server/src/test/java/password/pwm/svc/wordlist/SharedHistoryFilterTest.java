@@ -0,0 +1,75 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.svc.wordlist;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class SharedHistoryFilterTest
+{
+    private static final int ENTRY_COUNT = 10_000;
+
+    @Test
+    public void testConcurrentAdds() throws Exception
+    {
+        final SharedHistoryFilter filter = new SharedHistoryFilter( ENTRY_COUNT );
+        final ExecutorService executorService = Executors.newFixedThreadPool( 4 );
+        for ( int i = 0; i < ENTRY_COUNT; i++ )
+        {
+            final String word = "word" + i;
+            executorService.submit( () -> filter.add( word ) );
+        }
+        executorService.shutdown();
+        Assert.assertTrue( executorService.awaitTermination( 30, TimeUnit.SECONDS ) );
+
+        Assert.assertEquals( ENTRY_COUNT, filter.getEntries() );
+        Assert.assertFalse( filter.isSaturated() );
+        for ( int i = 0; i < ENTRY_COUNT; i++ )
+        {
+            Assert.assertTrue( filter.mightContain( "word" + i ) );
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRate()
+    {
+        final SharedHistoryFilter filter = new SharedHistoryFilter( ENTRY_COUNT );
+        for ( int i = 0; i < ENTRY_COUNT; i++ )
+        {
+            filter.add( "word" + i );
+        }
+
+        int falsePositives = 0;
+        for ( int i = 0; i < ENTRY_COUNT; i++ )
+        {
+            if ( filter.mightContain( "missing" + i ) )
+            {
+                falsePositives++;
+            }
+        }
+        Assert.assertTrue( "false positive count " + falsePositives, falsePositives < ENTRY_COUNT / 20 );
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package password.pwm.svc.wordlist;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import password.pwm.util.java.ClosableIterator;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SortedWordFileTest
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testContains()
+            throws Exception
+    {
+        final SortedWordFile sortedWordFile = makeFile( makeWords() );
+
+        Assert.assertEquals( 2000, sortedWordFile.size() );
+        for ( final String word : makeWords() )
+        {
+            Assert.assertTrue( word, sortedWordFile.contains( word ) );
+        }
+
+        Assert.assertFalse( sortedWordFile.contains( "" ) );
+        Assert.assertFalse( sortedWordFile.contains( "a" ) );
+        Assert.assertFalse( sortedWordFile.contains( "password0001x" ) );
+        Assert.assertFalse( sortedWordFile.contains( "zzzz" ) );
+        Assert.assertFalse( sortedWordFile.contains( "étéx" ) );
+        Assert.assertTrue( sortedWordFile.contains( "été" ) );
+    }
+
+    @Test
+    public void testIterator()
+            throws Exception
+    {
+        final List<String> words = makeWords();
+        final SortedWordFile sortedWordFile = makeFile( words );
+
+        final List<String> readWords = new ArrayList<>();
+        try ( ClosableIterator<String> iterator = sortedWordFile.iterator() )
+        {
+            iterator.forEachRemaining( readWords::add );
+        }
+        Assert.assertEquals( words, readWords );
+    }
+
+    @Test
+    public void testEmpty()
+            throws Exception
+    {
+        final SortedWordFile sortedWordFile = makeFile( new ArrayList<>() );
+        Assert.assertEquals( 0, sortedWordFile.size() );
+        Assert.assertFalse( sortedWordFile.contains( "password" ) );
+        Assert.assertFalse( sortedWordFile.iterator().hasNext() );
+    }
+
+    @Test
+    public void testManyBlocks()
+            throws Exception
+    {
+        final List<String> words = new ArrayList<>();
+        for ( int i = 0; i < 100_000; i++ )
+        {
+            words.add( String.format( "word%06d", i ) );
+        }
+        final SortedWordFile sortedWordFile = makeFile( words );
+
+        Assert.assertEquals( 100_000, sortedWordFile.size() );
+        Assert.assertTrue( sortedWordFile.contains( "word000000" ) );
+        Assert.assertTrue( sortedWordFile.contains( "word065600" ) );
+        Assert.assertTrue( sortedWordFile.contains( "word099999" ) );
+        Assert.assertFalse( sortedWordFile.contains( "word100000" ) );
+    }
+
+    @Test
+    public void testClose()
+            throws Exception
+    {
+        final SortedWordFile sortedWordFile = makeFile( makeWords() );
+        final ClosableIterator<String> iterator = sortedWordFile.iterator();
+        Assert.assertTrue( iterator.hasNext() );
+        iterator.next();
+
+        sortedWordFile.close();
+        Assert.assertFalse( sortedWordFile.contains( "password0001" ) );
+
+        // an iterator opened before close ends rather than reading released memory
+        iterator.forEachRemaining( word -> Assert.assertNotNull( word ) );
+        sortedWordFile.close();
+    }
+
+    private SortedWordFile makeFile( final List<String> words )
+            throws Exception
+    {
+        final File file = temporaryFolder.newFile();
+        try ( SortedWordFile.Writer writer = new SortedWordFile.Writer( file ) )
+        {
+            for ( final String word : words )
+            {
+                writer.add( word.getBytes( StandardCharsets.UTF_8 ) );
+            }
+        }
+        return SortedWordFile.open( file );
+    }
+
+    private static List<String> makeWords()
+    {
+        final List<byte[]> byteWords = new ArrayList<>();
+        for ( int i = 0; i < 1999; i++ )
+        {
+            byteWords.add( String.format( "password%04d", i ).getBytes( StandardCharsets.UTF_8 ) );
+        }
+        byteWords.add( "été".getBytes( StandardCharsets.UTF_8 ) );
+        byteWords.sort( SortedWordFile.BYTE_ORDER );
+
+        final List<String> words = new ArrayList<>();
+        for ( final byte[] word : byteWords )
+        {
+            words.add( new String( word, StandardCharsets.UTF_8 ) );
+        }
+        return words;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package password.pwm.svc.wordlist;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+public class WordlistBloomFilterTest
+{
+    private static final int ENTRY_COUNT = 10_000;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testNoFalseNegatives()
+    {
+        final WordlistBloomFilter filter = makeFilter();
+
+        Assert.assertEquals( ENTRY_COUNT, filter.getEntries() );
+        for ( int i = 0; i < ENTRY_COUNT; i++ )
+        {
+            Assert.assertTrue( filter.mightContain( "word" + i ) );
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRate()
+    {
+        final WordlistBloomFilter filter = makeFilter();
+
+        int falsePositives = 0;
+        for ( int i = 0; i < ENTRY_COUNT; i++ )
+        {
+            if ( filter.mightContain( "missing" + i ) )
+            {
+                falsePositives++;
+            }
+        }
+
+        // 10 bits per entry should yield roughly 1% false positives
+        Assert.assertTrue( "false positive count " + falsePositives, falsePositives < ENTRY_COUNT / 20 );
+    }
+
+    @Test
+    public void testWriteAndRead()
+            throws Exception
+    {
+        final WordlistBloomFilter filter = makeFilter();
+        final File file = new File( temporaryFolder.getRoot(), "test.filter" );
+        filter.write( file );
+
+        final WordlistBloomFilter readFilter = WordlistBloomFilter.read( file );
+        Assert.assertTrue( readFilter.matches( "configHash", ENTRY_COUNT ) );
+        Assert.assertFalse( readFilter.matches( "otherHash", ENTRY_COUNT ) );
+        Assert.assertEquals( filter.byteSize(), readFilter.byteSize() );
+        for ( int i = 0; i < ENTRY_COUNT; i++ )
+        {
+            Assert.assertTrue( readFilter.mightContain( "word" + i ) );
+        }
+    }
+
+    private static WordlistBloomFilter makeFilter()
+    {
+        final WordlistBloomFilter.Builder builder = WordlistBloomFilter.builder( ENTRY_COUNT, 10, 1_000_000, "configHash" );
+        for ( int i = 0; i < ENTRY_COUNT; i++ )
+        {
+            builder.add( "word" + i );
+        }
+        return builder.build();
+    }
+}
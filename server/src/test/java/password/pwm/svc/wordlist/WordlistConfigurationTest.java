@@ -0,0 +1,69 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.svc.wordlist;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WordlistConfigurationTest
+{
+    @Test
+    public void testFilterSettingsExcludedFromConfigHash()
+    {
+        final WordlistConfiguration base = WordlistConfiguration.builder()
+                .minWordSize( 2 )
+                .maxWordSize( 64 )
+                .build();
+        final WordlistConfiguration tuned = base.toBuilder()
+                .filterEnabled( true )
+                .filterBitsPerEntry( 16 )
+                .filterMaxBytes( 1024 )
+                .build();
+
+        Assert.assertEquals( base.configHash(), tuned.configHash() );
+        Assert.assertNotEquals( base.filterHash(), tuned.filterHash() );
+    }
+
+    @Test
+    public void testStorageFormatConfigHash()
+    {
+        final WordlistConfiguration base = WordlistConfiguration.builder()
+                .minWordSize( 2 )
+                .maxWordSize( 64 )
+                .build();
+        final WordlistConfiguration explicitDefaults = base.toBuilder()
+                .hashStorage( WordlistHashStorage.Hex )
+                .bucketType( WordlistBucketType.LocalDB )
+                .build();
+        final WordlistConfiguration binary = base.toBuilder()
+                .hashStorage( WordlistHashStorage.Binary )
+                .build();
+        final WordlistConfiguration mapped = base.toBuilder()
+                .bucketType( WordlistBucketType.MappedFile )
+                .build();
+
+        Assert.assertEquals( base.configHash(), explicitDefaults.configHash() );
+        Assert.assertNotEquals( base.configHash(), binary.configHash() );
+        Assert.assertNotEquals( base.configHash(), mapped.configHash() );
+        Assert.assertNotEquals( binary.configHash(), mapped.configHash() );
+    }
+}
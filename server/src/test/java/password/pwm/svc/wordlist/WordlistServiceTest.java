@@ -144,6 +144,23 @@ public class WordlistServiceTest
         Assert.assertTrue( wordlistService.containsWord( "ABCde" ) );
     }
 
+    @Test
+    public void testBinaryHashStorage()
+            throws Exception
+    {
+        final Configuration configuration = Mockito.spy( new Configuration( StoredConfigurationFactory.newConfig() ) );
+        Mockito.when( configuration.readAppProperty( AppProperty.WORDLIST_HASH_STORAGE ) ).thenReturn( WordlistHashStorage.Binary.name() );
+        final WordlistService wordlistService = makeWordlistService( configuration );
+
+        Assert.assertTrue( wordlistService.containsWord( "password-test" ) );
+        Assert.assertTrue( wordlistService.containsWord( "md5-Password-Test" ) );
+        Assert.assertFalse( wordlistService.containsWord( "md5-Password-Test-false" ) );
+        Assert.assertTrue( wordlistService.containsWord( "sha1-Password-Test-Reverse" ) );
+        Assert.assertTrue( wordlistService.containsWord( "sha256-Password-Test" ) );
+        Assert.assertTrue( wordlistService.containsWord( "sha512-Password-Test-Reverse" ) );
+        Assert.assertFalse( wordlistService.containsWord( "sha512-Password-Test-Reverse-false" ) );
+    }
+
     private WordlistService makeWordlistService( final Configuration inputConfiguration )
             throws Exception
     {
@@ -0,0 +1,112 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class IPPrefixMatcherTest
+{
+    @Test
+    public void testRangeSyntax() throws Exception
+    {
+        final IPPrefixMatcher matcher = IPPrefixMatcher.compile( Arrays.asList(
+                "10.1",
+                "192.168.5.0/24",
+                "172.16.0.0/255.240.0.0",
+                "203.0.113.7",
+                "2001:db8::/32",
+                "fe80::1/128",
+                "not-an-address",
+                ""
+        ) );
+
+        Assert.assertEquals( 6, matcher.size() );
+        Assert.assertTrue( matcher.match( "10.1.200.3" ) );
+        Assert.assertFalse( matcher.match( "10.2.0.1" ) );
+        Assert.assertTrue( matcher.match( "192.168.5.255" ) );
+        Assert.assertFalse( matcher.match( "192.168.6.0" ) );
+        Assert.assertTrue( matcher.match( "172.31.255.1" ) );
+        Assert.assertFalse( matcher.match( "172.32.0.1" ) );
+        Assert.assertTrue( matcher.match( "203.0.113.7" ) );
+        Assert.assertFalse( matcher.match( "203.0.113.8" ) );
+        Assert.assertTrue( matcher.match( "2001:db8:1234::1" ) );
+        Assert.assertFalse( matcher.match( "2001:db9::1" ) );
+        Assert.assertTrue( matcher.match( "fe80::1" ) );
+        Assert.assertFalse( matcher.match( "fe80::2" ) );
+    }
+
+    @Test
+    public void testNonContiguousMask() throws Exception
+    {
+        final IPPrefixMatcher matcher = IPPrefixMatcher.compile( Collections.singletonList( "10.0.5.0/255.0.255.0" ) );
+        Assert.assertTrue( matcher.match( "10.77.5.1" ) );
+        Assert.assertFalse( matcher.match( "10.77.6.1" ) );
+    }
+
+    @Test
+    public void testEmpty() throws Exception
+    {
+        Assert.assertTrue( IPPrefixMatcher.compile( Collections.emptyList() ).isEmpty() );
+        Assert.assertFalse( IPPrefixMatcher.empty().match( "10.0.0.1" ) );
+    }
+
+    @Test
+    public void testMatchesLinearMatcher() throws Exception
+    {
+        final Random random = new Random( 4242 );
+        final List<String> ranges = new ArrayList<>();
+        for ( int i = 0; i < 2000; i++ )
+        {
+            ranges.add( randomIPv4( random ) + "/" + ( 8 + random.nextInt( 25 ) ) );
+        }
+
+        final IPPrefixMatcher prefixMatcher = IPPrefixMatcher.compile( ranges );
+        final List<IPMatcher> linearMatchers = new ArrayList<>();
+        for ( final String range : ranges )
+        {
+            linearMatchers.add( new IPMatcher( range ) );
+        }
+
+        for ( int i = 0; i < 5000; i++ )
+        {
+            final String address = randomIPv4( random );
+            boolean expected = false;
+            for ( final IPMatcher ipMatcher : linearMatchers )
+            {
+                expected = expected || ipMatcher.match( address );
+            }
+            Assert.assertEquals( address, expected, prefixMatcher.match( address ) );
+        }
+    }
+
+    private static String randomIPv4( final Random random )
+    {
+        return random.nextInt( 256 ) + "." + random.nextInt( 256 ) + "." + random.nextInt( 256 ) + "." + random.nextInt( 256 );
+    }
+}
@@ -33,9 +33,14 @@ import password.pwm.config.value.PasswordValue;
 import password.pwm.config.value.StringValue;
 import password.pwm.util.PasswordData;
 import password.pwm.util.java.ClosableIterator;
+import password.pwm.util.java.LogLinearHistogram;
 import password.pwm.util.localdb.TestHelper;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class DatabaseServiceTest
@@ -79,6 +84,21 @@ public class DatabaseServiceTest
     }
 
 
+    @Test
+    public void testLatencyDebugString()
+    {
+        final LogLinearHistogram histogram = new LogLinearHistogram();
+        for ( int i = 0; i < 99; i++ )
+        {
+            histogram.update( 100 );
+        }
+        histogram.update( 50_000 );
+
+        Assert.assertEquals(
+                "count=100, avg=0.60ms, p50=0.10ms, p95=0.10ms, p99=0.10ms, max=50.00ms",
+                DatabaseService.latencyDebugString( histogram.snapshot() ) );
+    }
+
     @Test
     public void testGetPut() throws Exception
     {
@@ -215,4 +235,30 @@ public class DatabaseServiceTest
         Assert.assertEquals( "value1", accessor.get( TEST_TABLE, "key1" ) );
         Assert.assertEquals( 1, accessor.size( TEST_TABLE ) );
     }
+
+    @Test
+    public void testBulkOperations() throws Exception
+    {
+        final DatabaseAccessor accessor = makeAccessor( temporaryFolder );
+        accessor.put( TEST_TABLE, "0key", "oldvalue" );
+
+        final Map<String, String> values = new LinkedHashMap<>();
+        for ( int i = 0; i < TEST_COUNTS; i++ )
+        {
+            values.put( i + "key", i + "value" );
+        }
+        accessor.putAll( TEST_TABLE, values );
+        Assert.assertEquals( TEST_COUNTS, accessor.size( TEST_TABLE ) );
+
+        final List<String> keys = new ArrayList<>( values.keySet() );
+        keys.add( "missingkey" );
+        final Map<String, String> readValues = accessor.getAll( TEST_TABLE, keys );
+        Assert.assertEquals( values, readValues );
+
+        accessor.removeAll( TEST_TABLE, keys.subList( 0, TEST_COUNTS / 2 ) );
+        Assert.assertEquals( TEST_COUNTS - TEST_COUNTS / 2, accessor.size( TEST_TABLE ) );
+        Assert.assertFalse( accessor.contains( TEST_TABLE, "0key" ) );
+        Assert.assertTrue( accessor.contains( TEST_TABLE, ( TEST_COUNTS - 1 ) + "key" ) );
+        Assert.assertTrue( accessor.getAll( TEST_TABLE, Collections.emptyList() ).isEmpty() );
+    }
 }
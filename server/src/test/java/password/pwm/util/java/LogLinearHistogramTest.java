@@ -0,0 +1,114 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package password.pwm.util.java;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LogLinearHistogramTest
+{
+    @Test
+    public void testBucketBounds()
+    {
+        long previousUpperBound = -1;
+        for ( int i = 0; i < LogLinearHistogram.BUCKET_COUNT; i++ )
+        {
+            final long upperBound = LogLinearHistogram.bucketUpperBound( i );
+            Assert.assertEquals( i, LogLinearHistogram.bucketIndex( upperBound ) );
+            Assert.assertEquals( i, LogLinearHistogram.bucketIndex( previousUpperBound + 1 ) );
+            previousUpperBound = upperBound;
+        }
+        Assert.assertEquals( Long.MAX_VALUE, previousUpperBound );
+    }
+
+    @Test
+    public void testPercentiles()
+    {
+        final LogLinearHistogram histogram = new LogLinearHistogram();
+        for ( int i = 1; i <= 1000; i++ )
+        {
+            histogram.update( i );
+        }
+
+        final LogLinearHistogram.Snapshot snapshot = histogram.snapshot();
+        Assert.assertEquals( 1000, snapshot.getCount() );
+        Assert.assertEquals( 500, snapshot.getMean() );
+        Assert.assertEquals( 1000, snapshot.getMax() );
+        assertWithin( 500, snapshot.getPercentile( 50 ) );
+        assertWithin( 950, snapshot.getPercentile( 95 ) );
+        assertWithin( 990, snapshot.getPercentile( 99 ) );
+        Assert.assertEquals( 1000, snapshot.getPercentile( 100 ) );
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws InterruptedException
+    {
+        final LogLinearHistogram histogram = new LogLinearHistogram();
+        final List<Thread> threads = new ArrayList<>();
+        for ( int t = 0; t < 8; t++ )
+        {
+            final Thread thread = new Thread( () ->
+            {
+                for ( int i = 0; i < 10_000; i++ )
+                {
+                    histogram.update( i % 100 );
+                }
+            } );
+            threads.add( thread );
+            thread.start();
+        }
+        for ( final Thread thread : threads )
+        {
+            thread.join();
+        }
+
+        final LogLinearHistogram.Snapshot snapshot = histogram.snapshot();
+        Assert.assertEquals( 80_000, snapshot.getCount() );
+        Assert.assertEquals( 8 * 100 * 4950, snapshot.getSum() );
+        Assert.assertEquals( 99, snapshot.getMax() );
+    }
+
+    @Test
+    public void testSnapshotRoundTrip()
+    {
+        final LogLinearHistogram histogram = new LogLinearHistogram();
+        histogram.update( 3 );
+        histogram.update( 300 );
+        histogram.update( 30_000 );
+
+        final String json = JsonUtil.serialize( histogram.snapshot() );
+        final LogLinearHistogram.Snapshot restored = LogLinearHistogram.fromSnapshot(
+                JsonUtil.deserialize( json, LogLinearHistogram.Snapshot.class ) ).snapshot();
+        Assert.assertEquals( histogram.snapshot(), restored );
+
+        final LogLinearHistogram.Snapshot legacy = LogLinearHistogram.approximateFromMean( 4, 400 );
+        Assert.assertEquals( 100, legacy.getMean() );
+        Assert.assertEquals( 100, legacy.getPercentile( 99 ) );
+    }
+
+    private static void assertWithin( final long expected, final long actual )
+    {
+        Assert.assertTrue( "expected ~" + expected + " but was " + actual, Math.abs( actual - expected ) <= expected / 16 + 1 );
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.util.localdb;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class LocalDBExportImportTest
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testBinaryRoundTrip() throws Exception
+    {
+        testRoundTrip( LocalDBUtility.ExportFormat.BINARY );
+    }
+
+    @Test
+    public void testCsvRoundTrip() throws Exception
+    {
+        testRoundTrip( LocalDBUtility.ExportFormat.CSV );
+    }
+
+    @Test
+    public void testXodusSnapshotIsPointInTime() throws Exception
+    {
+        final LocalDB localDB = LocalDBFactory.getInstance( temporaryFolder.newFolder(), false, null, null );
+        try
+        {
+            localDB.put( LocalDB.DB.TEMP, "key1", "value1" );
+            try ( LocalDB.Snapshot snapshot = localDB.snapshot() )
+            {
+                Assert.assertTrue( snapshot.isPointInTime() );
+                localDB.put( LocalDB.DB.TEMP, "key2", "value2" );
+                localDB.put( LocalDB.DB.TEMP, "key1", "changed" );
+
+                final Map<String, String> snapshotValues = readAll( snapshot.iterator( LocalDB.DB.TEMP ) );
+                Assert.assertEquals( 1, snapshotValues.size() );
+                Assert.assertEquals( "value1", snapshotValues.get( "key1" ) );
+            }
+            Assert.assertEquals( 2, localDB.size( LocalDB.DB.TEMP ) );
+        }
+        finally
+        {
+            localDB.close();
+        }
+    }
+
+    private void testRoundTrip( final LocalDBUtility.ExportFormat exportFormat ) throws Exception
+    {
+        final Map<String, String> responses = new TreeMap<>();
+        for ( int i = 0; i < 25_000; i++ )
+        {
+            responses.put( "user" + i, "response-é-" + i );
+        }
+
+        final ByteArrayOutputStream exportBytes = new ByteArrayOutputStream();
+        final LocalDB sourceDB = LocalDBFactory.getInstance( temporaryFolder.newFolder(), false, null, null );
+        try
+        {
+            sourceDB.putAll( LocalDB.DB.RESPONSE_STORAGE, responses );
+            sourceDB.put( LocalDB.DB.OTP_SECRET, "otp", "secret" );
+            sourceDB.put( LocalDB.DB.TEMP, "temp", "not backed up" );
+            new LocalDBUtility( sourceDB ).exportLocalDB( exportBytes, null, exportFormat );
+        }
+        finally
+        {
+            sourceDB.close();
+        }
+
+        final LocalDB targetDB = LocalDBFactory.getInstance( temporaryFolder.newFolder(), false, null, null );
+        try
+        {
+            targetDB.put( LocalDB.DB.OTP_SECRET, "stale", "removed by import" );
+            final LocalDBUtility localDBUtility = new LocalDBUtility( targetDB );
+            localDBUtility.importLocalDB( new ByteArrayInputStream( exportBytes.toByteArray() ), null );
+
+            Assert.assertFalse( localDBUtility.readImportInprogressFlag() );
+            Assert.assertEquals( responses, readAll( targetDB.iterator( LocalDB.DB.RESPONSE_STORAGE ) ) );
+            Assert.assertEquals( 1, targetDB.size( LocalDB.DB.OTP_SECRET ) );
+            Assert.assertEquals( "secret", targetDB.get( LocalDB.DB.OTP_SECRET, "otp" ) );
+            Assert.assertEquals( 0, targetDB.size( LocalDB.DB.TEMP ) );
+        }
+        finally
+        {
+            targetDB.close();
+        }
+    }
+
+    private static Map<String, String> readAll( final LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator )
+    {
+        final Map<String, String> values = new TreeMap<>();
+        try ( iterator )
+        {
+            while ( iterator.hasNext() )
+            {
+                final Map.Entry<String, String> entry = iterator.next();
+                values.put( entry.getKey(), entry.getValue() );
+            }
+        }
+        return values;
+    }
+}
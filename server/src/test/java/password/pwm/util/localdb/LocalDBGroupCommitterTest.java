@@ -0,0 +1,177 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.util.localdb;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import password.pwm.error.ErrorInformation;
+import password.pwm.error.PwmError;
+import password.pwm.util.java.TimeDuration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+public class LocalDBGroupCommitterTest
+{
+    private FailingMemoryLocalDB innerDB;
+    private LocalDBAdaptor localDB;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        final Map<LocalDB.DB, LocalDB.Durability> durabilityModes = new EnumMap<>( LocalDB.DB.class );
+        durabilityModes.put( LocalDB.DB.TEMP, LocalDB.Durability.ASYNC );
+        durabilityModes.put( LocalDB.DB.CACHE, LocalDB.Durability.GROUP );
+
+        innerDB = new FailingMemoryLocalDB();
+        localDB = new LocalDBAdaptor( innerDB, durabilityModes, TimeDuration.of( 1, TimeDuration.Unit.SECONDS ), 10_000 );
+        localDB.init( null, Collections.emptyMap(), Collections.emptyMap() );
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        localDB.close();
+    }
+
+    @Test
+    public void testAsyncReadsOwnWrites() throws Exception
+    {
+        Assert.assertFalse( localDB.put( LocalDB.DB.TEMP, "key1", "value1" ) );
+        Assert.assertTrue( localDB.put( LocalDB.DB.TEMP, "key1", "value2" ) );
+        Assert.assertEquals( "value2", localDB.get( LocalDB.DB.TEMP, "key1" ) );
+        Assert.assertTrue( localDB.contains( LocalDB.DB.TEMP, "key1" ) );
+
+        Assert.assertTrue( localDB.remove( LocalDB.DB.TEMP, "key1" ) );
+        Assert.assertNull( localDB.get( LocalDB.DB.TEMP, "key1" ) );
+        Assert.assertFalse( localDB.contains( LocalDB.DB.TEMP, "key1" ) );
+        Assert.assertFalse( localDB.remove( LocalDB.DB.TEMP, "key1" ) );
+
+        localDB.put( LocalDB.DB.TEMP, "key2", "value3" );
+
+        // size() commits buffered writes before reading the provider
+        Assert.assertEquals( 1, localDB.size( LocalDB.DB.TEMP ) );
+        Assert.assertEquals( "value3", innerDB.get( LocalDB.DB.TEMP, "key2" ) );
+        Assert.assertFalse( innerDB.contains( LocalDB.DB.TEMP, "key1" ) );
+    }
+
+    @Test
+    public void testGroupWritesCommitBeforeReturning() throws Exception
+    {
+        final int threadCount = 8;
+        final Thread[] threads = new Thread[ threadCount ];
+        for ( int i = 0; i < threadCount; i++ )
+        {
+            final String key = "key" + i;
+            threads[ i ] = new Thread( () ->
+            {
+                try
+                {
+                    localDB.put( LocalDB.DB.CACHE, key, "value" );
+                }
+                catch ( final LocalDBException e )
+                {
+                    throw new IllegalStateException( e );
+                }
+            } );
+            threads[ i ].start();
+        }
+
+        for ( final Thread thread : threads )
+        {
+            thread.join();
+        }
+
+        for ( int i = 0; i < threadCount; i++ )
+        {
+            Assert.assertEquals( "value", innerDB.get( LocalDB.DB.CACHE, "key" + i ) );
+        }
+    }
+
+    @Test
+    public void testFailedAsyncCommitIsRetried() throws Exception
+    {
+        innerDB.failWrites = true;
+        localDB.put( LocalDB.DB.TEMP, "key1", "value1" );
+        localDB.put( LocalDB.DB.TEMP, "key2", "value2" );
+
+        try
+        {
+            localDB.size( LocalDB.DB.TEMP );
+            Assert.fail( "expected failed commit to be reported" );
+        }
+        catch ( final LocalDBException e )
+        {
+            // expected
+        }
+
+        // the failed writes stay readable and a newer write to the same key wins
+        Assert.assertEquals( "value1", localDB.get( LocalDB.DB.TEMP, "key1" ) );
+        localDB.put( LocalDB.DB.TEMP, "key2", "value3" );
+
+        innerDB.failWrites = false;
+        Assert.assertEquals( 2, localDB.size( LocalDB.DB.TEMP ) );
+        Assert.assertEquals( "value1", innerDB.get( LocalDB.DB.TEMP, "key1" ) );
+        Assert.assertEquals( "value3", innerDB.get( LocalDB.DB.TEMP, "key2" ) );
+    }
+
+    @Test
+    public void testGetAllKeepsRequestedKeyOrder() throws Exception
+    {
+        innerDB.put( LocalDB.DB.TEMP, "key1", "value1" );
+        innerDB.put( LocalDB.DB.TEMP, "key3", "value3" );
+        localDB.put( LocalDB.DB.TEMP, "key2", "value2" );
+        localDB.put( LocalDB.DB.TEMP, "key4", "value4" );
+
+        final Map<String, String> values = localDB.getAll( LocalDB.DB.TEMP, List.of( "key4", "key3", "key2", "key1" ) );
+        Assert.assertEquals( List.of( "key4", "key3", "key2", "key1" ), new ArrayList<>( values.keySet() ) );
+        Assert.assertEquals( List.of( "value4", "value3", "value2", "value1" ), new ArrayList<>( values.values() ) );
+    }
+
+    @Test
+    public void testSyncDatabaseIsNotBuffered() throws Exception
+    {
+        localDB.put( LocalDB.DB.PWM_META, "key1", "value1" );
+        Assert.assertEquals( "value1", innerDB.get( LocalDB.DB.PWM_META, "key1" ) );
+    }
+
+    private static class FailingMemoryLocalDB extends MemoryLocalDB
+    {
+        private volatile boolean failWrites;
+
+        @Override
+        public void putAll( final LocalDB.DB db, final Map<String, String> keyValueMap )
+                throws LocalDBException
+        {
+            if ( failWrites )
+            {
+                throw new LocalDBException( new ErrorInformation( PwmError.ERROR_LOCALDB_UNAVAILABLE, "simulated write failure" ) );
+            }
+            super.putAll( db, keyValueMap );
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.util.localdb;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class LocalDBRangeIteratorTest
+{
+    private static final LocalDB.DB TEST_DB = LocalDB.DB.TEMP;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testXodusRangeOperations() throws Exception
+    {
+        final LocalDB localDB = LocalDBFactory.getInstance( temporaryFolder.newFolder(), false, null, null );
+        try
+        {
+            testRangeOperations( localDB );
+        }
+        finally
+        {
+            localDB.close();
+        }
+    }
+
+    @Test
+    public void testDefaultRangeOperations() throws Exception
+    {
+        final LocalDBAdaptor localDB = new LocalDBAdaptor( new MemoryLocalDB() );
+        localDB.init( null, Collections.emptyMap(), Collections.emptyMap() );
+        try
+        {
+            testRangeOperations( localDB );
+        }
+        finally
+        {
+            localDB.close();
+        }
+    }
+
+    @Test
+    public void testPrefixUpperBound()
+    {
+        Assert.assertEquals( "ab", LocalDBUtility.prefixUpperBound( "aa" ) );
+        Assert.assertEquals( "b", LocalDBUtility.prefixUpperBound( "a" + Character.MAX_VALUE ) );
+        Assert.assertNull( LocalDBUtility.prefixUpperBound( String.valueOf( Character.MAX_VALUE ) ) );
+    }
+
+    private static void testRangeOperations( final LocalDB localDB ) throws LocalDBException
+    {
+        final Map<String, String> values = new TreeMap<>();
+        for ( final String prefix : Arrays.asList( "a", "b", "c" ) )
+        {
+            for ( int i = 0; i < 10; i++ )
+            {
+                values.put( prefix + i, "value-" + prefix + i );
+            }
+        }
+        localDB.putAll( TEST_DB, values );
+
+        Assert.assertEquals( Arrays.asList( "b0", "b1", "b2", "b3", "b4", "b5", "b6", "b7", "b8", "b9" ), keys( localDB.prefixIterator( TEST_DB, "b" ) ) );
+        Assert.assertEquals( Arrays.asList( "a8", "a9", "b0" ), keys( localDB.iterator( TEST_DB, "a8", "b1" ) ) );
+        Assert.assertEquals( Arrays.asList( "c8", "c9" ), keys( localDB.iterator( TEST_DB, "c8", null ) ) );
+        Assert.assertEquals( Arrays.asList( "a0", "a1" ), keys( localDB.iterator( TEST_DB, null, "a2" ) ) );
+        Assert.assertEquals( Collections.emptyList(), keys( localDB.prefixIterator( TEST_DB, "d" ) ) );
+
+        final Map<String, String> found = localDB.getAll( TEST_DB, Arrays.asList( "c3", "missing", "a1" ) );
+        Assert.assertEquals( Arrays.asList( "c3", "a1" ), new ArrayList<>( found.keySet() ) );
+        Assert.assertEquals( "value-a1", found.get( "a1" ) );
+    }
+
+    private static List<String> keys( final LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator )
+    {
+        final List<String> keys = new ArrayList<>();
+        try ( iterator )
+        {
+            while ( iterator.hasNext() )
+            {
+                keys.add( iterator.next().getKey() );
+            }
+        }
+        return keys;
+    }
+}
@@ -31,6 +31,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 
@@ -41,6 +42,7 @@ public class LocalDBStoredQueueTest
     @Rule
     public TemporaryFolder testFolder = new TemporaryFolder();
 
+    private LocalDB localDB;
     private LocalDBStoredQueue localDBStoredQueue;
 
     @Before
@@ -48,7 +50,7 @@ public class LocalDBStoredQueueTest
     {
         final File localDbTestFolder = testFolder.newFolder( "test-stored-queue-test" );
         final PwmApplication pwmApplication = TestHelper.makeTestPwmApplication( localDbTestFolder );
-        final LocalDB localDB = LocalDBFactory.getInstance( localDbTestFolder, false, pwmApplication.getPwmEnvironment(), pwmApplication.getConfig() );
+        localDB = LocalDBFactory.getInstance( localDbTestFolder, false, pwmApplication.getPwmEnvironment(), pwmApplication.getConfig() );
         localDBStoredQueue = LocalDBStoredQueue.createLocalDBStoredQueue( localDB, LocalDB.DB.TEMP, true );
     }
 
@@ -534,6 +536,71 @@ public class LocalDBStoredQueueTest
         }
     }
 
+    @Test
+    public void testPeekFirstWithOffset()
+    {
+        for ( int i = 0; i < MAX_PROBLEM_SIZE; i++ )
+        {
+            localDBStoredQueue.addLast( String.valueOf( i ) );
+        }
+
+        final List<String> secondBatch = localDBStoredQueue.peekFirst( 10, 10 );
+        Assert.assertEquals( 10, secondBatch.size() );
+        for ( int i = 0; i < 10; i++ )
+        {
+            Assert.assertEquals( String.valueOf( i + 10 ), secondBatch.get( i ) );
+        }
+        Assert.assertEquals( MAX_PROBLEM_SIZE, localDBStoredQueue.size() );
+
+        final List<String> remainder = localDBStoredQueue.peekFirst( 10, MAX_PROBLEM_SIZE * 2 );
+        Assert.assertEquals( MAX_PROBLEM_SIZE - 10, remainder.size() );
+        Assert.assertEquals( String.valueOf( MAX_PROBLEM_SIZE - 1 ), remainder.get( remainder.size() - 1 ) );
+        Assert.assertTrue( localDBStoredQueue.peekFirst( MAX_PROBLEM_SIZE, 10 ).isEmpty() );
+
+        localDBStoredQueue.removeFirst( 5 );
+        Assert.assertEquals( "15", localDBStoredQueue.peekFirst( 10, 1 ).get( 0 ) );
+    }
+
+    @Test
+    public void testMissingValuesAreSkipped() throws LocalDBException
+    {
+        for ( int i = 0; i < 10; i++ )
+        {
+            localDBStoredQueue.addLast( String.valueOf( i ) );
+        }
+
+        // remove the stored value for "3" directly, leaving a gap in the queue's key range
+        String gapKey = null;
+        try ( LocalDB.LocalDBIterator<Map.Entry<String, String>> iterator = localDB.iterator( LocalDB.DB.TEMP ) )
+        {
+            while ( iterator.hasNext() )
+            {
+                final Map.Entry<String, String> entry = iterator.next();
+                if ( "3".equals( entry.getValue() ) )
+                {
+                    gapKey = entry.getKey();
+                }
+            }
+        }
+        Assert.assertNotNull( gapKey );
+        localDB.remove( LocalDB.DB.TEMP, gapKey );
+
+        final List<String> peeked = localDBStoredQueue.peekFirst( 0, 10 );
+        Assert.assertEquals( List.of( "0", "1", "2", "4", "5", "6", "7", "8", "9" ), peeked );
+
+        final List<String> polled = new ArrayList<>();
+        for ( int i = 0; i < 10; i++ )
+        {
+            final String value = localDBStoredQueue.pollFirst();
+            if ( value != null )
+            {
+                polled.add( value );
+            }
+        }
+        Assert.assertEquals( peeked, polled );
+        Assert.assertTrue( localDBStoredQueue.isEmpty() );
+    }
+
     private static void addValues( final LocalDBStoredQueue localDBStoredQueue, final int count )
     {
         final List<String> addValues = new ArrayList<>();
@@ -0,0 +1,251 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.util.localdb;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import password.pwm.PwmApplication;
+import password.pwm.util.java.TimeDuration;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WorkQueueProcessorTest
+{
+    private static final int ITEMS_PER_KEY = 20;
+    private static final List<String> KEYS = List.of( "a", "b", "c", "d" );
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private PwmApplication pwmApplication;
+    private LocalDBStoredQueue localDBStoredQueue;
+    private WorkQueueProcessor<String> workQueueProcessor;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        final File localDbTestFolder = testFolder.newFolder( "test-work-queue" );
+        pwmApplication = TestHelper.makeTestPwmApplication( localDbTestFolder );
+        final LocalDB localDB = LocalDBFactory.getInstance( localDbTestFolder, false, pwmApplication.getPwmEnvironment(), pwmApplication.getConfig() );
+        localDBStoredQueue = LocalDBStoredQueue.createLocalDBStoredQueue( localDB, LocalDB.DB.TEMP, false );
+    }
+
+    @After
+    public void tearDown()
+    {
+        if ( workQueueProcessor != null )
+        {
+            workQueueProcessor.close();
+        }
+    }
+
+    @Test
+    public void testParallelOrderedProcessing() throws Exception
+    {
+        final RecordingProcessor processor = new RecordingProcessor( Collections.emptySet() );
+        workQueueProcessor = makeProcessor( processor, TimeDuration.SECOND );
+
+        submitItems();
+        waitForCompletion( processor );
+
+        for ( final String key : KEYS )
+        {
+            Assert.assertEquals( expectedSequence(), processor.processed.get( key ) );
+        }
+    }
+
+    @Test
+    public void testRetryDoesNotBlockOtherKeys() throws Exception
+    {
+        final RecordingProcessor processor = new RecordingProcessor( Collections.singleton( "a:0" ) );
+        workQueueProcessor = makeProcessor( processor, TimeDuration.of( 5, TimeDuration.Unit.SECONDS ) );
+
+        submitItems();
+        waitForCompletion( processor );
+
+        for ( final String key : KEYS )
+        {
+            Assert.assertEquals( expectedSequence(), processor.processed.get( key ) );
+        }
+
+        // other keys completed while the first item of key "a" was waiting for its retry interval
+        Assert.assertTrue( processor.completionOrder.indexOf( "b:" + ( ITEMS_PER_KEY - 1 ) ) < processor.completionOrder.indexOf( "a:0" ) );
+    }
+
+    @Test
+    public void testItemsStayQueuedUntilProcessed() throws Exception
+    {
+        final CountDownLatch processingStarted = new CountDownLatch( 1 );
+        final CountDownLatch releaseProcessing = new CountDownLatch( 1 );
+        final RecordingProcessor processor = new RecordingProcessor( Collections.emptySet() )
+        {
+            @Override
+            public WorkQueueProcessor.ProcessResult process( final String workItem )
+            {
+                processingStarted.countDown();
+                try
+                {
+                    releaseProcessing.await( 30, TimeUnit.SECONDS );
+                }
+                catch ( final InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                }
+                return super.process( workItem );
+            }
+        };
+        workQueueProcessor = makeProcessor( processor, TimeDuration.SECOND );
+
+        submitItems();
+        Assert.assertTrue( processingStarted.await( 30, TimeUnit.SECONDS ) );
+
+        // dispatched items are leased, not removed, until they complete
+        Assert.assertEquals( ITEMS_PER_KEY * KEYS.size(), localDBStoredQueue.size() );
+
+        releaseProcessing.countDown();
+        waitForCompletion( processor );
+        TimeDuration.of( 10, TimeDuration.Unit.SECONDS ).pause( TimeDuration.of( 10, TimeDuration.Unit.MILLISECONDS ), localDBStoredQueue::isEmpty );
+        Assert.assertTrue( localDBStoredQueue.isEmpty() );
+    }
+
+    @Test
+    public void testUnfinishedItemsRemainAfterClose() throws Exception
+    {
+        // every attempt fails, so no item is ever finished before the processor is closed
+        final AtomicInteger attempts = new AtomicInteger();
+        final RecordingProcessor failingProcessor = new RecordingProcessor( Collections.emptySet() )
+        {
+            @Override
+            public WorkQueueProcessor.ProcessResult process( final String workItem )
+            {
+                attempts.incrementAndGet();
+                return WorkQueueProcessor.ProcessResult.RETRY;
+            }
+        };
+        workQueueProcessor = makeProcessor( failingProcessor, TimeDuration.SECOND );
+        submitItems();
+        TimeDuration.of( 30, TimeDuration.Unit.SECONDS ).pause( TimeDuration.of( 10, TimeDuration.Unit.MILLISECONDS ),
+                () -> attempts.get() >= ITEMS_PER_KEY * KEYS.size() );
+        workQueueProcessor.close();
+        Assert.assertEquals( ITEMS_PER_KEY * KEYS.size(), localDBStoredQueue.size() );
+
+        final RecordingProcessor processor = new RecordingProcessor( Collections.emptySet() );
+        workQueueProcessor = makeProcessor( processor, TimeDuration.SECOND );
+        waitForCompletion( processor );
+
+        for ( final String key : KEYS )
+        {
+            Assert.assertEquals( expectedSequence(), processor.processed.get( key ) );
+        }
+    }
+
+    private WorkQueueProcessor<String> makeProcessor( final RecordingProcessor processor, final TimeDuration retryInterval )
+    {
+        final WorkQueueProcessor.Settings settings = WorkQueueProcessor.Settings.builder()
+                .workerThreads( 3 )
+                .dequeueBatchSize( 5 )
+                .retryInterval( retryInterval )
+                .build();
+        return new WorkQueueProcessor<>( pwmApplication, localDBStoredQueue, settings, processor, WorkQueueProcessorTest.class );
+    }
+
+    private void submitItems() throws Exception
+    {
+        for ( int i = 0; i < ITEMS_PER_KEY; i++ )
+        {
+            for ( final String key : KEYS )
+            {
+                workQueueProcessor.submit( key + ":" + i );
+            }
+        }
+    }
+
+    private static void waitForCompletion( final RecordingProcessor processor )
+    {
+        final int expectedCount = ITEMS_PER_KEY * KEYS.size();
+        TimeDuration.of( 30, TimeDuration.Unit.SECONDS ).pause(
+                TimeDuration.of( 10, TimeDuration.Unit.MILLISECONDS ),
+                () -> processor.completionOrder.size() >= expectedCount );
+        Assert.assertEquals( expectedCount, processor.completionOrder.size() );
+    }
+
+    private static List<Integer> expectedSequence()
+    {
+        final List<Integer> values = new ArrayList<>();
+        for ( int i = 0; i < ITEMS_PER_KEY; i++ )
+        {
+            values.add( i );
+        }
+        return values;
+    }
+
+    private static class RecordingProcessor implements WorkQueueProcessor.ItemProcessor<String>
+    {
+        private final Set<String> retryOnce = ConcurrentHashMap.newKeySet();
+        private final Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+        private final List<String> completionOrder = Collections.synchronizedList( new ArrayList<>() );
+
+        RecordingProcessor( final Set<String> retryOnce )
+        {
+            this.retryOnce.addAll( retryOnce );
+        }
+
+        @Override
+        public WorkQueueProcessor.ProcessResult process( final String workItem )
+        {
+            if ( retryOnce.remove( workItem ) )
+            {
+                return WorkQueueProcessor.ProcessResult.RETRY;
+            }
+
+            final int sequence = Integer.parseInt( workItem.substring( workItem.indexOf( ':' ) + 1 ) );
+            processed.computeIfAbsent( orderingKey( workItem ), k -> Collections.synchronizedList( new ArrayList<>() ) ).add( sequence );
+            completionOrder.add( workItem );
+            return WorkQueueProcessor.ProcessResult.SUCCESS;
+        }
+
+        @Override
+        public String convertToDebugString( final String workItem )
+        {
+            return workItem;
+        }
+
+        @Override
+        public String orderingKey( final String workItem )
+        {
+            return workItem.substring( 0, workItem.indexOf( ':' ) );
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.util.localdb;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import password.pwm.AppProperty;
+import password.pwm.config.Configuration;
+import password.pwm.util.java.TimeDuration;
+
+import java.io.File;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class XodusValueDictionaryTest
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testTrainedDictionaryRoundTrip()
+    {
+        final List<byte[]> samples = new ArrayList<>();
+        for ( int i = 0; i < 500; i++ )
+        {
+            samples.add( makeRecord( i ).getBytes( StandardCharsets.UTF_8 ) );
+        }
+
+        final byte[] dictionaryBytes = XodusValueDictionary.train( samples, XodusValueDictionary.MAX_DICTIONARY_SIZE );
+        Assert.assertTrue( dictionaryBytes.length > 0 );
+        Assert.assertTrue( dictionaryBytes.length <= XodusValueDictionary.MAX_DICTIONARY_SIZE );
+
+        final XodusValueDictionary dictionary = new XodusValueDictionary( 1, dictionaryBytes );
+        final byte[] record = makeRecord( 1234 ).getBytes( StandardCharsets.UTF_8 );
+        final byte[] compressed = dictionary.compress( record, record.length );
+        Assert.assertNotNull( compressed );
+        Assert.assertTrue( compressed.length < record.length / 2 );
+        Assert.assertArrayEquals( record, dictionary.decompress( compressed, 0, compressed.length ) );
+
+        Assert.assertNull( dictionary.compress( record, 2 ) );
+    }
+
+    @Test
+    public void testDictionaryPersistence() throws Exception
+    {
+        final File localDBDirectory = temporaryFolder.newFolder();
+        final LocalDB.DB db = LocalDB.DB.USER_CACHE;
+        final Configuration configuration = makeDictionaryConfiguration();
+
+        {
+            final LocalDB localDB = LocalDBFactory.getInstance( localDBDirectory, false, null, configuration );
+            for ( int i = 0; i < 500; i++ )
+            {
+                localDB.put( db, "user" + i, makeRecord( i ) );
+            }
+            localDB.close();
+        }
+
+        {
+            final LocalDB localDB = LocalDBFactory.getInstance( localDBDirectory, false, null, configuration );
+
+            // training runs on a background thread when the db is opened
+            final Instant startTime = Instant.now();
+            while ( Integer.valueOf( 0 ).equals( localDB.debugInfo().get( "dictionary." + db + ".version" ) )
+                    && TimeDuration.fromCurrent( startTime ).isShorterThan( TimeDuration.SECONDS_30 ) )
+            {
+                TimeDuration.of( 100, TimeDuration.Unit.MILLISECONDS ).pause();
+            }
+            for ( int i = 500; i < 1000; i++ )
+            {
+                localDB.put( db, "user" + i, makeRecord( i ) );
+            }
+
+            final Map<String, Serializable> debugInfo = localDB.debugInfo();
+            Assert.assertEquals( 1, debugInfo.get( "dictionary." + db + ".version" ) );
+            Assert.assertTrue( ( Long ) debugInfo.get( "dictionary." + db + ".bytesSaved" ) > 0 );
+
+            // dictionary keys are reserved and survive a truncate of the meta DB
+            localDB.put( LocalDB.DB.PWM_META, "xodus.dictionary." + db + ".1", "bogus" );
+            localDB.truncate( LocalDB.DB.PWM_META );
+            localDB.close();
+        }
+
+        {
+            final LocalDB localDB = LocalDBFactory.getInstance( localDBDirectory, false, null, configuration );
+            for ( int i = 0; i < 1000; i++ )
+            {
+                Assert.assertEquals( makeRecord( i ), localDB.get( db, "user" + i ) );
+            }
+            localDB.close();
+        }
+    }
+
+    private static Configuration makeDictionaryConfiguration()
+    {
+        final Configuration configuration = Mockito.mock( Configuration.class );
+        Mockito.when( configuration.readAppProperty( ArgumentMatchers.any() ) )
+                .thenAnswer( invocation -> ( ( AppProperty ) invocation.getArgument( 0 ) ).getDefaultValue() );
+        Mockito.when( configuration.readAppProperty( AppProperty.LOCALDB_INIT_STRING ) )
+                .thenReturn( AppProperty.LOCALDB_INIT_STRING.getDefaultValue() + ";;;xodus.compression.dictionary.enabled=true" );
+        return configuration;
+    }
+
+    private static String makeRecord( final int index )
+    {
+        return "{\"userDN\":\"cn=user" + index + ",ou=people,o=example\",\"ldapProfile\":\"default\","
+                + "\"userGUID\":\"" + Integer.toHexString( index * 7919 ) + "\",\"passwordStatus\":{\"expired\":false,"
+                + "\"preExpired\":false,\"violatesPolicy\":false,\"warnPeriod\":" + ( index % 2 == 0 ) + "},"
+                + "\"passwordExpirationTime\":\"2026-0" + ( index % 9 + 1 ) + "-15T10:00:00Z\"}";
+    }
+}
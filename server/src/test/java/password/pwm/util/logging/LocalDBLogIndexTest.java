@@ -0,0 +1,202 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://www.pwm-project.org
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2023 The PWM Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package password.pwm.util.logging;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import password.pwm.PwmApplication;
+import password.pwm.bean.SessionLabel;
+import password.pwm.util.localdb.LocalDB;
+import password.pwm.util.localdb.LocalDBFactory;
+import password.pwm.util.localdb.LocalDBStoredQueue;
+import password.pwm.util.localdb.TestHelper;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class LocalDBLogIndexTest
+{
+    private static final int EVENT_COUNT = 1500;
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private LocalDBStoredQueue queue;
+    private Instant baseTime;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        final File localDbTestFolder = testFolder.newFolder( "test-log-index" );
+        final PwmApplication pwmApplication = TestHelper.makeTestPwmApplication( localDbTestFolder );
+        final LocalDB localDB = LocalDBFactory.getInstance( localDbTestFolder, false, pwmApplication.getPwmEnvironment(), pwmApplication.getConfig() );
+        queue = LocalDBStoredQueue.createLocalDBStoredQueue( localDB, LocalDB.DB.TEMP, false );
+        baseTime = Instant.now().minusSeconds( EVENT_COUNT );
+    }
+
+    @Test
+    public void testIndexedSearchMatchesFullScan() throws Exception
+    {
+        final LocalDBLogIndex index = new LocalDBLogIndex( queue.headKey(), queue.size() );
+        addEvents( index, 0, EVENT_COUNT );
+
+        assertSearchesMatch( index );
+
+        // trim oldest events from both the queue and the index
+        queue.removeLast( 500 );
+        index.trim( 500 );
+        assertSearchesMatch( index );
+    }
+
+    @Test
+    public void testBuildFromExistingQueue() throws Exception
+    {
+        final LocalDBLogIndex writerIndex = new LocalDBLogIndex( queue.headKey(), queue.size() );
+        addEvents( writerIndex, 0, EVENT_COUNT );
+
+        final LocalDBLogIndex builtIndex = new LocalDBLogIndex( queue.headKey(), queue.size() );
+        Assert.assertFalse( builtIndex.isComplete() );
+
+        // trims during build are deferred until the build completes
+        queue.removeLast( 100 );
+        builtIndex.trim( 100 );
+        builtIndex.build( queue, PwmLogEventDecoder.INSTANCE::decode );
+        Assert.assertTrue( builtIndex.isComplete() );
+        assertSearchesMatch( builtIndex );
+
+        addEvents( builtIndex, EVENT_COUNT, 200 );
+        assertSearchesMatch( builtIndex );
+    }
+
+    @Test
+    public void testRangedSearchSkipsOutOfRangeSegments() throws Exception
+    {
+        final LocalDBLogIndex index = new LocalDBLogIndex( queue.headKey(), queue.size() );
+        addEvents( index, 0, EVENT_COUNT );
+
+        final Instant startTime = baseTime.plusSeconds( 1000 );
+        final Instant endTime = baseTime.plusSeconds( 1200 );
+        final LocalDBLogQuery logQuery = new LocalDBLogQuery( LocalDBSearchQuery.builder()
+                .startTime( startTime )
+                .endTime( endTime )
+                .build() );
+
+        final LocalDBStoredQueue spyQueue = Mockito.spy( queue );
+        final List<String> results = collect( index.search( spyQueue, logQuery ), logQuery );
+        Assert.assertEquals( collect( queue.iterator(), logQuery ), results );
+        Assert.assertFalse( results.isEmpty() );
+
+        // only segments overlapping the range are read from the queue
+        final long maxOverlappingSegments = ( endTime.toEpochMilli() - startTime.toEpochMilli() ) / LocalDBLogIndex.SEGMENT_DURATION_MS + 2;
+        final ArgumentCaptor<Long> countCaptor = ArgumentCaptor.forClass( Long.class );
+        Mockito.verify( spyQueue, Mockito.atLeastOnce() ).iterator( ArgumentMatchers.anyString(), countCaptor.capture() );
+        Assert.assertTrue( countCaptor.getAllValues().size() <= maxOverlappingSegments );
+        Assert.assertTrue( index.segmentCount() > maxOverlappingSegments );
+        final long readCount = countCaptor.getAllValues().stream().mapToLong( Long::longValue ).sum();
+        Assert.assertTrue( readCount < EVENT_COUNT / 2 );
+    }
+
+    private void assertSearchesMatch( final LocalDBLogIndex index )
+    {
+        final List<LocalDBSearchQuery> queries = new ArrayList<>();
+        queries.add( LocalDBSearchQuery.builder().build() );
+        queries.add( LocalDBSearchQuery.builder().username( "user7" ).build() );
+        queries.add( LocalDBSearchQuery.builder().username( "user1[0-2]" ).build() );
+        queries.add( LocalDBSearchQuery.builder().minimumLevel( PwmLogLevel.ERROR ).build() );
+        queries.add( LocalDBSearchQuery.builder().eventType( LocalDBLogger.EventType.System ).build() );
+        queries.add( LocalDBSearchQuery.builder().text( "MESSAGE 12" ).build() );
+        queries.add( LocalDBSearchQuery.builder()
+                .startTime( baseTime.plusSeconds( 1000 ) )
+                .endTime( baseTime.plusSeconds( 1200 ) )
+                .build() );
+
+        for ( final LocalDBSearchQuery searchQuery : queries )
+        {
+            final LocalDBLogQuery logQuery = new LocalDBLogQuery( searchQuery );
+            final List<String> fullScan = collect( queue.iterator(), logQuery );
+            final List<String> indexed = collect( index.search( queue, logQuery ), logQuery );
+            Assert.assertEquals( searchQuery.toString(), fullScan, indexed );
+        }
+    }
+
+    private void addEvents( final LocalDBLogIndex index, final int start, final int count ) throws Exception
+    {
+        final int batchSize = 97;
+        for ( int batchStart = start; batchStart < start + count; batchStart += batchSize )
+        {
+            final List<PwmLogEvent> events = new ArrayList<>();
+            final List<String> encoded = new ArrayList<>();
+            for ( int i = batchStart; i < Math.min( start + count, batchStart + batchSize ); i++ )
+            {
+                final SessionLabel sessionLabel = i % 5 == 0
+                        ? null
+                        : SessionLabel.builder().sessionID( "s" + i ).username( "user" + ( i % 50 ) ).build();
+                final PwmLogLevel level = PwmLogLevel.values()[ i % PwmLogLevel.values().length ];
+                final PwmLogEvent event = PwmLogEvent.createPwmLogEvent( baseTime.plusSeconds( i ), "topic", "message " + i, sessionLabel, null, level );
+                events.add( event );
+                encoded.add( event.toEncodedString() );
+            }
+            queue.addAll( encoded );
+            index.append( events, queue.headKey() );
+        }
+    }
+
+    private static List<String> collect( final Iterator<String> iterator, final LocalDBLogQuery logQuery )
+    {
+        final List<String> results = new ArrayList<>();
+        while ( iterator.hasNext() )
+        {
+            final String value = iterator.next();
+            if ( value != null && logQuery.matches( PwmLogEventDecoder.INSTANCE.decode( value ) ) )
+            {
+                results.add( value );
+            }
+        }
+        return results;
+    }
+
+    private enum PwmLogEventDecoder
+    {
+        INSTANCE;
+
+        PwmLogEvent decode( final String value )
+        {
+            try
+            {
+                return PwmLogEvent.fromEncodedString( value );
+            }
+            catch ( final Exception e )
+            {
+                throw new IllegalStateException( e );
+            }
+        }
+    }
+}
@@ -30,8 +30,10 @@ import password.pwm.config.PwmSetting;
 import password.pwm.error.PwmUnrecoverableException;
 import password.pwm.util.SampleDataGenerator;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.concurrent.TimeUnit;
 
 public class MacroTest
@@ -48,6 +50,37 @@ public class MacroTest
     }
 
 
+    @Test
+    public void testCompiledTemplates() throws Exception
+    {
+        // strings without macros are returned as-is
+        {
+            final String input = "no macros here";
+            Assert.assertSame( input, macroRequest.expandMacros( input ) );
+        }
+
+        // stray delimiters are left alone
+        {
+            final String input = "mail user@example.com or @unknown@ today";
+            Assert.assertEquals( input, macroRequest.expandMacros( input ) );
+        }
+
+        // repeated macros and repeated expansion of the same cached template
+        {
+            final String goal = "user@example.com " + PwmConstants.PWM_APP_NAME + "/" + PwmConstants.PWM_APP_NAME;
+            final String input = "user@example.com @PwmAppName@/@PwmAppName@";
+            Assert.assertEquals( goal, macroRequest.expandMacros( input ) );
+            Assert.assertEquals( goal, macroRequest.expandMacros( input ) );
+        }
+
+        // nested macro inside a post macro
+        {
+            final String goal = "x" + Base64.getEncoder().encodeToString( ( "[" + PwmConstants.PWM_APP_NAME + "]" ).getBytes( StandardCharsets.UTF_8 ) ) + "x";
+            final String expanded = macroRequest.expandMacros( "x@Encode:base64:[[[@PwmAppName@]]]@x" );
+            Assert.assertEquals( goal, expanded );
+        }
+    }
+
     @Test
     public void testStaticMacros() throws Exception
     {
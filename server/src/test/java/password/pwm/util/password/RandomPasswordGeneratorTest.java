@@ -143,6 +143,71 @@ public class RandomPasswordGeneratorTest
         generalPolicyTester( policyMap, List.of( new DupeValueChecker() ), LOOP_COUNT );
     }
 
+    @Test
+    public void strictPolicyGeneratorModeTest()
+            throws Throwable
+    {
+        final Map<String, String> policyMap = new HashMap<>( PwmPasswordPolicy.defaultPolicy().getPolicyMap() );
+        policyMap.put( PwmPasswordRule.MinimumLength.getKey(), "16" );
+        policyMap.put( PwmPasswordRule.MaximumLength.getKey(), "20" );
+        policyMap.put( PwmPasswordRule.MinimumUpperCase.getKey(), "3" );
+        policyMap.put( PwmPasswordRule.MaximumUpperCase.getKey(), "4" );
+        policyMap.put( PwmPasswordRule.MinimumLowerCase.getKey(), "3" );
+        policyMap.put( PwmPasswordRule.MaximumLowerCase.getKey(), "6" );
+        policyMap.put( PwmPasswordRule.AllowNumeric.getKey(), "true" );
+        policyMap.put( PwmPasswordRule.AllowFirstCharNumeric.getKey(), "false" );
+        policyMap.put( PwmPasswordRule.AllowLastCharNumeric.getKey(), "false" );
+        policyMap.put( PwmPasswordRule.MinimumNumeric.getKey(), "3" );
+        policyMap.put( PwmPasswordRule.MaximumNumeric.getKey(), "4" );
+        policyMap.put( PwmPasswordRule.AllowSpecial.getKey(), "true" );
+        policyMap.put( PwmPasswordRule.AllowFirstCharSpecial.getKey(), "false" );
+        policyMap.put( PwmPasswordRule.AllowLastCharSpecial.getKey(), "false" );
+        policyMap.put( PwmPasswordRule.MinimumSpecial.getKey(), "3" );
+        policyMap.put( PwmPasswordRule.MaximumSpecial.getKey(), "4" );
+        policyMap.put( PwmPasswordRule.MaximumRepeat.getKey(), "2" );
+        policyMap.put( PwmPasswordRule.MaximumSequentialRepeat.getKey(), "1" );
+        policyMap.put( PwmPasswordRule.MaximumConsecutive.getKey(), "3" );
+        policyMap.put( PwmPasswordRule.MinimumUnique.getKey(), "12" );
+
+        final PwmApplication pwmApplication = TestHelper.makeTestPwmApplication( temporaryFolder.newFolder() );
+        final PwmPasswordPolicy pwmPasswordPolicy = PwmPasswordPolicy.createPwmPasswordPolicy( policyMap );
+        final RandomPasswordGenerator.RandomGeneratorConfig randomGeneratorConfig = RandomPasswordGenerator.RandomGeneratorConfig
+                .fromPolicy( pwmApplication.getConfig(), pwmPasswordPolicy );
+
+        for ( final RandomPasswordGenerator.GeneratorMode generatorMode : RandomPasswordGenerator.GeneratorMode.values() )
+        {
+            final DupeValueChecker dupeValueChecker = new DupeValueChecker();
+            for ( int i = 0; i < LOOP_COUNT; i++ )
+            {
+                final String passwordString = RandomPasswordGenerator.createRandomPassword(
+                        null,
+                        randomGeneratorConfig,
+                        pwmApplication,
+                        generatorMode ).getStringValue();
+
+                final List<ErrorInformation> errors = PasswordRuleChecks.extendedPolicyRuleChecker( pwmApplication,
+                        pwmPasswordPolicy, passwordString, null, null, PwmPasswordRuleValidator.Flag.FailFast );
+                if ( !errors.isEmpty() )
+                {
+                    Assert.fail( generatorMode + " random generated rule failed validation check: " + errors.get( 0 ).toDebugStr()
+                            + "; password: " + passwordString );
+                }
+                dupeValueChecker.accept( passwordString );
+            }
+        }
+    }
+
+    @Test
+    public void constructiveModeKeepsSeedWordsTest()
+    {
+        Assert.assertTrue( RandomPasswordGenerator.useConstructiveGeneration(
+                RandomPasswordGenerator.GeneratorMode.CONSTRUCTIVE, RandomPasswordGenerator.DEFAULT_SEED_PHRASES ) );
+        Assert.assertFalse( RandomPasswordGenerator.useConstructiveGeneration(
+                RandomPasswordGenerator.GeneratorMode.CONSTRUCTIVE, Set.of( "a", "B", "Correct7Horse" ) ) );
+        Assert.assertFalse( RandomPasswordGenerator.useConstructiveGeneration(
+                RandomPasswordGenerator.GeneratorMode.ITERATIVE, RandomPasswordGenerator.DEFAULT_SEED_PHRASES ) );
+    }
+
     @Test
     public void testLargePasswordSizes()
             throws Throwable
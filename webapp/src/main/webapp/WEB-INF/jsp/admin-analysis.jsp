@@ -32,6 +32,7 @@
 <%@ page import="password.pwm.svc.stats.StatisticsBundle" %>
 <%@ page import="password.pwm.svc.stats.StatisticsManager" %>
 <%@ page import="password.pwm.util.java.JavaHelper" %>
+<%@ page import="password.pwm.util.java.LogLinearHistogram" %>
 <%@ page import="java.util.Locale" %>
 <%@ page import="java.util.Map" %>
 <%@ page import="password.pwm.util.java.StringUtil" %>
@@ -224,7 +225,14 @@
                                         <span id="Statistic_Key_<%=loopStat.getKey()%>"><%= loopStat.getLabel(locale) %><span/>
                                     </td>
                                     <td>
-                                        <%= stats.getAvgStatistic(loopStat) %><%= loopStat.getUnit() %>
+                                        <% final LogLinearHistogram.Snapshot histogram = stats.getAvgStatisticHistogram(loopStat); %>
+                                        <%= histogram.getMean() %><%= loopStat.getUnit() %>
+                                        <% if (histogram.getCount() > 0) { %>
+                                        (p50 <%= histogram.getPercentile(50) %><%= loopStat.getUnit() %>,
+                                        p95 <%= histogram.getPercentile(95) %><%= loopStat.getUnit() %>,
+                                        p99 <%= histogram.getPercentile(99) %><%= loopStat.getUnit() %>,
+                                        max <%= histogram.getMax() %><%= loopStat.getUnit() %>)
+                                        <% } %>
                                     </td>
                                 </tr>
                                 <% } %>